@@ -18,6 +18,8 @@ package com.tc.object;
 
 import com.tc.server.ServerEvent;
 
+import java.util.List;
+
 /**
  * @author Eugene Shelestovich
  */
@@ -27,5 +29,14 @@ public interface ServerEventDestination {
 
   void handleServerEvent(ServerEvent event);
 
+  /**
+   * Delivers consecutive events for this destination in one call, in the order they were received.
+   */
+  default void handleServerEvents(List<ServerEvent> events) {
+    for (ServerEvent event : events) {
+      handleServerEvent(event);
+    }
+  }
+
   void resendEventRegistrations();
 }
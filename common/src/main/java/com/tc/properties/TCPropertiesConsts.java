@@ -111,6 +111,11 @@ public interface TCPropertiesConsts {
    *                                   - NONE : just send it immediately
    *                                   - RELAYED : make sure it's relayed to all passives
    *                                   - DISK : make sure it's on disk (only applicable when restartable is on)
+   * groupCommit.enabled          : Lets an apply thread commit the transactions queued behind each other to disk
+   *                                together (only applicable when restartable is on)
+   * groupCommit.maxTransactions  : Max number of transactions held for one group commit
+   * groupCommit.maxObjects       : Max number of objects held for one group commit
+   * groupCommit.maxDelayMillis   : Max time the first transaction of a group commit waits for more to join
    * </code>
    ********************************************************************************************************************/
   public static final String L2_TRANSACTIONMANAGER_LOGGING_ENABLED                          = "l2.transactionmanager.logging.enabled";
@@ -122,6 +127,10 @@ public interface TCPropertiesConsts {
   public static final String L2_TRANSACTIONMANAGER_PASSIVE_THROTTLE_THRESHOLD               = "l2.transactionmanager.passive.throttle.threshold";
   public static final String L2_TRANSACTIONMANAGER_PASSIVE_THROTTLE_MAXSLEEPSECONDS         = "l2.transactionmanager.passive.throttle.maxSleepSeconds";
   public static final String L2_TRANSACTIONMANAGER_BROADCAST_DURABILITY_LEVEL               = "l2.transactionmanager.broadcast.durability.level";
+  public static final String L2_TRANSACTIONMANAGER_GROUPCOMMIT_ENABLED                      = "l2.transactionmanager.groupCommit.enabled";
+  public static final String L2_TRANSACTIONMANAGER_GROUPCOMMIT_MAXTRANSACTIONS              = "l2.transactionmanager.groupCommit.maxTransactions";
+  public static final String L2_TRANSACTIONMANAGER_GROUPCOMMIT_MAXOBJECTS                   = "l2.transactionmanager.groupCommit.maxObjects";
+  public static final String L2_TRANSACTIONMANAGER_GROUPCOMMIT_MAXDELAYMILLIS               = "l2.transactionmanager.groupCommit.maxDelayMillis";
 
   /*********************************************************************************************************************
    * <code>
@@ -149,6 +158,8 @@ public interface TCPropertiesConsts {
    * dgc.inline.maxObjects          - Maximum inline dgc batch size
    * dgc.inline.cleanup.delaySeconds - Seconds to delay the start of inline dgc cleanup after a server becomes active
    * l2.objectmanager.invalidate.strong.cache.enabled - Enable/disable invalidations for strong cache
+   * recovery.threads               - Number of threads replaying persistent data and rebuilding the object id
+   *                                  sets on restart
    * </code>
    ********************************************************************************************************************/
 
@@ -171,6 +182,7 @@ public interface TCPropertiesConsts {
   public static final String L2_OBJECTMANAGER_INVALIDATE_STRONG_CACHE_ENABLED               = "l2.objectmanager.invalidateStrongCache.enabled";
   public static final String L2_OBJECTMANAGER_OIDSET_TYPE                                   = "l2.objectmanager.oidset.type";
   public static final String L2_OBJECTMANAGER_CLIENT_STATE_VERBOSE_THRESHOLD                = "l2.objectmanager.client.state.verbose.threshold";
+  public static final String L2_OBJECTMANAGER_RECOVERY_THREADS                              = "l2.objectmanager.recovery.threads";
 
   /**
    * ******************************************************************************************************************
@@ -197,6 +209,20 @@ public interface TCPropertiesConsts {
   public static final String L2_FRS_COMPACTOR_SIZEBASED_AMOUNT                              = L2_FRS_PREFIX
                                                                                               + ".compactor.sizeBased.amount";
 
+  /*********************************************************************************************************************
+   * <code>
+   * Section : L2 Append Only Log Properties
+   * Description : This section contains configuration for the memory mapped log backing restartable open source L2s
+   * segment.size                       : Size in bytes of each memory mapped log segment file
+   * compaction.minSize                 : Log size in bytes below which the log is never compacted
+   * compaction.ratio                   : Compact once the log grows past this many times its size after the last
+   *                                      compaction
+   * </code>
+   ********************************************************************************************************************/
+  public static final String L2_LOG_SEGMENT_SIZE                                            = "l2.log.segment.size";
+  public static final String L2_LOG_COMPACTION_MIN_SIZE                                     = "l2.log.compaction.minSize";
+  public static final String L2_LOG_COMPACTION_RATIO                                        = "l2.log.compaction.ratio";
+
   /*********************************************************************************************************************
    * <code>
    * Section : L2 Seda stage properties
@@ -250,6 +276,8 @@ public interface TCPropertiesConsts {
    * tcgroupcomm.reconnect.enabled        - Enable L2-L2 reconnect
    * send.timeout.millis                  - Number of milliseconds to retry sending a message
    * dirtydb.backup.enabled               - Creates BackUp of DirtyDB only If it is set to true.
+   * replication.lanes                    - Threads relaying transactions on the active and reading them on the
+   *                                        passive, order is restored by sequence before they are applied
    * </code>
    ********************************************************************************************************************/
   public static final String L2_NHA_TCGROUPCOMM_HANDSHAKE_TIMEOUT                           = "l2.nha.tcgroupcomm.handshake.timeout";
@@ -266,6 +294,7 @@ public interface TCPropertiesConsts {
   public static final String L2_NHA_DIRTYDB_ROLLING                                         = "l2.nha.dirtydb.rolling";
   public static final String L2_NHA_AUTORESTART                                             = "l2.nha.autoRestart";
   public static final String L2_NHA_DIRTYDB_BACKUP_ENABLED                                  = "l2.nha.dirtydb.backup.enabled";
+  public static final String L2_NHA_REPLICATION_LANES                                       = "l2.nha.replication.lanes";
 
   /*********************************************************************************************************************
    * <code>
@@ -434,12 +463,20 @@ public interface TCPropertiesConsts {
    * removed.objects.send.timer : Max interval in milliseconds before sending a batch of removed object ids
    * removed.objects.threshold : Max number of removed objects before immediately sending a batch of removed ids.
    * fault.count               : Default number of additional reachable objects to also fault when requesting a remote object
+   * remote.prefetch.adaptive.enabled : Enable/disable learning of fault patterns to speculatively prefetch neighbours
+   * remote.prefetch.maxTracked       : Maximum number of objects whose neighbours are remembered
+   * remote.prefetch.maxNeighbours    : Maximum number of neighbours learned and prefetched per object
+   * remote.prefetch.burstWindow      : Time in milliseconds within which consecutive faults are considered related
    * </code>
    ********************************************************************************************************************/
   public static final String L1_OBJECTMANAGER_REMOTE_MAX_DNALRU_SIZE                        = "l1.objectmanager.remote.maxDNALRUSize";
   public static final String L1_OBJECTMANAGER_REMOTE_LOGGING_ENABLED                        = "l1.objectmanager.remote.logging.enabled";
   public static final String L1_OBJECTMANAGER_REMOTE_MAX_REQUEST_SENT_IMMEDIATELY           = "l1.objectmanager.remote.maxRequestSentImmediately";
   public static final String L1_OBJECTMANAGER_REMOTE_BATCH_LOOKUP_TIME_PERIOD               = "l1.objectmanager.remote.batchLookupTimePeriod";
+  public static final String L1_OBJECTMANAGER_REMOTE_PREFETCH_ADAPTIVE_ENABLED              = "l1.objectmanager.remote.prefetch.adaptive.enabled";
+  public static final String L1_OBJECTMANAGER_REMOTE_PREFETCH_MAX_TRACKED                   = "l1.objectmanager.remote.prefetch.maxTracked";
+  public static final String L1_OBJECTMANAGER_REMOTE_PREFETCH_MAX_NEIGHBOURS                = "l1.objectmanager.remote.prefetch.maxNeighbours";
+  public static final String L1_OBJECTMANAGER_REMOTE_PREFETCH_BURST_WINDOW                  = "l1.objectmanager.remote.prefetch.burstWindow";
   public static final String L1_OBJECTMANAGER_OBJECTID_REQUEST_SIZE                         = "l1.objectmanager.objectid.request.size";
   public static final String L1_OBJECTMANAGER_FLUSH_LOGGING_ENABLED                         = "l1.objectmanager.flush.logging.enabled";
   public static final String L1_OBJECTMANAGER_FAULT_LOGGING_ENABLED                         = "l1.objectmanager.fault.logging.enabled";
@@ -659,6 +696,16 @@ public interface TCPropertiesConsts {
   public static final String NET_CORE_KEEPALIVE                                             = "net.core.keepalive";
   public static final String NET_CORE_TCP_NO_DELAY                                          = "net.core.tcpnodelay";
 
+  /*********************************************************************************************************************
+   * <code>
+   * Section : Once-And-Only-Once Delivery Settings
+   * sendqueue.maxBytes  : Bytes of messages queued per connection before senders block, 0 for no limit
+   * sendWindow.maxBytes : Bytes of sent messages kept per connection for replay until acked, 0 for no limit
+   * </code>
+   ********************************************************************************************************************/
+  public static final String NET_OOO_SENDQUEUE_MAX_BYTES                                    = "net.ooo.sendqueue.maxBytes";
+  public static final String NET_OOO_SENDWINDOW_MAX_BYTES                                   = "net.ooo.sendWindow.maxBytes";
+
   /*********************************************************************************************************************
    * <code>
    *  Section : HealthChecker { server-&gt;client, server-&gt;server (HA), client-&gt;server }
@@ -888,6 +935,8 @@ public interface TCPropertiesConsts {
   String                     L1_SERVER_EVENT_DELIVERY_THREADS                               = "l1.serverEvent.delivery.threads";
   String                     L1_SERVER_EVENT_DELIVERY_QUEUE_SIZE                            = "l1.serverEvent.delivery.queueSize";
   String                     L1_SERVER_EVENT_DELIVERY_TIMEOUT_INTERVAL                      = "l1.serverEvent.delivery.timeout.intervalInSec";
+  String                     L1_SERVER_EVENT_DELIVERY_LANE_QUEUE_SIZE                       = "l1.serverEvent.delivery.lane.queueSize";
+  String                     L1_SERVER_EVENT_DELIVERY_LANE_BATCH_SIZE                       = "l1.serverEvent.delivery.lane.batchSize";
 
   /*********************************************************************************************************************
    * <code>
@@ -906,6 +955,31 @@ public interface TCPropertiesConsts {
   public static final String TOOLKIT_NOTIFIER_THREADS                                       = "toolkit.notifier.threads";
   public static final String TOOLKIT_NOTIFIER_QUEUE_SIZE                                    = "toolkit.notifier.queueSize";
 
+  /*********************************************************************************************************************
+   * <code>
+   * Section :  Toolkit Local Store Settings
+   * toolkit.localstore.offheap.enabled  - Use the built-in offheap local store for caches with maxBytesLocalOffheap set
+   * toolkit.localstore.offheap.segments - Number of lock stripes (and slab sets) per store
+   * toolkit.localstore.offheap.slabSize - Size in bytes of each direct memory slab
+   * </code>
+   ********************************************************************************************************************/
+  public static final String TOOLKIT_LOCAL_STORE_OFFHEAP_ENABLED                            = "toolkit.localstore.offheap.enabled";
+  public static final String TOOLKIT_LOCAL_STORE_OFFHEAP_SEGMENTS                           = "toolkit.localstore.offheap.segments";
+  public static final String TOOLKIT_LOCAL_STORE_OFFHEAP_SLAB_SIZE                          = "toolkit.localstore.offheap.slabSize";
+
+  /*********************************************************************************************************************
+   * <code>
+   * Section :  Toolkit Map Settings
+   * toolkit.map.segments           - Number of separately locked and faulted segments a toolkit map is split into,
+   *                                  1 keeps every map in a single object. Must be the same on all clients, and not
+   *                                  be changed for a map that already holds data.
+   * toolkit.map.iteration.pageSize - Number of values of an eventual cache faulted with one request while iterating
+   *                                  its entries or values, 1 faults them one at a time
+   * </code>
+   ********************************************************************************************************************/
+  public static final String TOOLKIT_MAP_SEGMENTS                                           = "toolkit.map.segments";
+  public static final String TOOLKIT_MAP_ITERATION_PAGE_SIZE                                = "toolkit.map.iteration.pageSize";
+
   /*
    * For enabling CAS logging
    */
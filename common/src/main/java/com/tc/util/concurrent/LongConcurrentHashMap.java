@@ -0,0 +1,237 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.util.concurrent;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Concurrent hash map from primitive <tt>long</tt> keys to objects, for identifiers that are backed by a long. The
+ * keys are split over lock striped {@link LongHashMap} segments, so no entry, node or boxed key is allocated per
+ * mapping. Null values are not allowed.
+ * <p>
+ * Lookups do not lock: they read the segment table optimistically and validate against the segment's
+ * {@link StampedLock} that no update overlapped them, and only take the read lock if one did.
+ */
+public class LongConcurrentHashMap<V> {
+  private static final int        DEFAULT_SEGMENTS = 16;
+
+  private final Segment<V>[]      segments;
+  private final int               segmentShift;
+
+  public LongConcurrentHashMap() {
+    this(DEFAULT_SEGMENTS);
+  }
+
+  /**
+   * @param concurrency expected number of concurrently updating threads, rounded up to a power of two
+   */
+  @SuppressWarnings("unchecked")
+  public LongConcurrentHashMap(int concurrency) {
+    int count = 1;
+    int bits = 0;
+    while (count < concurrency) {
+      count <<= 1;
+      bits++;
+    }
+    segments = new Segment[count];
+    for (int i = 0; i < count; i++) {
+      segments[i] = new Segment<V>();
+    }
+    // segments use the top bits of the mixed key, slots within a segment the bottom ones
+    segmentShift = 64 - bits;
+  }
+
+  private Segment<V> segmentFor(long key) {
+    return segments.length == 1 ? segments[0] : segments[(int) (LongHashMap.mix(key) >>> segmentShift)];
+  }
+
+  public V get(long key) {
+    Segment<V> segment = segmentFor(key);
+    long stamp = segment.lock.tryOptimisticRead();
+    if (stamp != 0) {
+      V value = segment.map.unsafeGet(key);
+      if (segment.lock.validate(stamp)) { return value; }
+    }
+    stamp = segment.lock.readLock();
+    try {
+      return segment.map.get(key);
+    } finally {
+      segment.lock.unlockRead(stamp);
+    }
+  }
+
+  public boolean containsKey(long key) {
+    return get(key) != null;
+  }
+
+  public V put(long key, V value) {
+    Segment<V> segment = segmentFor(key);
+    long stamp = segment.lock.writeLock();
+    try {
+      return segment.map.put(key, value);
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+  }
+
+  public V putIfAbsent(long key, V value) {
+    Segment<V> segment = segmentFor(key);
+    long stamp = segment.lock.writeLock();
+    try {
+      return segment.map.putIfAbsent(key, value);
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * The mapping function runs under the segment lock, it should be short and must not touch this map.
+   */
+  public V computeIfAbsent(long key, LongFunction<? extends V> mappingFunction) {
+    V value = get(key);
+    if (value != null) { return value; }
+    Segment<V> segment = segmentFor(key);
+    long stamp = segment.lock.writeLock();
+    try {
+      value = segment.map.get(key);
+      if (value == null) {
+        value = mappingFunction.apply(key);
+        if (value != null) {
+          segment.map.put(key, value);
+        }
+      }
+      return value;
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+  }
+
+  public V remove(long key) {
+    Segment<V> segment = segmentFor(key);
+    long stamp = segment.lock.writeLock();
+    try {
+      return segment.map.remove(key);
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+  }
+
+  public boolean remove(long key, Object value) {
+    Segment<V> segment = segmentFor(key);
+    long stamp = segment.lock.writeLock();
+    try {
+      return segment.map.remove(key, value);
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Removes matching entries a segment at a time, it is not atomic with respect to the whole map.
+   *
+   * @return number of entries removed
+   */
+  public int removeIf(LongPredicate predicate) {
+    int removed = 0;
+    for (Segment<V> segment : segments) {
+      long stamp = segment.lock.writeLock();
+      try {
+        removed += segment.map.removeIf(predicate);
+      } finally {
+        segment.lock.unlockWrite(stamp);
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Visits the entries a segment at a time, under that segment's read lock. The action must not update this map.
+   */
+  public void forEach(ObjLongConsumer<? super V> action) {
+    for (Segment<V> segment : segments) {
+      long stamp = segment.lock.readLock();
+      try {
+        segment.map.forEach(action);
+      } finally {
+        segment.lock.unlockRead(stamp);
+      }
+    }
+  }
+
+  public int size() {
+    int size = 0;
+    for (Segment<V> segment : segments) {
+      long stamp = segment.lock.readLock();
+      try {
+        size += segment.map.size();
+      } finally {
+        segment.lock.unlockRead(stamp);
+      }
+    }
+    return size;
+  }
+
+  public boolean isEmpty() {
+    for (Segment<V> segment : segments) {
+      long stamp = segment.lock.readLock();
+      try {
+        if (!segment.map.isEmpty()) { return false; }
+      } finally {
+        segment.lock.unlockRead(stamp);
+      }
+    }
+    return true;
+  }
+
+  public void clear() {
+    for (Segment<V> segment : segments) {
+      long stamp = segment.lock.writeLock();
+      try {
+        segment.map.clear();
+      } finally {
+        segment.lock.unlockWrite(stamp);
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("[");
+    for (Segment<V> segment : segments) {
+      long stamp = segment.lock.readLock();
+      try {
+        if (!segment.map.isEmpty()) {
+          if (sb.length() > 1) {
+            sb.append(", ");
+          }
+          sb.append(segment.map);
+        }
+      } finally {
+        segment.lock.unlockRead(stamp);
+      }
+    }
+    return sb.append(']').toString();
+  }
+
+  private static final class Segment<V> {
+    private final StampedLock    lock = new StampedLock();
+    private final LongHashMap<V> map  = new LongHashMap<V>();
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.util.concurrent;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Hash map from primitive <tt>long</tt> keys to objects. Open addressing with linear probing over two flat arrays, so an
+ * entry costs no allocation beyond the value itself, unlike a {@link java.util.HashMap} with boxed keys which costs a
+ * key and an entry object. Null values are not allowed, a null slot marks a free slot.
+ * <p>
+ * This class is not thread safe, see {@link LongConcurrentHashMap} for the concurrent variant.
+ */
+@SuppressWarnings("unchecked")
+public class LongHashMap<V> {
+  private static final int MIN_CAPACITY = 8;
+
+  public interface EntryPredicate<V> {
+    boolean test(long key, V value);
+  }
+
+  private long[]           keys;
+  private Object[]         values;
+  private int              size;
+  private int              mask;
+  private int              resizeAt;
+
+  public LongHashMap() {
+    this(MIN_CAPACITY);
+  }
+
+  public LongHashMap(int expectedSize) {
+    allocate(capacityFor(expectedSize));
+  }
+
+  /**
+   * Spreads the bits of a key, sequential ids are the common case and would otherwise cluster.
+   */
+  static long mix(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return h ^ (h >>> 32);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public V get(long key) {
+    int slot = find(key);
+    return slot < 0 ? null : (V) values[slot];
+  }
+
+  public boolean containsKey(long key) {
+    return find(key) >= 0;
+  }
+
+  /**
+   * Lookup for the optimistic reads of {@link LongConcurrentHashMap}, run without the lock so updates may overlap it.
+   * It neither throws nor probes forever on a torn view of the table, but its result only counts if the caller
+   * validates afterwards that no update overlapped it.
+   */
+  V unsafeGet(long key) {
+    final long[] k = keys;
+    final Object[] v = values;
+    // caught in the middle of a resize
+    if (k.length != v.length) { return null; }
+    final int m = v.length - 1;
+    int slot = (int) mix(key) & m;
+    for (int probes = 0; probes < v.length; probes++) {
+      Object value = v[slot];
+      if (value == null) { return null; }
+      if (k[slot] == key) { return (V) value; }
+      slot = (slot + 1) & m;
+    }
+    return null;
+  }
+
+  /**
+   * @return the previous value for the key, or null
+   */
+  public V put(long key, V value) {
+    if (value == null) { throw new NullPointerException("null value for " + key); }
+    int slot = (int) mix(key) & mask;
+    while (values[slot] != null) {
+      if (keys[slot] == key) {
+        V old = (V) values[slot];
+        values[slot] = value;
+        return old;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    if (++size > resizeAt) {
+      resize(values.length << 1);
+    }
+    return null;
+  }
+
+  /**
+   * @return the existing value for the key, or null if the given value was added
+   */
+  public V putIfAbsent(long key, V value) {
+    V existing = get(key);
+    if (existing != null) { return existing; }
+    put(key, value);
+    return null;
+  }
+
+  /**
+   * @return the removed value, or null
+   */
+  public V remove(long key) {
+    int slot = find(key);
+    if (slot < 0) { return null; }
+    V old = (V) values[slot];
+    delete(slot);
+    return old;
+  }
+
+  public boolean remove(long key, Object value) {
+    int slot = find(key);
+    if (slot < 0 || !values[slot].equals(value)) { return false; }
+    delete(slot);
+    return true;
+  }
+
+  /**
+   * @return number of entries removed
+   */
+  public int removeIf(LongPredicate predicate) {
+    int removed = 0;
+    for (int slot = 0; slot < values.length; slot++) {
+      // a removal shifts the following entries back, so the same slot is looked at again
+      while (values[slot] != null && predicate.test(keys[slot])) {
+        delete(slot);
+        removed++;
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * @return number of entries removed
+   */
+  public int removeIf(EntryPredicate<? super V> predicate) {
+    int removed = 0;
+    for (int slot = 0; slot < values.length; slot++) {
+      while (values[slot] != null && predicate.test(keys[slot], (V) values[slot])) {
+        delete(slot);
+        removed++;
+      }
+    }
+    return removed;
+  }
+
+  public void forEach(ObjLongConsumer<? super V> action) {
+    for (int slot = 0; slot < values.length; slot++) {
+      if (values[slot] != null) {
+        action.accept((V) values[slot], keys[slot]);
+      }
+    }
+  }
+
+  public void clear() {
+    if (size == 0) { return; }
+    Arrays.fill(values, null);
+    size = 0;
+  }
+
+  private int find(long key) {
+    int slot = (int) mix(key) & mask;
+    while (values[slot] != null) {
+      if (keys[slot] == key) { return slot; }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * Backward shift deletion, keeps every probe sequence unbroken without tombstones.
+   */
+  private void delete(int slot) {
+    int gap = slot;
+    int i = slot;
+    while (true) {
+      i = (i + 1) & mask;
+      if (values[i] == null) {
+        break;
+      }
+      int home = (int) mix(keys[i]) & mask;
+      // the entry can fill the gap unless its home lies between the gap and itself
+      if (((i - home) & mask) >= ((i - gap) & mask)) {
+        keys[gap] = keys[i];
+        values[gap] = values[i];
+        gap = i;
+      }
+    }
+    values[gap] = null;
+    size--;
+  }
+
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(capacity);
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] != null) {
+        int slot = (int) mix(oldKeys[i]) & mask;
+        while (values[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+    // linear probing degrades quickly past two thirds full
+    resizeAt = capacity * 2 / 3;
+  }
+
+  private static int capacityFor(int expectedSize) {
+    int capacity = MIN_CAPACITY;
+    while (capacity * 2 / 3 < expectedSize) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("{");
+    forEach(new ObjLongConsumer<V>() {
+      @Override
+      public void accept(V value, long key) {
+        if (sb.length() > 1) {
+          sb.append(", ");
+        }
+        sb.append(key).append('=').append(value);
+      }
+    });
+    return sb.append('}').toString();
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.util.concurrent;
+
+import java.util.function.LongPredicate;
+
+/**
+ * Set of primitive <tt>long</tt> values, backed by a {@link LongHashMap} the way {@link java.util.HashSet} is backed by
+ * a {@link java.util.HashMap}. Not thread safe.
+ */
+public class LongHashSet {
+  private static final Object      PRESENT = Boolean.TRUE;
+
+  private final LongHashMap<Object> map;
+
+  public LongHashSet() {
+    map = new LongHashMap<Object>();
+  }
+
+  public LongHashSet(int expectedSize) {
+    map = new LongHashMap<Object>(expectedSize);
+  }
+
+  /**
+   * @return true if the value was not in the set yet
+   */
+  public boolean add(long value) {
+    return map.put(value, PRESENT) == null;
+  }
+
+  public boolean contains(long value) {
+    return map.containsKey(value);
+  }
+
+  /**
+   * @return true if the value was in the set
+   */
+  public boolean remove(long value) {
+    return map.remove(value) != null;
+  }
+
+  public int removeIf(LongPredicate predicate) {
+    return map.removeIf(predicate);
+  }
+
+  public int size() {
+    return map.size();
+  }
+
+  public boolean isEmpty() {
+    return map.isEmpty();
+  }
+
+  public void clear() {
+    map.clear();
+  }
+}
@@ -18,70 +18,118 @@ package com.tc.util.sequence;
 
 import com.tc.exception.TCRuntimeException;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * This Sequence deals with batches. It keeps a next batch around to avoid pauses and always requests a new next batch
  * as soon as the old next batch is promoted to current batch
+ * <p>
+ * IDs are handed out from the current batch with an atomic increment, only promoting the next batch goes through the
+ * monitor. The size of the batches requested adapts to the rate IDs are used at: it grows while a batch runs out in
+ * less than twice the time a request takes, so the request for the next batch is back before the current one is used
+ * up, and shrinks back towards the initial size while batches last much longer than that.
  * 
  * @author steve, orion
  */
 public final class BatchSequence implements BatchSequenceReceiver, Sequence {
 
-  private static final SequenceBatch  NULL_SEQUENCE_BATCH = new SequenceBatch(0, 0);
+  static final int                    DEFAULT_MAX_GROWTH = 64;
+
+  private static final Batch          NULL_BATCH         = new Batch(0, 0);
 
-  private SequenceBatch               current             = NULL_SEQUENCE_BATCH;
-  private SequenceBatch               nextBatch           = NULL_SEQUENCE_BATCH;
+  private volatile Batch              current            = NULL_BATCH;
+  private volatile Batch              nextBatch          = NULL_BATCH;
   private boolean                     requestInProgress;
+  private long                        requestedAt;
+  private long                        requestLatency;
   private final BatchSequenceProvider remoteProvider;
-  private final int                   batchSize;
+  private final int                   minBatchSize;
+  private final int                   maxBatchSize;
+  private int                         batchSize;
 
   public BatchSequence(BatchSequenceProvider sequenceProvider, int batchSize) {
+    this(sequenceProvider, batchSize, (int) Math.min(Integer.MAX_VALUE, (long) batchSize * DEFAULT_MAX_GROWTH));
+  }
+
+  /**
+   * @param maxBatchSize upper bound for adapting the batch size, equal to batchSize for a fixed size
+   */
+  public BatchSequence(BatchSequenceProvider sequenceProvider, int batchSize, int maxBatchSize) {
+    if (batchSize <= 0 || maxBatchSize < batchSize) { throw new IllegalArgumentException("batchSize: " + batchSize
+                                                                                         + ", maxBatchSize: "
+                                                                                         + maxBatchSize); }
     this.remoteProvider = sequenceProvider;
+    this.minBatchSize = batchSize;
+    this.maxBatchSize = maxBatchSize;
     this.batchSize = batchSize;
   }
 
   @Override
-  public synchronized long next() {
-    requestMoreIDsIfNecessary();
-    return this.current.next();
+  public long next() {
+    Batch batch = this.current;
+    while (true) {
+      long id = batch.next.getAndIncrement();
+      if (id < batch.end) { return id; }
+      batch = promoteNextBatch(batch);
+    }
   }
 
   @Override
-  public synchronized long current() {
-    return this.current.current();
+  public long current() {
+    Batch batch = this.current;
+    return Math.min(batch.next.get(), batch.end) - 1;
   }
 
-  private void requestMoreIDsIfNecessary() {
-
-    // This should only happen the first time
-    while (!this.current.hasNext() && !this.nextBatch.hasNext()) {
+  private synchronized Batch promoteNextBatch(Batch exhausted) {
+    boolean stalled = false;
+    // This should only happen the first time, or when batches are used faster than they can be requested
+    while (this.current == exhausted && !this.nextBatch.hasNext()) {
       if (!this.requestInProgress) {
         requestNextBatch();
       }
+      stalled = true;
       try {
-        if (!this.current.hasNext() && !this.nextBatch.hasNext()) {
-          this.wait();
-        }
+        this.wait();
       } catch (InterruptedException ie) {
         throw new TCRuntimeException(ie);
       }
     }
 
+    // another thread got here first
+    if (this.current != exhausted) { return this.current; }
+
     // This is the more normal case
-    if (!this.current.hasNext()) {
-      this.current = this.nextBatch;
-      this.nextBatch = NULL_SEQUENCE_BATCH;
-      requestNextBatch();
+    adaptBatchSize(exhausted, stalled);
+    Batch promoted = this.nextBatch;
+    promoted.promotedAt = System.nanoTime();
+    this.current = promoted;
+    this.nextBatch = NULL_BATCH;
+    requestNextBatch();
+    return promoted;
+  }
+
+  private void adaptBatchSize(Batch exhausted, boolean stalled) {
+    if (exhausted == NULL_BATCH) { return; }
+    long lifetime = System.nanoTime() - exhausted.promotedAt;
+    if (stalled || lifetime < 2 * this.requestLatency) {
+      this.batchSize = (int) Math.min(this.maxBatchSize, (long) this.batchSize * 2);
+    } else if (lifetime > 8 * this.requestLatency) {
+      this.batchSize = Math.max(this.minBatchSize, this.batchSize / 2);
     }
   }
 
   private void requestNextBatch() {
-    this.remoteProvider.requestBatch(this, this.batchSize);
+    this.requestedAt = System.nanoTime();
     this.requestInProgress = true;
+    this.remoteProvider.requestBatch(this, this.batchSize);
   }
 
   @Override
   public synchronized void setNextBatch(long start, long end) {
-    this.nextBatch = new SequenceBatch(start, end);
+    this.nextBatch = new Batch(start, end);
+    if (this.requestInProgress) {
+      this.requestLatency = System.nanoTime() - this.requestedAt;
+    }
     this.requestInProgress = false;
     this.notifyAll();
   }
@@ -89,11 +137,31 @@ public final class BatchSequence implements BatchSequenceReceiver, Sequence {
   // The currentBatch is not considered here as we want to greedily get the next set even if the
   // current set has some available.
   @Override
-  public synchronized boolean isBatchRequestPending() {
+  public boolean isBatchRequestPending() {
     return !this.nextBatch.hasNext();
   }
 
-  public synchronized BatchSequenceProvider getProvider() {
+  public BatchSequenceProvider getProvider() {
     return this.remoteProvider;
   }
+
+  synchronized int getBatchSize() {
+    return this.batchSize;
+  }
+
+  private static final class Batch {
+    private final AtomicLong next;
+    private final long       end;
+    private long             promotedAt;
+
+    Batch(long start, long end) {
+      this.next = new AtomicLong(start);
+      this.end = end;
+    }
+
+    // IDs are only taken from the current batch, so this is accurate for the next one
+    boolean hasNext() {
+      return next.get() < end;
+    }
+  }
 }
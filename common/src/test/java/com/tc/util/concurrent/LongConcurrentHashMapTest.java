@@ -0,0 +1,139 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class LongConcurrentHashMapTest {
+
+  @Test
+  public void testConcurrentUpdates() throws Exception {
+    final LongConcurrentHashMap<Long> map = new LongConcurrentHashMap<Long>(8);
+    final int threads = 8;
+    final int perThread = 20000;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int t = 0; t < threads; t++) {
+        final long base = (long) t * perThread;
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() {
+            for (long k = base; k < base + perThread; k++) {
+              assertNull(map.put(k, k));
+            }
+            for (long k = base; k < base + perThread; k += 2) {
+              assertEquals(Long.valueOf(k), map.remove(k));
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> f : futures) {
+        f.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(threads * perThread / 2, map.size());
+    for (long k = 0; k < threads * perThread; k++) {
+      assertEquals(k % 2 == 0 ? null : Long.valueOf(k), map.get(k));
+    }
+  }
+
+  @Test
+  public void testComputeIfAbsentAndRemoveIf() throws Exception {
+    LongConcurrentHashMap<StringBuilder> map = new LongConcurrentHashMap<StringBuilder>();
+    StringBuilder first = map.computeIfAbsent(7, k -> new StringBuilder("seven"));
+    assertSame(first, map.computeIfAbsent(7, k -> new StringBuilder("other")));
+    for (long k = 0; k < 100; k++) {
+      map.putIfAbsent(k, new StringBuilder());
+    }
+    assertEquals(100, map.size());
+    assertEquals(50, map.removeIf(k -> k < 50));
+    assertNull(map.get(7));
+    assertEquals(50, map.size());
+    map.clear();
+    assertEquals(0, map.size());
+  }
+
+  @Test
+  public void testLockFreeReadsSeeStableEntriesWhileOthersChurn() throws Exception {
+    final LongConcurrentHashMap<Long> map = new LongConcurrentHashMap<Long>(2);
+    // even keys stay mapped the whole time, odd keys are added and removed, resizing and shifting the tables
+    final int keys = 4096;
+    for (long k = 0; k < keys; k += 2) {
+      map.put(k, k);
+    }
+    final AtomicBoolean done = new AtomicBoolean();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int t = 0; t < 2; t++) {
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() {
+            while (!done.get()) {
+              for (long k = 0; k < keys; k++) {
+                Long value = map.get(k);
+                if (k % 2 == 0) {
+                  assertEquals(Long.valueOf(k), value);
+                } else if (value != null) {
+                  assertEquals(k, value.longValue());
+                }
+              }
+            }
+            return null;
+          }
+        }));
+      }
+      for (int round = 0; round < 200; round++) {
+        for (long k = 1; k < keys; k += 2) {
+          map.put(k, k);
+        }
+        for (long k = 1; k < keys; k += 2) {
+          map.remove(k);
+        }
+        if (round % 50 == 0) {
+          map.removeIf(k -> k % 2 == 1);
+        }
+      }
+      done.set(true);
+      for (Future<Void> f : futures) {
+        f.get();
+      }
+    } finally {
+      done.set(true);
+      executor.shutdown();
+    }
+    assertEquals(keys / 2, map.size());
+    assertFalse(map.containsKey(1));
+  }
+}
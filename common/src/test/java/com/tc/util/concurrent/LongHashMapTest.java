@@ -0,0 +1,94 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LongHashMapTest {
+
+  @Test
+  public void testAgainstHashMap() throws Exception {
+    LongHashMap<String> map = new LongHashMap<String>();
+    Map<Long, String> reference = new HashMap<Long, String>();
+    Random r = new Random(42);
+    for (int i = 0; i < 200000; i++) {
+      // a narrow key range keeps collisions and backward shifts going
+      long key = r.nextInt(2000) - 1000;
+      switch (r.nextInt(4)) {
+        case 0:
+        case 1:
+          assertEquals(reference.put(key, "v" + i), map.put(key, "v" + i));
+          break;
+        case 2:
+          assertEquals(reference.remove(key), map.remove(key));
+          break;
+        default:
+          assertEquals(reference.get(key), map.get(key));
+          assertEquals(reference.containsKey(key), map.containsKey(key));
+      }
+      assertEquals(reference.size(), map.size());
+    }
+  }
+
+  @Test
+  public void testRemoveIf() throws Exception {
+    LongHashMap<String> map = new LongHashMap<String>();
+    for (long i = 0; i < 1000; i++) {
+      map.put(i, "v" + i);
+    }
+    assertEquals(500, map.removeIf(k -> k % 2 == 0));
+    assertEquals(500, map.size());
+    assertNull(map.get(10));
+    assertEquals("v11", map.get(11));
+
+    assertEquals(10, map.removeIf((k, v) -> k < 20));
+    assertFalse(map.containsKey(19));
+    assertTrue(map.containsKey(21));
+
+    final long[] sum = { 0 };
+    map.forEach((v, k) -> sum[0] += k);
+    long expected = 0;
+    for (long i = 21; i < 1000; i += 2) {
+      expected += i;
+    }
+    assertEquals(expected, sum[0]);
+  }
+
+  @Test
+  public void testPutIfAbsentAndConditionalRemove() throws Exception {
+    LongHashMap<String> map = new LongHashMap<String>();
+    assertNull(map.putIfAbsent(Long.MIN_VALUE, "a"));
+    assertEquals("a", map.putIfAbsent(Long.MIN_VALUE, "b"));
+    assertFalse(map.remove(Long.MIN_VALUE, "b"));
+    assertTrue(map.remove(Long.MIN_VALUE, "a"));
+    assertTrue(map.isEmpty());
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testNullValuesAreRejected() throws Exception {
+    new LongHashMap<String>().put(1, null);
+  }
+}
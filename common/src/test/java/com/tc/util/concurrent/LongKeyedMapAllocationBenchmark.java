@@ -0,0 +1,79 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.util.concurrent;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compares the bytes allocated per transaction when an L2 bookkeeping map keyed by transaction or object id is a
+ * {@link ConcurrentHashMap} with boxed keys versus a {@link LongConcurrentHashMap}. A transaction here is a put, two
+ * gets and a remove of an increasing id over a window of live ids, the way in flight evictions, event buffers and
+ * checkouts use their maps. Run it by hand, it is not part of the test suite.
+ */
+public class LongKeyedMapAllocationBenchmark {
+
+  private static final int   LIVE_IDS     = 10000;
+  private static final int   TRANSACTIONS = 5000000;
+  private static final Object VALUE       = new Object();
+
+  public static void main(String[] args) {
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long id = Thread.currentThread().getId();
+    for (int round = 0; round < 3; round++) {
+      long before = threads.getThreadAllocatedBytes(id);
+      long t0 = System.nanoTime();
+      runBoxed();
+      long boxedNanos = System.nanoTime() - t0;
+      long boxedBytes = threads.getThreadAllocatedBytes(id) - before;
+
+      before = threads.getThreadAllocatedBytes(id);
+      t0 = System.nanoTime();
+      runPrimitive();
+      long primitiveNanos = System.nanoTime() - t0;
+      long primitiveBytes = threads.getThreadAllocatedBytes(id) - before;
+
+      System.out.println("round " + round + ": ConcurrentHashMap<Long, ?> " + perTxn(boxedBytes) + " bytes/txn "
+                         + boxedNanos / TRANSACTIONS + " ns/txn, LongConcurrentHashMap " + perTxn(primitiveBytes)
+                         + " bytes/txn " + primitiveNanos / TRANSACTIONS + " ns/txn");
+    }
+  }
+
+  private static String perTxn(long bytes) {
+    return String.format("%.1f", (double) bytes / TRANSACTIONS);
+  }
+
+  private static void runBoxed() {
+    ConcurrentHashMap<Long, Object> map = new ConcurrentHashMap<Long, Object>();
+    for (long txn = 0; txn < TRANSACTIONS; txn++) {
+      map.put(txn, VALUE);
+      map.get(txn);
+      map.get(txn - LIVE_IDS / 2);
+      map.remove(txn - LIVE_IDS);
+    }
+  }
+
+  private static void runPrimitive() {
+    LongConcurrentHashMap<Object> map = new LongConcurrentHashMap<Object>();
+    for (long txn = 0; txn < TRANSACTIONS; txn++) {
+      map.put(txn, VALUE);
+      map.get(txn);
+      map.get(txn - LIVE_IDS / 2);
+      map.remove(txn - LIVE_IDS);
+    }
+  }
+}
@@ -16,11 +16,17 @@
  */
 package com.tc.util.sequence;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import junit.framework.TestCase;
 
@@ -61,6 +67,76 @@ public class BatchSequenceTest extends TestCase {
     assertTrue(sequence.next() == 6);
   }
 
+  public void testBatchSizeAdaptsToSlowRequests() throws Exception {
+    DelayedBatchIDProvider remote = new DelayedBatchIDProvider(20);
+    try {
+      BatchSequence sequence = new BatchSequence(remote, 10, 80);
+      for (int i = 0; i < 1000; i++) {
+        assertEquals(i, sequence.next());
+      }
+      assertEquals(80, sequence.getBatchSize());
+      assertEquals(80, remote.lastSize);
+    } finally {
+      remote.shutdown();
+    }
+  }
+
+  public void testConcurrentNextIsUnique() throws Exception {
+    DelayedBatchIDProvider remote = new DelayedBatchIDProvider(1);
+    try {
+      final BatchSequence sequence = new BatchSequence(remote, 100);
+      final ConcurrentHashMap<Long, Boolean> seen = new ConcurrentHashMap<Long, Boolean>();
+      List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>();
+      for (int i = 0; i < 8; i++) {
+        FutureTask<Void> task = new FutureTask<Void>(new Callable<Void>() {
+          @Override
+          public Void call() {
+            for (int j = 0; j < 10000; j++) {
+              assertNull(seen.put(sequence.next(), Boolean.TRUE));
+            }
+            return null;
+          }
+        });
+        tasks.add(task);
+        new Thread(task, "BatchSequenceTestThread-" + i).start();
+      }
+      for (FutureTask<Void> task : tasks) {
+        task.get(60, TimeUnit.SECONDS);
+      }
+      assertEquals(80000, seen.size());
+      assertTrue(sequence.current() >= 79999);
+    } finally {
+      remote.shutdown();
+    }
+  }
+
+  private static class DelayedBatchIDProvider implements BatchSequenceProvider {
+    private final ScheduledExecutorService responder = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicLong               nextStart = new AtomicLong();
+    private final long                     delayMillis;
+    public volatile int                    lastSize  = -1;
+
+    DelayedBatchIDProvider(long delayMillis) {
+      this.delayMillis = delayMillis;
+    }
+
+    @Override
+    public void requestBatch(final BatchSequenceReceiver receiver, final int size) {
+      this.lastSize = size;
+      responder.schedule(new Runnable() {
+        @Override
+        public void run() {
+          long start = nextStart.getAndAdd(size);
+          receiver.setNextBatch(start, start + size);
+        }
+      }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void shutdown() {
+      responder.shutdownNow();
+    }
+  }
+
   private static class TestRemoteBatchIDProvider implements BatchSequenceProvider {
     public volatile int      size  = -1;
     public final BlockingQueue<BatchSequenceReceiver> queue = new LinkedBlockingQueue<BatchSequenceReceiver>();
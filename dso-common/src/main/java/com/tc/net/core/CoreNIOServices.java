@@ -63,6 +63,7 @@ import java.util.concurrent.atomic.AtomicLong;
 
 class CoreNIOServices implements TCListenerEventListener, TCConnectionEventListener {
   private static final TCLogger                logger        = TCLogging.getLogger(CoreNIOServices.class);
+  private static final int                     MAX_ACCEPTS_PER_SELECT      = 64;
   private final TCWorkerCommManager            workerCommMgr;
   private final String                         commThreadName;
   private final SocketParams                   socketParams;
@@ -76,6 +77,12 @@ class CoreNIOServices implements TCListenerEventListener, TCConnectionEventListe
   private final List                           listeners     = new ArrayList();
   private String                               listenerString;
 
+  // traffic rate over the last sample interval, sampled periodically by the worker comm manager
+  private final Object                         rateLock      = new Object();
+  private long                                 lastRateSampleTime;
+  private long                                 lastRateSampleBytes;
+  private volatile double                      bytesPerSecond;
+
   private static enum COMM_THREAD_MODE {
     NIO_READER, NIO_WRITER
   }
@@ -87,6 +94,7 @@ class CoreNIOServices implements TCListenerEventListener, TCConnectionEventListe
     this.managedConnectionsMap = new HashMap<TCConnection, Integer>();
     this.readerComm = new CommThread(COMM_THREAD_MODE.NIO_READER);
     this.writerComm = new CommThread(COMM_THREAD_MODE.NIO_WRITER);
+    this.lastRateSampleTime = System.currentTimeMillis();
   }
 
   public void start() {
@@ -174,6 +182,35 @@ class CoreNIOServices implements TCListenerEventListener, TCConnectionEventListe
     }
   }
 
+  public int getConnectionCount() {
+    synchronized (managedConnectionsMap) {
+      return this.managedConnectionsMap.size();
+    }
+  }
+
+  /**
+   * @return bytes read and written per second over the most recent sample interval, see
+   *         {@link #sampleBytesPerSecond()}
+   */
+  public double getBytesPerSecond() {
+    return bytesPerSecond;
+  }
+
+  /**
+   * Updates the rate returned by {@link #getBytesPerSecond()} with the traffic since the previous sample.
+   */
+  void sampleBytesPerSecond() {
+    synchronized (rateLock) {
+      long now = System.currentTimeMillis();
+      long elapsed = now - lastRateSampleTime;
+      if (elapsed <= 0) { return; }
+      long totalBytes = getTotalBytesRead() + getTotalBytesWritten();
+      bytesPerSecond = (totalBytes - lastRateSampleBytes) * 1000.0 / elapsed;
+      lastRateSampleBytes = totalBytes;
+      lastRateSampleTime = now;
+    }
+  }
+
   protected CommThread getReaderComm() {
     return this.readerComm;
   }
@@ -249,7 +286,7 @@ class CoreNIOServices implements TCListenerEventListener, TCConnectionEventListe
 
   @Override
   public synchronized String toString() {
-    return "[" + this.commThreadName + ", FD, wt:" + getWeight() + "]";
+    return "[" + this.commThreadName + ", FD, wt:" + getWeight() + ", B/s:" + (long) getBytesPerSecond() + "]";
   }
 
   void requestConnectInterest(TCConnectionImpl conn, SocketChannel sc) {
@@ -683,28 +720,37 @@ class CoreNIOServices implements TCListenerEventListener, TCConnectionEventListe
       } // while (true)
     }
 
+    /**
+     * Drains the accept backlog, up to {@link #MAX_ACCEPTS_PER_SELECT} connections, so that a reconnect storm after
+     * failover doesn't cost one selector wakeup per client. The bound keeps reads of established connections on this
+     * thread from starving while clients keep arriving.
+     */
     private void doAccept(final SelectionKey key) {
-      SocketChannel sc = null;
-
       final TCListenerImpl lsnr = (TCListenerImpl) key.attachment();
+      final ServerSocketChannel ssc = (ServerSocketChannel) key.channel();
 
-      try {
-        final ServerSocketChannel ssc = (ServerSocketChannel) key.channel();
-        sc = ssc.accept();
-        if (sc == null) {
-          // non blocking channel accept can return null
-          logger.warn("New connection accept didn't go through for " + ssc.socket());
+      for (int accepted = 0; accepted < MAX_ACCEPTS_PER_SELECT; accepted++) {
+        SocketChannel sc = null;
+        try {
+          sc = ssc.accept();
+          if (sc == null) {
+            // non blocking channel accept can return null
+            if (accepted == 0) {
+              logger.warn("New connection accept didn't go through for " + ssc.socket());
+            }
+            return;
+          }
+          sc.configureBlocking(false);
+          final TCConnectionImpl conn = lsnr.createConnection(sc, CoreNIOServices.this, socketParams);
+          requestReadInterest(conn, sc);
+        } catch (IOException ioe) {
+          if (logger.isInfoEnabled()) {
+            logger.info("IO Exception accepting new connection", ioe);
+          }
+
+          cleanupChannel(sc, null);
           return;
         }
-        sc.configureBlocking(false);
-        final TCConnectionImpl conn = lsnr.createConnection(sc, CoreNIOServices.this, socketParams);
-        requestReadInterest(conn, sc);
-      } catch (IOException ioe) {
-        if (logger.isInfoEnabled()) {
-          logger.info("IO Exception accepting new connection", ioe);
-        }
-
-        cleanupChannel(sc, null);
       }
     }
 
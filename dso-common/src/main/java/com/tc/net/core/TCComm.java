@@ -16,6 +16,8 @@
  */
 package com.tc.net.core;
 
+import java.util.Map;
+
 /**
  * The common interface for TCComm instances. A TCComm instance is used for managing the lowest level network details
  * (ie. reading/writing bytes, and opening/closing connections)
@@ -24,6 +26,12 @@ package com.tc.net.core;
  */
 public interface TCComm {
 
+  public static final String WORKER_WEIGHT           = "weight";
+  public static final String WORKER_CONNECTIONS      = "connections";
+  public static final String WORKER_BYTES_READ       = "bytes read";
+  public static final String WORKER_BYTES_WRITTEN    = "bytes written";
+  public static final String WORKER_BYTES_PER_SECOND = "bytes per second";
+
   public void stop();
 
   public void start();
@@ -32,4 +40,10 @@ public interface TCComm {
 
   public boolean isStopped();
 
+  /**
+   * @return the load of each worker comm thread keyed by worker name, empty when connections stay on the main selector
+   *         thread. The worker maps are keyed by the WORKER_* names above.
+   */
+  public Map<String, Map<String, Number>> getWorkerCommStatistics();
+
 }
@@ -19,6 +19,9 @@ package com.tc.net.core;
 import com.tc.logging.TCLogger;
 import com.tc.logging.TCLogging;
 
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * Implementation for TCComm. Manages communication threads for new connection and listeners at a high level.
  * 
@@ -65,6 +68,22 @@ class TCCommImpl implements TCComm {
     return 0;
   }
 
+  protected int getConnectionCountForWorkerComm(int workerCommId) {
+    if (workerCommMgr != null) { return workerCommMgr.getConnectionCountForWorkerComm(workerCommId); }
+    return 0;
+  }
+
+  protected double getBytesPerSecondForWorkerComm(int workerCommId) {
+    if (workerCommMgr != null) { return workerCommMgr.getBytesPerSecondForWorkerComm(workerCommId); }
+    return 0;
+  }
+
+  @Override
+  public Map<String, Map<String, Number>> getWorkerCommStatistics() {
+    if (workerCommMgr != null) { return workerCommMgr.getWorkerCommStatistics(); }
+    return Collections.emptyMap();
+  }
+
   @Override
   public boolean isStarted() {
     return started;
@@ -195,6 +195,7 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
       synchronized (this.writeMessages) {
         this.writeMessages.clear();
       }
+      releaseWriteContexts();
     }
     try {
       if (pipeSocket != null) {
@@ -208,6 +209,24 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
     }
   }
 
+  /**
+   * Messages still waiting to be written will never go out once the connection is closed, give their packed up buffers
+   * back to the pool instead of leaving them to the GC.
+   */
+  private void releaseWriteContexts() {
+    int released = 0;
+    synchronized (writerLock) {
+      for (WriteContext context : this.writeContexts) {
+        released += context.release();
+      }
+      this.writeContexts.clear();
+    }
+    if (logger.isDebugEnabled()) {
+      logger.debug("Released " + released + " unwritten packed buffers of " + this + ", "
+                   + WriteContext.getOutstandingPackedBufferCount() + " packed buffers outstanding on all connections");
+    }
+  }
+
   protected void finishConnect() throws IOException {
     Assert.assertNotNull("channel", this.channel);
     recordSocketAddress(this.channel.socket());
@@ -961,9 +980,12 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
   }
 
   protected static class WriteContext {
-    private final TCNetworkMessage message;
-    private int                    index = 0;
-    private final TCByteBuffer[]   entireMessageData;
+    // packed up buffers taken from the pool and not yet given back, a count that keeps growing points at a leak
+    private static final AtomicLong outstandingPackedBuffers = new AtomicLong();
+
+    private final TCNetworkMessage  message;
+    private int                     index                    = 0;
+    private final TCByteBuffer[]    entireMessageData;
 
     WriteContext(final TCNetworkMessage message) {
       // either WireProtocolMessage or WireProtocolMessageGroup
@@ -971,6 +993,7 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
 
       if (MESSSAGE_PACKUP) {
         this.entireMessageData = getPackedUpMessage(message.getEntireMessageData());
+        outstandingPackedBuffers.addAndGet(this.entireMessageData.length);
       } else {
         this.entireMessageData = getClonedMessage(message.getEntireMessageData());
       }
@@ -989,12 +1012,39 @@ final class TCConnectionImpl implements TCConnection, TCChannelReader, TCChannel
       if (MESSSAGE_PACKUP) {
         // we created these new messages. lets recycle it.
         entireMessageData[index].recycle();
+        outstandingPackedBuffers.decrementAndGet();
       }
       entireMessageData[index] = null;
       this.index++;
     }
 
+    /**
+     * Gives the buffers not handed to the socket yet back to the pool, once the message is sent or will never be sent.
+     * Safe to call more than once.
+     *
+     * @return number of packed up buffers given back
+     */
+    int release() {
+      int released = 0;
+      for (int i = index, n = entireMessageData.length; i < n; i++) {
+        if (MESSSAGE_PACKUP) {
+          entireMessageData[i].recycle();
+          outstandingPackedBuffers.decrementAndGet();
+          released++;
+        }
+        entireMessageData[i] = null;
+      }
+      this.index = entireMessageData.length;
+      return released;
+    }
+
+    static long getOutstandingPackedBufferCount() {
+      return outstandingPackedBuffers.get();
+    }
+
     void writeComplete() {
+      // a fully sent message can still hold trailing buffers that never had anything in them
+      release();
       this.message.wasSent();
     }
 
@@ -25,7 +25,11 @@ import com.tc.util.concurrent.SetOnceFlag;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -39,17 +43,21 @@ public class TCWorkerCommManager {
                                                                          false);
 
   private static final String     WORKER_NAME_PREFIX = "TCWorkerComm # ";
+  private static final long       RATE_SAMPLE_INTERVAL_MILLIS = 1000;
 
+  private final String            name;
   private final int               totalWorkerComm;
   private final CoreNIOServices[] workerCommThreads;
   private final SetOnceFlag       started            = new SetOnceFlag();
   private final SetOnceFlag       stopped            = new SetOnceFlag();
 
   private final AtomicInteger     nextWorkerCommId   = new AtomicInteger();
+  private Timer                   rateSampler;
 
   TCWorkerCommManager(String name, int workerCommCount, SocketParams socketParams) {
     if (workerCommCount <= 0) { throw new IllegalArgumentException("invalid worker count: " + workerCommCount); }
     logger.info("Creating " + workerCommCount + " worker comm threads for " + name);
+    this.name = name;
     this.totalWorkerComm = workerCommCount;
     this.workerCommThreads = new CoreNIOServices[workerCommCount];
     for (int i = 0; i < this.workerCommThreads.length; i++) {
@@ -57,8 +65,13 @@ public class TCWorkerCommManager {
     }
   }
 
+  /**
+   * Picks the worker for a new connection. Weight decides first; among workers of equal weight the one moving the
+   * fewest bytes per second wins, so that a worker already carrying hot clients is not handed the next one just
+   * because it is its turn. Workers that are equally idle are still chosen round robin.
+   */
   public CoreNIOServices getNextWorkerComm() {
-    List<CoreNIOServices> leastWeightWorkerComms = getLeastWeightWorkerComms();
+    List<CoreNIOServices> leastWeightWorkerComms = getLeastLoadedWorkerComms(getLeastWeightWorkerComms());
     CoreNIOServices rv;
     Assert.eval(leastWeightWorkerComms.size() >= 1);
     if (leastWeightWorkerComms.size() == 1) {
@@ -93,11 +106,38 @@ public class TCWorkerCommManager {
     return selectedWorkerComms;
   }
 
+  private List<CoreNIOServices> getLeastLoadedWorkerComms(List<CoreNIOServices> candidates) {
+    if (candidates.size() <= 1) { return candidates; }
+    List<CoreNIOServices> selectedWorkerComms = new ArrayList<CoreNIOServices>();
+    double leastRate = Double.MAX_VALUE;
+    for (CoreNIOServices workerComm : candidates) {
+      double presentRate = workerComm.getBytesPerSecond();
+      if (presentRate < leastRate) {
+        selectedWorkerComms.clear();
+        selectedWorkerComms.add(workerComm);
+        leastRate = presentRate;
+      } else if (presentRate == leastRate) {
+        selectedWorkerComms.add(workerComm);
+      }
+    }
+    return selectedWorkerComms;
+  }
+
   public synchronized void start() {
     if (this.started.attemptSet()) {
       for (CoreNIOServices workerCommThread : this.workerCommThreads) {
         workerCommThread.start();
       }
+      // sample on a fixed interval so that the rates compared by getNextWorkerComm() are never stale
+      this.rateSampler = new Timer(name + ":TCWorkerComm rate sampler", true);
+      this.rateSampler.schedule(new TimerTask() {
+        @Override
+        public void run() {
+          for (CoreNIOServices workerCommThread : workerCommThreads) {
+            workerCommThread.sampleBytesPerSecond();
+          }
+        }
+      }, RATE_SAMPLE_INTERVAL_MILLIS, RATE_SAMPLE_INTERVAL_MILLIS);
     } else {
       throw new IllegalStateException("already started");
     }
@@ -107,12 +147,31 @@ public class TCWorkerCommManager {
     if (!this.started.isSet()) { return; }
 
     if (this.stopped.attemptSet()) {
+      this.rateSampler.cancel();
       for (int i = 0; i < this.totalWorkerComm; i++) {
         this.workerCommThreads[i].requestStop();
       }
     }
   }
 
+  /**
+   * @see TCComm#getWorkerCommStatistics()
+   */
+  Map<String, Map<String, Number>> getWorkerCommStatistics() {
+    Map<String, Map<String, Number>> statistics = new LinkedHashMap<String, Map<String, Number>>();
+    for (int i = 0; i < this.totalWorkerComm; i++) {
+      CoreNIOServices workerComm = this.workerCommThreads[i];
+      Map<String, Number> workerStatistics = new LinkedHashMap<String, Number>();
+      workerStatistics.put(TCComm.WORKER_WEIGHT, workerComm.getWeight());
+      workerStatistics.put(TCComm.WORKER_CONNECTIONS, workerComm.getConnectionCount());
+      workerStatistics.put(TCComm.WORKER_BYTES_READ, workerComm.getTotalBytesRead());
+      workerStatistics.put(TCComm.WORKER_BYTES_WRITTEN, workerComm.getTotalBytesWritten());
+      workerStatistics.put(TCComm.WORKER_BYTES_PER_SECOND, workerComm.getBytesPerSecond());
+      statistics.put(WORKER_NAME_PREFIX + i, workerStatistics);
+    }
+    return statistics;
+  }
+
   protected CoreNIOServices getWorkerComm(int workerCommId) {
     return this.workerCommThreads[workerCommId];
   }
@@ -129,4 +188,12 @@ public class TCWorkerCommManager {
     return this.workerCommThreads[workerCommId].getTotalBytesWritten();
   }
 
+  protected int getConnectionCountForWorkerComm(int workerCommId) {
+    return this.workerCommThreads[workerCommId].getConnectionCount();
+  }
+
+  protected double getBytesPerSecondForWorkerComm(int workerCommId) {
+    return this.workerCommThreads[workerCommId].getBytesPerSecond();
+  }
+
 }
@@ -78,11 +78,11 @@ public class ReceiveStateMachine extends AbstractStateMachine {
       if (r <= received) {
         // we already got message
         debugLog("Received dup msg " + r);
-        sendAck(received);
+        ackIfUnacked();
       } else if (r > (received + 1)) {
         // message missed, resend ack, receive to resend message.
         debugLog("Received out of order msg " + r);
-        sendAck(received);
+        ackIfUnacked();
       } else {
         Assert.inv(r == (received + 1));
         putMessage(msg);
@@ -103,6 +103,17 @@ public class ReceiveStateMachine extends AbstractStateMachine {
     }
   }
 
+  /*
+   * A replay after reconnect resends the whole window, one bare ack per duplicate would just double the packet count.
+   * Acks are cumulative, so only ack when the peer has not been told about everything received so far, either by an
+   * ack or piggybacked on a send.
+   */
+  private void ackIfUnacked() {
+    if (received != lastAcked) {
+      sendAck(received);
+    }
+  }
+
   private boolean sendAck(long seq) {
     OOOProtocolMessage opm = delivery.createAckMessage(seq);
     Assert.inv(!opm.getSessionId().equals(UUID.NULL_ID));
@@ -20,16 +20,23 @@ import com.tc.logging.TCLogger;
 import com.tc.logging.TCLogging;
 import com.tc.net.protocol.TCNetworkMessage;
 import com.tc.properties.ReconnectConfig;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
 import com.tc.util.Assert;
 import com.tc.util.DebugUtil;
 import com.tc.util.Util;
 
+import java.util.ArrayDeque;
 import java.util.LinkedList;
 import java.util.ListIterator;
 import java.util.concurrent.LinkedBlockingQueue;
 
 /**
  * State Machine handling message send for OOO
+ * <p>
+ * Both the send queue and the window of sent but unacked messages, which is kept around to replay on reconnect, are
+ * bounded by bytes as well as by message count. Once the queue is full {@link #put(TCNetworkMessage)} blocks, once the
+ * window is full sending waits for acks. A single message larger than either bound is always let through on its own.
  */
 public class SendStateMachine extends AbstractStateMachine {
   private final int                        sendQueueCap;
@@ -42,6 +49,10 @@ public class SendStateMachine extends AbstractStateMachine {
   private final OOOProtocolMessageDelivery delivery;
   private final LinkedList<OOOProtocolMessage> outstandingMsgs       = new LinkedList<OOOProtocolMessage>();
   private final int                        sendWindow;
+  private final long                       sendWindowBytes;
+  private final long                       sendQueueBytesCap;
+  private final ArrayDeque<Integer>        outstandingSizes      = new ArrayDeque<Integer>();
+  private final Object                     queuedBytesLock       = new Object();
   private final boolean                    isClient;
   private final String                     debugId;
 
@@ -51,6 +62,9 @@ public class SendStateMachine extends AbstractStateMachine {
   private long                             sent                  = -1;
   private long                             acked                 = -1;
   private int                              outstandingCnt        = 0;
+  private long                             outstandingBytes      = 0;
+  // guarded by queuedBytesLock
+  private long                             queuedBytes           = 0;
   private LinkedBlockingQueue<TCNetworkMessage> sendQueue;
 
   public SendStateMachine(OOOProtocolMessageDelivery delivery, ReconnectConfig reconnectConfig, boolean isClient) {
@@ -60,6 +74,11 @@ public class SendStateMachine extends AbstractStateMachine {
     int queueCap = reconnectConfig.getSendQueueCapacity();
     this.sendQueueCap = (queueCap == 0) ? Integer.MAX_VALUE : queueCap;
     this.sendQueue = new LinkedBlockingQueue<TCNetworkMessage>(this.sendQueueCap);
+    // byte bounds are about local heap, so they come from the local tc.properties rather than the reconnect config
+    long queueBytes = TCPropertiesImpl.getProperties().getLong(TCPropertiesConsts.NET_OOO_SENDQUEUE_MAX_BYTES, 0);
+    this.sendQueueBytesCap = (queueBytes <= 0) ? Long.MAX_VALUE : queueBytes;
+    long windowBytes = TCPropertiesImpl.getProperties().getLong(TCPropertiesConsts.NET_OOO_SENDWINDOW_MAX_BYTES, 0);
+    this.sendWindowBytes = (windowBytes <= 0) ? Long.MAX_VALUE : windowBytes;
     this.isClient = isClient;
     this.debugId = (this.isClient) ? "CLIENT" : "SERVER";
   }
@@ -87,8 +106,8 @@ public class SendStateMachine extends AbstractStateMachine {
 
   @Override
   public String toString() {
-    return "CurrentState: " + getCurrentState() + "; OutStandingMsgsCount: " + outstandingCnt + "; Sent: " + sent
-           + "; Acked: " + acked + "; " + super.toString();
+    return "CurrentState: " + getCurrentState() + "; OutStandingMsgsCount: " + outstandingCnt + "; OutStandingBytes: "
+           + outstandingBytes + "; Sent: " + sent + "; Acked: " + acked + "; " + super.toString();
   }
 
   @Override
@@ -138,7 +157,7 @@ public class SendStateMachine extends AbstractStateMachine {
       if (outstandingCnt > 0) {
         // resend those not acked
         resendOutstandings();
-        if (outstandingCnt >= sendWindow) {
+        if (isSendWindowFull()) {
           switchToState(SENDWINDOW_FULL_STATE);
         } else {
           switchToState(MESSAGE_WAIT_STATE);
@@ -172,7 +191,7 @@ public class SendStateMachine extends AbstractStateMachine {
         getCurrentState().execute(protocolMessage);
       } else {
         sendMoreIfAvailable();
-        if ((sendWindow > 0) && (outstandingCnt >= sendWindow)) {
+        if (isSendWindowFull()) {
           switchToState(SENDWINDOW_FULL_STATE);
         }
       }
@@ -208,7 +227,7 @@ public class SendStateMachine extends AbstractStateMachine {
         removeMessage();
       }
 
-      if (outstandingCnt < sendWindow) {
+      if (!isSendWindowFull()) {
         switchToState(MESSAGE_WAIT_STATE);
       } else {
         switchToState(SENDWINDOW_FULL_STATE);
@@ -255,16 +274,26 @@ public class SendStateMachine extends AbstractStateMachine {
 
   // send all or till the window
   private void sendMoreIfAvailable() {
-    while (((sendWindow <= 0) || (outstandingCnt < sendWindow)) && !sendQueue.isEmpty()) {
+    while (!isSendWindowFull() && !sendQueue.isEmpty()) {
       delivery.sendMessage(createProtocolMessage(++sent));
     }
   }
 
+  private boolean isSendWindowFull() {
+    if (outstandingCnt == 0) { return false; }
+    return ((sendWindow > 0) && (outstandingCnt >= sendWindow)) || (outstandingBytes >= sendWindowBytes);
+  }
+
   private OOOProtocolMessage createProtocolMessage(long count) {
-    final OOOProtocolMessage opm = delivery.createProtocolMessage(count, dequeue(sendQueue));
+    final TCNetworkMessage msg = dequeue(sendQueue);
+    final int size = sizeOf(msg);
+    dequeued(size);
+    final OOOProtocolMessage opm = delivery.createProtocolMessage(count, msg);
     Assert.eval(opm != null);
     outstandingCnt++;
+    outstandingBytes += size;
     outstandingMsgs.add(opm);
+    outstandingSizes.add(size);
     return (opm);
   }
 
@@ -280,6 +309,7 @@ public class SendStateMachine extends AbstractStateMachine {
     OOOProtocolMessage msg = outstandingMsgs.removeFirst();
     msg.reallyDoRecycleOnWrite();
     outstandingCnt--;
+    outstandingBytes -= outstandingSizes.removeFirst();
     Assert.eval(outstandingCnt >= 0);
   }
 
@@ -291,11 +321,17 @@ public class SendStateMachine extends AbstractStateMachine {
 
     // purge out outstanding sends
     outstandingCnt = 0;
+    outstandingBytes = 0;
     outstandingMsgs.clear();
+    outstandingSizes.clear();
 
     LinkedBlockingQueue<TCNetworkMessage> tmpQ = sendQueue;
     sendQueue = new LinkedBlockingQueue<TCNetworkMessage>(sendQueueCap);
     tmpQ.clear();
+    synchronized (queuedBytesLock) {
+      queuedBytes = 0;
+      queuedBytesLock.notifyAll();
+    }
   }
 
   private static TCNetworkMessage dequeue(LinkedBlockingQueue<TCNetworkMessage> q) {
@@ -314,7 +350,35 @@ public class SendStateMachine extends AbstractStateMachine {
   }
 
   public void put(TCNetworkMessage message) throws InterruptedException {
-    sendQueue.put(message);
+    final int size = sizeOf(message);
+    synchronized (queuedBytesLock) {
+      while ((queuedBytes > 0) && (queuedBytes + size > sendQueueBytesCap)) {
+        queuedBytesLock.wait();
+      }
+      queuedBytes += size;
+    }
+    try {
+      sendQueue.put(message);
+    } catch (InterruptedException e) {
+      dequeued(size);
+      throw e;
+    }
+  }
+
+  private void dequeued(int size) {
+    if (size == 0) { return; }
+    synchronized (queuedBytesLock) {
+      // a reset in between may already have zeroed the count
+      queuedBytes = Math.max(0, queuedBytes - size);
+      queuedBytesLock.notifyAll();
+    }
+  }
+
+  /**
+   * Messages reach this layer sealed, an unsealed one (tests only) is not accounted for.
+   */
+  private static int sizeOf(TCNetworkMessage message) {
+    return message.isSealed() ? message.getTotalLength() : 0;
   }
 
   private void debugLog(String msg) {
@@ -323,7 +387,7 @@ public class SendStateMachine extends AbstractStateMachine {
 
   // for testing purpose only
   boolean isClean() {
-    return (sendQueue.isEmpty() && outstandingMsgs.isEmpty());
+    return (sendQueue.isEmpty() && outstandingMsgs.isEmpty() && outstandingBytes == 0);
   }
 
 }
@@ -26,6 +26,7 @@ import com.tc.text.PrettyPrintable;
 
 import java.util.Collection;
 import java.util.Set;
+import java.util.concurrent.Future;
 
 /**
  * Local representation of the remote object manager
@@ -36,6 +37,12 @@ public interface RemoteObjectManager extends ClientHandshakeCallback, PrettyPrin
 
   public DNA retrieve(ObjectID id, int depth) throws AbortedOperationException;
 
+  /**
+   * Requests the given object without waiting for it. Requests issued within one batch lookup period go out to the
+   * server together. {@link Future#get()} hands the DNA over like {@link #retrieve(ObjectID)} does.
+   */
+  public Future<DNA> retrieveAsync(ObjectID id) throws AbortedOperationException;
+
   public ObjectID retrieveRootID(String name, GroupID gid);
 
   public void addRoot(String name, ObjectID id, NodeID nodeID);
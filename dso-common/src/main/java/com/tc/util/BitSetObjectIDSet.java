@@ -21,6 +21,7 @@ import com.tc.util.AATreeSet.AbstractTreeNode;
 import com.tc.util.AATreeSet.Node;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
@@ -88,6 +89,70 @@ public class BitSetObjectIDSet extends ObjectIDSet {
     return (oldSize < this.size);
   }
 
+  /**
+   * Adds ids given in ascending order a range at a time. Dense ids cost one tree operation per 64 ids instead of one
+   * each.
+   */
+  @FindbugsSuppressWarnings("VO_VOLATILE_INCREMENT")
+  public void addAllSorted(final long[] ids, final int from, final int to) {
+    int i = from;
+    while (i < to) {
+      final long start = calculateStart(ids[i]);
+      long bits = 0;
+      for (; i < to && ids[i] < start + BitSet.RANGE_SIZE; i++) {
+        bits |= 1L << (int) (ids[i] - start);
+      }
+      addWord(start, bits);
+    }
+  }
+
+  /**
+   * Adds ids given as 64 id words, in the <code>start, bits</code> pairs returned by {@link #words(ObjectIDSet)}.
+   */
+  public void addAllWords(final long[] words) {
+    for (int i = 0; i < words.length; i += 2) {
+      addWord(words[i], words[i + 1]);
+    }
+  }
+
+  /**
+   * The non empty 64 id words of any bitmap based set as <code>start, bits</code> pairs, in ascending order. Copying a
+   * set this way costs one array slot per word instead of one object per id.
+   */
+  public static long[] words(final ObjectIDSet set) {
+    long[] words = new long[16];
+    int count = 0;
+    for (Range range : set.ranges()) {
+      long start = range.getStart();
+      for (long bits : range.getBitmap()) {
+        if (bits != 0) {
+          if (count == words.length) {
+            words = Arrays.copyOf(words, count * 2);
+          }
+          words[count++] = start;
+          words[count++] = bits;
+        }
+        start += BitSet.RANGE_SIZE;
+      }
+    }
+    return Arrays.copyOf(words, count);
+  }
+
+  @FindbugsSuppressWarnings("VO_VOLATILE_INCREMENT")
+  private void addWord(final long start, final long bits) {
+    final BitSet range = new BitSet(start, bits);
+    final BitSet existing = this.ranges.find(range);
+    if (existing == null) {
+      this.ranges.add(range);
+      this.size += range.size();
+    } else {
+      final long sizeBefore = existing.size();
+      existing.addAll(range);
+      this.size += existing.size() - sizeBefore;
+    }
+    this.modCount++;
+  }
+
   private void copyAndAddAll(final Iterator<BitSet> i) {
     for (; i.hasNext();) {
       final BitSet copied = new BitSet(i.next());
@@ -108,8 +173,14 @@ public class BitSetObjectIDSet extends ObjectIDSet {
    */
   @FindbugsSuppressWarnings("VO_VOLATILE_INCREMENT")
   public boolean add(final ObjectID id) {
-    final long lid = id.toLong();
+    return add(id.toLong());
+  }
 
+  /**
+   * Same as {@link #add(ObjectID)} for callers that only have the raw id, without creating an {@link ObjectID}.
+   */
+  @FindbugsSuppressWarnings("VO_VOLATILE_INCREMENT")
+  public boolean add(final long lid) {
     // need to handle -ve ids
     final long start = calculateStart(lid);
     int nextRangeMaskbit = 0;
@@ -151,9 +222,14 @@ public class BitSetObjectIDSet extends ObjectIDSet {
     if (!(o instanceof ObjectID)) {
       return false;
     }
-    ObjectID id = (ObjectID)o;
-    final long lid = id.toLong();
+    return remove(((ObjectID) o).toLong());
+  }
 
+  /**
+   * Same as {@link #remove(Object)} for callers that only have the raw id, without creating an {@link ObjectID}.
+   */
+  @FindbugsSuppressWarnings("VO_VOLATILE_INCREMENT")
+  public boolean remove(final long lid) {
     final long start = calculateStart(lid);
 
     final BitSet current = this.ranges.find(new BitSet(start, 0));
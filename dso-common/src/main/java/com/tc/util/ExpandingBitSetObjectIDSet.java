@@ -58,8 +58,14 @@ public class ExpandingBitSetObjectIDSet extends ObjectIDSet {
    */
   @FindbugsSuppressWarnings("VO_VOLATILE_INCREMENT")
   public boolean add(final ObjectID id) {
-    final long lid = id.toLong();
+    return add(id.toLong());
+  }
 
+  /**
+   * Same as {@link #add(ObjectID)} for callers that only have the raw id, without creating an {@link ObjectID}.
+   */
+  @FindbugsSuppressWarnings("VO_VOLATILE_INCREMENT")
+  public boolean add(final long lid) {
     // Step 1 : Check if number can be contained in any of the range, if so add to the same Range.
     BitSet probe = new BitSet(lid);
     final BitSet prev = ranges.find(probe);
@@ -104,6 +110,30 @@ public class ExpandingBitSetObjectIDSet extends ObjectIDSet {
     return isAdded;
   }
 
+  /**
+   * Adds ids given as 64 id words, in the <code>start, bits</code> pairs returned by
+   * {@link BitSetObjectIDSet#words(ObjectIDSet)}. A word never spans two ranges, so once its lowest id is added the
+   * rest of the word is or-ed into the same range.
+   */
+  @FindbugsSuppressWarnings("VO_VOLATILE_INCREMENT")
+  public void addAllWords(final long[] words) {
+    for (int i = 0; i < words.length; i += 2) {
+      final long start = words[i];
+      final long bits = words[i + 1];
+      if (bits == 0) {
+        continue;
+      }
+      final long first = start + Long.numberOfTrailingZeros(bits);
+      add(first);
+      final BitSet range = ranges.find(new BitSet(first));
+      final int index = range.arrayIndex(start);
+      final long added = bits & ~range.nextLongs[index];
+      range.nextLongs[index] |= bits;
+      this.size += Long.bitCount(added);
+      this.modCount++;
+    }
+  }
+
   /**
    * ignore find bug warning for non thread safe increment of a volatile variable The volatile varibale is being used
    * only for validation of no concurrent modification while iterating the set
@@ -114,9 +144,14 @@ public class ExpandingBitSetObjectIDSet extends ObjectIDSet {
     if (!(o instanceof ObjectID)) {
       return false;
     }
-    ObjectID id = (ObjectID) o;
-    final long lid = id.toLong();
+    return remove(((ObjectID) o).toLong());
+  }
 
+  /**
+   * Same as {@link #remove(Object)} for callers that only have the raw id, without creating an {@link ObjectID}.
+   */
+  @FindbugsSuppressWarnings("VO_VOLATILE_INCREMENT")
+  public boolean remove(final long lid) {
     final BitSet current = this.ranges.find(new BitSet(lid));
     if (current == null) {
       // Not found
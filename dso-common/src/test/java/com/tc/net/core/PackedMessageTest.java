@@ -18,12 +18,17 @@ package com.tc.net.core;
 
 import com.tc.bytes.TCByteBuffer;
 import com.tc.bytes.TCByteBufferFactory;
+import com.tc.net.protocol.TCNetworkMessage;
 import com.tc.test.TCTestCase;
 
 import java.util.Random;
 
 import junit.framework.Assert;
 
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
 public class PackedMessageTest extends TCTestCase {
 
   private static final int MIN_SIZE_PER_BYTE_BUFFER   = 100;
@@ -76,6 +81,39 @@ public class PackedMessageTest extends TCTestCase {
     System.out.println("Done with test");
   }
 
+  public void testUnsentPackedBuffersAreReleased() {
+    Random random = new Random();
+    TCByteBuffer[] inputs = generateInputByteBuffers(100, new SameSequenceGenerator(random.nextLong()), random);
+    TCNetworkMessage message = mock(TCNetworkMessage.class);
+    when(message.getEntireMessageData()).thenReturn(inputs);
+
+    long outstandingBefore = TCConnectionImpl.WriteContext.getOutstandingPackedBufferCount();
+    TCConnectionImpl.WriteContext context = new TCConnectionImpl.WriteContext(message);
+    long packed = TCConnectionImpl.WriteContext.getOutstandingPackedBufferCount() - outstandingBefore;
+    Assert.assertTrue(packed > 1);
+
+    // first buffer goes out, the connection closes before the rest does
+    context.incrementIndexAndCleanOld();
+    Assert.assertEquals(packed - 1, context.release());
+    Assert.assertEquals(0, context.release());
+    Assert.assertEquals(outstandingBefore, TCConnectionImpl.WriteContext.getOutstandingPackedBufferCount());
+    Assert.assertTrue(context.done());
+  }
+
+  public void testSentMessageReleasesAllPackedBuffers() {
+    Random random = new Random();
+    TCByteBuffer[] inputs = generateInputByteBuffers(5, new SameSequenceGenerator(random.nextLong()), random);
+    TCNetworkMessage message = mock(TCNetworkMessage.class);
+    when(message.getEntireMessageData()).thenReturn(inputs);
+
+    long outstandingBefore = TCConnectionImpl.WriteContext.getOutstandingPackedBufferCount();
+    TCConnectionImpl.WriteContext context = new TCConnectionImpl.WriteContext(message);
+    context.writeComplete();
+
+    verify(message).wasSent();
+    Assert.assertEquals(outstandingBefore, TCConnectionImpl.WriteContext.getOutstandingPackedBufferCount());
+  }
+
   private void randomizePositions(TCByteBuffer[] inputs, Random random) {
     System.out.println("Randomizing positions...");
     int count = 1;
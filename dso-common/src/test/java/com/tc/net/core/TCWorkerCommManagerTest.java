@@ -58,6 +58,7 @@ import com.tc.util.concurrent.ThreadUtil;
 
 import java.net.InetAddress;
 import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 public class TCWorkerCommManagerTest extends TCTestCase {
@@ -197,6 +198,49 @@ public class TCWorkerCommManagerTest extends TCTestCase {
     listener.stop(5000);
   }
 
+  public void testWorkerCommDistributionForConnectionBurst() throws Exception {
+    // comms manager with 3 worker comms
+    CommunicationsManager commsMgr = new CommunicationsManagerImpl("Server-TestCommsMgr", new NullMessageMonitor(),
+                                                                   getNetworkStackHarnessFactory(false),
+                                                                   new NullConnectionPolicy(), 3);
+    NetworkListener listener = commsMgr.createListener(new NullSessionManager(), new TCSocketAddress(0), true,
+                                                       new DefaultConnectionIdFactory());
+    listener.start(Collections.EMPTY_SET);
+    int port = listener.getBindPort();
+
+    // all clients connect at once, as they would after a failover
+    ClientMessageChannel[] clients = new ClientMessageChannel[6];
+    for (int i = 0; i < clients.length; i++) {
+      clients[i] = createClientMsgCh(port, false);
+    }
+    for (ClientMessageChannel client : clients) {
+      client.open();
+    }
+
+    waitForConnected(clients);
+
+    TCCommImpl tcComm = (TCCommImpl) commsMgr.getConnectionManager().getTcComm();
+    for (int i = 0; i < 3; i++) {
+      waitForWeight(commsMgr, i, 2);
+      Assert.assertEquals(2, tcComm.getConnectionCountForWorkerComm(i));
+      Assert.eval(tcComm.getBytesPerSecondForWorkerComm(i) >= 0);
+    }
+    Map<String, Map<String, Number>> statistics = tcComm.getWorkerCommStatistics();
+    Assert.assertEquals(3, statistics.size());
+    for (Map<String, Number> workerStatistics : statistics.values()) {
+      Assert.assertEquals(2, workerStatistics.get(TCComm.WORKER_CONNECTIONS).intValue());
+    }
+
+    commsMgr.getConnectionManager().closeAllConnections(1000);
+
+    for (int i = 0; i < 3; i++) {
+      waitForWeight(commsMgr, i, 0);
+      Assert.assertEquals(0, tcComm.getConnectionCountForWorkerComm(i));
+    }
+
+    listener.stop(5000);
+  }
+
   public void testWorkerCommDistributionAfterAddMoreWeight() throws Exception {
     // comms manager with 3 worker comms
     CommunicationsManager commsMgr = new CommunicationsManagerImpl("Server-TestCommsMgr", new NullMessageMonitor(),
@@ -22,11 +22,16 @@ import com.tc.net.protocol.tcm.NullMessageMonitor;
 import com.tc.net.protocol.tcm.msgs.PingMessage;
 import com.tc.properties.L1ReconnectConfigImpl;
 import com.tc.properties.ReconnectConfig;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
 import com.tc.test.TCTestCase;
 import com.tc.util.UUID;
 
 import java.util.concurrent.LinkedBlockingQueue;
 
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
 /**
  * Testing the basic functionality of OOO Send State Machine. More functional test at GuaranteedDeliveryProtocolTest
  */
@@ -101,4 +106,50 @@ public class SendStateMachineTest extends TCTestCase {
     assertEquals(4, delivery.msg.getSent());
 
   }
+
+  public void testSendWindowBoundedByBytes() throws Exception {
+    TestProtocolMessageDelivery delivery = new TestProtocolMessageDelivery(new LinkedBlockingQueue<TCNetworkMessage>());
+    final UUID sessionId = UUID.getUUID();
+    SendStateMachine ssm = new SendStateMachine(delivery, new L1ReconnectConfigImpl(true, 5000, 100, 16, 32), true);
+    ssm.start();
+    ssm.resume();
+
+    TestProtocolMessage msg = new TestProtocolMessage(null, 0, -1);
+    msg.isHandshakeReplyOk = true;
+    msg.setSessionId(sessionId);
+    ssm.execute(msg);
+
+    // two of these fill the window long before the message count does
+    long windowBytes = TCPropertiesImpl.getProperties().getLong(TCPropertiesConsts.NET_OOO_SENDWINDOW_MAX_BYTES);
+    int size = (int) (windowBytes / 2) + 1;
+
+    ssm.put(sealedMessage(size));
+    ssm.execute(null); // msg 0
+    ssm.put(sealedMessage(size));
+    ssm.execute(null); // msg 1
+    assertEquals(1, delivery.msg.getSent());
+    assertEquals(ssm.SENDWINDOW_FULL_STATE, ssm.getCurrentState());
+
+    delivery.clearAll();
+    ssm.put(sealedMessage(size));
+    ssm.execute(null); // queued
+    assertFalse(delivery.created);
+
+    TestProtocolMessage ack = new TestProtocolMessage(null, -1, 0);
+    ack.setSessionId(sessionId);
+    ack.isAck = true;
+    ssm.execute(ack); // ack 0, makes room for msg 2
+    assertEquals(2, delivery.msg.getSent());
+    assertEquals(ssm.SENDWINDOW_FULL_STATE, ssm.getCurrentState());
+
+    ssm.reset();
+    assertTrue(ssm.isClean());
+  }
+
+  private static TCNetworkMessage sealedMessage(int size) {
+    TCNetworkMessage message = mock(TCNetworkMessage.class);
+    when(message.isSealed()).thenReturn(true);
+    when(message.getTotalLength()).thenReturn(size);
+    return message;
+  }
 }
@@ -65,6 +65,77 @@ public class BitSetObjectIDSetTest extends ObjectIDSetTestBase {
     assertFalse(iterator.hasNext());
   }
 
+  @Test
+  public void testAddAllSorted() {
+    BitSetObjectIDSet set = new BitSetObjectIDSet();
+    set.add(new ObjectID(5));
+    set.add(new ObjectID(1000));
+    long[] ids = new long[] { -70, -1, 0, 5, 6, 63, 64, 200, 1000, 1001 };
+    set.addAllSorted(ids, 0, ids.length);
+
+    Set<ObjectID> expected = new HashSet<ObjectID>();
+    for (long id : ids) {
+      expected.add(new ObjectID(id));
+    }
+    assertEquals(expected.size(), set.size());
+    assertEquals(expected, new HashSet<ObjectID>(set));
+    assertEquals(new ObjectID(-70), set.first());
+    assertEquals(new ObjectID(1001), set.last());
+  }
+
+  @Test
+  public void testWordsCopyBetweenSetTypes() {
+    Random r = new Random(1);
+    Set<ObjectID> expected = new HashSet<ObjectID>();
+    ExpandingBitSetObjectIDSet expanding = new ExpandingBitSetObjectIDSet();
+    for (int i = 0; i < 5000; i++) {
+      ObjectID id = new ObjectID(r.nextInt(200000) - 100000);
+      expected.add(id);
+      expanding.add(id);
+    }
+    expected.add(new ObjectID(7));
+
+    BitSetObjectIDSet bitSet = new BitSetObjectIDSet();
+    bitSet.add(new ObjectID(7));
+    bitSet.addAllWords(BitSetObjectIDSet.words(expanding));
+    assertEquals(expected.size(), bitSet.size());
+    assertEquals(expected, new HashSet<ObjectID>(bitSet));
+
+    ExpandingBitSetObjectIDSet back = new ExpandingBitSetObjectIDSet();
+    back.add(new ObjectID(7));
+    back.add(new ObjectID(500000));
+    back.addAllWords(BitSetObjectIDSet.words(bitSet));
+    expected.add(new ObjectID(500000));
+    assertEquals(expected.size(), back.size());
+    assertEquals(expected, new HashSet<ObjectID>(back));
+  }
+
+  @Test
+  public void testAddAndRemoveRawIds() {
+    long[] ids = new long[] { -70, -1, 0, 5, 63, 64, 1000 };
+    BitSetObjectIDSet bitSet = new BitSetObjectIDSet();
+    ExpandingBitSetObjectIDSet expanding = new ExpandingBitSetObjectIDSet();
+    for (long id : ids) {
+      assertTrue(bitSet.add(id));
+      assertTrue(expanding.add(id));
+      assertFalse(bitSet.add(id));
+      assertFalse(expanding.add(id));
+      assertTrue(bitSet.contains(new ObjectID(id)));
+      assertTrue(expanding.contains(new ObjectID(id)));
+    }
+    assertEquals(ids.length, bitSet.size());
+    assertEquals(ids.length, expanding.size());
+
+    for (long id : ids) {
+      assertTrue(bitSet.remove(id));
+      assertTrue(expanding.remove(id));
+      assertFalse(bitSet.remove(id));
+      assertFalse(expanding.remove(id));
+    }
+    assertTrue(bitSet.isEmpty());
+    assertTrue(expanding.isEmpty());
+  }
+
   private BasicObjectIDSet convertToBasicObjectIDSet(BitSetObjectIDSet idSet) throws IOException {
     TCByteBufferOutputStream outputStream = new TCByteBufferOutputStream();
     idSet.serializeTo(outputStream);
@@ -91,6 +91,17 @@ public interface ClientObjectManager extends TCObjectSelfCallback {
    */
   public Object lookupObject(ObjectID id) throws ClassNotFoundException, AbortedOperationException;
 
+  /**
+   * Find objects by ID, like {@link #lookupObject(ObjectID)} does for each of them. The objects that have to be
+   * faulted into the JVM are requested from the server together rather than one round trip at a time.
+   * 
+   * @param ids Identifiers
+   * @return Instances for the ids, in the same order
+   * @throws ClassNotFoundException If class can't be found in this VM
+   * @throws AbortedOperationException
+   */
+  public Object[] lookupObjects(ObjectID[] ids) throws ClassNotFoundException, AbortedOperationException;
+
   /**
    * Find the managed object for this instance or create a new one if it does not yet exist.
    * 
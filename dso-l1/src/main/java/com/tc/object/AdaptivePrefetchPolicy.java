@@ -0,0 +1,116 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.object;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Learns which objects tend to be faulted right after a given object and hands them out as prefetch candidates the
+ * next time that object is faulted.
+ * <p>
+ * Misses on a thread are grouped into bursts: the first miss of a burst becomes the anchor and every following miss
+ * that arrives within the burst window is recorded as a neighbour of the anchor (a map followed by its first N
+ * values, for instance). Once learned, faulting the anchor again returns its neighbours so the caller can request them
+ * speculatively in a single batch instead of paying one round trip per object.
+ * <p>
+ * This class is not thread safe, callers are expected to hold the {@link RemoteObjectManagerImpl} monitor.
+ */
+class AdaptivePrefetchPolicy {
+
+  private final int                          maxNeighbours;
+  private final long                         burstWindowMillis;
+  private final Map<ObjectID, Set<ObjectID>> neighbours;
+  private final ThreadLocal<Burst>           bursts = new ThreadLocal<Burst>() {
+                                                      @Override
+                                                      protected Burst initialValue() {
+                                                        return new Burst();
+                                                      }
+                                                    };
+
+  AdaptivePrefetchPolicy(final int maxTracked, final int maxNeighbours, final long burstWindowMillis) {
+    this.maxNeighbours = maxNeighbours;
+    this.burstWindowMillis = burstWindowMillis;
+    this.neighbours = new LinkedHashMap<ObjectID, Set<ObjectID>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<ObjectID, Set<ObjectID>> eldest) {
+        return size() > maxTracked;
+      }
+    };
+  }
+
+  /**
+   * Records a miss for the given object on the calling thread.
+   *
+   * @return the learned neighbours of id that should be prefetched, never null
+   */
+  Set<ObjectID> missed(final ObjectID id) {
+    return missed(id, System.currentTimeMillis());
+  }
+
+  Set<ObjectID> missed(final ObjectID id, final long now) {
+    final Burst burst = this.bursts.get();
+    if (burst.anchor != null && !burst.anchor.equals(id) && now - burst.lastMiss <= this.burstWindowMillis
+        && burst.count < this.maxNeighbours) {
+      learn(burst.anchor, id);
+      burst.count++;
+      burst.lastMiss = now;
+      return Collections.emptySet();
+    }
+
+    burst.anchor = id;
+    burst.count = 0;
+    burst.lastMiss = now;
+    final Set<ObjectID> learned = this.neighbours.get(id);
+    return learned == null ? Collections.<ObjectID> emptySet() : learned;
+  }
+
+  /**
+   * Forgets the neighbours learned for the given object. Called when the server reports the object as missing.
+   */
+  void forget(final ObjectID id) {
+    this.neighbours.remove(id);
+  }
+
+  void clear() {
+    this.neighbours.clear();
+  }
+
+  int size() {
+    return this.neighbours.size();
+  }
+
+  private void learn(final ObjectID anchor, final ObjectID neighbour) {
+    Set<ObjectID> learned = this.neighbours.get(anchor);
+    if (learned == null) {
+      learned = new LinkedHashSet<ObjectID>();
+      this.neighbours.put(anchor, learned);
+    }
+    if (learned.size() < this.maxNeighbours) {
+      learned.add(neighbour);
+    }
+  }
+
+  private static final class Burst {
+    private ObjectID anchor;
+    private long     lastMiss;
+    private int      count;
+  }
+}
@@ -62,6 +62,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -416,12 +418,41 @@ public class ClientObjectManagerImpl implements ClientObjectManager, ClientHands
     return lookupObject(objectID, false, false);
   }
 
+  @Override
+  public Object[] lookupObjects(final ObjectID[] objectIDs) throws ClassNotFoundException, AbortedOperationException {
+    final List<ObjectID> missing = new ArrayList<ObjectID>();
+    synchronized (this) {
+      for (final ObjectID id : objectIDs) {
+        if (!id.isNull() && !basicHasLocal(id) && this.objectLatchStateMap.get(id) == null) {
+          missing.add(id);
+        }
+      }
+    }
+    // not under the manager lock, the remote object manager may wait for the connection to be up
+    final Map<ObjectID, Future<DNA>> retrieves = new HashMap<ObjectID, Future<DNA>>();
+    for (final ObjectID id : missing) {
+      retrieves.put(id, this.remoteObjectManager.retrieveAsync(id));
+    }
+    final Object[] objects = new Object[objectIDs.length];
+    for (int i = 0; i < objectIDs.length; i++) {
+      objects[i] = lookupObject(objectIDs[i], false, false, retrieves.remove(objectIDs[i]));
+    }
+    return objects;
+  }
+
   private Object lookupObject(final ObjectID objectID, final boolean noDepth, final boolean quiet)
       throws ClassNotFoundException, AbortedOperationException {
+    return lookupObject(objectID, noDepth, quiet, null);
+  }
+
+  private Object lookupObject(final ObjectID objectID, final boolean noDepth, final boolean quiet,
+                              Future<DNA> retrieve) throws ClassNotFoundException, AbortedOperationException {
     if (objectID.isNull()) { return null; }
     Object o = null;
     while (o == null) {
-      final TCObject tco = lookup(objectID, noDepth, quiet);
+      final TCObject tco = lookup(objectID, noDepth, quiet, retrieve);
+      // a retry after a reap has to fetch the object again
+      retrieve = null;
       if (tco == null) { throw new AssertionError("TCObject was null for " + objectID);// continue;
       }
 
@@ -490,6 +521,15 @@ public class ClientObjectManagerImpl implements ClientObjectManager, ClientHands
 
   private TCObject lookup(final ObjectID id, final boolean noDepth, final boolean quiet)
       throws AbortedOperationException, ClassNotFoundException {
+    return lookup(id, noDepth, quiet, null);
+  }
+
+  /**
+   * @param retrieve the already issued retrieve of the object, used instead of a blocking retrieve if this thread ends
+   *        up faulting it in. May be null.
+   */
+  private TCObject lookup(final ObjectID id, final boolean noDepth, final boolean quiet, final Future<DNA> retrieve)
+      throws AbortedOperationException, ClassNotFoundException {
     TCObject obj = null;
     ObjectLookupState ols = null;
 
@@ -516,7 +556,12 @@ public class ClientObjectManagerImpl implements ClientObjectManager, ClientHands
         Assert.assertNull(obj);
         markCreateInProgress(ols, lookupContext);
         try {
-          DNA dna = noDepth ? this.remoteObjectManager.retrieve(id, NO_DEPTH) : this.remoteObjectManager.retrieve(id);
+          final DNA dna;
+          if (retrieve != null) {
+            dna = getRetrieved(retrieve);
+          } else {
+            dna = noDepth ? this.remoteObjectManager.retrieve(id, NO_DEPTH) : this.remoteObjectManager.retrieve(id);
+          }
           obj = createObjectWithDNA(dna);
         } catch (AbortedOperationException t) {
           throw t;
@@ -541,6 +586,26 @@ public class ClientObjectManagerImpl implements ClientObjectManager, ClientHands
     return obj;
   }
 
+  private static DNA getRetrieved(final Future<DNA> retrieve) throws AbortedOperationException {
+    boolean isInterrupted = false;
+    try {
+      while (true) {
+        try {
+          return retrieve.get();
+        } catch (final InterruptedException e) {
+          isInterrupted = true;
+        } catch (final ExecutionException e) {
+          final Throwable cause = e.getCause();
+          if (cause instanceof AbortedOperationException) { throw (AbortedOperationException) cause; }
+          if (cause instanceof RuntimeException) { throw (RuntimeException) cause; }
+          throw new TCRuntimeException(cause);
+        }
+      }
+    } finally {
+      Util.selfInterruptIfNeeded(isInterrupted);
+    }
+  }
+
   private TCObject createObjectWithDNA(DNA dna) throws ClassNotFoundException {
     TCObject obj = null;
 
@@ -45,16 +45,22 @@ import com.tc.util.Util;
 import com.tc.util.concurrent.TaskRunner;
 import com.tc.util.concurrent.Timer;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * This class is responsible for any communications to the server for object retrieval and removal
@@ -85,6 +91,22 @@ public class RemoteObjectManagerImpl implements RemoteObjectManager, PrettyPrint
   private final static boolean ENABLE_LOGGING                            = TCPropertiesImpl
                                                                              .getProperties()
                                                                              .getBoolean(TCPropertiesConsts.L1_OBJECTMANAGER_REMOTE_LOGGING_ENABLED);
+  private final static boolean ADAPTIVE_PREFETCH_ENABLED                 = TCPropertiesImpl
+                                                                             .getProperties()
+                                                                             .getBoolean(TCPropertiesConsts.L1_OBJECTMANAGER_REMOTE_PREFETCH_ADAPTIVE_ENABLED,
+                                                                                         false);
+  private final static int     ADAPTIVE_PREFETCH_MAX_TRACKED             = TCPropertiesImpl
+                                                                             .getProperties()
+                                                                             .getInt(TCPropertiesConsts.L1_OBJECTMANAGER_REMOTE_PREFETCH_MAX_TRACKED,
+                                                                                     10000);
+  private final static int     ADAPTIVE_PREFETCH_MAX_NEIGHBOURS          = TCPropertiesImpl
+                                                                             .getProperties()
+                                                                             .getInt(TCPropertiesConsts.L1_OBJECTMANAGER_REMOTE_PREFETCH_MAX_NEIGHBOURS,
+                                                                                     32);
+  private final static long    ADAPTIVE_PREFETCH_BURST_WINDOW            = TCPropertiesImpl
+                                                                             .getProperties()
+                                                                             .getLong(TCPropertiesConsts.L1_OBJECTMANAGER_REMOTE_PREFETCH_BURST_WINDOW,
+                                                                                      50);
 
   private static enum State {
     PAUSED, RUNNING, REJOIN_IN_PROGRESS, STARTING, STOPPED
@@ -96,8 +118,9 @@ public class RemoteObjectManagerImpl implements RemoteObjectManager, PrettyPrint
 
   private final HashMap<String, ObjectID>          rootRequests             = new HashMap<String, ObjectID>();
 
-  private final Map<ObjectID, DNA>                 dnaCache                 = new HashMap<ObjectID, DNA>();
-  private final Map<ObjectID, ObjectLookupState>   objectLookupStates       = new HashMap<ObjectID, ObjectLookupState>();
+  // Mutated under the manager monitor only, concurrent so that residency checks can peek without it
+  private final Map<ObjectID, DNA>                 dnaCache                 = new ConcurrentHashMap<ObjectID, DNA>();
+  private final Map<ObjectID, ObjectLookupState>   objectLookupStates       = new ConcurrentHashMap<ObjectID, ObjectLookupState>();
 
   private final RequestRootMessageFactory          rrmFactory;
   private final RequestManagedObjectMessageFactory rmomFactory;
@@ -115,6 +138,7 @@ public class RemoteObjectManagerImpl implements RemoteObjectManager, PrettyPrint
   private long                                     hit                      = 0;
   private long                                     miss                     = 0;
   private final AbortableOperationManager          abortableOperationManager;
+  private final AdaptivePrefetchPolicy             prefetchPolicy;
 
   private final Timer                              objectRequestTimer;
 
@@ -124,6 +148,17 @@ public class RemoteObjectManagerImpl implements RemoteObjectManager, PrettyPrint
                                  final SessionManager sessionManager,
                                  final AbortableOperationManager abortableOperationManager,
                                  final TaskRunner taskRunner) {
+    this(groupID, logger, rrmFactory, rmomFactory, defaultDepth, sessionManager, abortableOperationManager,
+         taskRunner, ADAPTIVE_PREFETCH_ENABLED ? new AdaptivePrefetchPolicy(ADAPTIVE_PREFETCH_MAX_TRACKED,
+                                                                            ADAPTIVE_PREFETCH_MAX_NEIGHBOURS,
+                                                                            ADAPTIVE_PREFETCH_BURST_WINDOW) : null);
+  }
+
+  RemoteObjectManagerImpl(final GroupID groupID, final TCLogger logger, final RequestRootMessageFactory rrmFactory,
+                          final RequestManagedObjectMessageFactory rmomFactory, final int defaultDepth,
+                          final SessionManager sessionManager,
+                          final AbortableOperationManager abortableOperationManager, final TaskRunner taskRunner,
+                          final AdaptivePrefetchPolicy prefetchPolicy) {
     this.groupID = groupID;
     this.logger = logger;
     this.rrmFactory = rrmFactory;
@@ -131,6 +166,7 @@ public class RemoteObjectManagerImpl implements RemoteObjectManager, PrettyPrint
     this.defaultDepth = defaultDepth;
     this.sessionManager = sessionManager;
     this.abortableOperationManager = abortableOperationManager;
+    this.prefetchPolicy = prefetchPolicy;
     this.objectRequestTimer = taskRunner.newTimer("RemoteObjectManager Request Scheduler");
     this.objectRequestTimer.scheduleWithFixedDelay(new CleanupUnusedDNATask(),
         CLEANUP_UNUSED_DNA_TIMER, CLEANUP_UNUSED_DNA_TIMER, TimeUnit.MILLISECONDS);
@@ -143,6 +179,9 @@ public class RemoteObjectManagerImpl implements RemoteObjectManager, PrettyPrint
     dnaCache.clear();
     objectLookupStates.clear();
     lru.clear();
+    if (prefetchPolicy != null) {
+      prefetchPolicy.clear();
+    }
     removeObjects = new BitSetObjectIDSet();
     pendingSendTaskScheduled = false;
     removeTaskScheduled = RemovedObjectsSendState.NOT_SCHEDULED;
@@ -294,6 +333,38 @@ public class RemoteObjectManagerImpl implements RemoteObjectManager, PrettyPrint
     sendRequest(ols);
   }
 
+  /**
+   * Requests all of the given objects that are neither cached nor already being looked up, as prefetches so missing
+   * objects are silently ignored. They go out in a single {@link RequestManagedObjectMessage}, unless too many
+   * lookups are outstanding already, in which case they join the next batch of pending lookups.
+   */
+  private void basicPreFetchObjects(final Collection<ObjectID> ids) {
+    if (ids.isEmpty()) { return; }
+    final ObjectRequestID requestID = getNextRequestID();
+    final List<ObjectLookupState> prefetches = new ArrayList<ObjectLookupState>(ids.size());
+    for (final ObjectID id : ids) {
+      if (id.isNull() || this.dnaCache.containsKey(id) || this.objectLookupStates.containsKey(id)) {
+        continue;
+      }
+      final ObjectLookupState ols = new ObjectLookupState(requestID, id, this.defaultDepth);
+      ols.makePrefetchRequest();
+      this.objectLookupStates.put(id, ols);
+      prefetches.add(ols);
+    }
+    if (prefetches.isEmpty()) { return; }
+    if (this.objectLookupStates.size() <= MAX_OUTSTANDING_REQUESTS_SENT_IMMEDIATELY) {
+      final ObjectIDSet oids = new BitSetObjectIDSet();
+      for (final ObjectLookupState ols : prefetches) {
+        addRequestedObjectIDsTo(ols, oids);
+      }
+      sendRequestNow(requestID, oids, this.defaultDepth);
+    } else {
+      for (final ObjectLookupState ols : prefetches) {
+        scheduleRequestForLater(ols);
+      }
+    }
+  }
+
   @Override
   public DNA retrieve(final ObjectID id) throws AbortedOperationException {
     return basicRetrieve(id, this.defaultDepth);
@@ -304,6 +375,35 @@ public class RemoteObjectManagerImpl implements RemoteObjectManager, PrettyPrint
     return basicRetrieve(id, depth);
   }
 
+  /**
+   * Registers the lookup without sending it. It goes out with the next batch of pending requests, so the objects
+   * requested together by one caller, or by concurrent callers, are fetched in a single
+   * {@link RequestManagedObjectMessage}. The lookup stays a prefetch until the future is asked for the DNA, so an
+   * abandoned future does not keep the object pinned in the lookup table.
+   */
+  @Override
+  public synchronized Future<DNA> retrieveAsync(final ObjectID id) throws AbortedOperationException {
+    waitUntilRunningAbortable();
+    if (!this.dnaCache.containsKey(id) && !this.objectLookupStates.containsKey(id)) {
+      final ObjectLookupState ols = new ObjectLookupState(getNextRequestID(), id, this.defaultDepth);
+      ols.makePrefetchRequest();
+      this.objectLookupStates.put(id, ols);
+      scheduleRequestForLater(ols);
+    }
+    return new RetrieveFuture(id);
+  }
+
+  /**
+   * Sends the held back requests now if the lookup for the given object is one of them, so that a caller about to
+   * block on it does not wait for the batch period as well.
+   */
+  private void flushIfPending(final ObjectID id) {
+    final ObjectLookupState ols = this.objectLookupStates.get(id);
+    if (ols != null && ols.isPending()) {
+      sendSegregatedPendingRequests(getPendingRequestSegregated());
+    }
+  }
+
   public synchronized DNA basicRetrieve(final ObjectID id, final int depth)
       throws AbortedOperationException {
     boolean isInterrupted = false;
@@ -320,9 +420,7 @@ public class RemoteObjectManagerImpl implements RemoteObjectManager, PrettyPrint
         waitUntilRunningAbortable();
         ObjectLookupState ols = this.objectLookupStates.get(id);
         if (ols == null) {
-          ols = new ObjectLookupState(getNextRequestID(), id, depth);
-          ols.makeLookupRequest();
-          sendRequest(ols);
+          lookup(id, depth);
         } else if (ols.isMissing()) {
           this.objectLookupStates.remove(id);
           throw new TCObjectNotFoundException(id.toString());
@@ -353,6 +451,15 @@ public class RemoteObjectManagerImpl implements RemoteObjectManager, PrettyPrint
     return dna;
   }
 
+  private void lookup(final ObjectID id, final int depth) {
+    final ObjectLookupState ols = new ObjectLookupState(getNextRequestID(), id, depth);
+    ols.makeLookupRequest();
+    sendRequest(ols);
+    if (this.prefetchPolicy != null) {
+      basicPreFetchObjects(this.prefetchPolicy.missed(id));
+    }
+  }
+
   private void increamentStatsAndLogIfNecessary(final boolean inMemory) {
     if (inMemory) {
       this.hit++;
@@ -552,6 +659,9 @@ public class RemoteObjectManagerImpl implements RemoteObjectManager, PrettyPrint
       } else {
         ols.makeMissingObject();
       }
+      if (this.prefetchPolicy != null) {
+        this.prefetchPolicy.forget(oid);
+      }
     }
     notifyAll();
   }
@@ -619,8 +729,8 @@ public class RemoteObjectManagerImpl implements RemoteObjectManager, PrettyPrint
   }
 
   @Override
-  public synchronized boolean isInDNACache(final ObjectID id) {
-    return this.dnaCache.get(id) != null;
+  public boolean isInDNACache(final ObjectID id) {
+    return this.dnaCache.containsKey(id);
   }
 
   public synchronized void clearAllUnrequestedDNABatches() {
@@ -628,6 +738,83 @@ public class RemoteObjectManagerImpl implements RemoteObjectManager, PrettyPrint
     this.lru.clearAllUnrequestedDNABatches();
   }
 
+  private final class RetrieveFuture implements Future<DNA> {
+
+    private final ObjectID id;
+
+    private RetrieveFuture(final ObjectID id) {
+      this.id = id;
+    }
+
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+      return false;
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return false;
+    }
+
+    @Override
+    public boolean isDone() {
+      if (dnaCache.containsKey(this.id)) { return true; }
+      final ObjectLookupState ols = objectLookupStates.get(this.id);
+      return ols != null && ols.isMissing();
+    }
+
+    @Override
+    public DNA get() throws ExecutionException {
+      synchronized (RemoteObjectManagerImpl.this) {
+        try {
+          if (state == State.RUNNING) {
+            flushIfPending(this.id);
+          }
+          return basicRetrieve(this.id, defaultDepth);
+        } catch (final AbortedOperationException e) {
+          throw new ExecutionException(e);
+        } catch (final TCObjectNotFoundException e) {
+          throw new ExecutionException(e);
+        }
+      }
+    }
+
+    /**
+     * Waits no longer than the timeout, including while the manager is paused. On timeout the lookup is dropped from
+     * the lookup table; a DNA arriving after that is cached unrequested and a later get() still finds it.
+     */
+    @Override
+    public DNA get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException,
+        TimeoutException {
+      final long deadline = System.nanoTime() + unit.toNanos(timeout);
+      synchronized (RemoteObjectManagerImpl.this) {
+        while (!dnaCache.containsKey(this.id)) {
+          if (isStopped()) { throw new TCNotRunningException(); }
+          if (isRejoinInProgress()) { throw new PlatformRejoinException(); }
+          if (state == State.RUNNING) {
+            final ObjectLookupState ols = objectLookupStates.get(this.id);
+            if (ols == null) {
+              lookup(this.id, defaultDepth);
+            } else if (ols.isMissing()) {
+              break;
+            } else if (ols.isPrefetch()) {
+              ols.makeLookupRequest();
+            }
+            flushIfPending(this.id);
+          }
+          final long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+          if (remaining <= 0) {
+            objectLookupStates.remove(this.id);
+            throw new TimeoutException("Timed out retrieving " + this.id);
+          }
+          RemoteObjectManagerImpl.this.wait(remaining);
+        }
+        // the DNA is cached or the object is known to be missing, neither waits
+        return get();
+      }
+    }
+  }
+
   private class SendPendingRequestsTask implements Runnable {
     @Override
     public void run() {
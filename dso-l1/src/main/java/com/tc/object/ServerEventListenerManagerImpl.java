@@ -32,18 +32,25 @@ import com.tc.properties.TCPropertiesImpl;
 import com.tc.server.ServerEvent;
 import com.tc.server.ServerEventType;
 import com.tc.util.concurrent.TaskRunner;
+import com.tc.util.concurrent.Timer;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
+ * Every registered destination gets its own delivery lane: a bounded queue drained on the shared task runner pool, one
+ * batch at a time, so a destination sees its events in order and slow listeners do not hold up the others. When a
+ * lane is full, dispatch blocks, which backs up the delivery stage and in turn delays the transaction acknowledgements
+ * to the server.
+ *
  * @author Eugene Shelestovich
  */
 public class ServerEventListenerManagerImpl implements ServerEventListenerManager {
@@ -51,15 +58,20 @@ public class ServerEventListenerManagerImpl implements ServerEventListenerManage
   private static final TCLogger LOG = TCLogging.getLogger(ServerEventListenerManagerImpl.class);
 
   private final Map<String, Map<ServerEventDestination, Set<ServerEventType>>> registry = Maps.newHashMap();
+  private final Map<ServerEventDestination, DeliveryLane> lanes = Maps.newHashMap();
   private final ReadWriteLock lock = new ReentrantReadWriteLock();
   private final long timeoutInterval;
-  private final TaskRunner runner;
+  private final int laneQueueSize;
+  private final int laneBatchSize;
+  private final Timer deliveryTimer;
 
 
   public ServerEventListenerManagerImpl(TaskRunner runner) {
-    this.runner = runner;
     TCProperties props = TCPropertiesImpl.getProperties();
     timeoutInterval = props.getLong(TCPropertiesConsts.L1_SERVER_EVENT_DELIVERY_TIMEOUT_INTERVAL, (3 * 60));
+    laneQueueSize = props.getInt(TCPropertiesConsts.L1_SERVER_EVENT_DELIVERY_LANE_QUEUE_SIZE, 4096);
+    laneBatchSize = props.getInt(TCPropertiesConsts.L1_SERVER_EVENT_DELIVERY_LANE_BATCH_SIZE, 128);
+    deliveryTimer = runner.newTimer("Server Event Delivery");
   }
 
 
@@ -76,6 +88,7 @@ public class ServerEventListenerManagerImpl implements ServerEventListenerManage
                 + type + ", key: " + event.getKey() + ", cache: " + name);
     }
 
+    final List<DeliveryLane> targets = new ArrayList<DeliveryLane>(2);
     lock.readLock().lock();
     try {
       final Map<ServerEventDestination, Set<ServerEventType>> destinations = registry.get(name);
@@ -85,38 +98,29 @@ public class ServerEventListenerManagerImpl implements ServerEventListenerManage
         return;
       }
 
-      boolean handlerFound = false;
       for (Map.Entry<ServerEventDestination, Set<ServerEventType>> destination : destinations.entrySet()) {
-        final ServerEventDestination target = destination.getKey();
-        final Set<ServerEventType> eventTypes = destination.getValue();
-        if (eventTypes.contains(type)) {
-          handlerFound = true;
-          //now to submit and get a future
-          ScheduledFuture future = runner.newTimer().schedule(new Runnable() {
-            @Override
-            public void run() {
-              target.handleServerEvent(event);
-            }
-          }, 0, TimeUnit.MILLISECONDS);
-          try {
-            future.get(timeoutInterval, TimeUnit.SECONDS);
-          } catch (InterruptedException e) {
-            throw new TCRuntimeException("Interrupted exception thrown while dispatching server event", e);
-          } catch (ExecutionException e) {
-            throw new TCRuntimeException("Execution exception thrown while dispatching server event", e);
-          } catch (TimeoutException e) {
-            throw new TCRuntimeException("Dispatching events timed out", e);
-
-          }
+        if (destination.getValue().contains(type)) {
+          targets.add(lanes.get(destination.getKey()));
         }
       }
-
-      if (!handlerFound) {
-        LOG.warn("Could not find handler for server event: " + event);
-      }
     } finally {
       lock.readLock().unlock();
     }
+
+    if (targets.isEmpty()) {
+      LOG.warn("Could not find handler for server event: " + event);
+      return;
+    }
+    // queue outside the lock, a full lane must not keep listeners from being (un)registered
+    for (DeliveryLane target : targets) {
+      try {
+        if (!target.offer(event)) {
+          throw new TCRuntimeException("Dispatching events timed out");
+        }
+      } catch (InterruptedException e) {
+        throw new TCRuntimeException("Interrupted exception thrown while dispatching server event", e);
+      }
+    }
   }
 
   @Override
@@ -161,6 +165,9 @@ public class ServerEventListenerManagerImpl implements ServerEventListenerManage
         eventTypes.addAll(listenTo);
       }
     }
+    if (!lanes.containsKey(destination)) {
+      lanes.put(destination, new DeliveryLane(destination));
+    }
   }
 
   private void doUnregister(final ServerEventDestination destination, final Set<ServerEventType> listenTo) {
@@ -174,6 +181,7 @@ public class ServerEventListenerManagerImpl implements ServerEventListenerManage
         // handle potential cascading removals of parent entities
         if (eventTypes.isEmpty()) {
           destinations.remove(destination);
+          lanes.remove(destination).stop();
           if (destinations.isEmpty()) {
             registry.remove(name);
           }
@@ -188,6 +196,10 @@ public class ServerEventListenerManagerImpl implements ServerEventListenerManage
     lock.writeLock().lock();
     try {
       registry.clear();
+      for (DeliveryLane lane : lanes.values()) {
+        lane.stop();
+      }
+      lanes.clear();
     } finally {
       lock.writeLock().unlock();
     }
@@ -228,7 +240,63 @@ public class ServerEventListenerManagerImpl implements ServerEventListenerManage
 
   @Override
   public void shutdown(boolean fromShutdownHook) {
-    // Do Nothing
+    cleanup();
+    deliveryTimer.cancel();
+  }
+
+  /**
+   * Events queued for one destination. At most one drain task of a lane is submitted at any time, which keeps the
+   * deliveries of a destination ordered without tying a thread to it.
+   */
+  private final class DeliveryLane implements Runnable {
+    private final ServerEventDestination     destination;
+    private final BlockingQueue<ServerEvent> queue     = new ArrayBlockingQueue<ServerEvent>(laneQueueSize);
+    private final AtomicBoolean              scheduled = new AtomicBoolean();
+    private volatile boolean                 stopped;
+
+    DeliveryLane(ServerEventDestination destination) {
+      this.destination = destination;
+    }
+
+    /**
+     * @return false if the lane stayed full for the whole delivery timeout
+     */
+    boolean offer(ServerEvent event) throws InterruptedException {
+      if (stopped) { return true; }
+      if (!queue.offer(event, timeoutInterval, TimeUnit.SECONDS)) { return false; }
+      schedule();
+      return true;
+    }
+
+    void stop() {
+      stopped = true;
+      queue.clear();
+    }
+
+    private void schedule() {
+      if (scheduled.compareAndSet(false, true)) {
+        deliveryTimer.execute(this);
+      }
+    }
+
+    @Override
+    public void run() {
+      final List<ServerEvent> batch = new ArrayList<ServerEvent>(Math.min(laneBatchSize, queue.size()));
+      queue.drainTo(batch, laneBatchSize);
+      try {
+        if (!batch.isEmpty() && !stopped) {
+          destination.handleServerEvents(batch);
+        }
+      } catch (Throwable t) {
+        LOG.error("Failed to deliver " + batch.size() + " server events to " + destination.getDestinationName(), t);
+      } finally {
+        // anything queued after the drain gets picked up by the next run
+        scheduled.set(false);
+        if (!queue.isEmpty() && !stopped) {
+          schedule();
+        }
+      }
+    }
   }
 
 }
@@ -46,6 +46,8 @@ import com.tc.platform.PlatformService;
 import com.tc.properties.TCPropertiesConsts;
 import com.tc.properties.TCPropertiesImpl;
 import com.tc.server.ServerEventType;
+import com.tc.util.AbortedOperationUtil;
+import com.tc.util.Util;
 import com.tc.util.concurrent.ThreadUtil;
 
 import java.util.ArrayList;
@@ -58,7 +60,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -102,6 +108,12 @@ public class TCObjectServerMapImpl<L> extends TCObjectLogical implements TCObjec
 
   private final PlatformService               platformService;
 
+  // unlocked lookups that went to the server, later misses on the same key wait for them instead of sending their own
+  private final ConcurrentMap<Object, ValueLookup> inFlightLookups  = new ConcurrentHashMap<Object, ValueLookup>();
+  private final AtomicLong                         localCacheHits   = new AtomicLong();
+  private final AtomicLong                         localCacheMisses = new AtomicLong();
+  private final AtomicLong                         coalescedMisses  = new AtomicLong();
+
   public TCObjectServerMapImpl(final PlatformService platformService, final ClientObjectManager objectManager,
                                final RemoteServerMapManager serverMapManager, final ObjectID id, final Object peer,
                                final TCClass tcc, final boolean isNew,
@@ -547,15 +559,39 @@ public class TCObjectServerMapImpl<L> extends TCObjectLogical implements TCObjec
   @Override
   public Object getValueUnlocked(TCServerMap map, Object key) throws AbortedOperationException {
     AbstractLocalCacheStoreValue item = getValueUnlockedFromCache(key);
-    if (item != null) { return item.getValueObject(); }
+    if (item != null) {
+      localCacheHits.incrementAndGet();
+      return item.getValueObject();
+    }
 
+    while (true) {
+      final ValueLookup lookup = new ValueLookup();
+      final ValueLookup inFlight = inFlightLookups.putIfAbsent(key, lookup);
+      if (inFlight == null) {
+        try {
+          final Object value = getValueUnlockedFromServer(map, key);
+          lookup.complete(value);
+          return value;
+        } finally {
+          inFlightLookups.remove(key, lookup);
+          // the waiters look the value up on their own if this lookup failed
+          lookup.release();
+        }
+      }
+      coalescedMisses.incrementAndGet();
+      if (inFlight.await(platformService)) { return inFlight.getValue(); }
+    }
+  }
+
+  private Object getValueUnlockedFromServer(TCServerMap map, Object key) throws AbortedOperationException {
     // Doing double checking to ensure correct value
     final Lock lock = getLockForKey(key);
     lock.lock();
     try {
-      item = getValueUnlockedFromCache(key);
+      final AbstractLocalCacheStoreValue item = getValueUnlockedFromCache(key);
       if (item != null) { return item.getValueObject(); }
 
+      localCacheMisses.incrementAndGet();
       final Object value = getValueForKeyFromServer(map, key, true, false);
       if (value != null) {
         updateLocalCacheIfNecessary(key, value);
@@ -1148,6 +1184,51 @@ public class TCObjectServerMapImpl<L> extends TCObjectLogical implements TCObjec
     }
   }
 
+  @Override
+  public void logicalInvoke(final LogicalOperation method, final Object[] parameters) {
+    changedLocally(parameters);
+    super.logicalInvoke(method, parameters);
+  }
+
+  @Override
+  public boolean logicalInvokeWithResult(final LogicalOperation method, final Object[] parameters)
+      throws AbortedOperationException {
+    changedLocally(parameters);
+    return super.logicalInvokeWithResult(method, parameters);
+  }
+
+  /**
+   * Lookups in flight may have been answered before a local change, gets after it must not wait for them.
+   */
+  private void changedLocally(final Object[] parameters) {
+    if (parameters.length == 0) {
+      inFlightLookups.clear();
+    } else {
+      inFlightLookups.remove(parameters[0]);
+    }
+  }
+
+  /**
+   * @return unlocked gets answered from the local cache
+   */
+  public long getLocalCacheHitCount() {
+    return localCacheHits.get();
+  }
+
+  /**
+   * @return unlocked gets that went to the server
+   */
+  public long getLocalCacheMissCount() {
+    return localCacheMisses.get();
+  }
+
+  /**
+   * @return unlocked gets that waited for the server lookup of another thread rather than sending their own
+   */
+  public long getCoalescedMissCount() {
+    return coalescedMisses.get();
+  }
+
   private Lock getLockForKey(Object key) {
     Preconditions.checkNotNull(key, "Key cannot be null");
     return localLocks[Math.abs(spreadHash(key.hashCode()) % localLocks.length)];
@@ -1189,4 +1270,42 @@ public class TCObjectServerMapImpl<L> extends TCObjectLogical implements TCObjec
     logicalInvoke(LogicalOperation.UNREGISTER_SERVER_EVENT_LISTENER, params.toArray());
   }
 
+  private static class ValueLookup {
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile boolean     completed;
+    private volatile Object      value;
+
+    void complete(Object result) {
+      this.value = result;
+      this.completed = true;
+    }
+
+    void release() {
+      done.countDown();
+    }
+
+    Object getValue() {
+      return value;
+    }
+
+    /**
+     * @return true if the lookup completed, false if it failed and the caller should look up the value itself
+     */
+    boolean await(PlatformService platformService) throws AbortedOperationException {
+      boolean interrupted = false;
+      try {
+        while (true) {
+          try {
+            done.await();
+            return completed;
+          } catch (InterruptedException e) {
+            AbortedOperationUtil.throwExceptionIfAborted(platformService.getAbortableOperationManager());
+            interrupted = true;
+          }
+        }
+      } finally {
+        Util.selfInterruptIfNeeded(interrupted);
+      }
+    }
+  }
 }
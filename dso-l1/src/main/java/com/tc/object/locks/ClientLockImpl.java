@@ -43,8 +43,11 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> implements ClientLock {
   private static long                 NULL_AWARD_ID = -1;
@@ -67,6 +70,20 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   private volatile byte               gcCycleCount  = 0;
   private int                         pinned        = 0;
 
+  /*
+   * Most recently added hold. Its owner can re-enter it at the same level without taking the monitor, see
+   * tryReenter(). Written under the monitor, cleared whenever the hold leaves the state.
+   */
+  private volatile LockHold           reentrantHint = null;
+
+  /*
+   * Read holds counted per thread outside of the state, see tryFastRead(). Created the first time the fast path opens,
+   * entries are only added, reset or dropped under the monitor. The fast path is open while fastReadsOpen is set:
+   * the lock is greedy and the state holds nothing but read holds.
+   */
+  private volatile Map<ThreadID, FastReadHolds> fastReads = null;
+  private boolean                     fastReadsOpen = false;
+
   private long                        awardId       = NULL_AWARD_ID;
 
   public ClientLockImpl(final LockID lock) {
@@ -75,11 +92,13 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
 
   @Override
   public synchronized void cleanup() {
+    closeFastReads();
     notifyAll();
     for (final Iterator<LockStateNode> it = iterator(); it.hasNext();) {
       LockStateNode lockState = it.next();
       removeAndUnpark(lockState, it);
     }
+    reentrantHint = null;
     greediness = ClientGreediness.FREE;
     pinned = 0;
     setAwardID(NULL_AWARD_ID);
@@ -103,6 +122,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   public void lock(final AbortableOperationManager abortableOperationManager, final RemoteLockManager remote,
                    final ThreadID thread, final LockLevel level) throws GarbageLockException, AbortedOperationException {
     markUsed();
+    if (tryFastRead(thread, level) || tryReenter(thread, level)) { return; }
     if (!tryAcquireLocally(remote, abortableOperationManager, thread, level).isSuccess()) {
       acquireQueued(abortableOperationManager, remote, thread, level);
     }
@@ -120,6 +140,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
     if (Thread.interrupted()) {
       handleInterrupt(abortableOperationManager);
     }
+    if (tryFastRead(thread, level) || tryReenter(thread, level)) { return; }
     if (!tryAcquireLocally(remote, abortableOperationManager, thread, level).isSuccess()) {
       acquireQueuedInterruptibly(abortableOperationManager, remote, thread, level);
     }
@@ -135,6 +156,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
                          final ThreadID thread, final LockLevel level) throws GarbageLockException,
       AbortedOperationException {
     markUsed();
+    if (tryFastRead(thread, level) || tryReenter(thread, level)) { return true; }
     final LockAcquireResult result = tryAcquireLocally(remote, abortableOperationManager, thread, level);
     if (result.isKnownResult()) {
       return result.isSuccess();
@@ -159,7 +181,8 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
     if (Thread.interrupted()) {
       handleInterrupt(abortableOperationManager);
     }
-    return tryAcquireLocally(remote, abortableOperationManager, thread, level).isSuccess()
+    return tryFastRead(thread, level) || tryReenter(thread, level)
+           || tryAcquireLocally(remote, abortableOperationManager, thread, level).isSuccess()
            || acquireQueuedTimeout(abortableOperationManager, remote, thread, level, timeout);
   }
 
@@ -170,6 +193,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   public void unlock(final RemoteLockManager remote, final ThreadID thread, final LockLevel level)
       throws AbortedOperationException {
     markUsed();
+    if (tryFastReadExit(thread, level) || tryExit(thread, level)) { return; }
     if (release(remote, thread, level)) {
       unparkFirstQueuedAcquire();
     }
@@ -298,7 +322,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   }
 
   protected synchronized void resetPinIfNecessary() {
-    if (noLocksHeld(null, null)) {
+    if (noLocksHeld(null, null) && fastReadCount(null) == 0) {
       this.pinned = 0;
       this.setAwardID(NULL_AWARD_ID);
     }
@@ -328,6 +352,10 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
         holds.push((LockHold) node);
       }
     }
+    final LockHold hint = this.reentrantHint;
+    if (hint != null && hint.getOwner().equals(thread)) {
+      this.reentrantHint = null;
+    }
     return holds;
   }
 
@@ -375,6 +403,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
 
   @Override
   public synchronized Collection<ClientServerExchangeLockContext> getStateSnapshot(final ClientID client) {
+    closeFastReads();
     final Collection<ClientServerExchangeLockContext> contexts = new ArrayList<ClientServerExchangeLockContext>();
 
     switch (this.greediness) {
@@ -421,6 +450,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
 
   @Override
   public synchronized boolean isLocked(final LockLevel level) {
+    if (level == LockLevel.READ && fastReadCount(null) > 0) { return true; }
     for (final LockStateNode s : this) {
       if ((s instanceof LockHold) && (((LockHold) s).getLockLevel().equals(level))) { return true; }
     }
@@ -429,6 +459,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
 
   @Override
   public synchronized boolean isLockedBy(final ThreadID thread, final LockLevel level) {
+    if ((level == LockLevel.READ || level == null) && fastReadCount(thread) > 0) { return true; }
     for (final LockStateNode s : this) {
       if ((s instanceof LockHold) && (((LockHold) s).getLockLevel().equals(level) || (level == null))
           && s.getOwner().equals(thread)) { return true; }
@@ -437,6 +468,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   }
 
   public synchronized boolean isLockedBy(final ThreadID thread, final Set<LockLevel> levels) {
+    if (levels.contains(LockLevel.READ) && fastReadCount(thread) > 0) { return true; }
     for (final LockStateNode s : this) {
       if ((s instanceof LockHold) && s.getOwner().equals(thread) && levels.contains(((LockHold) s).getLockLevel())) { return true; }
     }
@@ -445,10 +477,10 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
 
   @Override
   public synchronized int holdCount(final LockLevel level) {
-    int holders = 0;
+    int holders = level == LockLevel.READ ? fastReadCount(null) : 0;
     for (final LockStateNode s : this) {
       if ((s instanceof LockHold) && ((LockHold) s).getLockLevel().equals(level)) {
-        holders++;
+        holders += 1 + ((LockHold) s).getReentrantCount();
       } else if (s instanceof LockWaiter) {
         break;
       } else if (s instanceof PendingLockHold) {
@@ -526,6 +558,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   @Override
   public synchronized boolean recall(final RemoteLockManager remote, final ServerLockLevel interest, final int lease,
                                      boolean batch) {
+    closeFastReads();
     // transition the greediness state
     this.greediness = this.greediness.recalled(this, lease, interest);
 
@@ -721,6 +754,11 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
     if (level == LockLevel.CONCURRENT) { return LockAcquireResult.SHARED_SUCCESS; }
 
     synchronized (this) {
+      if (level == LockLevel.READ) {
+        if (acquireFastRead(thread)) { return LockAcquireResult.SHARED_SUCCESS; }
+      } else {
+        closeFastReads();
+      }
       LockAcquireResult result = tryAcquireUsingThreadState(remote, thread, level);
       boolean interrupted = false;
       while (result.isWaitingForFlush()) {
@@ -740,7 +778,9 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
       if (result.isKnownResult()) {
         return result;
       } else if (this.greediness.canAward(level)) {
-        addFirst(new LockHold(thread, level));
+        final LockHold hold = new LockHold(thread, level);
+        addFirst(hold);
+        this.reentrantHint = hold;
         return level.isWrite() ? LockAcquireResult.SUCCESS : LockAcquireResult.SHARED_SUCCESS;
       } else {
         return LockAcquireResult.UNKNOWN;
@@ -762,6 +802,7 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
           return result;
         } else if (result.isSuccess()) {
           addFirst(newHold);
+          this.reentrantHint = newHold;
         } else {
           // Lock upgrade not supported check
           if (level.isWrite() && isLockedBy(thread, READ_LEVELS)) { throw new TCLockUpgradeNotSupportedError(); }
@@ -809,6 +850,8 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
       }
 
       if (unlock == null) { throw new IllegalMonitorStateException(); }
+      // a re-entrant acquire counted on the hold leaves the lock state as it is
+      if (unlock.exit()) { return false; }
 
       if (!unlock.getLockLevel().isSyncWrite() && !flushOnUnlock(unlock)) { return release(remote, unlock); }
     }
@@ -861,6 +904,9 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
 
   private synchronized boolean release(final RemoteLockManager remote, final LockHold unlock) {
     remove(unlock);
+    if (unlock.equals(this.reentrantHint)) {
+      this.reentrantHint = null;
+    }
     if (this.greediness.isFree()) {
       remoteUnlock(remote, unlock);
     } else if (this.greediness.isRecalled() && canRecallNow()) {
@@ -1318,6 +1364,10 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
    */
   @Override
   public synchronized boolean tryMarkAsGarbage(final RemoteLockManager remote) {
+    if (this.pinned == 0 && isEmpty() && this.gcCycleCount > 0) {
+      // read holds counted outside of the state keep the lock alive too
+      closeFastReads();
+    }
     if (this.pinned == 0 && isEmpty() && this.gcCycleCount > 0) {
       this.greediness = this.greediness.markAsGarbage();
       if (this.greediness.isGarbage()) {
@@ -1334,7 +1384,151 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
   }
 
   private void markUsed() {
-    this.gcCycleCount = 0;
+    // avoid a volatile write per lock operation on locks that are in constant use
+    if (this.gcCycleCount != 0) {
+      this.gcCycleCount = 0;
+    }
+  }
+
+  /*
+   * Uncontended fast path for a thread re-entering the hold it took most recently, at the same level. The outer hold
+   * already keeps the lock greedy on this node and pins it against recall, so the acquire is just counted on that hold
+   * : no monitor, no node and no walk of the state. Synchronous write holds always take the slow path since every
+   * unlock of them has to wait for the server.
+   */
+  private boolean tryReenter(final ThreadID thread, final LockLevel level) {
+    final LockHold hold = this.reentrantHint;
+    if (hold == null || hold.getLockLevel() != level || level.isSyncWrite()) { return false; }
+    if (!hold.getOwner().equals(thread) || hold.isFlushInProgress()) { return false; }
+    hold.reenter();
+    return true;
+  }
+
+  /*
+   * Counterpart of tryReenter(), only ever releases acquires counted on the hold and never the hold itself.
+   */
+  private boolean tryExit(final ThreadID thread, final LockLevel level) {
+    final LockHold hold = this.reentrantHint;
+    return hold != null && hold.getLockLevel() == level && hold.getOwner().equals(thread) && hold.exit();
+  }
+
+  /*
+   * Uncontended fast path for read acquires of a greedily held lock. Each thread that read locked it since the fast path
+   * opened has its own hold counter, and acquiring is a CAS on that counter : no monitor, no node, and concurrent
+   * readers don't touch each other's counters. The first acquire of a thread registers its counter under the monitor,
+   * see acquireFastRead().
+   */
+  private boolean tryFastRead(final ThreadID thread, final LockLevel level) {
+    if (level != LockLevel.READ) { return false; }
+    final Map<ThreadID, FastReadHolds> reads = this.fastReads;
+    if (reads == null) { return false; }
+    final FastReadHolds holds = reads.get(thread);
+    if (holds == null) { return false; }
+    for (;;) {
+      final int count = holds.get();
+      if (count == FastReadHolds.CLOSED) { return false; }
+      if (holds.compareAndSet(count, count + 1)) { return true; }
+    }
+  }
+
+  /*
+   * Counterpart of tryFastRead(). Fails once the holds were moved into the state, the slow path then finds them there.
+   */
+  private boolean tryFastReadExit(final ThreadID thread, final LockLevel level) {
+    if (level != LockLevel.READ) { return false; }
+    final Map<ThreadID, FastReadHolds> reads = this.fastReads;
+    if (reads == null) { return false; }
+    final FastReadHolds holds = reads.get(thread);
+    if (holds == null) { return false; }
+    for (;;) {
+      final int count = holds.get();
+      if (count <= 0) { return false; }
+      if (holds.compareAndSet(count, count - 1)) { return true; }
+    }
+  }
+
+  /*
+   * Called under the monitor for a read acquire that missed the fast path, opens the fast path if it can and counts the
+   * acquire on the thread's counter.
+   */
+  private boolean acquireFastRead(final ThreadID thread) throws GarbageLockException {
+    if (!this.fastReadsOpen) {
+      if (!canOpenFastReads()) { return false; }
+      Map<ThreadID, FastReadHolds> reads = this.fastReads;
+      if (reads == null) {
+        reads = new ConcurrentHashMap<ThreadID, FastReadHolds>();
+        this.fastReads = reads;
+      }
+      for (final FastReadHolds holds : reads.values()) {
+        holds.set(0);
+      }
+      this.fastReadsOpen = true;
+    }
+    FastReadHolds holds = this.fastReads.get(thread);
+    if (holds == null) {
+      holds = new FastReadHolds();
+      this.fastReads.put(thread, holds);
+    }
+    holds.incrementAndGet();
+    return true;
+  }
+
+  /*
+   * Reads may only be granted without looking at the state while no write hold, queued acquire or waiter is in it and
+   * no recall is going on.
+   */
+  private boolean canOpenFastReads() throws GarbageLockException {
+    if (!this.greediness.isGreedy() || !this.greediness.canAward(LockLevel.READ)) { return false; }
+    for (final LockStateNode s : this) {
+      if (!(s instanceof LockHold)) { return false; }
+      final LockHold hold = (LockHold) s;
+      if (hold.getLockLevel() != LockLevel.READ || hold.isFlushInProgress()) { return false; }
+    }
+    return true;
+  }
+
+  /*
+   * Called under the monitor before anything that needs to see every hold : write acquires, recalls and state
+   * snapshots. Closes each counter with a getAndSet, so a concurrent fast acquire either lands before and is moved into
+   * the state as a hold of its own, or fails and takes the slow path. Counters of threads holding nothing are dropped.
+   */
+  private void closeFastReads() {
+    if (!this.fastReadsOpen) { return; }
+    this.fastReadsOpen = false;
+    for (final Iterator<Entry<ThreadID, FastReadHolds>> it = this.fastReads.entrySet().iterator(); it.hasNext();) {
+      final Entry<ThreadID, FastReadHolds> e = it.next();
+      final int count = e.getValue().getAndSet(FastReadHolds.CLOSED);
+      if (count > 0) {
+        final LockHold hold = new LockHold(e.getKey(), LockLevel.READ);
+        for (int i = 1; i < count; i++) {
+          hold.reenter();
+        }
+        addFirst(hold);
+      } else {
+        it.remove();
+      }
+    }
+  }
+
+  /*
+   * Read holds counted outside of the state, of the given thread or of all threads when null.
+   */
+  private int fastReadCount(final ThreadID thread) {
+    final Map<ThreadID, FastReadHolds> reads = this.fastReads;
+    if (reads == null) { return 0; }
+    if (thread != null) {
+      final FastReadHolds holds = reads.get(thread);
+      return holds == null ? 0 : Math.max(0, holds.get());
+    }
+    int count = 0;
+    for (final FastReadHolds holds : reads.values()) {
+      count += Math.max(0, holds.get());
+    }
+    return count;
+  }
+
+  private static final class FastReadHolds extends AtomicInteger {
+    static final int CLOSED = -1;
   }
 
   @Override
@@ -1413,6 +1607,9 @@ class ClientLockImpl extends SynchronizedSinglyLinkedList<LockStateNode> impleme
     sb.append("ClientLockImpl : ").append(this.lock).append('\n');
     sb.append("GC Cycle Count : ").append(this.gcCycleCount).append('\n');
     sb.append("Greediness : ").append(this.greediness).append('\n');
+    if (this.fastReadsOpen) {
+      sb.append("Fast Reads : ").append(this.fastReads).append('\n');
+    }
     sb.append("State:").append('\n');
     for (final LockStateNode s : this) {
       sb.append('\t').append(s).append('\n');
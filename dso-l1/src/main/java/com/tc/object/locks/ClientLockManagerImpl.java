@@ -59,7 +59,11 @@ public class ClientLockManagerImpl implements ClientLockManager, ClientLockManag
   private final ConcurrentMap<LockID, ClientLock> locks;
   private final ReentrantReadWriteLock            stateGuard          = new ReentrantReadWriteLock();
   private final Condition                         runningCondition    = this.stateGuard.writeLock().newCondition();
-  private State                                   state               = State.RUNNING;
+  /*
+   * Written under the stateGuard write lock, volatile so that lock operations on a running manager can skip the read
+   * lock entirely
+   */
+  private volatile State                          state               = State.RUNNING;
 
   private final RemoteLockManager                 remoteLockManager;
   private final ThreadIDManager                   threadManager;
@@ -113,6 +117,10 @@ public class ClientLockManagerImpl implements ClientLockManager, ClientLockManag
   }
 
   private ClientLock getOrCreateClientLockState(final LockID lock) {
+    // existing lock on a running manager : cleanup() changes state under the write lock before it clears the map
+    final ClientLock existing = this.locks.get(lock);
+    if (existing != null && this.state == State.RUNNING) { return existing; }
+
     stateGuard.readLock().lock();
     try {
       throwExceptionIfNecessary();
@@ -688,12 +696,7 @@ public class ClientLockManagerImpl implements ClientLockManager, ClientLockManag
    *********************************/
 
   private void waitUntilRunning() throws AbortedOperationException {
-    this.stateGuard.readLock().lock();
-    try {
-      if (this.state == State.RUNNING) { return; }
-    } finally {
-      this.stateGuard.readLock().unlock();
-    }
+    if (this.state == State.RUNNING) { return; }
 
     boolean interrupted = false;
     this.stateGuard.writeLock().lock();
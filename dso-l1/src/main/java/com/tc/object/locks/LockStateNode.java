@@ -122,6 +122,12 @@ abstract class LockStateNode implements SinglyLinkedList.LinkedNode<LockStateNod
     private final LockLevel level;
     private boolean         flushInProgress = false;
 
+    /*
+     * Re-entrant acquires of this hold by its owner that were counted here instead of getting their own node. Only the
+     * owning thread changes this, volatile so that state dumps and hold counts taken under the lock monitor see it.
+     */
+    private volatile int    reentrantCount  = 0;
+
     LockHold(ThreadID owner, LockLevel level) {
       super(owner);
       this.level = level;
@@ -131,6 +137,23 @@ abstract class LockStateNode implements SinglyLinkedList.LinkedNode<LockStateNod
       return level;
     }
 
+    int getReentrantCount() {
+      return reentrantCount;
+    }
+
+    void reenter() {
+      reentrantCount++;
+    }
+
+    /**
+     * @return false if there is no re-entrant acquire left to release, in which case this hold itself is the one to go
+     */
+    boolean exit() {
+      if (reentrantCount == 0) { return false; }
+      reentrantCount--;
+      return true;
+    }
+
     public void flushInProgress() {
       flushInProgress = true;
     }
@@ -173,7 +196,8 @@ abstract class LockStateNode implements SinglyLinkedList.LinkedNode<LockStateNod
 
     @Override
     public String toString() {
-      return super.toString() + " : " + level + " flushInProgress : " + flushInProgress;
+      return super.toString() + " : " + level + " flushInProgress : " + flushInProgress
+             + (reentrantCount == 0 ? "" : " reentrant : " + reentrantCount);
     }
 
     @Override
@@ -482,7 +506,10 @@ abstract class LockStateNode implements SinglyLinkedList.LinkedNode<LockStateNod
 
       this.reacquires = new Stack<PendingLockHold>();
       for (LockHold hold : holds) {
-        reacquires.add(new MonitorBasedPendingLockHold(owner, hold.getLockLevel(), this.waitObject));
+        // re-entrant acquires counted on the hold come back as holds of their own
+        for (int i = hold.getReentrantCount(); i >= 0; i--) {
+          reacquires.add(new MonitorBasedPendingLockHold(owner, hold.getLockLevel(), this.waitObject));
+        }
       }
 
       this.waitTime = timeout;
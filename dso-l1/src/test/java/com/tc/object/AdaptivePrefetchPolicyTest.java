@@ -0,0 +1,60 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.object;
+
+import com.tc.test.TCTestCase;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+public class AdaptivePrefetchPolicyTest extends TCTestCase {
+
+  public void testLearnsNeighboursOfBurstAnchor() {
+    final AdaptivePrefetchPolicy policy = new AdaptivePrefetchPolicy(100, 2, 10);
+    assertTrue(policy.missed(new ObjectID(1), 0).isEmpty());
+    assertTrue(policy.missed(new ObjectID(2), 5).isEmpty());
+    assertTrue(policy.missed(new ObjectID(3), 10).isEmpty());
+    // maxNeighbours reached, starts a new burst
+    assertTrue(policy.missed(new ObjectID(4), 15).isEmpty());
+
+    final Set<ObjectID> expected = new HashSet<ObjectID>(Arrays.asList(new ObjectID(2), new ObjectID(3)));
+    assertEquals(expected, new HashSet<ObjectID>(policy.missed(new ObjectID(1), 1000)));
+  }
+
+  public void testBurstWindowExpiry() {
+    final AdaptivePrefetchPolicy policy = new AdaptivePrefetchPolicy(100, 10, 10);
+    policy.missed(new ObjectID(1), 0);
+    policy.missed(new ObjectID(2), 100);
+    assertEquals(0, policy.size());
+  }
+
+  public void testForgetAndBoundedTracking() {
+    final AdaptivePrefetchPolicy policy = new AdaptivePrefetchPolicy(2, 10, 10);
+    long now = 0;
+    for (int i = 0; i < 3; i++) {
+      now += 1000;
+      policy.missed(new ObjectID(i * 10), now);
+      policy.missed(new ObjectID(i * 10 + 1), now);
+    }
+    assertEquals(2, policy.size());
+    assertTrue(policy.missed(new ObjectID(0), now + 1000).isEmpty());
+
+    policy.forget(new ObjectID(20));
+    assertTrue(policy.missed(new ObjectID(20), now + 2000).isEmpty());
+  }
+}
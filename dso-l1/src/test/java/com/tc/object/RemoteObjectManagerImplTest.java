@@ -51,9 +51,13 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.core.IsCollectionContaining.hasItem;
@@ -155,6 +159,91 @@ public class RemoteObjectManagerImplTest extends TCTestCase {
     assertNotNull(object.get());
   }
 
+  public void testRetrieveAsyncBatchesRequests() throws Exception {
+    final List<Future<DNA>> futures = new ArrayList<Future<DNA>>();
+    // hold the monitor so the batch task can't send the first request before the others are issued
+    synchronized (manager) {
+      for (int i = 1; i <= 3; i++) {
+        futures.add(manager.retrieveAsync(new ObjectID(i)));
+      }
+      // already being looked up, nothing new to request
+      futures.add(manager.retrieveAsync(new ObjectID(1)));
+    }
+    final TestRequestManagedObjectMessage rmom = this.rmomf.message;
+    waitForMessageSend(rmom);
+    assertEquals(3, rmom.getRequestedObjectIDs().size());
+    assertFalse(futures.get(0).isDone());
+
+    final List<TestDNA> dnas = new ArrayList<TestDNA>();
+    for (int i = 1; i <= 3; i++) {
+      dnas.add(new TestDNA(new ObjectID(i)));
+    }
+    manager.addAllObjects(SessionID.NULL_ID, 1, dnas, ClientID.NULL_ID);
+    for (int i = 0; i < 3; i++) {
+      assertTrue(futures.get(i).isDone());
+      assertEquals(new ObjectID(i + 1), futures.get(i).get().getObjectID());
+      assertFalse(manager.isInDNACache(new ObjectID(i + 1)));
+    }
+    assertNoMessageSent(rmom);
+  }
+
+  public void testRetrieveAsyncTimedGetHonoursTimeout() throws Exception {
+    final ObjectID id = new ObjectID(1);
+    final Future<DNA> future = manager.retrieveAsync(id);
+    try {
+      future.get(100, TimeUnit.MILLISECONDS);
+      fail("Expected a TimeoutException");
+    } catch (TimeoutException e) {
+      // expected
+    }
+
+    // a late response is still handed over
+    manager.addObject(new TestDNA(id));
+    assertTrue(future.isDone());
+    assertEquals(id, future.get(1, TimeUnit.SECONDS).getObjectID());
+  }
+
+  public void testLearnedNeighboursArePrefetchedTogether() throws Exception {
+    final AdaptivePrefetchPolicy policy = new AdaptivePrefetchPolicy(100, 32, TimeUnit.MINUTES.toMillis(1));
+    final long now = System.currentTimeMillis();
+    for (int i = 1; i <= 10; i++) {
+      policy.missed(new ObjectID(i), now);
+    }
+    final RemoteObjectManagerImpl prefetching = new RemoteObjectManagerImpl(this.groupID, new NullTCLogger(),
+                                                                            this.rrmf, this.rmomf, 500,
+                                                                            new NullSessionManager(),
+                                                                            new NullAbortableOperationManager(),
+                                                                            Runners
+                                                                                .newSingleThreadScheduledTaskRunner(),
+                                                                            policy);
+    final AtomicReference<Throwable> throwable = new AtomicReference<Throwable>();
+    final Thread retriever = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          prefetching.retrieve(new ObjectID(1));
+        } catch (Throwable t) {
+          throwable.set(t);
+        }
+      }
+    });
+    retriever.start();
+
+    // more than maxRequestSentImmediately lookups are outstanding, the neighbours still go out in one batch
+    ObjectIDSet prefetched;
+    do {
+      prefetched = (ObjectIDSet) ((Object[]) this.rmomf.message.initializeQueue.take())[1];
+    } while (!prefetched.contains(new ObjectID(2)));
+    assertEquals(9, prefetched.size());
+    assertFalse(prefetched.contains(new ObjectID(1)));
+
+    prefetching.addObject(new TestDNA(new ObjectID(1)));
+    retriever.join();
+    if (throwable.get() != null) {
+      throw new RuntimeException(throwable.get());
+    }
+  }
+
   public void testDNACacheClearing() {
     Collection dnas;
     final int dnaCollectionCount = 4;
@@ -20,9 +20,13 @@ import static com.tc.server.ServerEventType.EVICT;
 import static com.tc.server.ServerEventType.EXPIRE;
 import static com.tc.server.ServerEventType.PUT;
 import static com.tc.server.ServerEventType.REMOVE;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyList;
 import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -35,6 +39,7 @@ import com.tc.properties.TCPropertiesConsts;
 import com.tc.properties.TCPropertiesImpl;
 import com.tc.util.concurrent.TaskRunner;
 import com.tc.util.concurrent.Timer;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -46,7 +51,10 @@ import com.tc.server.BasicServerEvent;
 import com.tc.server.ServerEvent;
 import com.tc.server.ServerEventType;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -61,6 +69,7 @@ public class ServerEventListenerManagerImplTest {
   private ServerEventDestination[] destinations;
   private final NodeID remoteNode = new GroupID(1);
   private final TaskRunner mockrunner = mock(TaskRunner.class);
+  private String originalLaneQueueSize;
 
   private static class NormalTimer  implements Timer {
       @Override
@@ -80,7 +89,7 @@ public class ServerEventListenerManagerImplTest {
 
       @Override
       public void execute(Runnable command) {
-
+        command.run();
       }
       @Override
       public void cancel() {
@@ -129,8 +138,10 @@ public class ServerEventListenerManagerImplTest {
   public void setUp() throws Exception {
     TCProperties properties = TCPropertiesImpl.getProperties();
     properties.setProperty(TCPropertiesConsts.L1_SERVER_EVENT_DELIVERY_TIMEOUT_INTERVAL, "1");
+    originalLaneQueueSize = properties.getProperty(TCPropertiesConsts.L1_SERVER_EVENT_DELIVERY_LANE_QUEUE_SIZE);
+    properties.setProperty(TCPropertiesConsts.L1_SERVER_EVENT_DELIVERY_LANE_QUEUE_SIZE, "1");
+    when(mockrunner.newTimer(anyString())).thenReturn(new NormalTimer());
     manager = new ServerEventListenerManagerImpl(mockrunner);
-    when(mockrunner.newTimer()).thenReturn(new NormalTimer());
     // destinations
     destinations = new ServerEventDestination[5];
     destinations[0] = createDestination("cache1");
@@ -140,8 +151,14 @@ public class ServerEventListenerManagerImplTest {
     destinations[4] = createDestination("cache3");
   }
 
+  @After
+  public void tearDown() {
+    TCPropertiesImpl.getProperties().setProperty(TCPropertiesConsts.L1_SERVER_EVENT_DELIVERY_LANE_QUEUE_SIZE,
+                                                 originalLaneQueueSize);
+  }
+
   private ServerEventDestination createDestination(final String name) {
-    return when(mock(ServerEventDestination.class).getDestinationName()).thenReturn(name).getMock();
+    return when(mock(ServerEventDestination.class, CALLS_REAL_METHODS).getDestinationName()).thenReturn(name).getMock();
   }
 
   @Test
@@ -289,11 +306,49 @@ public class ServerEventListenerManagerImplTest {
 
   @Test(expected= TCRuntimeException.class)
   public void testLongRunningDispatch() throws Exception {
-    when(mockrunner.newTimer()).thenReturn(new RougeTimer());
+    // the lane is never drained, so the second event finds it full for the whole timeout
+    when(mockrunner.newTimer(anyString())).thenReturn(new RougeTimer());
+    manager = new ServerEventListenerManagerImpl(mockrunner);
     final ServerEvent event1 = new BasicServerEvent(EVICT, "key-1", "cache1");
+    final ServerEvent event2 = new BasicServerEvent(EVICT, "key-2", "cache1");
 
     manager.registerListener(destinations[0], EnumSet.of(EVICT, PUT));
     manager.dispatch(event1, remoteNode);
+    manager.dispatch(event2, remoteNode);
+  }
+
+  @Test
+  public void testQueuedEventsAreDeliveredInOneOrderedBatch() throws Exception {
+    TCPropertiesImpl.getProperties().setProperty(TCPropertiesConsts.L1_SERVER_EVENT_DELIVERY_LANE_QUEUE_SIZE, "16");
+    final List<Runnable> submitted = new ArrayList<Runnable>();
+    when(mockrunner.newTimer(anyString())).thenReturn(new NormalTimer() {
+      @Override
+      public void execute(Runnable command) {
+        submitted.add(command);
+      }
+    });
+    manager = new ServerEventListenerManagerImpl(mockrunner);
+    final ServerEvent event1 = new BasicServerEvent(PUT, "key-1", "cache1");
+    final ServerEvent event2 = new BasicServerEvent(REMOVE, "key-1", "cache1");
+    final ServerEvent event3 = new BasicServerEvent(PUT, "key-2", "cache1");
+    manager.registerListener(destinations[0], EnumSet.of(PUT, REMOVE));
+    doThrow(new RuntimeException()).when(destinations[1]).handleServerEvents(anyList());
+    manager.registerListener(destinations[1], EnumSet.of(PUT));
+
+    manager.dispatch(event1, remoteNode);
+    manager.dispatch(event2, remoteNode);
+    manager.dispatch(event3, remoteNode);
+    // one drain task per lane until it has run
+    assertEquals(2, submitted.size());
+    for (Runnable task : new ArrayList<Runnable>(submitted)) {
+      task.run();
+    }
 
+    verify(destinations[0]).handleServerEvents(Arrays.asList(event1, event2, event3));
+    verify(destinations[1]).handleServerEvents(Arrays.asList(event1, event3));
+
+    // a failing listener does not stop its lane
+    manager.dispatch(event3, remoteNode);
+    assertEquals(4, submitted.size());
   }
 }
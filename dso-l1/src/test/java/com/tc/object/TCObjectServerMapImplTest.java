@@ -19,6 +19,9 @@ package com.tc.object;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.collection.IsMapContaining.hasEntry;
 import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyBoolean;
@@ -26,6 +29,7 @@ import static org.mockito.Mockito.anyMap;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -38,6 +42,7 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.SetMultimap;
 import com.tc.abortable.AbortedOperationException;
 import com.tc.net.GroupID;
+import com.tc.object.bytecode.TCServerMap;
 import com.tc.object.servermap.ExpirableMapEntry;
 import com.tc.object.servermap.localcache.L1ServerMapLocalCacheManager;
 import com.tc.object.servermap.localcache.L1ServerMapLocalCacheStore;
@@ -46,6 +51,12 @@ import com.tc.object.servermap.localcache.ServerMapLocalCache;
 import com.tc.platform.PlatformService;
 
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author tim
@@ -205,4 +216,52 @@ public class TCObjectServerMapImplTest {
 
     tcObjectServerMap.doLogicalSetLastAccessedTime("foo", value, 1234L);
   }
+
+  @Test
+  public void testConcurrentMissesAreCoalesced() throws Exception {
+    final TCObjectServerMapImpl tcObjectServerMap = new TCObjectServerMapImpl(platformService, clientObjectManager,
+        serverMapManager, objectID, null, mock(TCClass.class), false, globalLocalCacheManager);
+    final TCServerMap map = mock(TCServerMap.class);
+    when(map.__tc_managed()).thenReturn(tcObjectServerMap);
+    final ExpirableMapEntry expirableMapEntry = mock(ExpirableMapEntry.class);
+    when(clientObjectManager.lookupObjectQuiet(new ObjectID(3))).thenReturn(expirableMapEntry);
+
+    final CountDownLatch requested = new CountDownLatch(1);
+    final CountDownLatch respond = new CountDownLatch(1);
+    when(serverMapManager.getMappingForKey(objectID, "foo")).then(new Answer<Object>() {
+      @Override
+      public Object answer(final InvocationOnMock invocation) throws Throwable {
+        requested.countDown();
+        respond.await();
+        return new CompoundResponse(new ObjectID(3), 1, 2, 3, 4, 5);
+      }
+    });
+
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      Callable<Object> get = new Callable<Object>() {
+        @Override
+        public Object call() throws Exception {
+          return tcObjectServerMap.getValueUnlocked(map, "foo");
+        }
+      };
+      Future<Object> first = executor.submit(get);
+      assertTrue(requested.await(10, TimeUnit.SECONDS));
+      Future<Object> second = executor.submit(get);
+      Future<Object> third = executor.submit(get);
+      while (tcObjectServerMap.getCoalescedMissCount() < 2) {
+        Thread.sleep(10);
+      }
+      respond.countDown();
+
+      assertSame(expirableMapEntry, first.get(10, TimeUnit.SECONDS));
+      assertSame(expirableMapEntry, second.get(10, TimeUnit.SECONDS));
+      assertSame(expirableMapEntry, third.get(10, TimeUnit.SECONDS));
+      verify(serverMapManager, times(1)).getMappingForKey(objectID, "foo");
+      assertEquals(1, tcObjectServerMap.getLocalCacheMissCount());
+      assertEquals(2, tcObjectServerMap.getCoalescedMissCount());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 }
@@ -101,6 +101,15 @@ public class TestClientObjectManager implements ClientObjectManager {
     return ((TCObject) this.objects.get(id)).getPeerObject();
   }
 
+  @Override
+  public Object[] lookupObjects(final ObjectID[] ids) {
+    final Object[] objects = new Object[ids.length];
+    for (int i = 0; i < ids.length; i++) {
+      objects[i] = lookupObject(ids[i]);
+    }
+    return objects;
+  }
+
   @Override
   public TCClass getOrCreateClass(final Class clazz) {
     throw new ImplementMe();
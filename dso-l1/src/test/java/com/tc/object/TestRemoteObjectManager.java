@@ -34,6 +34,7 @@ import com.tc.util.concurrent.NoExceptionLinkedQueue;
 import java.util.Collection;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
 
 public class TestRemoteObjectManager implements RemoteObjectManager {
   private final int               SIZE                  = 10000;
@@ -100,6 +101,11 @@ public class TestRemoteObjectManager implements RemoteObjectManager {
     throw new ImplementMe();
   }
 
+  @Override
+  public Future<DNA> retrieveAsync(final ObjectID id) {
+    throw new ImplementMe();
+  }
+
   @Override
   public void addAllObjects(final SessionID sessionID, final long batchID, final Collection dnas, final NodeID nodeID) {
     throw new ImplementMe();
@@ -27,9 +27,11 @@ import com.tc.util.concurrent.ThreadUtil;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import junit.framework.TestCase;
 
@@ -586,6 +588,114 @@ public class ClientLockTest extends TestCase {
     }
   }
 
+  public void testGreedyReentrantFunctionality() throws Exception {
+    ClientLock lock = getFreshClientLock();
+
+    try {
+      lock.lock(ABORTABLE_OPERATION_MANAGER, new AssertingGreedyRemoteLockManager(lock, RemoteOperation.LOCK),
+                new ThreadID(1), LockLevel.WRITE);
+      lock.lock(ABORTABLE_OPERATION_MANAGER, new AssertingGreedyRemoteLockManager(lock), new ThreadID(1),
+                LockLevel.WRITE);
+      Assert.assertTrue(lock.tryLock(ABORTABLE_OPERATION_MANAGER, new AssertingGreedyRemoteLockManager(lock),
+                                     new ThreadID(1), LockLevel.WRITE));
+      checkLockQueryMethods(lock, 0, 0, hold(new ThreadID(1), LockLevel.WRITE), hold(new ThreadID(1), LockLevel.WRITE),
+                            hold(new ThreadID(1), LockLevel.WRITE));
+      Assert.assertFalse(lock.tryLock(ABORTABLE_OPERATION_MANAGER, new AssertingGreedyRemoteLockManager(lock),
+                                      new ThreadID(2), LockLevel.WRITE));
+
+      lock.lock(ABORTABLE_OPERATION_MANAGER, new AssertingGreedyRemoteLockManager(lock), new ThreadID(1),
+                LockLevel.READ);
+      lock.lock(ABORTABLE_OPERATION_MANAGER, new AssertingGreedyRemoteLockManager(lock), new ThreadID(1),
+                LockLevel.READ);
+      checkLockQueryMethods(lock, 0, 0, hold(new ThreadID(1), LockLevel.WRITE), hold(new ThreadID(1), LockLevel.WRITE),
+                            hold(new ThreadID(1), LockLevel.WRITE), hold(new ThreadID(1), LockLevel.READ),
+                            hold(new ThreadID(1), LockLevel.READ));
+      lock.unlock(new AssertingGreedyRemoteLockManager(lock), new ThreadID(1), LockLevel.READ);
+      lock.unlock(new AssertingGreedyRemoteLockManager(lock), new ThreadID(1), LockLevel.READ);
+
+      for (int i = 3; i > 0; i--) {
+        Assert.assertEquals(i, lock.holdCount(LockLevel.WRITE));
+        lock.unlock(new AssertingGreedyRemoteLockManager(lock), new ThreadID(1), LockLevel.WRITE);
+      }
+      checkLockQueryMethods(lock, 0, 0);
+
+      try {
+        lock.unlock(new AssertingGreedyRemoteLockManager(lock), new ThreadID(1), LockLevel.WRITE);
+        Assert.fail("Expected IllegalMonitorStateException");
+      } catch (IllegalMonitorStateException e) {
+        // expected
+      }
+
+      Assert.assertTrue(lock.tryLock(ABORTABLE_OPERATION_MANAGER, new AssertingGreedyRemoteLockManager(lock),
+                                     new ThreadID(2), LockLevel.WRITE));
+      checkLockQueryMethods(lock, 0, 0, hold(new ThreadID(2), LockLevel.WRITE));
+      lock.unlock(new AssertingGreedyRemoteLockManager(lock), new ThreadID(2), LockLevel.WRITE);
+      checkLockQueryMethods(lock, 0, 0);
+    } catch (GarbageLockException e) {
+      Assert.failure("Unexpected Exception ", e);
+    }
+  }
+
+  public void testGreedyReadsAvoidTheMonitor() throws Exception {
+    final ClientLock lock = getFreshClientLock();
+    final RemoteLockManager remote = new AssertingGreedyRemoteLockManager(lock, RemoteOperation.LOCK);
+    final int readers = 4;
+
+    // the first acquire gets the greedy read award, the others register each reader on the fast path
+    for (int i = 1; i <= readers; i++) {
+      lock.lock(ABORTABLE_OPERATION_MANAGER, remote, new ThreadID(i), LockLevel.READ);
+    }
+    checkLockQueryMethods(lock, 0, 0, hold(new ThreadID(1), LockLevel.READ), hold(new ThreadID(2), LockLevel.READ),
+                          hold(new ThreadID(3), LockLevel.READ), hold(new ThreadID(4), LockLevel.READ));
+
+    final CountDownLatch done = new CountDownLatch(readers);
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    // holding the lock monitor, so any reader that needs it can't finish
+    synchronized (lock) {
+      for (int i = 1; i <= readers; i++) {
+        final ThreadID reader = new ThreadID(i);
+        new Thread("reader " + i) {
+          @Override
+          public void run() {
+            try {
+              for (int j = 0; j < 1000; j++) {
+                lock.lock(ABORTABLE_OPERATION_MANAGER, remote, reader, LockLevel.READ);
+                lock.lock(ABORTABLE_OPERATION_MANAGER, remote, reader, LockLevel.READ);
+                lock.unlock(remote, reader, LockLevel.READ);
+                lock.unlock(remote, reader, LockLevel.READ);
+              }
+            } catch (Throwable t) {
+              failure.set(t);
+            } finally {
+              done.countDown();
+            }
+          }
+        }.start();
+      }
+      Assert.assertTrue("readers blocked on the lock monitor", done.await(30, TimeUnit.SECONDS));
+    }
+    Assert.assertNull(failure.get());
+
+    // a state snapshot sees every reader, the holds are still released by their owners afterwards
+    int readHolders = 0;
+    for (ClientServerExchangeLockContext context : lock.getStateSnapshot(ClientID.NULL_ID)) {
+      if (context.getState() == ServerLockContext.State.HOLDER_READ) {
+        readHolders++;
+      }
+    }
+    Assert.assertEquals(readers, readHolders);
+    for (int i = 1; i <= readers; i++) {
+      lock.unlock(remote, new ThreadID(i), LockLevel.READ);
+    }
+    checkLockQueryMethods(lock, 0, 0);
+    try {
+      lock.unlock(remote, new ThreadID(1), LockLevel.READ);
+      Assert.fail("Expected IllegalMonitorStateException");
+    } catch (IllegalMonitorStateException e) {
+      // expected
+    }
+  }
+
   public void testWaitNotifyTimesOut() throws Exception {
     ClientLock lock = getFreshClientLock();
 
@@ -0,0 +1,55 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.l2.context;
+
+import com.tc.async.api.MultiThreadedEventContext;
+import com.tc.l2.msg.RelayedCommitTransactionMessage;
+import com.tc.net.NodeID;
+import com.tc.objectserver.tx.TransactionBatchContext;
+
+import java.util.Map;
+
+/**
+ * Relayed commit messages of one transaction batch, already sequenced for each passive, waiting to be sent on a relay
+ * lane. All passives of a batch go out from the same lane since they share the batch buffers.
+ */
+public class RelaySendContext implements MultiThreadedEventContext {
+
+  private final TransactionBatchContext                      batchContext;
+  private final Map<NodeID, RelayedCommitTransactionMessage> messages;
+  private final Integer                                      lane;
+
+  public RelaySendContext(TransactionBatchContext batchContext, Map<NodeID, RelayedCommitTransactionMessage> messages,
+                          int lane) {
+    this.batchContext = batchContext;
+    this.messages = messages;
+    this.lane = lane;
+  }
+
+  public TransactionBatchContext getBatchContext() {
+    return batchContext;
+  }
+
+  public Map<NodeID, RelayedCommitTransactionMessage> getMessages() {
+    return messages;
+  }
+
+  @Override
+  public Object getKey() {
+    return lane;
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.l2.context;
+
+import com.tc.async.api.MultiThreadedEventContext;
+import com.tc.async.api.OrderedEventContext;
+import com.tc.l2.msg.RelayedCommitTransactionMessage;
+import com.tc.net.NodeID;
+import com.tc.object.tx.ServerTransactionID;
+import com.tc.objectserver.tx.ServerTransaction;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A relayed commit message on the passive. It goes through the ordered objects sync sink as soon as it arrives, and is
+ * read into transactions on one of the read lanes meanwhile. The objects sync stage waits for the read to finish before
+ * applying the transactions, so they are still applied in relay order.
+ */
+public class RelayedTransactionsContext implements MultiThreadedEventContext, OrderedEventContext {
+
+  private final RelayedCommitTransactionMessage             message;
+  private final Long                                        lane;
+  private final CountDownLatch                              readLatch = new CountDownLatch(1);
+
+  private NodeID                                            sourceNodeID;
+  private Map<ServerTransactionID, ServerTransaction>       transactions;
+  private Throwable                                         readError;
+
+  public RelayedTransactionsContext(RelayedCommitTransactionMessage message, int lanes) {
+    if (lanes < 1) { throw new IllegalArgumentException("lanes: " + lanes); }
+    this.message = message;
+    this.lane = message.getSequenceID() % lanes;
+  }
+
+  public RelayedCommitTransactionMessage getMessage() {
+    return message;
+  }
+
+  public NodeID messageFrom() {
+    return message.messageFrom();
+  }
+
+  public void read(NodeID source, Map<ServerTransactionID, ServerTransaction> txns) {
+    this.sourceNodeID = source;
+    this.transactions = txns;
+    readLatch.countDown();
+  }
+
+  public void readFailed(Throwable t) {
+    this.readError = t;
+    readLatch.countDown();
+  }
+
+  /**
+   * @return the client the transactions came from, waits for the read to finish
+   */
+  public NodeID getSourceNodeID() {
+    waitForRead();
+    return sourceNodeID;
+  }
+
+  /**
+   * @return transactions of the message in batch order, waits for the read to finish
+   */
+  public Map<ServerTransactionID, ServerTransaction> getTransactions() {
+    waitForRead();
+    return transactions;
+  }
+
+  private void waitForRead() {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        readLatch.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (readError != null) { throw new AssertionError(readError); }
+  }
+
+  @Override
+  public long getSequenceID() {
+    return message.getSequenceID();
+  }
+
+  @Override
+  public Object getKey() {
+    return lane;
+  }
+
+  @Override
+  public String toString() {
+    return "RelayedTransactionsContext [ " + message + " ]";
+  }
+}
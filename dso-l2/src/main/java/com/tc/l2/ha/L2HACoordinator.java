@@ -23,6 +23,7 @@ import com.tc.config.NodesStore;
 import com.tc.config.schema.setup.L2ConfigurationSetupManager;
 import com.tc.l2.api.L2Coordinator;
 import com.tc.l2.api.ReplicatedClusterStateManager;
+import com.tc.l2.context.RelayedTransactionsContext;
 import com.tc.l2.context.StateChangedEvent;
 import com.tc.l2.handler.GCResultHandler;
 import com.tc.l2.handler.GroupEventsDispatchHandler;
@@ -34,8 +35,10 @@ import com.tc.l2.handler.L2ObjectSyncRequestHandler;
 import com.tc.l2.handler.L2ObjectSyncSendHandler;
 import com.tc.l2.handler.L2StateChangeHandler;
 import com.tc.l2.handler.L2StateMessageHandler;
+import com.tc.l2.handler.RelayedTransactionReadHandler;
 import com.tc.l2.handler.ServerTransactionAckHandler;
 import com.tc.l2.handler.TransactionRelayHandler;
+import com.tc.l2.handler.TransactionRelaySendHandler;
 import com.tc.l2.msg.GCResultMessage;
 import com.tc.l2.msg.IndexSyncAckMessage;
 import com.tc.l2.msg.IndexSyncCompleteMessage;
@@ -73,6 +76,8 @@ import com.tc.net.ServerID;
 import com.tc.net.groups.GroupEventsListener;
 import com.tc.net.groups.GroupException;
 import com.tc.net.groups.GroupManager;
+import com.tc.net.groups.GroupMessage;
+import com.tc.net.groups.GroupMessageListener;
 import com.tc.net.groups.PassiveServerListener;
 import com.tc.net.groups.StripeIDStateManager;
 import com.tc.object.msg.MessageRecycler;
@@ -204,10 +209,23 @@ public class L2HACoordinator implements L2Coordinator, GroupEventsListener, Sequ
                                                                                       .getTaskRunner()), 1,
                                                           MAX_STAGE_SIZE).getSink();
 
+    int lanes = TCPropertiesImpl.getProperties().getInt(TCPropertiesConsts.L2_NHA_REPLICATION_LANES, 4);
+    if (lanes < 1) {
+      logger.warn("Replicating transactions on a single lane. (" + TCPropertiesConsts.L2_NHA_REPLICATION_LANES + " = "
+                  + lanes + ")");
+      lanes = 1;
+    }
+    final int replicationLanes = lanes;
     Sink transactionRelaySink = stageManager.createStage(ServerConfigurationContext.TRANSACTION_RELAY_STAGE,
                                                          new TransactionRelayHandler(objectStateManager,
-                                                                                     this.sequenceGenerator, gtxm), 1,
+                                                                                     this.sequenceGenerator, gtxm,
+                                                                                     replicationLanes), 1,
                                                          MAX_STAGE_SIZE).getSink();
+    stageManager.createStage(ServerConfigurationContext.TRANSACTION_RELAY_SEND_STAGE,
+                             new TransactionRelaySendHandler(), replicationLanes, MAX_STAGE_SIZE);
+    final Sink relayedTransactionReadSink = stageManager
+        .createStage(ServerConfigurationContext.RELAYED_TRANSACTION_READ_STAGE, new RelayedTransactionReadHandler(),
+                     replicationLanes, MAX_STAGE_SIZE).getSink();
     final Sink ackProcessingSink = stageManager
         .createStage(ServerConfigurationContext.SERVER_TRANSACTION_ACK_PROCESSING_STAGE,
                      new ServerTransactionAckHandler(), 1, MAX_STAGE_SIZE).getSink();
@@ -258,7 +276,16 @@ public class L2HACoordinator implements L2Coordinator, GroupEventsListener, Sequ
     this.groupManager.routeMessages(IndexSyncAckMessage.class, indexSyncRequestSink);
     this.groupManager.routeMessages(IndexSyncCompleteMessage.class, orderedIndexSyncSink);
 
-    this.groupManager.routeMessages(RelayedCommitTransactionMessage.class, orderedObjectsSyncSink);
+    this.groupManager.registerForMessages(RelayedCommitTransactionMessage.class, new GroupMessageListener() {
+      @Override
+      public void messageReceived(NodeID fromNode, GroupMessage msg) {
+        // Into the ordered sink right away so that a reset clears it, the read lanes decode it in the meantime
+        RelayedTransactionsContext rtc = new RelayedTransactionsContext((RelayedCommitTransactionMessage) msg,
+                                                                        replicationLanes);
+        relayedTransactionReadSink.add(rtc);
+        orderedObjectsSyncSink.add(rtc);
+      }
+    });
     this.groupManager.routeMessages(ServerRelayedTxnAckMessage.class, ackProcessingSink);
     this.groupManager.routeMessages(ServerSyncTxnAckMessage.class, ackProcessingSink);
     this.groupManager.routeMessages(L2StateMessage.class, stateMessageSink);
@@ -20,6 +20,7 @@ import com.tc.async.api.AbstractEventHandler;
 import com.tc.async.api.ConfigurationContext;
 import com.tc.async.api.EventContext;
 import com.tc.async.api.Sink;
+import com.tc.l2.context.RelayedTransactionsContext;
 import com.tc.l2.ha.L2HAZapNodeRequestProcessor;
 import com.tc.l2.msg.ObjectSyncCompleteAckMessage;
 import com.tc.l2.msg.ObjectSyncCompleteMessage;
@@ -38,12 +39,9 @@ import com.tc.object.gtx.GlobalTransactionID;
 import com.tc.object.tx.ServerTransactionID;
 import com.tc.objectserver.core.api.ServerConfigurationContext;
 import com.tc.objectserver.tx.ServerTransaction;
-import com.tc.objectserver.tx.TransactionBatchReader;
-import com.tc.objectserver.tx.TransactionBatchReaderFactory;
 import com.tc.util.concurrent.TaskRunner;
 import com.tc.util.concurrent.Timer;
 
-import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -53,8 +51,6 @@ public class L2ObjectSyncHandler extends AbstractEventHandler {
   private static final TCLogger          logger = TCLogging.getLogger(L2ObjectSyncHandler.class);
   private static final int               LWM_UPDATE_INTERVAL = 10000;
 
-  private TransactionBatchReaderFactory  batchReaderFactory;
-
   private Sink                           sendSink;
   private ReplicatedTransactionManager   rTxnManager;
   private StateSyncManager               stateSyncManager;
@@ -81,9 +77,10 @@ public class L2ObjectSyncHandler extends AbstractEventHandler {
     if (context instanceof ObjectSyncMessage) {
       final ObjectSyncMessage syncMsg = (ObjectSyncMessage) context;
       doSyncObjectsResponse(syncMsg);
-    } else if (context instanceof RelayedCommitTransactionMessage) {
-      final RelayedCommitTransactionMessage commitMessage = (RelayedCommitTransactionMessage) context;
-      final Set serverTxnIDs = processCommitTransactionMessage(commitMessage);
+    } else if (context instanceof RelayedTransactionsContext) {
+      final RelayedTransactionsContext rtc = (RelayedTransactionsContext) context;
+      final RelayedCommitTransactionMessage commitMessage = rtc.getMessage();
+      final Set serverTxnIDs = processCommitTransactionMessage(rtc);
       processTransactionLowWaterMark(commitMessage.getLowGlobalTransactionIDWatermark());
       ackRelayedTransactions(commitMessage, serverTxnIDs);
     } else if (context instanceof ObjectSyncCompleteMessage) {
@@ -143,23 +140,11 @@ public class L2ObjectSyncHandler extends AbstractEventHandler {
     this.sendSink.add(msg);
   }
 
-  private Set processCommitTransactionMessage(final RelayedCommitTransactionMessage commitMessage) {
-    try {
-      final TransactionBatchReader reader = this.batchReaderFactory.newTransactionBatchReader(commitMessage);
-      ServerTransaction txn;
-      // XXX:: Order has to be maintained.
-      final Map<ServerTransactionID, ServerTransaction> txns = new LinkedHashMap<ServerTransactionID, ServerTransaction>(
-                                                                                                                         reader
-                                                                                                                             .getNumberForTxns());
-      while ((txn = reader.getNextTransaction()) != null) {
-        txn.setGlobalTransactionID(commitMessage.getGlobalTransactionIDFor(txn.getServerTransactionID()));
-        txns.put(txn.getServerTransactionID(), txn);
-      }
-      this.rTxnManager.addCommittedTransactions(reader.getNodeID(), txns, commitMessage);
-      return txns.keySet();
-    } catch (final Exception e) {
-      throw new AssertionError(e);
-    }
+  private Set processCommitTransactionMessage(final RelayedTransactionsContext rtc) {
+    // Read on the relayed transaction read stage, this waits for it if the read is still going on
+    final Map<ServerTransactionID, ServerTransaction> txns = rtc.getTransactions();
+    this.rTxnManager.addCommittedTransactions(rtc.getSourceNodeID(), txns, rtc.getMessage());
+    return txns.keySet();
   }
 
   private void doSyncObjectsResponse(final ObjectSyncMessage syncMsg) {
@@ -174,7 +159,6 @@ public class L2ObjectSyncHandler extends AbstractEventHandler {
   public void initialize(final ConfigurationContext context) {
     super.initialize(context);
     final ServerConfigurationContext oscc = (ServerConfigurationContext) context;
-    this.batchReaderFactory = oscc.getTransactionBatchReaderFactory();
     this.rTxnManager = oscc.getL2Coordinator().getReplicatedTransactionManager();
     this.stateSyncManager = oscc.getL2Coordinator().getStateSyncManager();
     this.sendSink = oscc.getStage(ServerConfigurationContext.OBJECTS_SYNC_SEND_STAGE).getSink();
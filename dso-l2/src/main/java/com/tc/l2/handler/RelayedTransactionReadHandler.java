@@ -0,0 +1,68 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.l2.handler;
+
+import com.tc.async.api.AbstractEventHandler;
+import com.tc.async.api.ConfigurationContext;
+import com.tc.async.api.EventContext;
+import com.tc.l2.context.RelayedTransactionsContext;
+import com.tc.l2.msg.RelayedCommitTransactionMessage;
+import com.tc.object.tx.ServerTransactionID;
+import com.tc.objectserver.core.api.ServerConfigurationContext;
+import com.tc.objectserver.tx.ServerTransaction;
+import com.tc.objectserver.tx.TransactionBatchReader;
+import com.tc.objectserver.tx.TransactionBatchReaderFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads relayed commit messages into transactions on the passive, several messages at a time. The objects sync stage
+ * applies them in relay order once they are read.
+ */
+public class RelayedTransactionReadHandler extends AbstractEventHandler {
+
+  private TransactionBatchReaderFactory batchReaderFactory;
+
+  @Override
+  public void handleEvent(final EventContext context) {
+    final RelayedTransactionsContext rtc = (RelayedTransactionsContext) context;
+    final RelayedCommitTransactionMessage commitMessage = rtc.getMessage();
+    try {
+      final TransactionBatchReader reader = this.batchReaderFactory.newTransactionBatchReader(commitMessage);
+      ServerTransaction txn;
+      // XXX:: Order has to be maintained.
+      final Map<ServerTransactionID, ServerTransaction> txns = new LinkedHashMap<ServerTransactionID, ServerTransaction>(
+                                                                                                                         reader
+                                                                                                                             .getNumberForTxns());
+      while ((txn = reader.getNextTransaction()) != null) {
+        txn.setGlobalTransactionID(commitMessage.getGlobalTransactionIDFor(txn.getServerTransactionID()));
+        txns.put(txn.getServerTransactionID(), txn);
+      }
+      rtc.read(reader.getNodeID(), txns);
+    } catch (final Throwable t) {
+      rtc.readFailed(t);
+    }
+  }
+
+  @Override
+  public void initialize(final ConfigurationContext context) {
+    super.initialize(context);
+    final ServerConfigurationContext oscc = (ServerConfigurationContext) context;
+    this.batchReaderFactory = oscc.getTransactionBatchReaderFactory();
+  }
+}
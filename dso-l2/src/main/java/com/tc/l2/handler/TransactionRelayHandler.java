@@ -19,6 +19,8 @@ package com.tc.l2.handler;
 import com.tc.async.api.AbstractEventHandler;
 import com.tc.async.api.ConfigurationContext;
 import com.tc.async.api.EventContext;
+import com.tc.async.api.Sink;
+import com.tc.l2.context.RelaySendContext;
 import com.tc.l2.ha.L2HAZapNodeRequestProcessor;
 import com.tc.l2.msg.RelayedCommitTransactionMessage;
 import com.tc.l2.msg.RelayedCommitTransactionMessageFactory;
@@ -38,6 +40,8 @@ import com.tc.util.sequence.SequenceGenerator;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class TransactionRelayHandler extends AbstractEventHandler {
   private static final TCLogger                logger = TCLogging.getLogger(TransactionRelayHandler.class);
@@ -51,11 +55,17 @@ public class TransactionRelayHandler extends AbstractEventHandler {
 
   private final ServerGlobalTransactionManager gtxm;
 
+  private final int                            lanes;
+  private int                                  nextLane;
+  private Sink                                 relaySendSink;
+
   public TransactionRelayHandler(final L2ObjectStateManager objectStateManager, final SequenceGenerator generator,
-                                 final ServerGlobalTransactionManager gtxm) {
+                                 final ServerGlobalTransactionManager gtxm, final int lanes) {
+    if (lanes < 1) { throw new IllegalArgumentException("lanes: " + lanes); }
     this.l2ObjectStateMgr = objectStateManager;
     this.sequenceGenerator = generator;
     this.gtxm = gtxm;
+    this.lanes = lanes;
   }
 
   @Override
@@ -63,36 +73,49 @@ public class TransactionRelayHandler extends AbstractEventHandler {
     final TransactionBatchContext tbc = (TransactionBatchContext) context;
     final GlobalTransactionID lowWaterMark = this.gtxm.getLowGlobalTransactionIDWatermark();
     final Collection states = this.l2ObjectStateMgr.getL2ObjectStates();
+    final Map<NodeID, RelayedCommitTransactionMessage> messages =
+        new LinkedHashMap<NodeID, RelayedCommitTransactionMessage>();
     for (final Iterator i = states.iterator(); i.hasNext();) {
       final L2ObjectState state = (L2ObjectState) i.next();
       final NodeID nodeID = state.getNodeID();
-      sendCommitTransactionMessage(nodeID, tbc, lowWaterMark);
+      createCommitTransactionMessage(nodeID, tbc, lowWaterMark, messages);
+    }
+    if (!messages.isEmpty()) {
+      // Sequences are handed out here in order, the passive restores that order no matter which lane sends first
+      this.relaySendSink.add(new RelaySendContext(tbc, messages, this.nextLane));
+      this.nextLane = (this.nextLane + 1) % this.lanes;
     }
     this.transactionManager.transactionsRelayed(tbc.getSourceNodeID(), tbc.getTransactionIDs());
   }
 
-  private void sendCommitTransactionMessage(final NodeID nodeID, final TransactionBatchContext tbc,
-                                            final GlobalTransactionID lowWaterMark) {
+  private void createCommitTransactionMessage(final NodeID nodeID, final TransactionBatchContext tbc,
+                                              final GlobalTransactionID lowWaterMark,
+                                              final Map<NodeID, RelayedCommitTransactionMessage> messages) {
     addWaitForNotification(nodeID, tbc);
     try {
       final RelayedCommitTransactionMessage msg = RelayedCommitTransactionMessageFactory
           .createRelayedCommitTransactionMessage(tbc.getSourceNodeID(), tbc.getBackingBuffers(), tbc.getTransactions(),
                                                  this.sequenceGenerator.getNextSequence(nodeID), lowWaterMark, tbc
                                                      .getSerializer());
-      this.groupManager.sendTo(nodeID, msg);
+      messages.put(nodeID, msg);
     } catch (final Exception e) {
-      reconsileWaitForNotification(nodeID, tbc);
-      logger.error("Removing " + nodeID + " from group because of Exception :", e);
-      this.groupManager.zapNode(nodeID, L2HAZapNodeRequestProcessor.COMMUNICATION_ERROR,
-                                "Error relaying commit transaction message"
-                                    + L2HAZapNodeRequestProcessor.getErrorString(e));
+      relayFailed(this.groupManager, this.transactionManager, nodeID, tbc, e);
     }
   }
 
-  private void reconsileWaitForNotification(final NodeID waitee, final TransactionBatchContext tbc) {
+  static void relayFailed(final GroupManager groupManager, final ServerTransactionManager transactionManager,
+                          final NodeID nodeID, final TransactionBatchContext tbc, final Exception e) {
+    reconsileWaitForNotification(transactionManager, nodeID, tbc);
+    logger.error("Removing " + nodeID + " from group because of Exception :", e);
+    groupManager.zapNode(nodeID, L2HAZapNodeRequestProcessor.COMMUNICATION_ERROR,
+                         "Error relaying commit transaction message" + L2HAZapNodeRequestProcessor.getErrorString(e));
+  }
+
+  private static void reconsileWaitForNotification(final ServerTransactionManager transactionManager,
+                                                  final NodeID waitee, final TransactionBatchContext tbc) {
     // TODO::avoid this loop and thus N lookups in transactionManager
     for (final ServerTransactionID stxnID : tbc.getTransactionIDs()) {
-      this.transactionManager.acknowledgement(tbc.getSourceNodeID(), stxnID.getClientTransactionID(), waitee);
+      transactionManager.acknowledgement(tbc.getSourceNodeID(), stxnID.getClientTransactionID(), waitee);
     }
   }
 
@@ -110,5 +133,6 @@ public class TransactionRelayHandler extends AbstractEventHandler {
     final ServerConfigurationContext oscc = (ServerConfigurationContext) context;
     this.groupManager = oscc.getL2Coordinator().getGroupManager();
     this.transactionManager = oscc.getTransactionManager();
+    this.relaySendSink = oscc.getStage(ServerConfigurationContext.TRANSACTION_RELAY_SEND_STAGE).getSink();
   }
 }
@@ -0,0 +1,60 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.l2.handler;
+
+import com.tc.async.api.AbstractEventHandler;
+import com.tc.async.api.ConfigurationContext;
+import com.tc.async.api.EventContext;
+import com.tc.l2.context.RelaySendContext;
+import com.tc.l2.msg.RelayedCommitTransactionMessage;
+import com.tc.net.NodeID;
+import com.tc.net.groups.GroupManager;
+import com.tc.objectserver.core.api.ServerConfigurationContext;
+import com.tc.objectserver.tx.ServerTransactionManager;
+
+import java.util.Map.Entry;
+
+/**
+ * Sends relayed commit messages built by {@link TransactionRelayHandler}. Runs on several lanes so that serializing
+ * and writing one batch to the passives does not hold up the next one.
+ */
+public class TransactionRelaySendHandler extends AbstractEventHandler {
+
+  private GroupManager             groupManager;
+  private ServerTransactionManager transactionManager;
+
+  @Override
+  public void handleEvent(final EventContext context) {
+    final RelaySendContext rsc = (RelaySendContext) context;
+    for (final Entry<NodeID, RelayedCommitTransactionMessage> e : rsc.getMessages().entrySet()) {
+      try {
+        this.groupManager.sendTo(e.getKey(), e.getValue());
+      } catch (final Exception ex) {
+        TransactionRelayHandler.relayFailed(this.groupManager, this.transactionManager, e.getKey(),
+                                            rsc.getBatchContext(), ex);
+      }
+    }
+  }
+
+  @Override
+  public void initialize(final ConfigurationContext context) {
+    super.initialize(context);
+    final ServerConfigurationContext oscc = (ServerConfigurationContext) context;
+    this.groupManager = oscc.getL2Coordinator().getGroupManager();
+    this.transactionManager = oscc.getTransactionManager();
+  }
+}
@@ -23,6 +23,7 @@ import com.google.common.collect.Multimap;
 import com.tc.async.api.AddPredicate;
 import com.tc.async.api.EventContext;
 import com.tc.async.impl.OrderedSink;
+import com.tc.l2.context.RelayedTransactionsContext;
 import com.tc.l2.context.StateChangedEvent;
 import com.tc.l2.ha.L2HAZapNodeRequestProcessor;
 import com.tc.l2.msg.ObjectSyncResetMessage;
@@ -123,6 +124,9 @@ public class ReplicatedTransactionManagerImpl implements ReplicatedTransactionMa
     objectsSyncSink.setAddPredicate(new AddPredicate() {
       @Override
       public boolean accept(EventContext context) {
+        if (context instanceof RelayedTransactionsContext) {
+          return fromNode.equals(((RelayedTransactionsContext) context).messageFrom());
+        }
         GroupMessage gp = (GroupMessage) context;
         return fromNode.equals(gp.messageFrom());
       }
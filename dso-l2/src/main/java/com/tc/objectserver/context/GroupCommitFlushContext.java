@@ -0,0 +1,39 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.context;
+
+import com.tc.async.api.MultiThreadedEventContext;
+
+/**
+ * Queued behind the transactions an apply thread already has when it starts holding a group commit. By the time it is
+ * handled everything queued before it has joined the group, so the group is committed.
+ */
+public class GroupCommitFlushContext implements MultiThreadedEventContext {
+  private final Object key;
+
+  /**
+   * @param key key of a context handled by the apply thread holding the group commit, so that this lands on its queue
+   */
+  public GroupCommitFlushContext(final Object key) {
+    this.key = key;
+  }
+
+  @Override
+  public Object getKey() {
+    return key;
+  }
+}
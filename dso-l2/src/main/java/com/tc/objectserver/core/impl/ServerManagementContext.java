@@ -19,6 +19,7 @@ package com.tc.objectserver.core.impl;
 import com.tc.management.RemoteManagement;
 import com.tc.management.RemoteManagementException;
 import com.tc.net.NodeID;
+import com.tc.net.core.TCComm;
 import com.tc.net.protocol.tcm.TCMessageType;
 import com.tc.net.protocol.transport.ConnectionPolicy;
 import com.tc.object.management.ManagementRequestID;
@@ -65,13 +66,14 @@ public class ServerManagementContext {
   private final IndexManager                  indexManager;
   private final ConnectionPolicy              connectionPolicy;
   private final RemoteManagement              remoteManagement;
+  private final TCComm                        tcComm;
 
   public ServerManagementContext(ServerTransactionManagerMBean txnMgr, ObjectManagerMBean objMgr,
                                  LockManagerMBean lockMgr, DSOChannelManagerMBean channelMgr,
                                  DSOGlobalServerStats serverStats, ChannelStats channelStats,
                                  ObjectInstanceMonitorMBean instanceMonitor,
                                  IndexManager indexManager, ConnectionPolicy connectionPolicy,
-                                 RemoteManagement remoteManagement) {
+                                 RemoteManagement remoteManagement, TCComm tcComm) {
     this.txnMgr = txnMgr;
     this.objMgr = objMgr;
     this.lockMgr = lockMgr;
@@ -82,6 +84,7 @@ public class ServerManagementContext {
     this.indexManager = indexManager;
     this.connectionPolicy = connectionPolicy;
     this.remoteManagement = remoteManagement;
+    this.tcComm = tcComm;
   }
 
   public IndexManager getIndexManager() {
@@ -124,4 +127,8 @@ public class ServerManagementContext {
     return remoteManagement;
   }
 
+  public TCComm getTcComm() {
+    return tcComm;
+  }
+
 }
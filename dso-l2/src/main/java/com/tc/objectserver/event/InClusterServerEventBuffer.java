@@ -18,52 +18,203 @@ package com.tc.objectserver.event;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableListMultimap;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.tc.net.ClientID;
 import com.tc.object.gtx.GlobalTransactionID;
 import com.tc.server.ServerEvent;
 
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * Sends L2 cache events to all interested L1 clients within the same cluster.
+ * <p>
+ * Events are kept in an ordered log of segments, each covering a fixed range of consecutive global transaction ids
+ * with one slot per transaction. Storing or looking up the events of a transaction is an index into its segment, and
+ * clearing below the low water mark drops whole segments instead of scanning every transaction. A segment emptied by
+ * removing its transactions one by one is dropped as soon as newer transactions moved on to later segments.
  *
  * @author Eugene Shelestovich
  */
 public class InClusterServerEventBuffer implements ServerEventBuffer {
 
-  private final static Multimap<ClientID, ServerEvent> EMPTY_MAP = ImmutableListMultimap.of();
-  private final ConcurrentMap<GlobalTransactionID, Multimap<ClientID, ServerEvent>> eventMap  = Maps.newConcurrentMap();
+  private final static Multimap<ClientID, ServerEvent> EMPTY_MAP     = ImmutableListMultimap.of();
+  private static final long                            NULL_TXN      = GlobalTransactionID.NULL_ID.toLong();
 
+  static final int                                     SEGMENT_SHIFT = 10;
+  private static final int                             SEGMENT_SIZE  = 1 << SEGMENT_SHIFT;
+  private static final int                             SEGMENT_MASK  = SEGMENT_SIZE - 1;
+
+  private final ConcurrentSkipListMap<Long, Segment>   segments      = new ConcurrentSkipListMap<Long, Segment>();
+  // the segment stored to last, saves the map lookup while transactions fill it
+  private volatile Segment                             tail;
+  private volatile long                                highestIndex  = Long.MIN_VALUE;
 
   @Override
   public final void storeEvent(final GlobalTransactionID gtxId, final ServerEvent serverEvent,
                                final Set<ClientID> clients) {
-    Multimap<ClientID,ServerEvent> multimap = eventMap.computeIfAbsent(gtxId, (g)->ArrayListMultimap.create(1,1));
-
-    for (ClientID clientID : clients) {
-      multimap.put(clientID, serverEvent);
+    final long txn = gtxId.toLong();
+    while (true) {
+      final Segment segment = getOrCreateSegment(txn >> SEGMENT_SHIFT);
+      if (segment.store((int) (txn & SEGMENT_MASK), serverEvent, clients)) { return; }
+      // dropped while we were getting it
+      segments.remove(segment.index, segment);
     }
   }
 
-
   @Override
   public Multimap<ClientID, ServerEvent> getServerEventsPerClient(GlobalTransactionID gtxId) {
-    final Multimap<ClientID, ServerEvent> eventsPerClient = eventMap.get(gtxId);
+    final long txn = gtxId.toLong();
+    final Segment segment = getSegment(txn >> SEGMENT_SHIFT);
+    final Multimap<ClientID, ServerEvent> eventsPerClient = (segment == null) ? null : segment
+        .get((int) (txn & SEGMENT_MASK));
     return (eventsPerClient == null) ? EMPTY_MAP : eventsPerClient;
   }
 
-
   @Override
   public void removeEventsForTransaction(GlobalTransactionID globalTransactionID) {
-    eventMap.remove(globalTransactionID);
+    remove(globalTransactionID.toLong());
   }
 
+  private void remove(final long txn) {
+    final long index = txn >> SEGMENT_SHIFT;
+    final Segment segment = getSegment(index);
+    if (segment != null && segment.remove((int) (txn & SEGMENT_MASK), index < highestIndex)) {
+      segments.remove(index, segment);
+    }
+  }
 
   @Override
   public void clearEventBufferBelowLowWaterMark(final GlobalTransactionID lowWatermark) {
-    eventMap.keySet().removeIf(k->k.lessThan(lowWatermark));
+    final long low = lowWatermark.toLong();
+    final long lowIndex = low >> SEGMENT_SHIFT;
+    final ConcurrentNavigableMap<Long, Segment> below = segments.headMap(lowIndex);
+    for (Iterator<Segment> i = below.values().iterator(); i.hasNext();) {
+      i.next().drop();
+      i.remove();
+    }
+    final Segment lowSegment = getSegment(lowIndex);
+    if (lowSegment != null && lowSegment.clearBelow((int) (low & SEGMENT_MASK), lowIndex < highestIndex)) {
+      segments.remove(lowIndex, lowSegment);
+    }
+    // same as GlobalTransactionID.lessThan, which puts the null id below everything
+    remove(NULL_TXN);
+  }
+
+  int getSegmentCount() {
+    return segments.size();
+  }
+
+  private Segment getSegment(final long index) {
+    final Segment last = tail;
+    if (last != null && last.index == index && !last.isDropped()) { return last; }
+    return segments.get(index);
+  }
+
+  private Segment getOrCreateSegment(final long index) {
+    Segment segment = tail;
+    if (segment == null || segment.index != index || segment.isDropped()) {
+      segment = segments.get(index);
+      if (segment == null) {
+        final Segment created = new Segment(index);
+        segment = segments.putIfAbsent(index, created);
+        if (segment == null) {
+          segment = created;
+        }
+      }
+      if (index >= highestIndex) {
+        advanceTail(segment);
+      }
+    }
+    return segment;
+  }
+
+  private synchronized void advanceTail(final Segment segment) {
+    if (segment.index >= highestIndex) {
+      highestIndex = segment.index;
+      tail = segment;
+    }
+  }
+
+  /**
+   * The events of {@link #SEGMENT_SIZE} consecutive transactions. A dropped segment is out of the log and refuses
+   * events, they go to the segment that replaces it.
+   */
+  private static final class Segment {
+
+    private final long                              index;
+    private final Multimap<ClientID, ServerEvent>[] transactions;
+    private int                                     liveTransactions;
+    private int                                     clearedBelow;
+    private volatile boolean                        dropped;
+
+    @SuppressWarnings("unchecked")
+    Segment(final long index) {
+      this.index = index;
+      this.transactions = new Multimap[SEGMENT_SIZE];
+    }
+
+    synchronized boolean store(final int slot, final ServerEvent serverEvent, final Set<ClientID> clients) {
+      if (dropped) { return false; }
+      Multimap<ClientID, ServerEvent> multimap = transactions[slot];
+      if (multimap == null) {
+        multimap = ArrayListMultimap.create(1, 1);
+        transactions[slot] = multimap;
+        liveTransactions++;
+        // stored below the water mark after it moved past, the next clear picks it up like any other
+        clearedBelow = Math.min(clearedBelow, slot);
+      }
+      for (ClientID clientID : clients) {
+        multimap.put(clientID, serverEvent);
+      }
+      return true;
+    }
+
+    synchronized Multimap<ClientID, ServerEvent> get(final int slot) {
+      return transactions[slot];
+    }
+
+    /**
+     * @return true if the segment got dropped as its last transaction was removed
+     */
+    synchronized boolean remove(final int slot, final boolean superseded) {
+      if (transactions[slot] != null) {
+        transactions[slot] = null;
+        liveTransactions--;
+      }
+      return dropIfEmpty(superseded);
+    }
+
+    /**
+     * @return true if the segment got dropped as no transactions are left
+     */
+    synchronized boolean clearBelow(final int slot, final boolean superseded) {
+      for (int i = clearedBelow; i < slot; i++) {
+        if (transactions[i] != null) {
+          transactions[i] = null;
+          liveTransactions--;
+        }
+      }
+      clearedBelow = Math.max(clearedBelow, slot);
+      return dropIfEmpty(superseded);
+    }
+
+    private boolean dropIfEmpty(final boolean superseded) {
+      if (liveTransactions == 0 && superseded) {
+        dropped = true;
+      }
+      return dropped;
+    }
+
+    synchronized void drop() {
+      dropped = true;
+    }
+
+    boolean isDropped() {
+      return dropped;
+    }
   }
 }
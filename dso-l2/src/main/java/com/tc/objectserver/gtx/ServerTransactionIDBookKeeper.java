@@ -18,6 +18,7 @@ package com.tc.objectserver.gtx;
 
 import com.tc.net.NodeID;
 import com.tc.object.tx.ServerTransactionID;
+import com.tc.util.concurrent.LongHashMap;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -28,47 +29,35 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.function.ObjLongConsumer;
 
 public class ServerTransactionIDBookKeeper {
 
-  private final static TreeMap EMPTY_TREEMAP = new TreeMap();
-
-  private final HashMap        nodes         = new HashMap();
+  private final Map<NodeID, NodeTransactions> nodes = new HashMap<NodeID, NodeTransactions>();
 
   public synchronized GlobalTransactionDescriptor add(ServerTransactionID sid, GlobalTransactionDescriptor gtx) {
-    TreeMap tids = getOrCreateTreeMap(sid.getSourceID());
-    return (GlobalTransactionDescriptor) tids.put(sid.getClientTransactionID(), gtx);
-  }
-
-  private TreeMap getOrCreateTreeMap(NodeID nodeID) {
-    TreeMap tm = (TreeMap) nodes.get(nodeID);
-    if (tm == null) {
-      tm = new TreeMap();
-      nodes.put(nodeID, tm);
+    NodeTransactions txns = nodes.get(sid.getSourceID());
+    if (txns == null) {
+      txns = new NodeTransactions();
+      nodes.put(sid.getSourceID(), txns);
     }
-    return tm;
-  }
-
-  private TreeMap getTreeMap(NodeID nodeID) {
-    TreeMap tm = (TreeMap) nodes.get(nodeID);
-    return (tm == null ? EMPTY_TREEMAP : tm);
+    return txns.put(sid.getClientTransactionID().toLong(), gtx);
   }
 
   public synchronized GlobalTransactionDescriptor get(ServerTransactionID sid) {
-    TreeMap tids = getTreeMap(sid.getSourceID());
-    return (GlobalTransactionDescriptor) tids.get(sid.getClientTransactionID());
+    NodeTransactions txns = nodes.get(sid.getSourceID());
+    return txns == null ? null : txns.byID.get(sid.getClientTransactionID().toLong());
   }
 
   public synchronized GlobalTransactionDescriptor remove(ServerTransactionID sid) {
-    TreeMap tids = getTreeMap(sid.getSourceID());
-    return (GlobalTransactionDescriptor) tids.remove(sid.getClientTransactionID());
+    NodeTransactions txns = nodes.get(sid.getSourceID());
+    return txns == null ? null : txns.byID.remove(sid.getClientTransactionID().toLong());
   }
 
   public synchronized Collection removeAll(NodeID nid) {
-    TreeMap tm = (TreeMap) nodes.remove(nid);
-    if (tm != null) {
-      return tm.values();
+    NodeTransactions txns = nodes.remove(nid);
+    if (txns != null) {
+      return txns.values();
     } else {
       return Collections.EMPTY_LIST;
     }
@@ -76,11 +65,10 @@ public class ServerTransactionIDBookKeeper {
 
   public synchronized Collection removeAllExcept(Set cids) {
     List removed = new ArrayList();
-    for (Iterator i = nodes.entrySet().iterator(); i.hasNext();) {
-      Map.Entry e = (Entry) i.next();
+    for (Iterator<Entry<NodeID, NodeTransactions>> i = nodes.entrySet().iterator(); i.hasNext();) {
+      Entry<NodeID, NodeTransactions> e = i.next();
       if (!cids.contains(e.getKey())) {
-        TreeMap tm = (TreeMap) e.getValue();
-        removed.addAll(tm.values());
+        removed.addAll(e.getValue().values());
         i.remove();
       }
     }
@@ -88,19 +76,80 @@ public class ServerTransactionIDBookKeeper {
   }
 
   public synchronized Collection<GlobalTransactionDescriptor> clearCommitedSidsBelowLowWaterMark(ServerTransactionID sid) {
-    List removed = new ArrayList();
-    TreeMap tids = getTreeMap(sid.getSourceID());
-    Map toRemove = tids.headMap(sid.getClientTransactionID());
-    for (Iterator i = toRemove.values().iterator(); i.hasNext();) {
-      GlobalTransactionDescriptor gd = (GlobalTransactionDescriptor) i.next();
-      // We are only removing the transactions that are already committed to disk. Transactions could be reordered in
-      // the passive, so we need this check.
-      if (gd.complete()) {
-        i.remove();
-        removed.add(gd);
-      }
-    }
+    NodeTransactions txns = nodes.get(sid.getSourceID());
+    if (txns == null) { return Collections.emptyList(); }
+    List<GlobalTransactionDescriptor> removed = new ArrayList<GlobalTransactionDescriptor>();
+    // We are only removing the transactions that are already committed to disk. Transactions could be reordered in
+    // the passive, so we need this check.
+    txns.clearCompletedBelow(sid.getClientTransactionID().toLong(), removed);
     return Collections.unmodifiableCollection(removed);
   }
 
+  /**
+   * Transactions of one node by client transaction id. Those ids are handed out sequentially, so clearing below a low
+   * water mark walks up from the lowest id that may still be held instead of keeping the ids sorted.
+   */
+  private static final class NodeTransactions {
+    private final LongHashMap<GlobalTransactionDescriptor> byID   = new LongHashMap<GlobalTransactionDescriptor>();
+    // no id below this one is held
+    private long                                           lowest = Long.MAX_VALUE;
+
+    GlobalTransactionDescriptor put(long id, GlobalTransactionDescriptor gtx) {
+      lowest = Math.min(lowest, id);
+      return byID.put(id, gtx);
+    }
+
+    List<GlobalTransactionDescriptor> values() {
+      final List<GlobalTransactionDescriptor> values = new ArrayList<GlobalTransactionDescriptor>(byID.size());
+      byID.forEach(new ObjLongConsumer<GlobalTransactionDescriptor>() {
+        @Override
+        public void accept(GlobalTransactionDescriptor gtx, long id) {
+          values.add(gtx);
+        }
+      });
+      return values;
+    }
+
+    void clearCompletedBelow(final long lowWaterMark, final List<GlobalTransactionDescriptor> removed) {
+      if (byID.isEmpty()) {
+        lowest = Long.MAX_VALUE;
+        return;
+      }
+      if (lowWaterMark <= lowest) { return; }
+
+      if (lowWaterMark - lowest > 4L * byID.size()) {
+        // ids are too sparse for walking them to pay off
+        final long[] firstKept = { lowWaterMark };
+        byID.removeIf(new LongHashMap.EntryPredicate<GlobalTransactionDescriptor>() {
+          @Override
+          public boolean test(long id, GlobalTransactionDescriptor gd) {
+            if (id >= lowWaterMark) { return false; }
+            if (gd.complete()) {
+              removed.add(gd);
+              return true;
+            }
+            firstKept[0] = Math.min(firstKept[0], id);
+            return false;
+          }
+        });
+        lowest = firstKept[0];
+        return;
+      }
+
+      long firstKept = lowWaterMark;
+      for (long id = lowest; id < lowWaterMark; id++) {
+        GlobalTransactionDescriptor gd = byID.get(id);
+        if (gd == null) {
+          continue;
+        }
+        if (gd.complete()) {
+          byID.remove(id);
+          removed.add(gd);
+        } else {
+          firstKept = Math.min(firstKept, id);
+        }
+      }
+      lowest = firstKept;
+    }
+  }
 }
@@ -19,6 +19,7 @@ package com.tc.objectserver.handler;
 import com.tc.async.api.AbstractEventHandler;
 import com.tc.async.api.ConfigurationContext;
 import com.tc.async.api.EventContext;
+import com.tc.async.api.MultiThreadedEventContext;
 import com.tc.async.api.Sink;
 import com.tc.net.ClientID;
 import com.tc.object.ObjectID;
@@ -34,6 +35,7 @@ import com.tc.objectserver.api.TransactionProvider;
 import com.tc.objectserver.context.ApplyTransactionContext;
 import com.tc.objectserver.context.BroadcastChangeContext;
 import com.tc.objectserver.context.FlushApplyCommitContext;
+import com.tc.objectserver.context.GroupCommitFlushContext;
 import com.tc.objectserver.core.api.ManagedObject;
 import com.tc.objectserver.core.api.ServerConfigurationContext;
 import com.tc.objectserver.event.ClientChannelMonitor;
@@ -45,12 +47,15 @@ import com.tc.objectserver.managedobject.ApplyTransactionInfo;
 import com.tc.objectserver.tx.ServerTransaction;
 import com.tc.objectserver.tx.ServerTransactionManager;
 import com.tc.objectserver.tx.TransactionalObjectManager;
+import com.tc.properties.TCProperties;
+import com.tc.properties.TCPropertiesConsts;
 import com.tc.properties.TCPropertiesImpl;
 import com.tc.util.concurrent.TaskRunner;
 import com.tc.util.concurrent.Timer;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -71,6 +76,7 @@ public class ApplyTransactionChangeHandler extends AbstractEventHandler {
   private ServerTransactionManager         transactionManager;
   private LockManager                      lockManager;
   private Sink                             broadcastChangesSink;
+  private Sink                             applyChangesSink;
   private final ServerMapEvictionManager   serverEvictions;
   private final ObjectInstanceMonitor      instanceMonitor;
   private TransactionalObjectManager       txnObjectMgr;
@@ -82,17 +88,27 @@ public class ApplyTransactionChangeHandler extends AbstractEventHandler {
   private GarbageCollectionManager         garbageCollectionManager;
   private final ServerEventBuffer          eventBuffer;
   private final ClientChannelMonitor       clientChannelMonitor;
+  private final boolean                    groupCommit;
+  private final int                        groupCommitMaxTxns;
+  private final int                        groupCommitMaxObjects;
+  private final long                       groupCommitMaxDelayNanos;
 
   public ApplyTransactionChangeHandler(final ObjectInstanceMonitor instanceMonitor,
                                        final GlobalTransactionManager gtxm, final ServerMapEvictionManager evictions,
                                        final TransactionProvider persistenceTransactionProvider,
                                        final TaskRunner taskRunner, final ServerEventBuffer eventBuffer,
-                                       final ClientChannelMonitor clientChannelMonitor) {
+                                       final ClientChannelMonitor clientChannelMonitor, final boolean groupCommit) {
     this.instanceMonitor = instanceMonitor;
     this.serverEvictions = evictions;
     this.persistenceTransactionProvider = persistenceTransactionProvider;
     this.eventBuffer = eventBuffer;
     this.clientChannelMonitor = clientChannelMonitor;
+    this.groupCommit = groupCommit;
+    final TCProperties props = TCPropertiesImpl.getProperties();
+    this.groupCommitMaxTxns = props.getInt(TCPropertiesConsts.L2_TRANSACTIONMANAGER_GROUPCOMMIT_MAXTRANSACTIONS);
+    this.groupCommitMaxObjects = props.getInt(TCPropertiesConsts.L2_TRANSACTIONMANAGER_GROUPCOMMIT_MAXOBJECTS);
+    this.groupCommitMaxDelayNanos = TimeUnit.MILLISECONDS.toNanos(props
+        .getLong(TCPropertiesConsts.L2_TRANSACTIONMANAGER_GROUPCOMMIT_MAXDELAYMILLIS));
     final Timer timer = taskRunner.newTimer("Apply Transaction Change Timer");
     timer.scheduleAtFixedRate(new Runnable() {
       @Override
@@ -105,7 +121,12 @@ public class ApplyTransactionChangeHandler extends AbstractEventHandler {
   @Override
   public void handleEvent(final EventContext context) {
 
-    begin();
+    if (context instanceof GroupCommitFlushContext) {
+      flushGroupCommit();
+      return;
+    }
+
+    begin(((MultiThreadedEventContext) context).getKey());
 
     if (context instanceof FlushApplyCommitContext) {
       commit(((FlushApplyCommitContext) context).getObjectsToRelease(), true);
@@ -159,9 +180,22 @@ public class ApplyTransactionChangeHandler extends AbstractEventHandler {
     commit(atc, applyInfo);
   }
 
-  private void begin() {
-    if (localCommitContext.get() == null) {
-      localCommitContext.set(new CommitContext());
+  private void begin(Object key) {
+    CommitContext commitContext = localCommitContext.get();
+    if (commitContext == null) {
+      commitContext = new CommitContext();
+      localCommitContext.set(commitContext);
+    }
+    commitContext.key = key;
+  }
+
+  private void flushGroupCommit() {
+    CommitContext commitContext = localCommitContext.get();
+    if (commitContext != null && commitContext.holdingSince != 0) {
+      commitContext.flushScheduled = false;
+      if (commitContext.commit(Collections.<ManagedObject> emptyList(), true, true)) {
+        localCommitContext.set(null);
+      }
     }
   }
 
@@ -193,20 +227,35 @@ public class ApplyTransactionChangeHandler extends AbstractEventHandler {
     final ServerConfigurationContext scc = (ServerConfigurationContext) context;
     this.transactionManager = scc.getTransactionManager();
     this.broadcastChangesSink = scc.getStage(ServerConfigurationContext.BROADCAST_CHANGES_STAGE).getSink();
+    this.applyChangesSink = scc.getStage(ServerConfigurationContext.APPLY_CHANGES_STAGE).getSink();
     this.txnObjectMgr = scc.getTransactionalObjectManager();
     this.lockManager = scc.getLockManager();
     this.garbageCollectionManager = scc.getGarbageCollectionManager();
   }
 
+  /**
+   * Persistence work of the transactions applied by one apply thread since its last commit. With group commit on, a
+   * completed grouping does not commit right away but waits for the transactions already queued on the same thread, so
+   * that they all share one durability barrier. Objects are only released and transactions only acknowledged after the
+   * commit, as before.
+   */
   private class CommitContext {
     private final Transaction                     transaction      = persistenceTransactionProvider.newTransaction();
     private final Map<String, ObjectID>           newRoots         = new HashMap<String, ObjectID>();
     private final Collection<ServerTransactionID> stxIDs           = new HashSet<ServerTransactionID>();
     private final Collection<ManagedObject>       objectsToRelease = new ArrayList<ManagedObject>();
+    private Object                                key;
+    private long                                  holdingSince;
+    private boolean                               flushScheduled;
 
     boolean commit(Collection<ManagedObject> moreObjectsToRelease, boolean done) {
+      return commit(moreObjectsToRelease, done, false);
+    }
+
+    boolean commit(Collection<ManagedObject> moreObjectsToRelease, boolean done, boolean flush) {
       objectsToRelease.addAll(moreObjectsToRelease);
       if (done) {
+        if (groupCommit && !flush && hold()) { return false; }
         transaction.commit();
         transactionManager.commit(objectsToRelease, newRoots, stxIDs);
         return true;
@@ -221,5 +270,20 @@ public class ApplyTransactionChangeHandler extends AbstractEventHandler {
       newRoots.putAll(moreRoots);
       return commit(objectsToReleaseParam, done);
     }
+
+    private boolean hold() {
+      if (stxIDs.size() >= groupCommitMaxTxns || objectsToRelease.size() >= groupCommitMaxObjects) {
+        return false;
+      }
+      if (holdingSince == 0) {
+        holdingSince = System.nanoTime();
+      } else if (System.nanoTime() - holdingSince >= groupCommitMaxDelayNanos) { return false; }
+      if (!flushScheduled) {
+        // Lands on this thread's queue behind whatever is already there, the group is committed once it is reached
+        flushScheduled = true;
+        applyChangesSink.add(new GroupCommitFlushContext(key));
+      }
+      return true;
+    }
   }
 }
@@ -887,7 +887,8 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
     int applyStageThreads = L2Utils.getOptimalApplyStageWorkerThreads(restartable || hybrid);
     stageManager.createStage(ServerConfigurationContext.APPLY_CHANGES_STAGE,
                              new ApplyTransactionChangeHandler(instanceMonitor, this.transactionManager, this.serverMapEvictor,
-                             persistor.getPersistenceTransactionProvider(), taskRunner, serverEventbuffer, clientChannelMonitorImpl),
+                             persistor.getPersistenceTransactionProvider(), taskRunner, serverEventbuffer, clientChannelMonitorImpl,
+                             restartable && tcProperties.getBoolean(TCPropertiesConsts.L2_TRANSACTIONMANAGER_GROUPCOMMIT_ENABLED)),
                              applyStageThreads, 1, -1);
 
     txnStageCoordinator.lookUpSinks();
@@ -1091,7 +1092,8 @@ public class DistributedObjectServer implements TCDumper, LockInfoDumpHandler, S
     this.managementContext = new ServerManagementContext(this.transactionManager, this.objectRequestManager,
                                                          this.lockManager, (DSOChannelManagerMBean) channelManager,
                                                          serverStats, channelStats, instanceMonitor,
-                                                         indexHACoordinator, connectionPolicy, remoteManagement);
+                                                         indexHACoordinator, connectionPolicy, remoteManagement,
+                                                         this.communicationsManager.getConnectionManager().getTcComm());
     this.safeMode.enter(l2State, managementStartup, () -> {
       final CallbackOnExitHandler handler = new CallbackGroupExceptionHandler(logger, consoleLogger);
       this.threadGroup.addCallbackOnExitExceptionHandler(GroupException.class, handler);
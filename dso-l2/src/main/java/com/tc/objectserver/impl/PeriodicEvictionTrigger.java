@@ -121,6 +121,16 @@ public class PeriodicEvictionTrigger extends AbstractEvictionTrigger {
             return 0;
         }
 
+        @Override
+        public boolean isReferencedByAnyClient(ObjectID objectID) {
+            return false;
+        }
+
+        @Override
+        public long getReferencedObjectCount() {
+            return 0;
+        }
+
         @Override
         public Set<NodeID> getConnectedClientIDs() {
             return Collections.<NodeID>emptySet();
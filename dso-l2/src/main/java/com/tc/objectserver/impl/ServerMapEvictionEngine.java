@@ -20,6 +20,7 @@ import com.tc.async.api.ConfigurationContext;
 import com.tc.l2.objectserver.ServerTransactionFactory;
 import com.tc.logging.TCLogger;
 import com.tc.logging.TCLogging;
+import com.tc.net.NodeID;
 import com.tc.object.ObjectID;
 import com.tc.object.dna.impl.ObjectStringSerializer;
 import com.tc.object.dna.impl.ObjectStringSerializerImpl;
@@ -41,12 +42,12 @@ import com.tc.objectserver.tx.TransactionBatchManager;
 import com.tc.properties.TCPropertiesConsts;
 import com.tc.properties.TCPropertiesImpl;
 import com.tc.text.PrettyPrinter;
+import com.tc.util.concurrent.LongConcurrentHashMap;
 
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -84,7 +85,9 @@ public class ServerMapEvictionEngine extends AbstractServerTransactionListener {
   private final Set<ObjectID>                 currentlyEvicting               = new HashSet<ObjectID>();
   private final Set<EvictionListener>         listeners                       = new HashSet<EvictionListener>();
   private final AtomicBoolean                 isStarted                       = new AtomicBoolean(false);
-  private final Map<ServerTransactionID, ObjectID> inflightEvictions          = new ConcurrentHashMap<ServerTransactionID, ObjectID>();
+  // eviction transactions all come from the one server node id, so they are tracked by client transaction id alone
+  private final LongConcurrentHashMap<ObjectID> inflightEvictions           = new LongConcurrentHashMap<ObjectID>();
+  private volatile NodeID                     evictionSourceID;
 
   private TransactionBatchManager             transactionBatchManager;
   private EvictionTransactionPersistor        evictionTransactionPersistor;
@@ -198,7 +201,8 @@ public class ServerMapEvictionEngine extends AbstractServerTransactionListener {
     TransactionBatchContext batchContext = new ServerTransactionBatchContext(serverTransaction.getSourceID(),
         serverTransaction, serializer);
     
-    inflightEvictions.put(serverTransaction.getServerTransactionID(), oid);
+    evictionSourceID = serverTransaction.getSourceID();
+    inflightEvictions.put(serverTransaction.getServerTransactionID().getClientTransactionID().toLong(), oid);
 
     if ( persistent ) {
       evictionTransactionPersistor.saveEviction(serverTransaction.getServerTransactionID(), oid, cacheName, candidates);
@@ -215,7 +219,8 @@ public class ServerMapEvictionEngine extends AbstractServerTransactionListener {
 
   @Override
   public void transactionCompleted(ServerTransactionID stxID) {
-    ObjectID targetID = inflightEvictions.remove(stxID);
+    if (!stxID.getSourceID().equals(evictionSourceID)) { return; }
+    ObjectID targetID = inflightEvictions.remove(stxID.getClientTransactionID().toLong());
     
     if ( targetID == null ) {
       return;
@@ -78,6 +78,8 @@ import com.tc.objectserver.persistence.ClusterStatePersistor;
 import com.tc.objectserver.persistence.HeapStorageManagerFactory;
 import com.tc.objectserver.persistence.OffheapStorageManagerFactory;
 import com.tc.objectserver.persistence.Persistor;
+import com.tc.objectserver.persistence.RestartablePersistor;
+import com.tc.objectserver.persistence.StorageManagerFactory;
 import com.tc.objectserver.persistence.offheap.DataStorageConfig;
 import com.tc.objectserver.search.IndexHACoordinator;
 import com.tc.objectserver.search.IndexManager;
@@ -340,11 +342,16 @@ public class StandardDSOServerBuilder implements DSOServerBuilder {
       throw new IOException();
     }
 
-    if (persistent) throw new UnsupportedOperationException("Restartability is not supported in open source servers.");
+    StorageManagerFactory storageManagerFactory;
     if (offHeapConfig.enabled()) {
-      return new Persistor(new OffheapStorageManagerFactory(offHeapConfig));
+      storageManagerFactory = new OffheapStorageManagerFactory(offHeapConfig);
     } else {
-      return new Persistor(HeapStorageManagerFactory.INSTANCE);
+      storageManagerFactory = HeapStorageManagerFactory.INSTANCE;
+    }
+    if (persistent) {
+      return new RestartablePersistor(storageManagerFactory, l2DataPath);
+    } else {
+      return new Persistor(storageManagerFactory);
     }
   }
 
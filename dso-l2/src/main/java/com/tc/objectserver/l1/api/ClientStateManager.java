@@ -78,6 +78,16 @@ public interface ClientStateManager {
 
   public int getReferenceCount(NodeID nodeID);
 
+  /**
+   * Lock free check whether any connected client currently references objectID
+   */
+  public boolean isReferencedByAnyClient(ObjectID objectID);
+
+  /**
+   * @return number of distinct objects referenced by at least one client
+   */
+  public long getReferencedObjectCount();
+
   public Set<NodeID> getConnectedClientIDs();
 
   public void registerObjectReferenceAddListener(ObjectReferenceAddListener listener);
@@ -20,56 +20,42 @@ import com.tc.logging.TCLogger;
 import com.tc.logging.TCLogging;
 import com.tc.object.ObjectID;
 import com.tc.objectserver.l1.api.ClientStateManager;
-import com.tc.objectserver.l1.api.ObjectReferenceAddListener;
 import com.tc.properties.TCPropertiesConsts;
 import com.tc.properties.TCPropertiesImpl;
-import com.tc.util.BitSetObjectIDSet;
-import com.tc.util.ObjectIDSet;
-import com.tc.util.StripedObjectIDSet;
 
-import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-public class ClientObjectReferenceSet implements ObjectReferenceAddListener {
+/**
+ * The set of objects referenced by at least one client, as seen by server map eviction.
+ * <p>
+ * Membership is answered from the per object reference counts the {@link ClientStateManager} maintains as clients fault
+ * in and release objects, so {@link #contains(Object)} takes no lock and nothing has to be rebuilt. Listeners are still
+ * told the set changed at most once per refresh interval so eviction that came up short gets another go.
+ */
+public class ClientObjectReferenceSet {
 
   private static final long                                                   REFRESH_INTERVAL_NANO = TimeUnit.MILLISECONDS
                                                                                                         .toNanos(TCPropertiesImpl
                                                                                                             .getProperties()
                                                                                                             .getLong(TCPropertiesConsts.L2_SERVERMAP_EVICTION_CLIENTOBJECT_REFERENCES_REFRESH_INTERVAL,
                                                                                                                      60000));
-  public static final long                                                    MONITOR_INTERVAL_NANO = REFRESH_INTERVAL_NANO * 5;
 
   private final ClientStateManager                                            clientStateManager;
   private final TCLogger                                                      logger;
-  private final AtomicBoolean                                                 objectReferencesRefreshInProgress;
-  private final ReentrantReadWriteLock                                        lock;
+  private final AtomicBoolean                                                 notifyInProgress;
   private final CopyOnWriteArrayList<ClientObjectReferenceSetChangedListener> listeners;
 
   private volatile long                                                       lastRefreshTime;
 
-  // accessed under local lock / thread safe
-  private StripedObjectIDSet                                                  liveObjectReferences;
-  private ObjectIDSet                                                         snapshotObjectReferences;
-  private boolean                                                             objectRefAddRegistered;
-  private final Timer                                                         timer;
-
   public ClientObjectReferenceSet(final ClientStateManager clientStateManager) {
     this.clientStateManager = clientStateManager;
     this.logger = TCLogging.getLogger(ClientObjectReferenceSet.class);
-    this.lock = new ReentrantReadWriteLock();
-    this.timer = new Timer();
-
-    this.snapshotObjectReferences = new BitSetObjectIDSet();
-    this.liveObjectReferences = new StripedObjectIDSet();
-    this.objectReferencesRefreshInProgress = new AtomicBoolean();
+    this.notifyInProgress = new AtomicBoolean();
     this.listeners = new CopyOnWriteArrayList<ClientObjectReferenceSetChangedListener>();
+    this.lastRefreshTime = System.nanoTime();
 
-    refreshClientObjectReferencesIfNeeded();
     logger.info("ServerMapEviction Client Object References refresh interval "
                 + TimeUnit.NANOSECONDS.toSeconds(REFRESH_INTERVAL_NANO) + " seconds.");
   }
@@ -90,116 +76,37 @@ public class ClientObjectReferenceSet implements ObjectReferenceAddListener {
   }
 
   public boolean contains(Object value) {
-    boolean found = false;
     refreshClientObjectReferencesIfNeeded();
-
-    this.lock.readLock().lock();
-    try {
-      found = this.snapshotObjectReferences.contains(value);
-      if (!found) {
-        found = this.liveObjectReferences.contains(value);
-      }
-    } finally {
-      this.lock.readLock().unlock();
-    }
-
-    return found;
+    return value instanceof ObjectID && clientStateManager.isReferencedByAnyClient((ObjectID) value);
   }
 
-  /**
-   * returned size might be slightly more than the actual number of references being holded on the client.
-   */
   public int size() {
     refreshClientObjectReferencesIfNeeded();
-    this.lock.readLock().lock();
-    try {
-      return this.snapshotObjectReferences.size() + this.liveObjectReferences.size();
-    } finally {
-      this.lock.readLock().unlock();
-    }
+    return (int) Math.min(Integer.MAX_VALUE, clientStateManager.getReferencedObjectCount());
   }
 
   private void refreshClientObjectReferencesIfNeeded() {
     if (((lastRefreshTime + REFRESH_INTERVAL_NANO) < System.nanoTime())
-        && objectReferencesRefreshInProgress.compareAndSet(false, true)) {
-      this.reinitObjectReferenceSnapshot();
-      objectReferencesRefreshInProgress.set(false);
-    }
-  }
-  
-  public void refreshClientObjectReferencesNow() {
-      if ( objectReferencesRefreshInProgress.compareAndSet(false, true) ) {
-          this.reinitObjectReferenceSnapshot();
-          objectReferencesRefreshInProgress.set(false);
-      }
-  } 
-
-  @Override
-  public void objectReferenceAdded(ObjectID objectID) {
-    this.lock.readLock().lock();
-    try {
-    this.liveObjectReferences.add(objectID);
-    } finally {
-      this.lock.readLock().unlock();
+        && notifyInProgress.compareAndSet(false, true)) {
+      notifyReferenceSetChanged();
+      notifyInProgress.set(false);
     }
   }
 
-  @Override
-  public void objectReferencesAdded(Set<ObjectID> objectIDs) {
-    this.lock.readLock().lock();
-    try {
-    this.liveObjectReferences.addAll(objectIDs);
-    } finally {
-      this.lock.readLock().unlock();
+  /**
+   * The references are always current, this only lets the listeners know right away.
+   */
+  public void refreshClientObjectReferencesNow() {
+    if (notifyInProgress.compareAndSet(false, true)) {
+      notifyReferenceSetChanged();
+      notifyInProgress.set(false);
     }
   }
 
-  private void reinitObjectReferenceSnapshot() {
-    this.lock.writeLock().lock();
-    try {
-
-      this.lastRefreshTime = System.nanoTime();
-
-      // register for new object reference added
-      monitorObjectReferenceAddition();
-
-      this.snapshotObjectReferences = new BitSetObjectIDSet();
-      this.liveObjectReferences = new StripedObjectIDSet();
-      this.clientStateManager.addAllReferencedIdsTo(snapshotObjectReferences);
-    } finally {
-      this.lock.writeLock().unlock();
-    }
-
+  private void notifyReferenceSetChanged() {
+    this.lastRefreshTime = System.nanoTime();
     for (ClientObjectReferenceSetChangedListener listener : listeners) {
       listener.notifyReferenceSetChanged();
     }
   }
-
-  private void monitorObjectReferenceAddition() {
-
-    if (objectRefAddRegistered) return;
-    // This timer task is here to avoid memory leak.
-    // When this Set is not in use and it will unregister the Listener so that the liveObjectReferences will not keep
-    // growing for ever. The state will be updated when someone checks for a contains on this set.
-    final TimerTask task = new TimerTask() {
-      @Override
-      public void run() {
-
-        lock.writeLock().lock();
-        try {
-          if ((lastRefreshTime < (System.nanoTime() - REFRESH_INTERVAL_NANO))) {
-            clientStateManager.unregisterObjectReferenceAddListener(ClientObjectReferenceSet.this);
-            cancel();
-            objectRefAddRegistered = false;
-          }
-        } finally {
-          lock.writeLock().unlock();
-        }
-      }
-    };
-
-    this.clientStateManager.registerObjectReferenceAddListener(this);
-    this.timer.schedule(task, TimeUnit.NANOSECONDS.toMillis(MONITOR_INTERVAL_NANO));
-    objectRefAddRegistered = true;
-  }
 }
@@ -42,17 +42,20 @@ import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Client State Manager maintains the list of objects that are faulted into each client.
+ * Client State Manager maintains the list of objects that are faulted into each client. It also keeps a running count
+ * of how many clients reference each object so eviction can check residency without walking every client's set.
  */
 public class ClientStateManagerImpl implements ClientStateManager, PrettyPrintable {
   private static final TCLogger logger = TCLogging.getLogger(ClientStateManagerImpl.class);
 
   private final ConcurrentHashMap<NodeID, ClientStateImpl>      clientStates;
   private final CopyOnWriteArraySet<ObjectReferenceAddListener> objectRefsAddListener;
+  private final ObjectReferenceCounter                          referenceCounter;
 
   public ClientStateManagerImpl() {
     this.clientStates = new ConcurrentHashMap<NodeID, ClientStateImpl>();
     this.objectRefsAddListener = new CopyOnWriteArraySet<ObjectReferenceAddListener>();
+    this.referenceCounter = new ObjectReferenceCounter();
   }
 
   @Override
@@ -127,7 +130,7 @@ public class ClientStateManagerImpl implements ClientStateManager, PrettyPrintab
         if (!c.addReference(objectID) ) {
           return false;
         }
-        
+        referenceCounter.increment(objectID);
       } finally {
         c.unlock();
       }
@@ -172,7 +175,11 @@ public class ClientStateManagerImpl implements ClientStateManager, PrettyPrintab
     if (c != null) {
       c.lock();
       try {
-        c.removeReferences(removed);
+        for (final ObjectID oid : removed) {
+          if (c.removeReference(oid)) {
+            referenceCounter.decrement(oid);
+          }
+        }
         c.removeReferencedObjectIDsFrom(requested);
       } finally {
         c.unlock();
@@ -240,15 +247,20 @@ public class ClientStateManagerImpl implements ClientStateManager, PrettyPrintab
     final Set<ObjectID> newReferences = new HashSet<ObjectID>();
     c.lock();
     try {
+      if (c.isShutdown()) { return Collections.emptySet(); }
       final Set<ObjectID> refs = c.getReferences();
       if (refs.isEmpty()) {
         refs.addAll(oids);
+        for (final ObjectID oid : oids) {
+          referenceCounter.increment(oid);
+        }
         return oids;
       }
 
       for (final ObjectID oid : oids) {
         if (refs.add(oid)) {
           newReferences.add(oid);
+          referenceCounter.increment(oid);
         }
       }
 
@@ -264,7 +276,18 @@ public class ClientStateManagerImpl implements ClientStateManager, PrettyPrintab
 
   @Override
   public void shutdownNode(final NodeID waitee) {
-    this.clientStates.remove(waitee);
+    final ClientStateImpl c = this.clientStates.remove(waitee);
+    if (c == null) { return; }
+    c.lock();
+    try {
+      // anyone still holding on to this state must not add to the counts after this
+      c.shutdown();
+      for (final ObjectID oid : c.getReferences()) {
+        referenceCounter.decrement(oid);
+      }
+    } finally {
+      c.unlock();
+    }
   }
 
   @Override
@@ -288,6 +311,16 @@ public class ClientStateManagerImpl implements ClientStateManager, PrettyPrintab
     }
   }
 
+  @Override
+  public boolean isReferencedByAnyClient(final ObjectID objectID) {
+    return referenceCounter.isReferenced(objectID);
+  }
+
+  @Override
+  public long getReferencedObjectCount() {
+    return referenceCounter.getReferencedCount();
+  }
+
   @Override
   public Set<NodeID> getConnectedClientIDs() {
     return Collections.unmodifiableSet(this.clientStates.keySet());
@@ -315,6 +348,7 @@ public class ClientStateManagerImpl implements ClientStateManager, PrettyPrintab
     private final NodeID        nodeID;
     private final Set<ObjectID> managed = new BitSetObjectIDSet();
     private final ReentrantLock lock    = new ReentrantLock();
+    private boolean             shutdown;
 
     public ClientStateImpl(final NodeID nodeID) {
       this.nodeID = nodeID;
@@ -357,7 +391,19 @@ public class ClientStateManagerImpl implements ClientStateManager, PrettyPrintab
 
     @Override
     public boolean addReference(final ObjectID id) {
-      return this.managed.add(id);
+      return !this.shutdown && this.managed.add(id);
+    }
+
+    public boolean removeReference(final ObjectID id) {
+      return this.managed.remove(id);
+    }
+
+    public void shutdown() {
+      this.shutdown = true;
+    }
+
+    public boolean isShutdown() {
+      return this.shutdown;
     }
 
     @Override
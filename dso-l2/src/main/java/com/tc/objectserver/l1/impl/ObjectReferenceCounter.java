@@ -0,0 +1,116 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.l1.impl;
+
+import com.tc.object.ObjectID;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts, per object, how many clients hold a reference to it.
+ * <p>
+ * Counters live in small pages of consecutive object ids (ids are handed out sequentially, so pages stay dense) and a
+ * page is dropped as soon as its last counter goes back to zero. Updates are serialized per stripe of pages, reads take
+ * no lock at all, which is what eviction sampling needs: a racy read only means an object that was released or faulted
+ * a moment ago is seen one way or the other, same as with a periodic snapshot but without the rebuild.
+ */
+public class ObjectReferenceCounter {
+
+  private static final int                    PAGE_SHIFT = 7;
+  private static final int                    PAGE_SIZE  = 1 << PAGE_SHIFT;
+  private static final int                    PAGE_MASK  = PAGE_SIZE - 1;
+  private static final int                    STRIPES    = 64;
+
+  private final ConcurrentHashMap<Long, Page> pages      = new ConcurrentHashMap<Long, Page>();
+  private final Object[]                      stripes    = new Object[STRIPES];
+  private final AtomicLong                    referenced = new AtomicLong();
+
+  public ObjectReferenceCounter() {
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Object();
+    }
+  }
+
+  public boolean isReferenced(ObjectID id) {
+    long oid = id.toLong();
+    if (oid < 0) { return false; }
+    Page page = pages.get(oid >>> PAGE_SHIFT);
+    return page != null && page.counts.get((int) (oid & PAGE_MASK)) > 0;
+  }
+
+  /**
+   * Called when one more client references the object.
+   */
+  public void increment(ObjectID id) {
+    long oid = id.toLong();
+    if (oid < 0) { return; }
+    Long pageIndex = oid >>> PAGE_SHIFT;
+    synchronized (stripeFor(pageIndex)) {
+      Page page = pages.get(pageIndex);
+      if (page == null) {
+        page = new Page();
+        pages.put(pageIndex, page);
+      }
+      if (page.counts.getAndIncrement((int) (oid & PAGE_MASK)) == 0) {
+        page.nonZero++;
+        referenced.incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Called when one client no longer references the object.
+   */
+  public void decrement(ObjectID id) {
+    long oid = id.toLong();
+    if (oid < 0) { return; }
+    Long pageIndex = oid >>> PAGE_SHIFT;
+    synchronized (stripeFor(pageIndex)) {
+      Page page = pages.get(pageIndex);
+      int slot = (int) (oid & PAGE_MASK);
+      if (page == null || page.counts.get(slot) == 0) {
+        // not counted, nothing to do
+        return;
+      }
+      if (page.counts.decrementAndGet(slot) == 0) {
+        referenced.decrementAndGet();
+        if (--page.nonZero == 0) {
+          pages.remove(pageIndex);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return number of distinct objects referenced by at least one client
+   */
+  public long getReferencedCount() {
+    return referenced.get();
+  }
+
+  private Object stripeFor(long pageIndex) {
+    return stripes[(int) (pageIndex % STRIPES)];
+  }
+
+  private static final class Page {
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(PAGE_SIZE);
+    // guarded by the stripe lock
+    private int                      nonZero;
+  }
+}
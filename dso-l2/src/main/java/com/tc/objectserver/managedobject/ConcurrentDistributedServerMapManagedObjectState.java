@@ -74,6 +74,36 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
   public static final String    COPY_ON_READ_ENABLED_FIELDNAME = "copyOnReadEnabled";
   public static final String    EVICTION_ENABLED_FIELDNAME     = "evictionEnabled";
 
+  /**
+   * Configuration fields, looked up once by name so applying a change is a hash lookup and a switch rather than a chain
+   * of string compares.
+   */
+  private enum Field {
+    CACHE_NAME(CACHE_NAME_FIELDNAME), INVALIDATE_ON_CHANGE(INVALIDATE_ON_CHANGE_FIELDNAME), LOCK_TYPE(LOCK_TYPE_FIELDNAME),
+    LOCAL_CACHE_ENABLED(LOCAL_CACHE_ENABLED_FIELDNAME), MAX_TTI_SECONDS(MAX_TTI_SECONDS_FIELDNAME),
+    MAX_TTL_SECONDS(MAX_TTL_SECONDS_FIELDNAME), MAX_COUNT_IN_CLUSTER(MAX_COUNT_IN_CLUSTER_FIELDNAME),
+    COMPRESSION_ENABLED(COMPRESSION_ENABLED_FIELDNAME), COPY_ON_READ_ENABLED(COPY_ON_READ_ENABLED_FIELDNAME),
+    EVICTION_ENABLED(EVICTION_ENABLED_FIELDNAME);
+
+    private static final Map<String, Field> BY_NAME = new HashMap<String, Field>();
+
+    static {
+      for (Field field : values()) {
+        BY_NAME.put(field.fieldName, field);
+      }
+    }
+
+    private final String                    fieldName;
+
+    Field(String fieldName) {
+      this.fieldName = fieldName;
+    }
+
+    static Field named(String fieldName) {
+      return BY_NAME.get(fieldName);
+    }
+  }
+
   protected int                 dsoLockType;
 
   private static final double   OVERSHOOT                      = getOvershoot();
@@ -215,29 +245,39 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
   protected void applyPhysicalAction(final PhysicalAction action, final ObjectID objectID,
                                      final ApplyTransactionInfo info) {
     final String fieldName = action.getFieldName();
-    if (LOCK_TYPE_FIELDNAME.equals(fieldName)) {
-      this.dsoLockType = (Integer) action.getObject();
-    } else if (MAX_TTI_SECONDS_FIELDNAME.equals(fieldName)) {
-      this.maxTTISeconds = (Integer) action.getObject();
-    } else if (MAX_TTL_SECONDS_FIELDNAME.equals(fieldName)) {
-      this.maxTTLSeconds = (Integer) action.getObject();
-    } else if (MAX_COUNT_IN_CLUSTER_FIELDNAME.equals(fieldName)) {
-      this.targetMaxTotalCount = (Integer) action.getObject();
-    } else if (INVALIDATE_ON_CHANGE_FIELDNAME.equals(fieldName)) {
-      this.invalidateOnChange = (Boolean) action.getObject();
-    } else if (fieldName.equals(CACHE_NAME_FIELDNAME)) {
-      Object value = action.getObject();
-      this.cacheName = asString(value);
-    } else if (LOCAL_CACHE_ENABLED_FIELDNAME.equals(fieldName)) {
-      this.localCacheEnabled = (Boolean) action.getObject();
-    } else if (COMPRESSION_ENABLED_FIELDNAME.equals(fieldName)) {
-      this.compressionEnabled = (Boolean) action.getObject();
-    } else if (COPY_ON_READ_ENABLED_FIELDNAME.equals(fieldName)) {
-      this.copyOnReadEnabled = (Boolean) action.getObject();
-    } else if (EVICTION_ENABLED_FIELDNAME.equals(fieldName)) {
-      this.evictionEnabled = (Boolean) action.getObject();
-    } else {
-      throw new AssertionError("unexpected field name: " + fieldName);
+    final Field field = Field.named(fieldName);
+    if (field == null) { throw new AssertionError("unexpected field name: " + fieldName); }
+    switch (field) {
+      case LOCK_TYPE:
+        this.dsoLockType = (Integer) action.getObject();
+        break;
+      case MAX_TTI_SECONDS:
+        this.maxTTISeconds = (Integer) action.getObject();
+        break;
+      case MAX_TTL_SECONDS:
+        this.maxTTLSeconds = (Integer) action.getObject();
+        break;
+      case MAX_COUNT_IN_CLUSTER:
+        this.targetMaxTotalCount = (Integer) action.getObject();
+        break;
+      case INVALIDATE_ON_CHANGE:
+        this.invalidateOnChange = (Boolean) action.getObject();
+        break;
+      case CACHE_NAME:
+        this.cacheName = asString(action.getObject());
+        break;
+      case LOCAL_CACHE_ENABLED:
+        this.localCacheEnabled = (Boolean) action.getObject();
+        break;
+      case COMPRESSION_ENABLED:
+        this.compressionEnabled = (Boolean) action.getObject();
+        break;
+      case COPY_ON_READ_ENABLED:
+        this.copyOnReadEnabled = (Boolean) action.getObject();
+        break;
+      case EVICTION_ENABLED:
+        this.evictionEnabled = (Boolean) action.getObject();
+        break;
     }
   }
 
@@ -250,20 +290,19 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
         applySetLastAccessedTime(params);
         return LogicalChangeResult.SUCCESS;
       case FIELD_CHANGED:
-        final String fieldName = asString(params[0]);
-        final boolean boolValue = (Boolean) params[1];
-        if (EVICTION_ENABLED_FIELDNAME.equals(fieldName)) {
-          this.evictionEnabled = boolValue;
+        if (Field.named(asString(params[0])) == Field.EVICTION_ENABLED) {
+          this.evictionEnabled = (Boolean) params[1];
         }
         return LogicalChangeResult.SUCCESS;
       case INT_FIELD_CHANGED:
         final String intFieldName = asString(params[0]);
         final int intValue = (Integer) params[1];
-        if (MAX_TTI_SECONDS_FIELDNAME.equals(intFieldName)) {
+        final Field intField = Field.named(intFieldName);
+        if (intField == Field.MAX_TTI_SECONDS) {
           this.maxTTISeconds = intValue;
-        } else if (MAX_TTL_SECONDS_FIELDNAME.equals(intFieldName)) {
+        } else if (intField == Field.MAX_TTL_SECONDS) {
           this.maxTTLSeconds = intValue;
-        } else if (MAX_COUNT_IN_CLUSTER_FIELDNAME.equals(intFieldName)) {
+        } else if (intField == Field.MAX_COUNT_IN_CLUSTER) {
           this.targetMaxTotalCount = intValue;
         } else {
           throw new AssertionError("Unknown int field changed for oid: " + objectID + " - name: " + intFieldName
@@ -360,22 +399,23 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
 
   @Override
   protected Object applyPut(final ApplyTransactionInfo applyInfo, final Object[] params) {
-    final Object key = params[0];
     final ObjectID oid = (ObjectID) params[1];
-
     final CDSMValue value;
     if (params.length == 6) {
       value = new CDSMValue(oid, (Long) params[2], (Long) params[3], (Long) params[4], (Long) params[5]);
     } else {
       value = new CDSMValue(oid, 0, 0, 0, 0);
     }
+    return applyLocalPut(applyInfo, params[0], value);
+  }
 
+  private CDSMValue applyLocalPut(final ApplyTransactionInfo applyInfo, final Object key, final CDSMValue value) {
     final CDSMValue old = (CDSMValue) references.get(key);
     final long newVersion = (old == null) ? 0 // new key-value pair
         : old.getVersion() + 1; // local put - increment version, if key already exists
     value.setVersion(newVersion);
 
-    applyPutInternal(applyInfo, params, value, old);
+    applyPutInternal(applyInfo, key, value, old);
 
     // collect modifications for further broadcasting
     applyInfo.getMutationEventPublisher().publishEvent(getRegisteredClients(ServerEventType.PUT_LOCAL),
@@ -391,7 +431,7 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
                                           (Long) params[6]);
     final CDSMValue old = (CDSMValue) references.get(key);
 
-    applyPutInternal(applyInfo, params, value, old);
+    applyPutInternal(applyInfo, key, value, old);
     return old;
   }
 
@@ -403,30 +443,33 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
     final CDSMValue oldValue = (CDSMValue) references.get(key);
 
     if (oldValue == null) {
-      applyPutInternal(applyInfo, params, newValue, oldValue);
+      applyPutInternal(applyInfo, key, newValue, oldValue);
       return LogicalChangeResult.SUCCESS;
     } else {
-      removedReferences(applyInfo, newValue);
+      removedReference(applyInfo, newValue);
       addValue(applyInfo, newValue, false);
       return LogicalChangeResult.FAILURE;
     }
   }
 
-  private void applyPutInternal(final ApplyTransactionInfo applyInfo, final Object[] params, final CDSMValue value,
+  private void applyPutInternal(final ApplyTransactionInfo applyInfo, final Object key, final CDSMValue value,
                                 final CDSMValue old) {
-    final Object key = params[0];
-    final ObjectID oid = (ObjectID) params[1];
+    final ObjectID oid = value.getObjectID();
 
     references.put(key, value);
-    addedReferences(applyInfo, key, value);
-    removedReferences(applyInfo, old);
+    addedReference(applyInfo, key);
+    addedReference(applyInfo, value);
+    removedReference(applyInfo, old);
 
     addValue(applyInfo, oid, old != null);
     startCapacityEvictionIfNeccessary(applyInfo);
 
     // collect modifications for futher broadcasting
-    applyInfo.getMutationEventPublisher().publishEvent(getRegisteredClients(ServerEventType.PUT), ServerEventType.PUT,
-                                                       key, new CDSMValue(oid), cacheName);
+    final Set<ClientID> clients = getRegisteredClients(ServerEventType.PUT);
+    if (!clients.isEmpty()) {
+      applyInfo.getMutationEventPublisher().publishEvent(clients, ServerEventType.PUT, key, new CDSMValue(oid),
+                                                         cacheName);
+    }
   }
 
   private boolean startCapacityEvictionIfNeccessary(final ApplyTransactionInfo applyInfo) {
@@ -446,7 +489,7 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
       applyPut(applyInfo, params);
       return LogicalChangeResult.SUCCESS;
     } else {
-      removedReferences(applyInfo, value);
+      removedReference(applyInfo, value);
       addValue(applyInfo, value, true);
       return LogicalChangeResult.FAILURE;
     }
@@ -458,14 +501,16 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
     Object newValue = params[2];
     CDSMValue old = getValueForKey(key);
     if (old != null && old.getObjectID().equals(currentValue)) {
+      final ObjectID newOid = (ObjectID) newValue;
       if (params.length == 7) {
-        applyPut(applyInfo, new Object[] { key, newValue, params[3], params[4], params[5], params[6] });
+        applyLocalPut(applyInfo, key, new CDSMValue(newOid, (Long) params[3], (Long) params[4], (Long) params[5],
+                                                    (Long) params[6]));
       } else {
-        applyPut(applyInfo, new Object[] { key, newValue });
+        applyLocalPut(applyInfo, key, new CDSMValue(newOid, 0, 0, 0, 0));
       }
       return LogicalChangeResult.SUCCESS;
     } else {
-      removedReferences(applyInfo, newValue);
+      removedReference(applyInfo, newValue);
       addValue(applyInfo, newValue, false);
       return LogicalChangeResult.FAILURE;
     }
@@ -477,7 +522,7 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
     final CDSMValue valueInMap = getValueForKey(key);
     if (valueInMap != null && value.equals(valueInMap.getObjectID())) {
       references.remove(key);
-      removedReferences(applyInfo, value);
+      removedReference(applyInfo, value);
       final ObjectID objectId = (ObjectID) value;
 
       if (applyInfo.isEviction() && samplingType == SamplingType.FOR_EVICTION) {
@@ -490,10 +535,7 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
         applyInfo.getMutationEventPublisher().publishEvent(getRegisteredClients(ServerEventType.REMOVE),
                                                            ServerEventType.REMOVE, key, NULL_CDSM_VALUE, cacheName);
       }
-      applyInfo.getMutationEventPublisher().publishEvent(getRegisteredClients(ServerEventType.REMOVE_LOCAL),
-                                                         ServerEventType.REMOVE_LOCAL,
-                                                         key,
-          new CDSMValue(ObjectID.NULL_ID, 0, 0, 0, 0, valueInMap.getVersion() + 1), cacheName);
+      publishRemoveLocal(applyInfo, key, valueInMap);
       return LogicalChangeResult.SUCCESS;
     } else {
       return LogicalChangeResult.FAILURE;
@@ -506,7 +548,7 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
     final CDSMValue valueInMap = getValueForKey(key);
     if (valueInMap != null && value.equals(valueInMap.getObjectID())) {
       references.remove(key);
-      removedReferences(applyInfo, value);
+      removedReference(applyInfo, value);
       applyInfo.getMutationEventPublisher().publishEvent(getRegisteredClients(ServerEventType.EXPIRE),
                                                          ServerEventType.EXPIRE, key, NULL_CDSM_VALUE, cacheName);
       return LogicalChangeResult.SUCCESS;
@@ -525,14 +567,19 @@ public class ConcurrentDistributedServerMapManagedObjectState extends PartialMap
 
       applyInfo.getMutationEventPublisher().publishEvent(getRegisteredClients(ServerEventType.REMOVE),
                                                          ServerEventType.REMOVE, key, NULL_CDSM_VALUE, cacheName);
-      applyInfo.getMutationEventPublisher().publishEvent(getRegisteredClients(ServerEventType.REMOVE_LOCAL),
-                                                         ServerEventType.REMOVE_LOCAL,
-                                                         key,
-          new CDSMValue(ObjectID.NULL_ID, 0, 0, 0, 0, oldValue.getVersion() + 1), cacheName);
+      publishRemoveLocal(applyInfo, key, oldValue);
     }
     return old;
   }
 
+  private void publishRemoveLocal(final ApplyTransactionInfo applyInfo, final Object key, final CDSMValue removed) {
+    final Set<ClientID> clients = getRegisteredClients(ServerEventType.REMOVE_LOCAL);
+    if (clients.isEmpty()) { return; }
+    applyInfo.getMutationEventPublisher().publishEvent(clients, ServerEventType.REMOVE_LOCAL, key,
+                                                       new CDSMValue(ObjectID.NULL_ID, 0, 0, 0, 0,
+                                                                     removed.getVersion() + 1), cacheName);
+  }
+
   private Object applyRemoveVersioned(final ApplyTransactionInfo applyInfo, final Object[] params) {
     final Object key = params[0];
     final long version = (Long) params[1]; // ignoring for the time being
@@ -130,8 +130,10 @@ public class MapManagedObjectState extends LogicalManagedObjectState implements
     Object old = references.get(key);
     references.put(key, value);
 
-    addedReferences(applyInfo, key, value);
-    removedReferences(applyInfo, old);
+    // one call per reference, the varargs variants allocate an array for every apply
+    addedReference(applyInfo, key);
+    addedReference(applyInfo, value);
+    removedReference(applyInfo, old);
 
     return old;
   }
@@ -140,7 +142,8 @@ public class MapManagedObjectState extends LogicalManagedObjectState implements
     Object key = params[0];
     Object old = get(key);
     references.remove(key);
-    removedReferences(applyInfo, key, old);
+    removedReference(applyInfo, key);
+    removedReference(applyInfo, old);
     return old;
   }
 
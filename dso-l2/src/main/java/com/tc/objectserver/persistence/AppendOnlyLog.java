@@ -0,0 +1,612 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.persistence;
+
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
+import com.tc.util.concurrent.NamedThreadFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * Append only log kept in memory mapped segment files. Each record is <tt>[length][crc][txn id][type][payload]</tt>,
+ * records of a transaction only count once its commit record made it to disk. A torn or partially written tail is
+ * detected by the crc and cut off on recovery, together with every segment after it.
+ * <p>
+ * Records are encoded and checksummed by the appending thread, only the copy into the mapped segment is serialized.
+ * {@link #force()} runs outside of that, and callers that arrive while a force is in progress are covered by the next
+ * one instead of each forcing on their own.
+ */
+class AppendOnlyLog {
+  private static final TCLogger logger             = TCLogging.getLogger(AppendOnlyLog.class);
+
+  static final byte             COMMIT             = 0;
+  private static final byte     END                = -1;
+
+  private static final String   SEGMENT_PREFIX     = "segment-";
+  private static final String   SEGMENT_SUFFIX     = ".log";
+  private static final String   COMPACTING_SUFFIX  = ".tmp";
+  private static final int      HEADER_SIZE        = 8;
+  private static final int      BODY_HEADER        = 9;
+  // room always left in a segment for the record that marks its end
+  private static final int      END_RESERVE        = HEADER_SIZE + BODY_HEADER;
+
+  interface RecordHandler {
+    void record(long txnID, byte type, ByteBuffer payload) throws IOException;
+  }
+
+  private final File            directory;
+  private final int             segmentSize;
+  // guards the segment list, the current segment and the append count
+  private final Object          appendLock         = new Object();
+  private final Object          forceLock          = new Object();
+  private final List<Segment>   segments           = new ArrayList<Segment>();
+  private final Set<Segment>    unforced           = new HashSet<Segment>();
+  private Segment               current;
+  private long                  appended;
+  private volatile long         forced;
+  private long                  maxTxnID;
+
+  AppendOnlyLog(File directory, int segmentSize) throws IOException {
+    if (!directory.isDirectory() && !directory.mkdirs()) { throw new IOException("Can not create " + directory); }
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+  }
+
+  /**
+   * Replays committed records in log order, then gets the log ready for appending right after the last good record.
+   * Segments are checked on the given number of threads.
+   */
+  void recover(RecordHandler handler, int threads) throws IOException {
+    synchronized (appendLock) {
+      deleteUnfinishedCompactions();
+      for (File file : segmentFiles()) {
+        segments.add(Segment.open(file));
+      }
+
+      // first pass finds where the log ends and which transactions committed
+      List<Boolean> ended = scan(threads);
+      int good = 0;
+      for (boolean segmentEnded : ended) {
+        good++;
+        if (!segmentEnded) {
+          break;
+        }
+      }
+      for (Iterator<Segment> i = segments.listIterator(good); i.hasNext();) {
+        Segment torn = i.next();
+        logger.warn("Discarding log segment " + torn.file + " found after a torn write");
+        i.remove();
+        torn.delete();
+      }
+
+      TransactionSet committed = new TransactionSet();
+      for (Segment segment : segments) {
+        segment.addCommitsTo(committed);
+      }
+      committed.seal();
+      for (Segment segment : segments) {
+        segment.replay(committed, handler);
+        maxTxnID = Math.max(maxTxnID, segment.maxTxnID);
+      }
+
+      if (segments.isEmpty()) {
+        roll(0);
+      } else {
+        current = segments.get(segments.size() - 1);
+        // whatever follows the last good record must not be read as records on the next recovery
+        current.zeroTail();
+        unforced.add(current);
+      }
+    }
+  }
+
+  private List<Boolean> scan(int threads) throws IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(threads, new NamedThreadFactory("Log Segment Scanner"));
+    try {
+      List<Future<Boolean>> scans = new ArrayList<Future<Boolean>>();
+      for (final Segment segment : segments) {
+        scans.add(executor.submit(new Callable<Boolean>() {
+          @Override
+          public Boolean call() {
+            return segment.scan();
+          }
+        }));
+      }
+      List<Boolean> ended = new ArrayList<Boolean>();
+      for (Future<Boolean> scan : scans) {
+        boolean segmentEnded = scan.get();
+        ended.add(segmentEnded);
+        if (!segmentEnded) {
+          break;
+        }
+      }
+      return ended;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      throw new IOException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * @return the highest transaction id seen on recovery
+   */
+  long getMaxTxnID() {
+    synchronized (appendLock) {
+      return maxTxnID;
+    }
+  }
+
+  void append(long txnID, byte type, byte[] payload) throws IOException {
+    ByteBuffer record = encode(txnID, type, payload);
+    synchronized (appendLock) {
+      if (current.remaining() < record.remaining() + END_RESERVE) {
+        roll(record.remaining());
+      }
+      current.buffer.put(record);
+      unforced.add(current);
+      appended++;
+    }
+  }
+
+  /**
+   * Durability barrier, everything appended so far is on disk once this returns.
+   */
+  void force() {
+    long target;
+    synchronized (appendLock) {
+      target = appended;
+    }
+    if (forced >= target) { return; }
+    synchronized (forceLock) {
+      // whoever forced while this thread waited may already have covered its appends
+      if (forced >= target) { return; }
+      Segment[] toForce;
+      long upTo;
+      synchronized (appendLock) {
+        toForce = unforced.toArray(new Segment[unforced.size()]);
+        unforced.clear();
+        upTo = appended;
+      }
+      for (Segment segment : toForce) {
+        segment.buffer.force();
+      }
+      forced = upTo;
+    }
+  }
+
+  /**
+   * Starts a new segment and returns a mark for {@link #deleteBefore(long)} and {@link #compact(long)}. The segment id
+   * right before the mark is left free for the compacted copy of the segments before it.
+   */
+  long roll() throws IOException {
+    synchronized (appendLock) {
+      roll(0);
+      return current.id;
+    }
+  }
+
+  /**
+   * Deletes the segments started before the given mark, their records having been rewritten after it.
+   */
+  void deleteBefore(long mark) {
+    synchronized (appendLock) {
+      for (Iterator<Segment> i = segments.iterator(); i.hasNext();) {
+        Segment segment = i.next();
+        if (segment.id < mark) {
+          i.remove();
+          unforced.remove(segment);
+          segment.delete();
+        }
+      }
+    }
+  }
+
+  /**
+   * Hands every record of the segments before the mark to the handler in log order, commit records and records of
+   * transactions that never committed included. Nothing is appended to these segments any more, so this runs without
+   * holding up appenders.
+   */
+  void readBefore(long mark, RecordHandler handler) throws IOException {
+    List<Segment> before = new ArrayList<Segment>();
+    synchronized (appendLock) {
+      for (Segment segment : segments) {
+        if (segment.id < mark) {
+          before.add(segment);
+        }
+      }
+    }
+    for (Segment segment : before) {
+      segment.read(handler, segment.buffer.limit());
+    }
+  }
+
+  /**
+   * Starts writing the replacement for the segments before the mark. Once {@link Compaction#install() installed} it
+   * takes their place, and it is ignored by recovery until then.
+   */
+  Compaction compact(long mark) throws IOException {
+    return new Compaction(mark);
+  }
+
+  long size() {
+    synchronized (appendLock) {
+      long size = 0;
+      for (Segment segment : segments) {
+        size += segment.buffer.position();
+      }
+      return size;
+    }
+  }
+
+  void close() {
+    force();
+    synchronized (appendLock) {
+      segments.clear();
+      unforced.clear();
+      current = null;
+    }
+  }
+
+  private void roll(int needed) throws IOException {
+    long id = 0;
+    if (current != null) {
+      // one id is skipped so that a compaction can slot its segment in right before this one
+      id = current.id + 2;
+      current.buffer.put(encode(0, END, new byte[0]));
+      unforced.add(current);
+    }
+    current = Segment.create(segmentFile(id), id, Math.max(segmentSize, needed + END_RESERVE));
+    segments.add(current);
+    unforced.add(current);
+  }
+
+  private static ByteBuffer encode(long txnID, byte type, byte[] payload) {
+    int length = BODY_HEADER + payload.length;
+    ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + length);
+    record.putInt(length).putInt(0).putLong(txnID).put(type).put(payload);
+    CRC32 crc = new CRC32();
+    crc.update(record.array(), HEADER_SIZE, length);
+    record.putInt(4, (int) crc.getValue());
+    record.flip();
+    return record;
+  }
+
+  private File segmentFile(long id) {
+    return new File(directory, String.format("%s%016d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+  }
+
+  private File[] segmentFiles() {
+    File[] files = directory.listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+      }
+    });
+    if (files == null) { return new File[0]; }
+    // zero padded ids sort by name
+    Arrays.sort(files);
+    return files;
+  }
+
+  private void deleteUnfinishedCompactions() {
+    File[] files = directory.listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX + COMPACTING_SUFFIX);
+      }
+    });
+    if (files == null) { return; }
+    for (File file : files) {
+      if (!file.delete()) {
+        logger.warn("Could not delete unfinished compaction " + file);
+      }
+    }
+  }
+
+  /**
+   * Replacement for the segments before a mark, written with plain file io since its size is not known up front.
+   */
+  final class Compaction {
+    private final long             mark;
+    private final File             file;
+    private final FileOutputStream fileOut;
+    private final DataOutputStream out;
+
+    private Compaction(long mark) throws IOException {
+      this.mark = mark;
+      File target = segmentFile(mark - 1);
+      this.file = new File(target.getPath() + COMPACTING_SUFFIX);
+      this.fileOut = new FileOutputStream(file);
+      this.out = new DataOutputStream(new BufferedOutputStream(fileOut, 64 * 1024));
+    }
+
+    void append(long txnID, byte type, ByteBuffer payload) throws IOException {
+      byte[] bytes = new byte[payload.remaining()];
+      payload.duplicate().get(bytes);
+      ByteBuffer record = encode(txnID, type, bytes);
+      out.write(record.array(), 0, record.limit());
+    }
+
+    /**
+     * Syncs the compacted segment, moves it in place and deletes the segments it replaces.
+     */
+    void install() throws IOException {
+      ByteBuffer end = encode(0, END, new byte[0]);
+      out.write(end.array(), 0, end.limit());
+      out.flush();
+      fileOut.getFD().sync();
+      out.close();
+      File target = segmentFile(mark - 1);
+      if (!file.renameTo(target)) { throw new IOException("Can not rename " + file + " to " + target); }
+      Segment compacted = Segment.open(target);
+      compacted.buffer.position(compacted.buffer.limit());
+      synchronized (appendLock) {
+        int index = 0;
+        while (index < segments.size() && segments.get(index).id < mark - 1) {
+          index++;
+        }
+        segments.add(index, compacted);
+      }
+      // a crash before the old segments are gone replays them and then this copy of their live records
+      deleteBefore(mark - 1);
+    }
+
+    void abandon() {
+      try {
+        out.close();
+      } catch (IOException e) {
+        logger.warn("Error closing " + file, e);
+      }
+      if (!file.delete()) {
+        logger.warn("Could not delete abandoned compaction " + file);
+      }
+    }
+  }
+
+  /**
+   * Ids of committed transactions. Ids are handed out in sequence, so those still in the log after the last compaction
+   * sit in a narrow range and are kept as bits from the lowest one instead of as boxed longs.
+   */
+  static final class TransactionSet {
+    private long[] ids   = new long[64];
+    private int    count;
+    private long   base;
+    private BitSet bits;
+
+    void add(long txnID) {
+      if (count == ids.length) {
+        ids = Arrays.copyOf(ids, count * 2);
+      }
+      ids[count++] = txnID;
+    }
+
+    void seal() throws IOException {
+      long min = Long.MAX_VALUE;
+      long max = Long.MIN_VALUE;
+      for (int i = 0; i < count; i++) {
+        min = Math.min(min, ids[i]);
+        max = Math.max(max, ids[i]);
+      }
+      bits = new BitSet();
+      if (count > 0) {
+        if (max - min >= Integer.MAX_VALUE) { throw new IOException("Committed transaction ids span too wide a range"); }
+        base = min;
+        for (int i = 0; i < count; i++) {
+          bits.set((int) (ids[i] - base));
+        }
+      }
+      ids = null;
+    }
+
+    boolean contains(long txnID) {
+      long offset = txnID - base;
+      return offset >= 0 && offset < Integer.MAX_VALUE && bits.get((int) offset);
+    }
+  }
+
+  private static class Segment {
+    private final File             file;
+    private final long             id;
+    private final MappedByteBuffer buffer;
+    private long                   maxTxnID;
+    private long[]                 commits     = new long[16];
+    private int                    commitCount;
+
+    private Segment(File file, long id, MappedByteBuffer buffer) {
+      this.file = file;
+      this.id = id;
+      this.buffer = buffer;
+    }
+
+    static Segment create(File file, long id, int size) throws IOException {
+      RandomAccessFile raf = new RandomAccessFile(file, "rw");
+      try {
+        raf.setLength(size);
+        return new Segment(file, id, raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size));
+      } finally {
+        raf.close();
+      }
+    }
+
+    static Segment open(File file) throws IOException {
+      String name = file.getName();
+      long id = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+      RandomAccessFile raf = new RandomAccessFile(file, "rw");
+      try {
+        return new Segment(file, id, raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length()));
+      } finally {
+        raf.close();
+      }
+    }
+
+    int remaining() {
+      return buffer.remaining();
+    }
+
+    /**
+     * Leaves the position after the last good record and remembers the transactions committed in this segment.
+     *
+     * @return true if the segment was closed by an end record, false if it ends in a torn or unwritten record
+     */
+    boolean scan() {
+      buffer.position(0);
+      CRC32 crc = new CRC32();
+      byte[] scratch = new byte[1024];
+      while (true) {
+        int length = nextLength();
+        if (length > scratch.length) {
+          scratch = new byte[length];
+        }
+        ByteBuffer body = next(crc, scratch);
+        if (body == null) { return false; }
+        long txnID = body.getLong();
+        byte type = body.get();
+        if (type == END) {
+          buffer.position(buffer.position() - HEADER_SIZE - BODY_HEADER);
+          return true;
+        }
+        if (type == COMMIT) {
+          if (commitCount == commits.length) {
+            commits = Arrays.copyOf(commits, commitCount * 2);
+          }
+          commits[commitCount++] = txnID;
+        }
+      }
+    }
+
+    void addCommitsTo(TransactionSet committed) {
+      for (int i = 0; i < commitCount; i++) {
+        committed.add(commits[i]);
+      }
+      commits = null;
+    }
+
+    /**
+     * Hands out the committed records, as slices of the mapped segment rather than copies.
+     */
+    void replay(final TransactionSet committed, final RecordHandler handler) throws IOException {
+      // the scan left the position after the last good record, a torn one may follow
+      read(new RecordHandler() {
+        @Override
+        public void record(long txnID, byte type, ByteBuffer payload) throws IOException {
+          maxTxnID = Math.max(maxTxnID, txnID);
+          if (type != COMMIT && (txnID == 0 || committed.contains(txnID))) {
+            handler.record(txnID, type, payload);
+          }
+        }
+      }, buffer.position());
+    }
+
+    /**
+     * Reads the records before the given offset up to the end record or the first empty slot, the segment is known to
+     * be good up to there.
+     */
+    void read(RecordHandler handler, int end) throws IOException {
+      ByteBuffer records = buffer.duplicate();
+      records.position(0).limit(end);
+      while (records.remaining() >= HEADER_SIZE) {
+        int length = records.getInt();
+        if (length < BODY_HEADER || length > records.remaining() - 4) { return; }
+        records.getInt();
+        ByteBuffer body = records.slice();
+        body.limit(length);
+        records.position(records.position() + length);
+        long txnID = body.getLong();
+        byte type = body.get();
+        if (type == END) { return; }
+        handler.record(txnID, type, body.slice());
+      }
+    }
+
+    void zeroTail() {
+      ByteBuffer tail = buffer.duplicate();
+      byte[] zeros = new byte[8192];
+      while (tail.hasRemaining()) {
+        tail.put(zeros, 0, Math.min(zeros.length, tail.remaining()));
+      }
+    }
+
+    void delete() {
+      if (!file.delete()) {
+        logger.warn("Could not delete log segment " + file);
+      }
+    }
+
+    /**
+     * @return length of the next record if it fits in the segment, 0 otherwise
+     */
+    private int nextLength() {
+      if (buffer.remaining() < HEADER_SIZE) { return 0; }
+      int length = buffer.getInt(buffer.position());
+      return length > 0 && length <= buffer.remaining() - HEADER_SIZE ? length : 0;
+    }
+
+    private ByteBuffer next(CRC32 crc, byte[] scratch) {
+      int start = buffer.position();
+      if (buffer.remaining() < HEADER_SIZE) { return null; }
+      int length = buffer.getInt();
+      int checksum = buffer.getInt();
+      if (length < BODY_HEADER || length > buffer.remaining()) {
+        buffer.position(start);
+        return null;
+      }
+      ByteBuffer body = buffer.slice();
+      body.limit(length);
+      body.duplicate().get(scratch, 0, length);
+      crc.reset();
+      crc.update(scratch, 0, length);
+      if ((int) crc.getValue() != checksum) {
+        buffer.position(start);
+        return null;
+      }
+      buffer.position(buffer.position() + length);
+      return body;
+    }
+
+    @Override
+    public String toString() {
+      return "Segment[" + file + "]";
+    }
+  }
+}
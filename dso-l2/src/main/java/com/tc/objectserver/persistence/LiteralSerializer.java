@@ -367,6 +367,10 @@ public class LiteralSerializer extends Serializer<Object> {
   }
 
 
+  boolean handles(final Object o) {
+    return o != null && classToType.containsKey(o.getClass());
+  }
+
   @Override
   public Object recover(final ByteBuffer buffer) {
     return Type.values()[buffer.duplicate().get()].deserialize(buffer);
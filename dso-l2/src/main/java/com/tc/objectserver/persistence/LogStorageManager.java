@@ -0,0 +1,900 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.persistence;
+
+import org.terracotta.corestorage.KeyValueStorage;
+import org.terracotta.corestorage.KeyValueStorageConfig;
+import org.terracotta.corestorage.StorageManager;
+import org.terracotta.corestorage.monitoring.MonitoredResource;
+
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
+import com.tc.util.concurrent.NamedThreadFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Restartable {@link StorageManager}. Live data is served by the wrapped heap or offheap storage manager, every mutation
+ * is also appended to an {@link AppendOnlyLog} and forced to disk when the outermost transaction commits. On start the
+ * log is replayed into the wrapped storages, which also rebuilds whatever their mutation listeners maintain.
+ * <p>
+ * The log is compacted in the background once it grows well past the live data: a new segment is started and writers
+ * carry on in it, while the live records of the segments before it are copied into a compacted segment that then
+ * replaces them.
+ */
+class LogStorageManager implements StorageManager {
+  private static final TCLogger logger          = TCLogging.getLogger(LogStorageManager.class);
+
+  private static final byte     DEFINE          = 1;
+  private static final byte     PUT             = 2;
+  private static final byte     REMOVE          = 3;
+  private static final byte     CLEAR           = 4;
+  private static final byte     DESTROY         = 5;
+
+  private static final String   LOG_DIRECTORY   = "log";
+  private static final String   PROPERTIES_FILE = "storage.properties";
+  private static final int      LOCK_STRIPES    = 64;
+
+  private final StorageManager                                     delegate;
+  private final LogStructuredStorageManagerFactory                 factory;
+  private final AppendOnlyLog                                      log;
+  private final PersistentProperties                               properties;
+  private final long                                               minCompactionSize;
+  private final int                                                compactionRatio;
+  private final int                                                recoveryThreads;
+  private final ExecutorService                                    compactor;
+
+  private final ConcurrentMap<String, Definition>                  definitions    = new ConcurrentHashMap<String, Definition>();
+  private final ConcurrentMap<String, LoggedKeyValueStorage<?, ?>> storages       = new ConcurrentHashMap<String, LoggedKeyValueStorage<?, ?>>();
+  private final ReentrantLock[]                                    stripes        = new ReentrantLock[LOCK_STRIPES];
+  private final AtomicLong                                         txnIDs         = new AtomicLong();
+  private final AtomicBoolean                                      compacting     = new AtomicBoolean();
+  private volatile long                                            checkpointSize;
+  // transactions up to this id belong to earlier runs, those that did not commit then never will
+  private volatile long                                            recoveredTxnID;
+
+  private final ThreadLocal<Transaction> transaction = new ThreadLocal<Transaction>() {
+    @Override
+    protected Transaction initialValue() {
+      return new Transaction();
+    }
+  };
+
+  LogStorageManager(StorageManager delegate, LogStructuredStorageManagerFactory factory, File directory,
+                    int segmentSize, long minCompactionSize, int compactionRatio, int recoveryThreads)
+      throws IOException {
+    this.delegate = delegate;
+    this.factory = factory;
+    this.log = new AppendOnlyLog(new File(directory, LOG_DIRECTORY), segmentSize);
+    // the cluster state is read before the storage manager is started
+    this.properties = new PersistentProperties(new File(directory, PROPERTIES_FILE));
+    this.minCompactionSize = minCompactionSize;
+    this.compactionRatio = compactionRatio;
+    this.recoveryThreads = recoveryThreads;
+    for (int i = 0; i < stripes.length; i++) {
+      stripes[i] = new ReentrantLock();
+    }
+    this.compactor = Executors.newSingleThreadExecutor(new NamedThreadFactory("L2 Log Compactor"));
+  }
+
+  @Override
+  public Map<String, String> getProperties() {
+    return properties;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <K, V> KeyValueStorage<K, V> getKeyValueStorage(String alias, Class<K> keyClass, Class<V> valueClass) {
+    LoggedKeyValueStorage<K, V> storage = (LoggedKeyValueStorage<K, V>) storages.get(alias);
+    if (storage != null) { return storage; }
+    KeyValueStorage<K, V> inner = delegate.getKeyValueStorage(alias, keyClass, valueClass);
+    if (inner == null) { return null; }
+    return register(alias, inner, keyClass, valueClass, false, -1);
+  }
+
+  @Override
+  public <K, V> KeyValueStorage<K, V> createKeyValueStorage(String alias, KeyValueStorageConfig<K, V> config) {
+    KeyValueStorage<K, V> inner = delegate.createKeyValueStorage(alias, config);
+    return register(alias, inner, config.getKeyType(), config.getValueType(), true, factory.getMapConfigIndex(config));
+  }
+
+  @Override
+  public void destroyKeyValueStorage(String alias) {
+    // under every stripe, so no record of the storage can be logged after its destroy record
+    lockAllStripes();
+    try {
+      delegate.destroyKeyValueStorage(alias);
+      storages.remove(alias);
+      definitions.remove(alias);
+      append(DESTROY, alias, null, null, (byte) 0);
+    } finally {
+      unlockAllStripes();
+    }
+    afterWrite();
+  }
+
+  @SuppressWarnings("unchecked")
+  private synchronized <K, V> KeyValueStorage<K, V> register(String alias, KeyValueStorage<K, V> inner,
+                                                             Class<K> keyClass, Class<V> valueClass,
+                                                             boolean created, int configIndex) {
+    LoggedKeyValueStorage<K, V> storage = (LoggedKeyValueStorage<K, V>) storages.get(alias);
+    if (storage != null) { return storage; }
+    storage = new LoggedKeyValueStorage<K, V>(alias, inner);
+    if (!definitions.containsKey(alias)) {
+      Definition definition = new Definition(keyClass, valueClass, created, configIndex);
+      append(DEFINE, alias, definition, null, (byte) 0);
+      definitions.put(alias, definition);
+      afterWrite();
+    }
+    storages.put(alias, storage);
+    return storage;
+  }
+
+  @Override
+  public void begin() {
+    Transaction txn = transaction.get();
+    if (txn.depth++ == 0) {
+      txn.id = txnIDs.incrementAndGet();
+    }
+    delegate.begin();
+  }
+
+  @Override
+  public void commit() {
+    Transaction txn = transaction.get();
+    if (--txn.depth == 0) {
+      try {
+        log.append(txn.id, AppendOnlyLog.COMMIT, new byte[0]);
+        log.force();
+      } catch (IOException e) {
+        throw new AssertionError(e);
+      } finally {
+        txn.id = 0;
+      }
+      delegate.commit();
+      maybeCompact();
+    } else {
+      delegate.commit();
+    }
+  }
+
+  @Override
+  public Future<?> start() {
+    long start = System.nanoTime();
+    final RecoveryLanes lanes = new RecoveryLanes(recoveryThreads);
+    try {
+      delegate.start().get();
+      log.recover(new AppendOnlyLog.RecordHandler() {
+        @Override
+        public void record(long txnID, byte type, ByteBuffer payload) throws IOException {
+          replay(type, payload, lanes);
+        }
+      }, recoveryThreads);
+      lanes.drain();
+    } catch (Exception e) {
+      throw new AssertionError(e);
+    } finally {
+      lanes.stop();
+    }
+    recoveredTxnID = log.getMaxTxnID();
+    txnIDs.set(recoveredTxnID);
+    checkpointSize = log.size();
+    logger.info("Recovered " + storages.size() + " storages from " + checkpointSize + " bytes of log in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    FutureTask<Void> started = new FutureTask<Void>(new Runnable() {
+      @Override
+      public void run() {
+        // nothing left to do
+      }
+    }, null);
+    started.run();
+    return started;
+  }
+
+  @Override
+  public void close() {
+    compactor.shutdown();
+    try {
+      compactor.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    log.close();
+    delegate.close();
+  }
+
+  long getLogSize() {
+    return log.size();
+  }
+
+  @Override
+  public Collection<MonitoredResource> getMonitoredResources() {
+    return delegate.getMonitoredResources();
+  }
+
+  @SuppressWarnings("unchecked")
+  private void replay(byte type, ByteBuffer payload, RecoveryLanes lanes) throws IOException {
+    // read straight from the mapped segment, values are only copied onto the heap when the lane decodes them
+    final DataInputStream in = new DataInputStream(new ByteBufferInputStream(payload));
+    String alias = in.readUTF();
+    if (type == PUT || type == REMOVE) {
+      final LoggedKeyValueStorage<Object, Object> storage = (LoggedKeyValueStorage<Object, Object>) storages.get(alias);
+      if (storage == null) { throw new IOException("Record of type " + type + " for undefined storage " + alias); }
+      final Object key = LogValueCodec.read(in);
+      if (type == PUT) {
+        // values are decoded on the lane, that is where most of the recovery time goes
+        lanes.execute(alias.hashCode() * 31 + key.hashCode(), new RecoveryTask() {
+          @Override
+          public void run() throws IOException {
+            Object value = LogValueCodec.read(in);
+            storage.recoverPut(key, value, in.readByte());
+          }
+        });
+      } else {
+        lanes.execute(alias.hashCode() * 31 + key.hashCode(), new RecoveryTask() {
+          @Override
+          public void run() {
+            storage.recoverRemove(key);
+          }
+        });
+      }
+      return;
+    }
+
+    // everything else affects a whole storage
+    lanes.drain();
+    if (type == DEFINE) {
+      Definition definition = Definition.read(in);
+      KeyValueStorage<Object, Object> inner = (KeyValueStorage<Object, Object>) delegate
+          .getKeyValueStorage(alias, definition.keyClass, definition.valueClass);
+      if (inner == null) {
+        KeyValueStorageConfig<Object, Object> config = definition.created ? (KeyValueStorageConfig<Object, Object>) factory
+            .getMapConfig(definition.configIndex) : null;
+        if (config == null) { throw new IOException("No configuration for storage " + alias); }
+        inner = delegate.createKeyValueStorage(alias, config);
+      }
+      definitions.put(alias, definition);
+      if (!storages.containsKey(alias)) {
+        storages.put(alias, new LoggedKeyValueStorage<Object, Object>(alias, inner));
+      }
+      return;
+    }
+    if (type == DESTROY) {
+      definitions.remove(alias);
+      storages.remove(alias);
+      delegate.destroyKeyValueStorage(alias);
+      return;
+    }
+    LoggedKeyValueStorage<Object, Object> storage = (LoggedKeyValueStorage<Object, Object>) storages.get(alias);
+    if (storage == null) { throw new IOException("Record of type " + type + " for undefined storage " + alias); }
+    if (type != CLEAR) { throw new IOException("Unknown record type " + type); }
+    storage.recoverClear();
+  }
+
+  private void append(byte type, String alias, Object key, Object value, byte metadata) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    try {
+      out.writeUTF(alias);
+      switch (type) {
+        case DEFINE:
+          ((Definition) key).write(out);
+          break;
+        case PUT:
+          LogValueCodec.write(key, out);
+          LogValueCodec.write(value, out);
+          out.writeByte(metadata);
+          break;
+        case REMOVE:
+          LogValueCodec.write(key, out);
+          break;
+        default:
+          break;
+      }
+      out.flush();
+      // storages are created and destroyed on the spot, whether or not the surrounding transaction commits
+      long txnID = type == DEFINE || type == DESTROY ? 0 : transaction.get().id;
+      log.append(txnID, type, bytes.toByteArray());
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * A write outside of a transaction is its own commit. Concurrent ones share a force of the log.
+   */
+  private void afterWrite() {
+    if (transaction.get().depth == 0) {
+      log.force();
+      maybeCompact();
+    }
+  }
+
+  private ReentrantLock stripeFor(String alias, Object key) {
+    int hash = alias.hashCode() * 31 + key.hashCode();
+    return stripes[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+  }
+
+  private void lockAllStripes() {
+    for (ReentrantLock stripe : stripes) {
+      stripe.lock();
+    }
+  }
+
+  private void unlockAllStripes() {
+    for (ReentrantLock stripe : stripes) {
+      stripe.unlock();
+    }
+  }
+
+  private void maybeCompact() {
+    long size = log.size();
+    if (size < Math.max(minCompactionSize, compactionRatio * checkpointSize)) { return; }
+    if (!compacting.compareAndSet(false, true)) { return; }
+    try {
+      compactor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            checkpoint();
+          } finally {
+            compacting.set(false);
+          }
+        }
+      });
+    } catch (RuntimeException e) {
+      // shutting down
+      compacting.set(false);
+    }
+  }
+
+  /**
+   * Copies the live records of the log into a compacted segment that replaces the segments it was copied from. Writers
+   * carry on in a fresh segment in the meantime, nothing is locked.
+   * <p>
+   * A record is live if it is the last committed one of its key. Records of transactions still open when the fresh
+   * segment was started are carried over unchanged, since their commit record comes after it.
+   */
+  void checkpoint() {
+    long before = log.size();
+    AppendOnlyLog.Compaction compaction = null;
+    try {
+      long mark = log.roll();
+      final AppendOnlyLog.TransactionSet committed = new AppendOnlyLog.TransactionSet();
+      log.readBefore(mark, new AppendOnlyLog.RecordHandler() {
+        @Override
+        public void record(long txnID, byte type, ByteBuffer payload) {
+          if (type == AppendOnlyLog.COMMIT) {
+            committed.add(txnID);
+          }
+        }
+      });
+      committed.seal();
+      LiveRecords live = new LiveRecords(committed, recoveredTxnID);
+      log.readBefore(mark, live);
+      if (live.openClear != null) {
+        logger.info("Skipping log compaction, storage " + live.openClear + " is being cleared by an open transaction");
+        checkpointSize = before;
+        return;
+      }
+      compaction = log.compact(mark);
+      live.writeTo(compaction);
+      compaction.install();
+      compaction = null;
+      checkpointSize = log.size();
+      logger.info("Compacted log from " + before + " to " + checkpointSize + " bytes");
+    } catch (IOException e) {
+      logger.warn("Log compaction failed, the log is left as is", e);
+    } finally {
+      if (compaction != null) {
+        compaction.abandon();
+      }
+    }
+  }
+
+  /**
+   * Live records of the segments before a compaction mark, kept as slices of the mapped segments.
+   */
+  private static final class LiveRecords implements AppendOnlyLog.RecordHandler {
+    private final AppendOnlyLog.TransactionSet committed;
+    private final long                         recoveredTxnID;
+    private final Map<String, LiveStorage>     storages = new LinkedHashMap<String, LiveStorage>();
+    private String                             openClear;
+
+    LiveRecords(AppendOnlyLog.TransactionSet committed, long recoveredTxnID) {
+      this.committed = committed;
+      this.recoveredTxnID = recoveredTxnID;
+    }
+
+    @Override
+    public void record(long txnID, byte type, ByteBuffer payload) throws IOException {
+      if (type == AppendOnlyLog.COMMIT) { return; }
+      boolean done = txnID == 0 || committed.contains(txnID);
+      // left over from a run that ended before the transaction committed
+      if (!done && txnID <= recoveredTxnID) { return; }
+
+      DataInputStream in = new DataInputStream(new ByteBufferInputStream(payload.duplicate()));
+      String alias = in.readUTF();
+      if (type == DEFINE) {
+        LiveStorage storage = storages.get(alias);
+        if (storage == null) {
+          storages.put(alias, new LiveStorage(payload));
+        } else {
+          storage.definition = payload;
+        }
+        return;
+      }
+      if (type == DESTROY) {
+        storages.remove(alias);
+        return;
+      }
+      LiveStorage storage = storages.get(alias);
+      if (storage == null) { throw new IOException("Record of type " + type + " for undefined storage " + alias); }
+      if (type == CLEAR) {
+        if (done) {
+          storage.keys.clear();
+        } else if (openClear == null) {
+          openClear = alias;
+        }
+        return;
+      }
+      Object key = LogValueCodec.read(in);
+      LiveKey live = storage.keys.get(key);
+      if (done) {
+        if (type == PUT) {
+          if (live == null) {
+            storage.keys.put(key, new LiveKey(payload));
+          } else {
+            live.put = payload;
+            live.open = null;
+          }
+        } else if (live != null) {
+          storage.keys.remove(key);
+        }
+      } else {
+        if (live == null) {
+          live = new LiveKey(null);
+          storage.keys.put(key, live);
+        }
+        live.addOpen(new OpenRecord(txnID, type, payload));
+      }
+    }
+
+    void writeTo(AppendOnlyLog.Compaction compaction) throws IOException {
+      for (LiveStorage storage : storages.values()) {
+        compaction.append(0, DEFINE, storage.definition);
+        for (LiveKey live : storage.keys.values()) {
+          if (live.put != null) {
+            compaction.append(0, PUT, live.put);
+          }
+          if (live.open != null) {
+            for (OpenRecord record : live.open) {
+              compaction.append(record.txnID, record.type, record.payload);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static final class LiveStorage {
+    private ByteBuffer                 definition;
+    private final Map<Object, LiveKey> keys = new HashMap<Object, LiveKey>();
+
+    LiveStorage(ByteBuffer definition) {
+      this.definition = definition;
+    }
+  }
+
+  private static final class LiveKey {
+    // last committed put, null if the key was only touched by open transactions since it was last removed
+    private ByteBuffer       put;
+    private List<OpenRecord> open;
+
+    LiveKey(ByteBuffer put) {
+      this.put = put;
+    }
+
+    void addOpen(OpenRecord record) {
+      if (open == null) {
+        open = new ArrayList<OpenRecord>(1);
+      }
+      open.add(record);
+    }
+  }
+
+  private static final class OpenRecord {
+    private final long       txnID;
+    private final byte       type;
+    private final ByteBuffer payload;
+
+    OpenRecord(long txnID, byte type, ByteBuffer payload) {
+      this.txnID = txnID;
+      this.type = type;
+      this.payload = payload;
+    }
+  }
+
+  private static final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) { return 0; }
+      if (!buffer.hasRemaining()) { return -1; }
+      int n = Math.min(len, buffer.remaining());
+      buffer.get(b, off, n);
+      return n;
+    }
+  }
+
+  private interface RecoveryTask {
+    void run() throws IOException;
+  }
+
+  /**
+   * Applies recovered records on a fixed set of threads. Records of a key always go to the same lane, so they are
+   * applied in log order.
+   */
+  private static final class RecoveryLanes {
+    private static final int                        QUEUE_SIZE = 1024;
+    private static final RecoveryTask               STOP       = new RecoveryTask() {
+      @Override
+      public void run() {
+        // marker only
+      }
+    };
+
+    private final List<BlockingQueue<RecoveryTask>> queues     = new ArrayList<BlockingQueue<RecoveryTask>>();
+    private final AtomicReference<Throwable>        failure    = new AtomicReference<Throwable>();
+
+    RecoveryLanes(int lanes) {
+      ThreadFactory threadFactory = new NamedThreadFactory("L2 Log Recovery");
+      for (int i = 0; i < lanes; i++) {
+        final BlockingQueue<RecoveryTask> queue = new ArrayBlockingQueue<RecoveryTask>(QUEUE_SIZE);
+        queues.add(queue);
+        threadFactory.newThread(new Runnable() {
+          @Override
+          public void run() {
+            while (true) {
+              RecoveryTask task;
+              try {
+                task = queue.take();
+              } catch (InterruptedException e) {
+                return;
+              }
+              if (task == STOP) { return; }
+              try {
+                task.run();
+              } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+              }
+            }
+          }
+        }).start();
+      }
+    }
+
+    void execute(int hash, RecoveryTask task) throws IOException {
+      put(queues.get(Math.abs(hash % queues.size())), task);
+    }
+
+    /**
+     * Waits for everything queued so far to be applied.
+     */
+    void drain() throws IOException {
+      final CountDownLatch drained = new CountDownLatch(queues.size());
+      for (BlockingQueue<RecoveryTask> queue : queues) {
+        put(queue, new RecoveryTask() {
+          @Override
+          public void run() {
+            drained.countDown();
+          }
+        });
+      }
+      try {
+        drained.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      }
+      Throwable t = failure.get();
+      if (t != null) { throw new IOException("Failed to apply recovered records", t); }
+    }
+
+    void stop() {
+      for (BlockingQueue<RecoveryTask> queue : queues) {
+        queue.clear();
+        queue.offer(STOP);
+      }
+    }
+
+    private void put(BlockingQueue<RecoveryTask> queue, RecoveryTask task) throws IOException {
+      try {
+        queue.put(task);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException(e);
+      }
+    }
+  }
+
+  private static final class Transaction {
+    private int  depth;
+    private long id;
+  }
+
+  private static final class Definition {
+    private final Class<?> keyClass;
+    private final Class<?> valueClass;
+    private final boolean  created;
+    // the config this storage was created with, see LogStructuredStorageManagerFactory#getMapConfig
+    private final int      configIndex;
+
+    Definition(Class<?> keyClass, Class<?> valueClass, boolean created, int configIndex) {
+      this.keyClass = keyClass;
+      this.valueClass = valueClass;
+      this.created = created;
+      this.configIndex = configIndex;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+      out.writeUTF(keyClass.getName());
+      out.writeUTF(valueClass.getName());
+      out.writeBoolean(created);
+      out.writeInt(configIndex);
+    }
+
+    static Definition read(DataInputStream in) throws IOException {
+      try {
+        Class<?> keyClass = Class.forName(in.readUTF());
+        Class<?> valueClass = Class.forName(in.readUTF());
+        return new Definition(keyClass, valueClass, in.readBoolean(), in.readInt());
+      } catch (ClassNotFoundException e) {
+        throw new IOException(e);
+      }
+    }
+  }
+
+  /**
+   * Logs every mutation made through it after applying it to the wrapped storage. Both happen under the key's lock
+   * stripe, so the log order of a key matches the order its updates were applied in.
+   */
+  private final class LoggedKeyValueStorage<K, V> implements KeyValueStorage<K, V> {
+    private final String                alias;
+    private final KeyValueStorage<K, V> inner;
+
+    LoggedKeyValueStorage(String alias, KeyValueStorage<K, V> inner) {
+      this.alias = alias;
+      this.inner = inner;
+    }
+
+    @Override
+    public Set<K> keySet() {
+      return inner.keySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+      return inner.values();
+    }
+
+    @Override
+    public long size() {
+      return inner.size();
+    }
+
+    @Override
+    public void put(K key, V value) {
+      put(key, value, (byte) 0);
+    }
+
+    @Override
+    public void put(K key, V value, byte meta) {
+      ReentrantLock stripe = stripeFor(alias, key);
+      stripe.lock();
+      try {
+        inner.put(key, value, meta);
+        append(PUT, alias, key, value, meta);
+      } finally {
+        stripe.unlock();
+      }
+      afterWrite();
+    }
+
+    @Override
+    public V get(K key) {
+      return inner.get(key);
+    }
+
+    @Override
+    public boolean remove(K key) {
+      boolean removed;
+      ReentrantLock stripe = stripeFor(alias, key);
+      stripe.lock();
+      try {
+        removed = inner.remove(key);
+        if (removed) {
+          append(REMOVE, alias, key, null, (byte) 0);
+        }
+      } finally {
+        stripe.unlock();
+      }
+      afterWrite();
+      return removed;
+    }
+
+    @Override
+    public void removeAll(Collection<K> keys) {
+      for (K key : keys) {
+        ReentrantLock stripe = stripeFor(alias, key);
+        stripe.lock();
+        try {
+          if (inner.remove(key)) {
+            append(REMOVE, alias, key, null, (byte) 0);
+          }
+        } finally {
+          stripe.unlock();
+        }
+      }
+      afterWrite();
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+      return inner.containsKey(key);
+    }
+
+    @Override
+    public void clear() {
+      lockAllStripes();
+      try {
+        inner.clear();
+        append(CLEAR, alias, null, null, (byte) 0);
+      } finally {
+        unlockAllStripes();
+      }
+      afterWrite();
+    }
+
+    void recoverPut(K key, V value, byte meta) {
+      inner.put(key, value, meta);
+    }
+
+    void recoverRemove(K key) {
+      inner.remove(key);
+    }
+
+    void recoverClear() {
+      inner.clear();
+    }
+  }
+
+  /**
+   * Properties of the storage manager, kept in their own small file that is rewritten in full on every change.
+   */
+  private static final class PersistentProperties extends AbstractMap<String, String> {
+    private final File                file;
+    private final Map<String, String> map = new ConcurrentHashMap<String, String>();
+
+    PersistentProperties(File file) throws IOException {
+      this.file = file;
+      if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+        throw new IOException("Can not create " + file.getParentFile());
+      }
+      if (file.exists()) {
+        Properties loaded = new Properties();
+        InputStream in = new FileInputStream(file);
+        try {
+          loaded.load(in);
+        } finally {
+          in.close();
+        }
+        for (String name : loaded.stringPropertyNames()) {
+          map.put(name, loaded.getProperty(name));
+        }
+      }
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+      return Collections.unmodifiableMap(map).entrySet();
+    }
+
+    @Override
+    public String get(Object key) {
+      return map.get(key);
+    }
+
+    @Override
+    public synchronized String put(String key, String value) {
+      String old = map.put(key, value);
+      store();
+      return old;
+    }
+
+    @Override
+    public synchronized String remove(Object key) {
+      String old = map.remove(key);
+      store();
+      return old;
+    }
+
+    private void store() {
+      Properties toStore = new Properties();
+      toStore.putAll(map);
+      File tmp = new File(file.getPath() + ".tmp");
+      try {
+        FileOutputStream out = new FileOutputStream(tmp);
+        try {
+          toStore.store(out, null);
+          out.getFD().sync();
+        } finally {
+          out.close();
+        }
+        if (!tmp.renameTo(file)) {
+          // renaming over an existing file is not atomic everywhere
+          if (!file.delete() || !tmp.renameTo(file)) { throw new IOException("Can not replace " + file); }
+        }
+      } catch (IOException e) {
+        throw new AssertionError(e);
+      }
+    }
+  }
+}
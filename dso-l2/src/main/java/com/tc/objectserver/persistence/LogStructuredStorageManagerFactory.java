@@ -0,0 +1,101 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.persistence;
+
+import org.terracotta.corestorage.ImmutableKeyValueStorageConfig;
+import org.terracotta.corestorage.KeyValueStorageConfig;
+import org.terracotta.corestorage.StorageManager;
+import org.terracotta.corestorage.TransformerLookup;
+
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Makes the storage managers of another factory restartable by logging their mutations to an append only log in the
+ * given directory.
+ */
+public class LogStructuredStorageManagerFactory implements StorageManagerFactory {
+  private final StorageManagerFactory          delegate;
+  private final File                           directory;
+  // every map config handed out, the storages created from them are recreated from the same one on recovery
+  private final List<KeyValueStorageConfig<?, ?>> mapConfigs = new CopyOnWriteArrayList<KeyValueStorageConfig<?, ?>>();
+
+  public LogStructuredStorageManagerFactory(final StorageManagerFactory delegate, final File directory) {
+    this.delegate = delegate;
+    this.directory = directory;
+  }
+
+  @Override
+  public StorageManager createStorageManager(final Map<String, KeyValueStorageConfig<?, ?>> configMap,
+                                             final TransformerLookup transformerLookup) throws IOException {
+    return new LogStorageManager(delegate.createStorageManager(configMap, transformerLookup), this, directory,
+                                 TCPropertiesImpl.getProperties().getInt(TCPropertiesConsts.L2_LOG_SEGMENT_SIZE),
+                                 TCPropertiesImpl.getProperties().getLong(TCPropertiesConsts.L2_LOG_COMPACTION_MIN_SIZE),
+                                 TCPropertiesImpl.getProperties().getInt(TCPropertiesConsts.L2_LOG_COMPACTION_RATIO),
+                                 TCPropertiesImpl.getProperties()
+                                     .getInt(TCPropertiesConsts.L2_OBJECTMANAGER_RECOVERY_THREADS));
+  }
+
+  /**
+   * Map configs are wrapped in the same order on every start, so the index of a config identifies it across restarts.
+   *
+   * @return index to look the config up by on recovery, -1 if it was not wrapped here
+   */
+  int getMapConfigIndex(final KeyValueStorageConfig<?, ?> config) {
+    for (int i = 0; i < mapConfigs.size(); i++) {
+      if (mapConfigs.get(i) == config) { return i; }
+    }
+    return -1;
+  }
+
+  /**
+   * @return config a storage was created with, null if the index is unknown
+   */
+  KeyValueStorageConfig<?, ?> getMapConfig(final int index) {
+    return index >= 0 && index < mapConfigs.size() ? mapConfigs.get(index) : null;
+  }
+
+  @Override
+  public <K, V> KeyValueStorageConfig<K, V> wrapObjectDBConfig(final KeyValueStorageConfig<K, V> baseConfig, Type nt) {
+    return delegate.wrapObjectDBConfig(baseConfig, nt);
+  }
+
+  @Override
+  public <K, V> KeyValueStorageConfig<K, V> wrapObjectDBConfig(final ImmutableKeyValueStorageConfig.Builder<K, V> builder, Type nt) {
+    return delegate.wrapObjectDBConfig(builder, nt);
+  }
+
+  @Override
+  public <K, V> KeyValueStorageConfig<K, V> wrapMapConfig(final KeyValueStorageConfig<K, V> baseConfig) {
+    KeyValueStorageConfig<K, V> config = delegate.wrapMapConfig(baseConfig);
+    mapConfigs.add(config);
+    return config;
+  }
+
+  @Override
+  public <K, V> KeyValueStorageConfig<K, V> wrapMapConfig(final ImmutableKeyValueStorageConfig.Builder<K, V> builder) {
+    KeyValueStorageConfig<K, V> config = delegate.wrapMapConfig(builder);
+    mapConfigs.add(config);
+    return config;
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.persistence;
+
+import com.tc.objectserver.gtx.GlobalTransactionDescriptor;
+import com.tc.objectserver.persistence.TransactionPersistorImpl.GlobalTransactionDescriptorSerializer;
+import com.tc.util.AbstractIdentifier;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes the keys and values kept in the L2 storages to the append only log, tagged with how to read them back.
+ */
+final class LogValueCodec {
+  private static final byte BYTES       = 0;
+  private static final byte LITERAL     = 1;
+  private static final byte IDENTIFIER  = 2;
+  private static final byte DESCRIPTOR  = 3;
+  private static final byte SERIALIZED  = 4;
+
+  private LogValueCodec() {
+    // static helpers only
+  }
+
+  static void write(final Object o, final DataOutput out) throws IOException {
+    if (o instanceof byte[]) {
+      out.writeByte(BYTES);
+      writeBytes((byte[]) o, out);
+    } else if (LiteralSerializer.INSTANCE.handles(o)) {
+      out.writeByte(LITERAL);
+      writeBuffer(LiteralSerializer.INSTANCE.transform(o), out);
+    } else if (o instanceof AbstractIdentifier) {
+      out.writeByte(IDENTIFIER);
+      out.writeUTF(o.getClass().getName());
+      out.writeLong(((AbstractIdentifier) o).toLong());
+    } else if (o instanceof GlobalTransactionDescriptor) {
+      out.writeByte(DESCRIPTOR);
+      writeBuffer(GlobalTransactionDescriptorSerializer.INSTANCE.transform((GlobalTransactionDescriptor) o), out);
+    } else {
+      out.writeByte(SERIALIZED);
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      ObjectOutputStream oos = new ObjectOutputStream(bytes);
+      try {
+        oos.writeObject(o);
+      } finally {
+        oos.close();
+      }
+      writeBytes(bytes.toByteArray(), out);
+    }
+  }
+
+  static Object read(final DataInput in) throws IOException {
+    byte tag = in.readByte();
+    switch (tag) {
+      case BYTES:
+        return readBytes(in);
+      case LITERAL:
+        return LiteralSerializer.INSTANCE.recover(ByteBuffer.wrap(readBytes(in)));
+      case IDENTIFIER:
+        String className = in.readUTF();
+        long id = in.readLong();
+        try {
+          return Class.forName(className).getConstructor(long.class).newInstance(id);
+        } catch (Exception e) {
+          throw new IOException("Can not recreate " + className + " " + id, e);
+        }
+      case DESCRIPTOR:
+        return GlobalTransactionDescriptorSerializer.INSTANCE.recover(ByteBuffer.wrap(readBytes(in)));
+      case SERIALIZED:
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(readBytes(in)));
+        try {
+          return ois.readObject();
+        } catch (ClassNotFoundException e) {
+          throw new IOException(e);
+        } finally {
+          ois.close();
+        }
+      default:
+        throw new IOException("Unknown value tag " + tag);
+    }
+  }
+
+  private static void writeBuffer(final ByteBuffer buffer, final DataOutput out) throws IOException {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.duplicate().get(bytes);
+    writeBytes(bytes, out);
+  }
+
+  private static void writeBytes(final byte[] bytes, final DataOutput out) throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static byte[] readBytes(final DataInput in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return bytes;
+  }
+}
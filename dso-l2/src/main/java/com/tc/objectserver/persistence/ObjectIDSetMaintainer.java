@@ -28,10 +28,27 @@ import com.tc.util.BitSetObjectIDSet;
 import com.tc.util.ExpandingBitSetObjectIDSet;
 import com.tc.util.ObjectIDSet;
 import com.tc.util.TCCollections;
+import com.tc.util.concurrent.NamedThreadFactory;
 
+import java.util.Arrays;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * Keeps track of which object ids are in the object DBs, split by reference type and evictability.
+ * <p>
+ * Storage mutations come in from every apply thread, so the sets are striped by blocks of 64 consecutive ids (one
+ * bitmap word in the set implementations) and each stripe has its own monitor. Snapshots copy one stripe at a time, so
+ * a writer only ever waits for the stripe it touches to be copied instead of for the whole snapshot.
+ * <p>
+ * While the object DBs are reloaded on restart, mutations are only recorded per stripe. The sets are then bulk built
+ * from the sorted ids on background threads, a stripe at a time, so the server does not wait for them to be built. If
+ * building a stripe fails, every later snapshot throws, as the sets are incomplete.
+ *
  * @author tim
  */
 public class ObjectIDSetMaintainer implements KeyValueStorageMutationListener<Long, byte[]> {
@@ -39,23 +56,147 @@ public class ObjectIDSetMaintainer implements KeyValueStorageMutationListener<Lo
     BITSET_BASED_SET, EXPANDING_BITSET_BASED_SET
   }
 
-  private static final TCLogger logger = TCLogging.getLogger(ObjectIDSetMaintainer.class);
+  private static final TCLogger   logger        = TCLogging.getLogger(ObjectIDSetMaintainer.class);
+
+  private static final int        STRIPE_SHIFT  = 6;
+  private static final int        STRIPE_COUNT  = 64;
 
-  private final ObjectIDSet evictableObjectIDSet = new BitSetObjectIDSet();
-  private final ObjectIDSet noReferencesObjectIDSet;
-  private final ObjectIDSet referencesObjectIDSet = new BitSetObjectIDSet();
+  // recorded mutations are the object id shifted left by the flag bits
+  private static final int        FLAG_BITS     = 3;
+  private static final long       REMOVED       = 1;
+  private static final long       EVICTABLE     = 2;
+  private static final long       NO_REFERENCES = 4;
+
+  private final Stripe[]          stripes       = new Stripe[STRIPE_COUNT];
+  private final Executor          rebuildExecutor;
+  private volatile CountDownLatch rebuilding;
+  private volatile Throwable      rebuildFailure;
 
   public ObjectIDSetMaintainer() {
-    noReferencesObjectIDSet = create(TCCollections.EMPTY_OBJECT_ID_SET);
+    this(newRebuildExecutor(TCPropertiesImpl.getProperties()
+        .getInt(TCPropertiesConsts.L2_OBJECTMANAGER_RECOVERY_THREADS)));
+  }
+
+  ObjectIDSetMaintainer(Executor rebuildExecutor) {
+    this.rebuildExecutor = rebuildExecutor;
+    for (int i = 0; i < STRIPE_COUNT; i++) {
+      stripes[i] = new Stripe();
+    }
     logger.info("Using ObjectIDSetType " + getObjectIDSetType());
   }
 
-  public synchronized ObjectIDSet objectIDSnapshot() {
-    ObjectIDSet oids = create(noReferencesObjectIDSet);
-    oids.addAll(referencesObjectIDSet);
+  /**
+   * Starts recording mutations instead of applying them, until {@link #finishRecovery()}.
+   */
+  public void startRecovery() {
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        stripe.recorded = new long[1024];
+        stripe.recordedCount = 0;
+      }
+    }
+  }
+
+  /**
+   * Builds the sets from the recorded mutations in the background. Snapshots wait for the build to complete, and throw
+   * if it failed.
+   */
+  public void finishRecovery() {
+    final CountDownLatch latch = new CountDownLatch(STRIPE_COUNT);
+    rebuildFailure = null;
+    rebuilding = latch;
+    final long start = System.nanoTime();
+    for (final Stripe stripe : stripes) {
+      rebuildExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            stripe.rebuild();
+          } catch (Throwable t) {
+            logger.error("Rebuilding object id sets failed", t);
+            rebuildFailure = t;
+          } finally {
+            latch.countDown();
+            if (latch.getCount() == 0 && rebuildFailure == null) {
+              logger.info("Rebuilt object id sets in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                          + " ms");
+            }
+          }
+        }
+      });
+    }
+  }
+
+  private void awaitRebuilt() {
+    CountDownLatch latch = rebuilding;
+    if (latch == null) { return; }
+    boolean interrupted = false;
+    while (true) {
+      try {
+        latch.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    Throwable failure = rebuildFailure;
+    if (failure != null) { throw new IllegalStateException("Object id sets could not be rebuilt", failure); }
+  }
+
+  private static Executor newRebuildExecutor(int threads) {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS,
+                                                         new LinkedBlockingQueue<Runnable>(),
+                                                         new NamedThreadFactory("ObjectID Set Rebuild"));
+    // threads only stay around while a rebuild is running
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  public ObjectIDSet objectIDSnapshot() {
+    awaitRebuilt();
+    ObjectIDSet oids = create(TCCollections.EMPTY_OBJECT_ID_SET);
+    for (Stripe stripe : stripes) {
+      long[] noReferences;
+      long[] references;
+      // only the bitmap words are copied under the stripe lock, they are merged into the snapshot outside of it
+      synchronized (stripe) {
+        noReferences = BitSetObjectIDSet.words(stripe.noReferencesObjectIDSet);
+        references = BitSetObjectIDSet.words(stripe.referencesObjectIDSet);
+      }
+      addAllWords(oids, noReferences);
+      addAllWords(oids, references);
+    }
     return oids;
   }
 
+  private static void addAllWords(ObjectIDSet set, long[] words) {
+    if (set instanceof ExpandingBitSetObjectIDSet) {
+      ((ExpandingBitSetObjectIDSet) set).addAllWords(words);
+    } else {
+      ((BitSetObjectIDSet) set).addAllWords(words);
+    }
+  }
+
+  // the storage callbacks come with raw ids, these avoid creating an ObjectID per mutation
+  private static void add(ObjectIDSet set, long id) {
+    if (set instanceof ExpandingBitSetObjectIDSet) {
+      ((ExpandingBitSetObjectIDSet) set).add(id);
+    } else {
+      ((BitSetObjectIDSet) set).add(id);
+    }
+  }
+
+  private static boolean remove(ObjectIDSet set, long id) {
+    if (set instanceof ExpandingBitSetObjectIDSet) {
+      return ((ExpandingBitSetObjectIDSet) set).remove(id);
+    } else {
+      return ((BitSetObjectIDSet) set).remove(id);
+    }
+  }
+
   private static ObjectIDSetType getObjectIDSetType() {
     String type = TCPropertiesImpl.getProperties().getProperty(TCPropertiesConsts.L2_OBJECTMANAGER_OIDSET_TYPE, true);
     if (type == null) {
@@ -75,33 +216,139 @@ public class ObjectIDSetMaintainer implements KeyValueStorageMutationListener<Lo
     throw new UnsupportedOperationException("Unsupported ObjectIDSet type " + getObjectIDSetType());
   }
 
-  public synchronized ObjectIDSet evictableObjectIDSetSnapshot() {
-    return new BitSetObjectIDSet(evictableObjectIDSet);
+  public ObjectIDSet evictableObjectIDSetSnapshot() {
+    awaitRebuilt();
+    BitSetObjectIDSet oids = new BitSetObjectIDSet();
+    for (Stripe stripe : stripes) {
+      long[] evictable;
+      synchronized (stripe) {
+        evictable = BitSetObjectIDSet.words(stripe.evictableObjectIDSet);
+      }
+      oids.addAllWords(evictable);
+    }
+    return oids;
   }
 
-  public synchronized boolean hasNoReferences(ObjectID id) {
-    return noReferencesObjectIDSet.contains(id);
+  public boolean hasNoReferences(ObjectID id) {
+    Stripe stripe = stripeFor(id.toLong());
+    synchronized (stripe) {
+      // not known yet while rebuilding, callers then just look the references up
+      return stripe.recorded == null && stripe.noReferencesObjectIDSet.contains(id);
+    }
   }
 
   @Override
-  public synchronized void added(Retriever<? extends Long> key, Retriever<? extends byte[]> value, byte metadata) {
-    ObjectID k = new ObjectID(key.retrieve());
-    if (PersistentCollectionsUtil.isEvictableMapType(metadata)) {
-      evictableObjectIDSet.add(k);
-    }
-    if (PersistentCollectionsUtil.isNoReferenceObjectType(metadata)) {
-      noReferencesObjectIDSet.add(k);
-    } else {
-      referencesObjectIDSet.add(k);
+  public void added(Retriever<? extends Long> key, Retriever<? extends byte[]> value, byte metadata) {
+    long id = key.retrieve();
+    boolean evictable = PersistentCollectionsUtil.isEvictableMapType(metadata);
+    boolean noReferences = PersistentCollectionsUtil.isNoReferenceObjectType(metadata);
+    Stripe stripe = stripeFor(id);
+    synchronized (stripe) {
+      if (stripe.recorded != null) {
+        stripe.record((id << FLAG_BITS) | (evictable ? EVICTABLE : 0) | (noReferences ? NO_REFERENCES : 0));
+        return;
+      }
+      if (evictable) {
+        stripe.evictableObjectIDSet.add(id);
+      }
+      if (noReferences) {
+        add(stripe.noReferencesObjectIDSet, id);
+      } else {
+        stripe.referencesObjectIDSet.add(id);
+      }
     }
   }
 
   @Override
-  public synchronized void removed(Retriever<? extends Long> key) {
-    ObjectID oid = new ObjectID(key.retrieve());
-    evictableObjectIDSet.remove(oid);
-    if (!noReferencesObjectIDSet.remove(oid)) {
-      referencesObjectIDSet.remove(oid);
+  public void removed(Retriever<? extends Long> key) {
+    long id = key.retrieve();
+    Stripe stripe = stripeFor(id);
+    synchronized (stripe) {
+      if (stripe.recorded != null) {
+        stripe.record((id << FLAG_BITS) | REMOVED);
+        return;
+      }
+      stripe.evictableObjectIDSet.remove(id);
+      if (!remove(stripe.noReferencesObjectIDSet, id)) {
+        stripe.referencesObjectIDSet.remove(id);
+      }
+    }
+  }
+
+  private Stripe stripeFor(long id) {
+    return stripes[(int) ((id >>> STRIPE_SHIFT) & (STRIPE_COUNT - 1))];
+  }
+
+  private static final class Stripe {
+    private final BitSetObjectIDSet evictableObjectIDSet    = new BitSetObjectIDSet();
+    private final ObjectIDSet       noReferencesObjectIDSet = create(TCCollections.EMPTY_OBJECT_ID_SET);
+    private final BitSetObjectIDSet referencesObjectIDSet   = new BitSetObjectIDSet();
+    private long[]                  recorded;
+    private int                     recordedCount;
+
+    void record(long mutation) {
+      if (recordedCount == recorded.length) {
+        recorded = Arrays.copyOf(recorded, recordedCount * 2);
+      }
+      recorded[recordedCount++] = mutation;
+    }
+
+    /**
+     * Object ids are never reused and the metadata of an object never changes, so sorting the recorded mutations by id
+     * is enough to tell which objects exist: those with no removal recorded.
+     */
+    synchronized void rebuild() {
+      try {
+        build(recorded, recordedCount);
+      } finally {
+        // stop recording even if the build failed, snapshots report the failure
+        recorded = null;
+        recordedCount = 0;
+      }
+    }
+
+    private void build(long[] mutations, int count) {
+      Arrays.sort(mutations, 0, count);
+
+      long[] ids = new long[count];
+      int live = 0;
+      int evictable = 0;
+      int noReferences = 0;
+      // compacted in place to the last mutation of every live id, in id order
+      for (int i = 0; i < count;) {
+        long id = mutations[i] >> FLAG_BITS;
+        long flags = 0;
+        for (; i < count && (mutations[i] >> FLAG_BITS) == id; i++) {
+          flags |= mutations[i] & ((1 << FLAG_BITS) - 1);
+        }
+        if ((flags & REMOVED) == 0) {
+          mutations[live++] = (id << FLAG_BITS) | flags;
+        }
+      }
+
+      for (int i = 0; i < live; i++) {
+        if ((mutations[i] & EVICTABLE) != 0) {
+          ids[evictable++] = mutations[i] >> FLAG_BITS;
+        }
+      }
+      evictableObjectIDSet.addAllSorted(ids, 0, evictable);
+
+      int references = 0;
+      for (int i = 0; i < live; i++) {
+        if ((mutations[i] & NO_REFERENCES) == 0) {
+          ids[references++] = mutations[i] >> FLAG_BITS;
+        }
+      }
+      referencesObjectIDSet.addAllSorted(ids, 0, references);
+
+      for (int i = 0; i < live; i++) {
+        if ((mutations[i] & NO_REFERENCES) != 0) {
+          ids[noReferences++] = mutations[i] >> FLAG_BITS;
+        }
+      }
+      BitSetObjectIDSet noReferencesIDs = new BitSetObjectIDSet();
+      noReferencesIDs.addAllSorted(ids, 0, noReferences);
+      addAllWords(noReferencesObjectIDSet, BitSetObjectIDSet.words(noReferencesIDs));
     }
   }
 }
@@ -88,11 +88,14 @@ public class Persistor implements PrettyPrintable {
   }
 
   public void start() {
+    // object ids reloaded by the storage manager are bulk added once it is done, in the background
+    objectIDSetMaintainer.startRecovery();
     try {
       storageManager.start().get();
     } catch (Exception e) {
       throw new AssertionError(e);
     }
+    objectIDSetMaintainer.finishRecovery();
 
     sequenceManager = new SequenceManager(storageManager);
     transactionPersistor = createTransactionPersistor(storageManager);
@@ -0,0 +1,45 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.persistence;
+
+import org.terracotta.corestorage.KeyValueStorageConfig;
+import org.terracotta.corestorage.StorageManager;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * Persistor of a restartable server, its storages are recovered from the append only log kept under the data path.
+ */
+public class RestartablePersistor extends Persistor {
+  private static final String STORE_DIRECTORY = "restartable-store";
+
+  public RestartablePersistor(StorageManagerFactory storageManagerFactory, File dataPath) {
+    super(new LogStructuredStorageManagerFactory(storageManagerFactory, new File(dataPath, STORE_DIRECTORY)));
+  }
+
+  @Override
+  protected void addAdditionalConfigs(Map<String, KeyValueStorageConfig<?, ?>> configMap,
+                                      StorageManagerFactory storageManagerFactory) {
+    TransactionPersistorImpl.addConfigsTo(configMap);
+  }
+
+  @Override
+  protected TransactionPersistor createTransactionPersistor(StorageManager storageManagerParam) {
+    return new TransactionPersistorImpl(storageManagerParam);
+  }
+}
@@ -22,64 +22,77 @@ import com.tc.object.ObjectID;
 import com.tc.object.tx.ServerTransactionID;
 import com.tc.objectserver.context.TransactionLookupContext;
 import com.tc.util.Assert;
-import com.tc.util.MergableLinkedList;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
-
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Orders transactions so that changes to any single object are handed out in the order they arrived, while
+ * transactions touching disjoint objects never wait on each other.
+ * <p>
+ * Incoming transactions are queued without locking. A transaction is handed out straight away unless one of its
+ * objects is held by a pending transaction or by an earlier blocked transaction, in which case it joins the per-object
+ * queue of every object it touches. A blocked transaction becomes ready once it is at the head of all its object
+ * queues and none of its objects are pending, so releasing a pending transaction only revisits the heads of the queues
+ * for its own objects instead of re-scanning every blocked transaction.
+ * <p>
+ * {@link #addTransactionLookupContexts(Collection)} may be called from any thread. All the other methods are driven by
+ * the single transaction lookup stage thread and are deliberately not synchronized.
+ */
 public class ServerTransactionSequencerImpl implements ServerTransactionSequencer {
 
-  private static final TCLogger    logger      = TCLogging.getLogger(ServerTransactionSequencerImpl.class);
-
-  private final Set<ServerTransactionID>                pendingTxns = new HashSet<ServerTransactionID>();
+  private static final TCLogger                 logger       = TCLogging.getLogger(ServerTransactionSequencerImpl.class);
 
-  private final MergableLinkedList txnQ        = new MergableLinkedList();
-  private final MergableLinkedList blockedQ    = new MergableLinkedList();
+  private final Queue<TransactionLookupContext> incoming     = new ConcurrentLinkedQueue<TransactionLookupContext>();
+  private final AtomicInteger                   txnsCount    = new AtomicInteger();
 
-  private final BlockedSet         objects     = new BlockedSet();
+  // Lookup stage thread confined state
+  private final Set<ServerTransactionID>        pendingTxns  = new HashSet<ServerTransactionID>();
+  private final Set<ObjectID>                   pendingOids  = new HashSet<ObjectID>();
+  private final Map<ObjectID, ArrayDeque<Node>> objectQueues = new HashMap<ObjectID, ArrayDeque<Node>>();
+  private final ArrayDeque<Node>                ready        = new ArrayDeque<Node>();
 
-  private int                      txnsCount;
-  private boolean                  reconcile   = false;
+  private volatile int                          blockedTxnsCount;
+  private volatile int                          blockedObjectsCount;
+  private volatile int                          pendingTxnsCount;
 
   private final ServerTransactionSequencerStats tsStats     = new ServerTransactionSequencerStats() {
 
                                                               @Override
                                                               public int getBlockedObjectsCount() {
-                                                                synchronized (ServerTransactionSequencerImpl.this) {
-                                                                  return objects.getCount();
-                                                                }
+                                                                return blockedObjectsCount;
                                                               }
 
                                                               @Override
                                                               public int getBlockedTxnsCount() {
-                                                                synchronized (ServerTransactionSequencerImpl.this) {
-                                                                  return blockedQ.size();
-                                                                }
+                                                                return blockedTxnsCount;
                                                               }
 
                                                               @Override
                                                               public int getPendingTxnsCount() {
-                                                                synchronized (ServerTransactionSequencerImpl.this) {
-                                                                  return pendingTxns.size();
-                                                                }
+                                                                return pendingTxnsCount;
                                                               }
 
                                                               @Override
                                                               public int getTxnsCount() {
-                                                                synchronized (ServerTransactionSequencerImpl.this) {
-                                                                  return txnsCount;
-                                                                }
+                                                                return txnsCount.get();
                                                               }
 
                                                             };
 
   @Override
-  public synchronized void addTransactionLookupContexts(Collection<TransactionLookupContext> txnLookupContexts) {
+  public void addTransactionLookupContexts(Collection<TransactionLookupContext> txnLookupContexts) {
     if (false) log_incoming(txnLookupContexts);
-    txnQ.addAll(txnLookupContexts);
-    txnsCount += txnLookupContexts.size();
+    txnsCount.addAndGet(txnLookupContexts.size());
+    incoming.addAll(txnLookupContexts);
   }
 
   private void log_incoming(Collection<TransactionLookupContext> lookupContexts) {
@@ -89,48 +102,101 @@ public class ServerTransactionSequencerImpl implements ServerTransactionSequence
   }
 
   @Override
-  public synchronized TransactionLookupContext getNextTxnLookupContextToProcess() {
-    reconcileIfNeeded();
-    while (!txnQ.isEmpty()) {
+  public TransactionLookupContext getNextTxnLookupContextToProcess() {
+    Node node;
+    while ((node = ready.poll()) != null) {
+      node.inReady = false;
+      // An object may have gone pending since the node was released, it then stays at the head of its queues
+      if (isReady(node)) {
+        dequeue(node);
+        return outgoing(node.lookupContext);
+      }
+    }
 
-      TransactionLookupContext lookupContext = (TransactionLookupContext) txnQ.removeFirst();
+    TransactionLookupContext lookupContext;
+    while ((lookupContext = incoming.poll()) != null) {
       ServerTransaction txn = lookupContext.getTransaction();
       if (isBlocked(txn)) {
         addBlocked(lookupContext);
       } else {
-        if (false) log_outgoing(lookupContext);
-        txnsCount--;
-        return lookupContext;
+        return outgoing(lookupContext);
       }
     }
     if (false) log_no_txns_to_process();
     return null;
   }
 
+  private TransactionLookupContext outgoing(TransactionLookupContext lookupContext) {
+    if (false) log_outgoing(lookupContext);
+    txnsCount.decrementAndGet();
+    return lookupContext;
+  }
+
   @Override
   public ServerTransactionSequencerStats getStats() {
     return tsStats;
   }
 
-  private void reconcileIfNeeded() {
-    if (reconcile) {
-      // Add blockedQ to the beginning of txnQ, this call will also clear blockedQ
-      txnQ.mergeToFront(blockedQ);
-      objects.clearBlocked();
-      reconcile = false;
+  private boolean isBlocked(ServerTransaction txn) {
+    for (ObjectID oid : txn.getObjectIDs()) {
+      if (pendingOids.contains(oid) || objectQueues.containsKey(oid)) { return true; }
     }
+    return false;
   }
 
   private void addBlocked(TransactionLookupContext lookupContext) {
-    ServerTransaction txn = lookupContext.getTransaction();
-    objects.addBlocked(txn.getObjectIDs());
-    blockedQ.add(lookupContext);
+    Node node = new Node(lookupContext);
+    for (ObjectID oid : node.oids) {
+      ArrayDeque<Node> q = objectQueues.get(oid);
+      if (q == null) {
+        q = new ArrayDeque<Node>(4);
+        objectQueues.put(oid, q);
+      }
+      q.add(node);
+    }
+    blockedTxnsCount++;
+    updateBlockedObjectsCount();
+  }
+
+  private boolean isReady(Node node) {
+    for (ObjectID oid : node.oids) {
+      if (pendingOids.contains(oid)) { return false; }
+      ArrayDeque<Node> q = objectQueues.get(oid);
+      if (q == null || q.peekFirst() != node) { return false; }
+    }
+    return true;
+  }
+
+  private void dequeue(Node node) {
+    for (ObjectID oid : node.oids) {
+      ArrayDeque<Node> q = objectQueues.get(oid);
+      Assert.assertTrue(q.pollFirst() == node);
+      if (q.isEmpty()) {
+        objectQueues.remove(oid);
+      } else {
+        releaseIfReady(q.peekFirst());
+      }
+    }
+    blockedTxnsCount--;
+    updateBlockedObjectsCount();
+  }
+
+  private void releaseIfReady(Node node) {
+    if (!node.inReady && isReady(node)) {
+      node.inReady = true;
+      ready.add(node);
+    }
+  }
+
+  private void updateBlockedObjectsCount() {
+    blockedObjectsCount = pendingOids.size() + objectQueues.size();
   }
 
   private void log_no_txns_to_process() {
-    if (txnsCount != 0) {
-      int psize = pendingTxns.size();
-      logger.info("No More Txns that can be processed : txnCount = " + txnsCount + " and pending txns = " + psize);
+    int count = txnsCount.get();
+    if (count != 0) {
+      logger.info("No More Txns that can be processed : txnCount = " + count + " and pending txns = "
+                  + pendingTxns.size());
     }
   }
 
@@ -138,72 +204,54 @@ public class ServerTransactionSequencerImpl implements ServerTransactionSequence
     logger.info("Outgoing : " + lookupContext);
   }
 
-  private boolean isBlocked(ServerTransaction txn) {
-    return objects.isBlocked(txn.getObjectIDs());
-  }
-
   @Override
-  public synchronized void makePending(ServerTransaction txn) {
-    objects.makePending(txn.getObjectIDs());
+  public void makePending(ServerTransaction txn) {
     Assert.assertTrue(pendingTxns.add(txn.getServerTransactionID()));
+    pendingOids.addAll(txn.getObjectIDs());
+    pendingTxnsCount = pendingTxns.size();
+    updateBlockedObjectsCount();
     if (false) logger.info("Make Pending : " + txn);
   }
 
   @Override
-  public synchronized void makeUnpending(ServerTransaction txn) {
+  public void makeUnpending(ServerTransaction txn) {
     Assert.assertTrue(pendingTxns.remove(txn.getServerTransactionID()));
-    objects.makeUnpending(txn.getObjectIDs());
-    reconcile = true;
+    Collection<ObjectID> oids = txn.getObjectIDs();
+    pendingOids.removeAll(oids);
+    pendingTxnsCount = pendingTxns.size();
+    for (ObjectID oid : oids) {
+      ArrayDeque<Node> q = objectQueues.get(oid);
+      if (q != null) {
+        releaseIfReady(q.peekFirst());
+      }
+    }
+    updateBlockedObjectsCount();
     if (false) logger.info("Processed Pending : " + txn);
   }
 
   /*
    * Used for testing
    */
-  synchronized boolean isPending(List<ServerTransaction> txns) {
+  boolean isPending(List<ServerTransaction> txns) {
     for (ServerTransaction st : txns) {
       if (pendingTxns.contains(st.getServerTransactionID())) return true;
     }
     return false;
   }
 
-  private static final class BlockedSet {
-
-    Set<ObjectID> cause  = new HashSet<ObjectID>();
-    Set<ObjectID> effect = new HashSet<ObjectID>();
-
-    public boolean isBlocked(Collection<ObjectID> keys) {
-      for (ObjectID o : keys) {
-        if (cause.contains(o) || effect.contains(o)) { return true; }
-      }
-      return false;
-    }
-
-    public int getCount() {
-      return cause.size() + effect.size();
-    }
-
-    public void makePending(Collection<ObjectID> keys) {
-      cause.addAll(keys);
-    }
-
-    public void makeUnpending(Collection<ObjectID> keys) {
-      cause.removeAll(keys);
-    }
-
-    public void addBlocked(Collection<ObjectID> keys) {
-      effect.addAll(keys);
-    }
+  private static final class Node {
+    private final TransactionLookupContext lookupContext;
+    private final Collection<ObjectID>     oids;
+    private boolean                        inReady;
 
-    public void clearBlocked() {
-      effect.clear();
+    Node(TransactionLookupContext lookupContext) {
+      this.lookupContext = lookupContext;
+      this.oids = lookupContext.getTransaction().getObjectIDs();
     }
 
     @Override
     public String toString() {
-      StringBuffer toStringBuffer = new StringBuffer();
-      toStringBuffer.append("cause: " + cause).append("\n").append("effect: " + effect).append("\n");
-      return toStringBuffer.toString();
+      return "Node [" + lookupContext + ", inReady = " + inReady + "]";
     }
   }
 }
@@ -34,10 +34,12 @@ import com.tc.text.PrettyPrinter;
 import com.tc.util.Assert;
 import com.tc.util.BitSetObjectIDSet;
 import com.tc.util.ObjectIDSet;
+import com.tc.util.concurrent.LongConcurrentHashMap;
+import com.tc.util.concurrent.LongHashMap;
+import com.tc.util.concurrent.LongHashSet;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -52,6 +54,10 @@ import java.util.concurrent.ConcurrentMap;
 /**
  * This class keeps track of locally checked out objects for applies and maintain the objects to txnid mapping in the
  * server. It wraps calls going to object manager from lookup, apply, commit stages
+ * <p>
+ * Checkouts and pending lookups are confined to the single transaction lookup stage thread, so the lookup path takes no
+ * monitor. Lookups completing on other threads hand their results over through {@link #processedPendingLookups} and
+ * the apply stage only touches the concurrent grouping maps.
  */
 public class TransactionalObjectManagerImpl implements TransactionalObjectManager, PrettyPrintable {
   private static final TCLogger                                       logger                  = TCLogging
@@ -61,11 +67,11 @@ public class TransactionalObjectManagerImpl implements TransactionalObjectManage
   private final ServerTransactionSequencer                            sequencer               = new ServerTransactionSequencerImpl();
   private final ServerGlobalTransactionManager                        gtxm;
 
-  private final Map<ObjectID, ManagedObject>                          checkedOutObjects       = new HashMap<ObjectID, ManagedObject>();
-  private final ConcurrentMap<ObjectID, TxnObjectGrouping>            liveObjectGroupings     = new ConcurrentHashMap<ObjectID, TxnObjectGrouping>();
+  private final LongHashMap<ManagedObject>                            checkedOutObjects       = new LongHashMap<ManagedObject>();
+  private final LongConcurrentHashMap<TxnObjectGrouping>              liveObjectGroupings     = new LongConcurrentHashMap<TxnObjectGrouping>();
   private final ConcurrentMap<ServerTransactionID, TxnObjectGrouping> applyPendingTxns        = new ConcurrentHashMap<ServerTransactionID, TxnObjectGrouping>();
 
-  private final Set<ObjectID>                                         pendingObjectRequest    = new HashSet<ObjectID>();
+  private final LongHashSet                                           pendingObjectRequest    = new LongHashSet();
   private final PendingList                                           pendingTxnList          = new PendingList();
   private final Queue<LookupContext>                                  processedPendingLookups = new ConcurrentLinkedQueue<LookupContext>();
 
@@ -136,13 +142,13 @@ public class TransactionalObjectManagerImpl implements TransactionalObjectManage
     }
   }
 
-  private synchronized void processPendingIfNecessary() {
+  private void processPendingIfNecessary() {
     if (addProcessedPendingLookups()) {
       processPendingTransactions();
     }
   }
 
-  public synchronized void lookupObjectsForApplyAndAddToSink(TransactionLookupContext transactionLookupContext) {
+  public void lookupObjectsForApplyAndAddToSink(TransactionLookupContext transactionLookupContext) {
     ServerTransaction txn = transactionLookupContext.getTransaction();
     boolean needsApply = transactionLookupContext.initiateApply();
     ObjectIDSet objectsToLookup = txn.getObjectIDs();
@@ -154,7 +160,7 @@ public class TransactionalObjectManagerImpl implements TransactionalObjectManage
     ObjectIDSet oldObjectIDs = new BitSetObjectIDSet(objectsToLookup);
     oldObjectIDs.removeAll(txn.getNewObjectIDs());
     if (!oldObjectIDs.isEmpty()) {
-      TxnObjectGrouping existingGrouping = liveObjectGroupings.get(oldObjectIDs.first());
+      TxnObjectGrouping existingGrouping = liveObjectGroupings.get(oldObjectIDs.first().toLong());
       if (existingGrouping != null && existingGrouping.containsAll(oldObjectIDs) && existingGrouping.addServerTransactionID(txn.getServerTransactionID())) {
 //        log("XXX allowing txn object grouping merge. Existing " + grouping + " oids " + oldObjectIDs);
         // All the existing objects are already part of the grouping, so we only need to look up new objects now.
@@ -166,9 +172,9 @@ public class TransactionalObjectManagerImpl implements TransactionalObjectManage
     ObjectIDSet newRequests = new BitSetObjectIDSet();
     boolean makePending = false;
     for (ObjectID oid : objectsToLookup) {
-      if (pendingObjectRequest.contains(oid)) {
+      if (pendingObjectRequest.contains(oid.toLong())) {
         makePending = true;
-      } else if (!checkedOutObjects.containsKey(oid)) {
+      } else if (!checkedOutObjects.containsKey(oid.toLong())) {
         newRequests.add(oid);
       }
     }
@@ -181,7 +187,9 @@ public class TransactionalObjectManagerImpl implements TransactionalObjectManage
         // New request went pending in object manager
 //        log("lookupObjectsForApplyAndAddToSink(): New Request went pending : " + newRequests);
         makePending = true;
-        this.pendingObjectRequest.addAll(newRequests);
+        for (ObjectID oid : newRequests) {
+          this.pendingObjectRequest.add(oid.toLong());
+        }
       }
     }
     if (makePending) {
@@ -190,7 +198,7 @@ public class TransactionalObjectManagerImpl implements TransactionalObjectManage
 
         // Kill all object groupings associated with this txn.
         for (ObjectID oid : txn.getObjectIDs()) {
-          liveObjectGroupings.remove(oid);
+          liveObjectGroupings.remove(oid.toLong());
         }
 
         // Try to "finish" the grouping. If we so happen to be the last transaction (that would have triggered a commit)
@@ -230,7 +238,7 @@ public class TransactionalObjectManagerImpl implements TransactionalObjectManage
   private Set<ObjectID> addObjectsToGrouping(Collection<ObjectID> oids, TxnObjectGrouping txnObjectGrouping, final boolean initiateApply) {
     Set<ObjectID> missingObjects = new HashSet<ObjectID>();
     for (ObjectID oid : oids) {
-      ManagedObject mo = checkedOutObjects.remove(oid);
+      ManagedObject mo = checkedOutObjects.remove(oid.toLong());
       if (!initiateApply && mo == null) {
         missingObjects.add(oid);
       } else if (mo == null) {
@@ -238,7 +246,7 @@ public class TransactionalObjectManagerImpl implements TransactionalObjectManage
         throw new AssertionError("Object is NULL !! : " + oid);
       } else {
         txnObjectGrouping.addObject(oid, mo);
-        liveObjectGroupings.put(oid, txnObjectGrouping);
+        liveObjectGroupings.put(oid.toLong(), txnObjectGrouping);
       }
     }
     return missingObjects;
@@ -248,16 +256,16 @@ public class TransactionalObjectManagerImpl implements TransactionalObjectManage
     logger.info(message);
   }
 
-  private synchronized void addLookedupObjects(LookupContext context) {
+  private void addLookedupObjects(LookupContext context) {
     Map<ObjectID, ManagedObject> lookedUpObjects = context.getLookedUpObjects();
     if (lookedUpObjects == null) { throw new AssertionError("Lookedup object is null : " + lookedUpObjects + " context = " + context); }
     for (Entry<ObjectID, ManagedObject> e : lookedUpObjects.entrySet()) {
-      this.pendingObjectRequest.remove(e.getKey());
-      this.checkedOutObjects.put(e.getKey(), e.getValue());
+      this.pendingObjectRequest.remove(e.getKey().toLong());
+      this.checkedOutObjects.put(e.getKey().toLong(), e.getValue());
     }
 
     for (ObjectID missingObject : context.getMissingObjects()) {
-      pendingObjectRequest.remove(missingObject);
+      pendingObjectRequest.remove(missingObject.toLong());
     }
   }
 
@@ -303,7 +311,7 @@ public class TransactionalObjectManagerImpl implements TransactionalObjectManage
     if (grouping.transactionComplete(applyInfo.getServerTransactionID())) {
       applyInfo.addObjectsToBeReleased(grouping.getObjects());
       for (ManagedObject mo : grouping.getObjects()) {
-        liveObjectGroupings.remove(mo.getID());
+        liveObjectGroupings.remove(mo.getID().toLong());
       }
       applyInfo.setCommitNow(true);
     } else {
@@ -312,7 +320,7 @@ public class TransactionalObjectManagerImpl implements TransactionalObjectManage
   }
 
   @Override
-  public synchronized PrettyPrinter prettyPrint(PrettyPrinter out) {
+  public PrettyPrinter prettyPrint(PrettyPrinter out) {
     out.print(this.getClass().getName()).flush();
     out.indent().print(shortDescription()).flush();
     return out;
@@ -23,6 +23,7 @@ import com.tc.logging.TCLogging;
 import com.tc.management.RemoteManagement;
 import com.tc.management.beans.L2MBeanNames;
 import com.tc.net.NodeID;
+import com.tc.net.core.TCComm;
 import com.tc.net.protocol.tcm.MessageChannel;
 import com.tc.net.protocol.transport.ConnectionPolicy;
 import com.tc.object.ObjectID;
@@ -103,6 +104,7 @@ public class DSO extends AbstractNotifyingMBean implements DSOMBean {
   private final IndexManager                           indexManager;
   private final ConnectionPolicy                       connectionPolicy;
   private final RemoteManagement                       remoteManagement;
+  private final TCComm                                 tcComm;
 
   public DSO(final ServerManagementContext managementContext, final ServerConfigurationContext configContext,
              final MBeanServer mbeanServer, final GCStatsEventPublisher gcStatsPublisher,
@@ -130,6 +132,7 @@ public class DSO extends AbstractNotifyingMBean implements DSOMBean {
     this.storageStats = storageStats;
     this.connectionPolicy = managementContext.getConnectionPolicy();
     this.remoteManagement = managementContext.getRemoteManagement();
+    this.tcComm = managementContext.getTcComm();
 
     // add various listeners (do this before the setupXXX() methods below so we don't ever miss anything)
     txnMgr.addRootListener(new TransactionManagerListener());
@@ -504,6 +507,11 @@ public class DSO extends AbstractNotifyingMBean implements DSOMBean {
     return result;
   }
 
+  @Override
+  public Map<String, Map<String, Number>> getWorkerCommStatistics() {
+    return tcComm.getWorkerCommStatistics();
+  }
+
   @Override
   public long getGlobalServerMapGetSizeRequestsCount() {
     return getStats().getGlobalServerMapGetSizeRequestsCount();
@@ -68,6 +68,11 @@ public interface DSOMBean extends DSOStats, OffheapStats, StorageDataStats, DGCM
 
   Map<ObjectName, Integer> getClientLiveObjectCount();
 
+  /**
+   * @return weight, connection count, byte counters and byte rate of each TSA comm worker thread, keyed by worker name
+   */
+  Map<String, Map<String, Number>> getWorkerCommStatistics();
+
   List<TerracottaOperatorEvent> getOperatorEvents();
 
   /**
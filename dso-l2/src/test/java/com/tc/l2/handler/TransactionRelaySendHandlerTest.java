@@ -0,0 +1,235 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.l2.handler;
+
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.tc.async.impl.MockSink;
+import com.tc.async.impl.OrderedSink;
+import com.tc.bytes.TCByteBuffer;
+import com.tc.bytes.TCByteBufferFactory;
+import com.tc.l2.api.L2Coordinator;
+import com.tc.l2.context.RelaySendContext;
+import com.tc.l2.context.RelayedTransactionsContext;
+import com.tc.l2.ha.L2HAZapNodeRequestProcessor;
+import com.tc.l2.msg.RelayedCommitTransactionMessage;
+import com.tc.l2.msg.RelayedCommitTransactionMessageFactory;
+import com.tc.logging.TCLogging;
+import com.tc.net.ClientID;
+import com.tc.net.GroupID;
+import com.tc.net.NodeID;
+import com.tc.net.ServerID;
+import com.tc.net.groups.GroupException;
+import com.tc.net.groups.GroupManager;
+import com.tc.net.groups.GroupMessage;
+import com.tc.object.dna.impl.ObjectStringSerializerImpl;
+import com.tc.object.gtx.GlobalTransactionID;
+import com.tc.object.msg.TestTransactionBatch;
+import com.tc.object.tx.ServerTransactionID;
+import com.tc.object.tx.TransactionID;
+import com.tc.object.tx.TxnBatchID;
+import com.tc.objectserver.core.api.ServerConfigurationContext;
+import com.tc.objectserver.tx.ServerTransaction;
+import com.tc.objectserver.tx.ServerTransactionManager;
+import com.tc.objectserver.tx.TestCommitTransactionMessage;
+import com.tc.objectserver.tx.TestCommitTransactionMessageFactory;
+import com.tc.objectserver.tx.TestServerTransaction;
+import com.tc.objectserver.tx.TransactionBatchContext;
+import com.tc.test.TCTestCase;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class TransactionRelaySendHandlerTest extends TCTestCase {
+
+  private static final int            LANES    = 3;
+
+  private final ClientID              source   = new ClientID(2);
+  private final ServerID              passive1 = new ServerID("passive1", new byte[] { 1 });
+  private final ServerID              passive2 = new ServerID("passive2", new byte[] { 2 });
+
+  private GroupManager                groupManager;
+  private ServerTransactionManager    transactionManager;
+  private TransactionRelaySendHandler handler;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    groupManager = mock(GroupManager.class);
+    transactionManager = mock(ServerTransactionManager.class);
+    L2Coordinator l2Coordinator = mock(L2Coordinator.class);
+    when(l2Coordinator.getGroupManager()).thenReturn(groupManager);
+    ServerConfigurationContext serverCfgCxt = mock(ServerConfigurationContext.class);
+    when(serverCfgCxt.getL2Coordinator()).thenReturn(l2Coordinator);
+    when(serverCfgCxt.getTransactionManager()).thenReturn(transactionManager);
+    handler = new TransactionRelaySendHandler();
+    handler.initialize(serverCfgCxt);
+  }
+
+  public void testSendsToEveryPassiveOfTheBatch() throws Exception {
+    RelayedCommitTransactionMessage msg1 = newMessage(1);
+    RelayedCommitTransactionMessage msg2 = newMessage(1);
+    handler.handleEvent(newSendContext(1, msg1, msg2));
+
+    verify(groupManager).sendTo(passive1, msg1);
+    verify(groupManager).sendTo(passive2, msg2);
+    verify(groupManager, never()).zapNode(any(NodeID.class), anyInt(), anyString());
+  }
+
+  public void testFailedSendZapsOnlyThatPassive() throws Exception {
+    RelayedCommitTransactionMessage msg1 = newMessage(1);
+    RelayedCommitTransactionMessage msg2 = newMessage(1);
+    doThrow(new GroupException("send failed")).when(groupManager).sendTo(eq(passive1), any(GroupMessage.class));
+    RelaySendContext rsc = newSendContext(1, msg1, msg2);
+    handler.handleEvent(rsc);
+
+    verify(groupManager).zapNode(eq(passive1), eq(L2HAZapNodeRequestProcessor.COMMUNICATION_ERROR), anyString());
+    for (ServerTransactionID stxID : rsc.getBatchContext().getTransactionIDs()) {
+      verify(transactionManager).acknowledgement(source, stxID.getClientTransactionID(), passive1);
+    }
+    verify(groupManager).sendTo(passive2, msg2);
+    verify(groupManager, never()).zapNode(eq(passive2), anyInt(), anyString());
+  }
+
+  public void testPassiveAppliesInRelayOrderWhicheverLaneSendsFirst() throws Exception {
+    final MockSink applied = new MockSink();
+    final OrderedSink ordered = new OrderedSink(TCLogging.getLogger(getClass()), applied);
+    // what the passive does with each relayed message it receives
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        RelayedCommitTransactionMessage msg = (RelayedCommitTransactionMessage) invocation.getArguments()[1];
+        ordered.add(new RelayedTransactionsContext(msg, LANES));
+        return null;
+      }
+    }).when(groupManager).sendTo(eq(passive1), any(GroupMessage.class));
+
+    // the relay stage sequences batches round robin over the lanes, the lanes then send at their own pace
+    List<RelaySendContext> batches = new ArrayList<RelaySendContext>();
+    for (int seq = 1; seq <= 2 * LANES; seq++) {
+      batches.add(newSendContext(seq, newMessage(seq)));
+    }
+    int[] sendOrder = { 3, 6, 2, 5, 1, 4 };
+    for (int i = 0; i < sendOrder.length; i++) {
+      if (sendOrder[i] == 1) {
+        assertEquals(0, applied.size());
+      }
+      handler.handleEvent(batches.get(sendOrder[i] - 1));
+    }
+
+    assertEquals(2 * LANES, applied.size());
+    for (long seq = 1; seq <= 2 * LANES; seq++) {
+      RelayedTransactionsContext rtc = (RelayedTransactionsContext) applied.take();
+      assertEquals(seq, rtc.getSequenceID());
+      assertEquals(Long.valueOf(seq % LANES), rtc.getKey());
+    }
+  }
+
+  public void testTransactionsAreHandedOverOnceRead() throws Exception {
+    final RelayedTransactionsContext rtc = new RelayedTransactionsContext(newMessage(1), LANES);
+    final AtomicReference<Map<ServerTransactionID, ServerTransaction>> handedOver =
+        new AtomicReference<Map<ServerTransactionID, ServerTransaction>>();
+    Thread apply = new Thread() {
+      @Override
+      public void run() {
+        handedOver.set(rtc.getTransactions());
+      }
+    };
+    apply.start();
+    apply.join(500);
+    assertTrue(apply.isAlive());
+    assertNull(handedOver.get());
+
+    Map<ServerTransactionID, ServerTransaction> txns = new LinkedHashMap<ServerTransactionID, ServerTransaction>();
+    rtc.read(source, txns);
+    apply.join();
+    assertSame(txns, handedOver.get());
+    assertEquals(source, rtc.getSourceNodeID());
+  }
+
+  public void testFailedReadIsRethrownToTheApplyStage() throws Exception {
+    RelayedTransactionsContext rtc = new RelayedTransactionsContext(newMessage(1), LANES);
+    rtc.readFailed(new RuntimeException("bad batch"));
+    try {
+      rtc.getTransactions();
+      fail();
+    } catch (AssertionError e) {
+      // expected
+    }
+  }
+
+  public void testLaneCountMustBePositive() throws Exception {
+    try {
+      new RelayedTransactionsContext(newMessage(1), 0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new TransactionRelayHandler(null, null, null, 0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  private RelaySendContext newSendContext(long seq, RelayedCommitTransactionMessage... messages) {
+    TransactionBatchContext tbc = mock(TransactionBatchContext.class);
+    when(tbc.getSourceNodeID()).thenReturn(source);
+    when(tbc.getTransactionIDs()).thenReturn(Collections.singleton(new ServerTransactionID(source,
+                                                                                           new TransactionID(seq))));
+    Map<NodeID, RelayedCommitTransactionMessage> byPassive =
+        new LinkedHashMap<NodeID, RelayedCommitTransactionMessage>();
+    byPassive.put(passive1, messages[0]);
+    if (messages.length > 1) {
+      byPassive.put(passive2, messages[1]);
+    }
+    return new RelaySendContext(tbc, byPassive, (int) ((seq - 1) % LANES));
+  }
+
+  private RelayedCommitTransactionMessage newMessage(long seq) {
+    TestCommitTransactionMessage ctm = (TestCommitTransactionMessage) new TestCommitTransactionMessageFactory()
+        .newCommitTransactionMessage(GroupID.NULL_ID);
+    ctm.setBatch(new TestTransactionBatch(new TCByteBuffer[] { TCByteBufferFactory.getInstance(false, 64) }),
+                 new ObjectStringSerializerImpl());
+    ctm.setChannelID(source);
+    ServerTransactionID stxID = new ServerTransactionID(source, new TransactionID(seq));
+    List<ServerTransaction> txns = Collections
+        .<ServerTransaction> singletonList(new TestServerTransaction(stxID, new TxnBatchID(seq),
+                                                                     new GlobalTransactionID(seq)));
+    return RelayedCommitTransactionMessageFactory.createRelayedCommitTransactionMessage(source, ctm.getBatchData(),
+                                                                                       txns, seq,
+                                                                                       new GlobalTransactionID(0),
+                                                                                       ctm.getSerializer());
+  }
+}
@@ -115,6 +115,41 @@ public class InClusterServerEventBufferTest {
     Assert.assertTrue(eventsForGtxId3.get(clientId3).equals(Lists.newArrayList(event3, event33)));
   }
 
+  @Test
+  public void testClearBelowLowWaterMarkAcrossSegments() throws Exception {
+    final int segmentSize = 1 << InClusterServerEventBuffer.SEGMENT_SHIFT;
+    buffer = new InClusterServerEventBuffer();
+    for (int i = 0; i < 10 * segmentSize; i++) {
+      buffer.storeEvent(new GlobalTransactionID(i), event1, Sets.newHashSet(clientId1));
+    }
+    Assert.assertEquals(10, buffer.getSegmentCount());
+
+    final GlobalTransactionID lowWatermark = new GlobalTransactionID(5 * segmentSize + 3);
+    buffer.clearEventBufferBelowLowWaterMark(lowWatermark);
+    Assert.assertEquals(5, buffer.getSegmentCount());
+    Assert.assertTrue(buffer.getServerEventsPerClient(new GlobalTransactionID(5 * segmentSize + 2)).isEmpty());
+    Assert.assertEquals(1, buffer.getServerEventsPerClient(lowWatermark).size());
+
+    // stored late below the water mark, gone with the next clear
+    buffer.storeEvent(gtxId1, event1, Sets.newHashSet(clientId1));
+    buffer.clearEventBufferBelowLowWaterMark(lowWatermark);
+    Assert.assertTrue(buffer.getServerEventsPerClient(gtxId1).isEmpty());
+  }
+
+  @Test
+  public void testEmptiedSegmentsAreDropped() throws Exception {
+    final int segmentSize = 1 << InClusterServerEventBuffer.SEGMENT_SHIFT;
+    buffer = new InClusterServerEventBuffer();
+    for (int i = 0; i < 10 * segmentSize; i++) {
+      buffer.storeEvent(new GlobalTransactionID(i), event1, Sets.newHashSet(clientId1));
+      if (i >= 10) {
+        buffer.removeEventsForTransaction(new GlobalTransactionID(i - 10));
+      }
+    }
+    Assert.assertEquals(1, buffer.getSegmentCount());
+    Assert.assertEquals(1, buffer.getServerEventsPerClient(new GlobalTransactionID(10 * segmentSize - 1)).size());
+  }
+
   @Test
   public void testConcurrentStoreGC() throws Exception {
     buffer.clearEventBufferBelowLowWaterMark(gtxId3);
@@ -0,0 +1,89 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.gtx;
+
+import com.tc.net.ClientID;
+import com.tc.object.gtx.GlobalTransactionID;
+import com.tc.object.tx.ServerTransactionID;
+import com.tc.object.tx.TransactionID;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+public class ServerTransactionIDBookKeeperTest extends TestCase {
+
+  private static final ClientID CLIENT = new ClientID(1);
+
+  private final ServerTransactionIDBookKeeper bookKeeper = new ServerTransactionIDBookKeeper();
+
+  public void testClearOnlyRemovesCompletedBelowLowWaterMark() throws Exception {
+    for (long i = 1; i <= 10; i++) {
+      GlobalTransactionDescriptor gd = add(CLIENT, i);
+      if (i != 3) {
+        gd.commitComplete();
+      }
+    }
+    Collection<GlobalTransactionDescriptor> removed = bookKeeper.clearCommitedSidsBelowLowWaterMark(sid(CLIENT, 6));
+    assertEquals(4, removed.size());
+    assertNotNull(bookKeeper.get(sid(CLIENT, 3)));
+    assertNull(bookKeeper.get(sid(CLIENT, 5)));
+    assertNotNull(bookKeeper.get(sid(CLIENT, 6)));
+
+    bookKeeper.get(sid(CLIENT, 3)).commitComplete();
+    removed = bookKeeper.clearCommitedSidsBelowLowWaterMark(sid(CLIENT, 8));
+    assertEquals(3, removed.size());
+    assertNull(bookKeeper.get(sid(CLIENT, 3)));
+    assertNotNull(bookKeeper.get(sid(CLIENT, 8)));
+  }
+
+  public void testSparseIdsBelowLowWaterMark() throws Exception {
+    add(CLIENT, 5).commitComplete();
+    add(CLIENT, 100000);
+    add(CLIENT, 5000000).commitComplete();
+    Collection<GlobalTransactionDescriptor> removed = bookKeeper.clearCommitedSidsBelowLowWaterMark(sid(CLIENT,
+                                                                                                        10000000));
+    assertEquals(2, removed.size());
+    assertNotNull(bookKeeper.get(sid(CLIENT, 100000)));
+
+    bookKeeper.get(sid(CLIENT, 100000)).commitComplete();
+    assertEquals(1, bookKeeper.clearCommitedSidsBelowLowWaterMark(sid(CLIENT, 100001)).size());
+    assertTrue(bookKeeper.removeAll(CLIENT).isEmpty());
+  }
+
+  public void testRemoveAllExcept() throws Exception {
+    ClientID other = new ClientID(2);
+    add(CLIENT, 1);
+    add(other, 1);
+    add(other, 2);
+    assertEquals(2, bookKeeper.removeAllExcept(Collections.singleton(CLIENT)).size());
+    assertNull(bookKeeper.get(sid(other, 1)));
+    assertNotNull(bookKeeper.remove(sid(CLIENT, 1)));
+    assertTrue(bookKeeper.clearCommitedSidsBelowLowWaterMark(sid(other, 5)).isEmpty());
+  }
+
+  private GlobalTransactionDescriptor add(ClientID client, long txn) {
+    GlobalTransactionDescriptor gd = new GlobalTransactionDescriptor(sid(client, txn), new GlobalTransactionID(txn));
+    bookKeeper.add(gd.getServerTransactionID(), gd);
+    return gd;
+  }
+
+  private static ServerTransactionID sid(ClientID client, long txn) {
+    return new ServerTransactionID(client, new TransactionID(txn));
+  }
+}
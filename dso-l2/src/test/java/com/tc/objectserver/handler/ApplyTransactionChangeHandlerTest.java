@@ -17,15 +17,21 @@
 package com.tc.objectserver.handler;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import com.tc.async.api.EventContext;
 import com.tc.async.api.Sink;
@@ -47,6 +53,7 @@ import com.tc.objectserver.api.Transaction;
 import com.tc.objectserver.api.TransactionProvider;
 import com.tc.objectserver.context.ApplyTransactionContext;
 import com.tc.objectserver.context.BroadcastChangeContext;
+import com.tc.objectserver.context.GroupCommitFlushContext;
 import com.tc.objectserver.core.api.ServerConfigurationContext;
 import com.tc.objectserver.core.impl.TestServerConfigurationContext;
 import com.tc.objectserver.event.ClientChannelMonitor;
@@ -56,6 +63,7 @@ import com.tc.objectserver.impl.ObjectInstanceMonitorImpl;
 import com.tc.objectserver.locks.LockManager;
 import com.tc.objectserver.locks.NotifiedWaiters;
 import com.tc.objectserver.locks.ServerLock;
+import com.tc.objectserver.managedobject.ApplyTransactionInfo;
 import com.tc.objectserver.tx.ServerTransaction;
 import com.tc.objectserver.tx.ServerTransactionImpl;
 import com.tc.objectserver.tx.ServerTransactionManager;
@@ -80,29 +88,43 @@ public class ApplyTransactionChangeHandlerTest extends TestCase {
   private ArgumentCaptor<NotifiedWaiters> notifiedWaitersArgumentCaptor;
   private ServerEventBuffer               serverEventBuffer;
   private ClientChannelMonitor            clientChannelMonitor;
+  private Transaction                     persistenceTransaction;
+  private ServerTransactionManager        transactionManager;
+  private TransactionalObjectManager      txnObjectManager;
+  private Sink                            applySink;
 
   @Override
   public void setUp() throws Exception {
+    createHandler(false);
+  }
+
+  private void createHandler(boolean groupCommit) {
     this.lockManager = mock(LockManager.class);
     this.serverEventBuffer = mock(ServerEventBuffer.class);
     this.clientChannelMonitor = mock(ClientChannelMonitor.class);
     this.notifiedWaitersArgumentCaptor = ArgumentCaptor.forClass(NotifiedWaiters.class);
     TransactionProvider persistenceTransactionProvider = mock(TransactionProvider.class);
-    Transaction persistenceTransaction = mock(Transaction.class);
+    this.persistenceTransaction = mock(Transaction.class);
     when(persistenceTransactionProvider.newTransaction()).thenReturn(persistenceTransaction);
 
     this.handler = new ApplyTransactionChangeHandler(new ObjectInstanceMonitorImpl(),
         mock(ServerGlobalTransactionManager.class),mock(ServerMapEvictionManager.class),
         persistenceTransactionProvider, Runners.newSingleThreadScheduledTaskRunner(),
-        serverEventBuffer, clientChannelMonitor);
+        serverEventBuffer, clientChannelMonitor, groupCommit);
 
     this.broadcastSink = mock(Sink.class);
     Stage broadcastStage = mock(Stage.class);
     when(broadcastStage.getSink()).thenReturn(broadcastSink);
+    this.applySink = mock(Sink.class);
+    Stage applyStage = mock(Stage.class);
+    when(applyStage.getSink()).thenReturn(applySink);
+    this.transactionManager = mock(ServerTransactionManager.class);
+    this.txnObjectManager = mock(TransactionalObjectManager.class);
     TestServerConfigurationContext context = new TestServerConfigurationContext();
-    context.transactionManager = mock(ServerTransactionManager.class);
-    context.txnObjectManager = mock(TransactionalObjectManager.class);
+    context.transactionManager = transactionManager;
+    context.txnObjectManager = txnObjectManager;
     context.addStage(ServerConfigurationContext.BROADCAST_CHANGES_STAGE, broadcastStage);
+    context.addStage(ServerConfigurationContext.APPLY_CHANGES_STAGE, applyStage);
     context.addStage(ServerConfigurationContext.COMMIT_CHANGES_STAGE, mock(Stage.class));
     context.garbageCollectionManager = mock(GarbageCollectionManager.class);
     context.lockManager = this.lockManager;
@@ -124,6 +146,35 @@ public class ApplyTransactionChangeHandlerTest extends TestCase {
     verifyNotifies(tx);
   }
 
+  public void testGroupCommitWaitsForQueuedTransactions() throws Exception {
+    createHandler(true);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        ((ApplyTransactionInfo) invocation.getArguments()[0]).setCommitNow(true);
+        return null;
+      }
+    }).when(txnObjectManager).applyTransactionComplete(any(ApplyTransactionInfo.class));
+
+    for (int i = 1; i <= 2; i++) {
+      ServerTransaction tx = createServerTransaction(i);
+      TxnObjectGrouping grouping = new TxnObjectGrouping(tx.getServerTransactionID());
+      this.handler.handleEvent(new ApplyTransactionContext(tx, grouping, true, Collections.EMPTY_SET));
+    }
+    verify(persistenceTransaction, never()).commit();
+    verify(transactionManager, never()).commit(anyCollection(), anyMap(), anyCollection());
+
+    // one flush queued behind the held transactions, both commit together once it is handled
+    ArgumentCaptor<EventContext> flush = ArgumentCaptor.forClass(EventContext.class);
+    verify(applySink).add(flush.capture());
+    assertTrue(flush.getValue() instanceof GroupCommitFlushContext);
+    this.handler.handleEvent(flush.getValue());
+    verify(persistenceTransaction).commit();
+    ArgumentCaptor<Collection> committed = ArgumentCaptor.forClass(Collection.class);
+    verify(transactionManager).commit(anyCollection(), anyMap(), committed.capture());
+    assertEquals(2, committed.getValue().size());
+  }
+
   private void verifyNotifies(ServerTransaction tx) {
     verify(lockManager, times(tx.getNumApplicationTxn())).notify(any(LockID.class), any(ClientID.class), any(ThreadID.class),
         any(ServerLock.NotifyAction.class), any(NotifiedWaiters.class));
@@ -155,6 +206,10 @@ public class ApplyTransactionChangeHandlerTest extends TestCase {
   }
 
   private static ServerTransaction createServerTransaction() throws Exception {
+    return createServerTransaction(1);
+  }
+
+  private static ServerTransaction createServerTransaction(int id) throws Exception {
     final ClientID cid = new ClientID(1);
     LockID[] lockIDs = { new StringLockID("1") };
 
@@ -163,7 +218,7 @@ public class ApplyTransactionChangeHandlerTest extends TestCase {
       notifies.add(new NotifyImpl(new StringLockID("" + i), new ThreadID(i), i % 2 == 0));
     }
 
-    ServerTransaction txn = new ServerTransactionImpl(new TxnBatchID(1), new TransactionID(1), new SequenceID(1),
+    ServerTransaction txn = new ServerTransactionImpl(new TxnBatchID(id), new TransactionID(id), new SequenceID(id),
         lockIDs, cid, Collections.emptyList(), null,
                                                       Collections.emptyMap(), TxnType.NORMAL, notifies,
         new MetaDataReader[0], 1, new long[0]);
@@ -30,8 +30,10 @@ import com.tc.test.TCTestCase;
 import com.tc.util.Assert;
 import com.tc.util.concurrent.ThreadUtil;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Random;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -81,27 +83,50 @@ public class ClientObjectReferenceSetTest extends TCTestCase {
     System.err.println("XXX ServerMap Eviction running intermittently");
     int count = 10;
     for (int i = 0; i < count; i++) {
-      ThreadUtil.reallySleep(TimeUnit.NANOSECONDS.toMillis(ClientObjectReferenceSet.MONITOR_INTERVAL_NANO) + 1000);
-      while (clientStateManager.getObjectReferenceAddRegisteredListeners().length != 0) {
-        System.err.println("XXX waiting for ref listener to be 0");
-        ThreadUtil.reallySleep(1000);
-      }
+      // refresh interval is 1 sec, every check after that tells the listeners
+      ThreadUtil.reallySleep(1100);
 
-      int current = currentObjectID.intValue();
+      int current = currentObjectID.intValue() - 1;
       int id = r.nextInt(current);
       System.err.println("XXX CurrentObjectIDSeq=" + current + "; toCheck=" + id + ", " + current);
       Assert.eval(clientObjRefSet.contains(new ObjectID(id)));
       Assert.eval(clientObjRefSet.contains(new ObjectID(current)));
-      while (clientStateManager.getObjectReferenceAddRegisteredListeners().length != 1) {
-        System.err.println("XXX waiting for ref listener to be 1");
-        ThreadUtil.reallySleep(1000);
-      }
     }
 
     Assert.eval(listener.getCount() >= count);
     stop.set(true);
   }
 
+  public void testReleasedReferences() {
+    final ClientStateManagerImpl clientStateManager = new ClientStateManagerImpl();
+    final NodeID node1 = new ClientID(1);
+    final NodeID node2 = new ClientID(2);
+    clientStateManager.startupNode(node1);
+    clientStateManager.startupNode(node2);
+    ClientObjectReferenceSet clientObjRefSet = new ClientObjectReferenceSet(clientStateManager);
+
+    final ObjectID shared = new ObjectID(1);
+    final ObjectID only1 = new ObjectID(1000);
+    clientStateManager.addReference(node1, shared);
+    clientStateManager.addReferences(node2, new HashSet<ObjectID>(Arrays.asList(shared)));
+    clientStateManager.addReference(node1, only1);
+    assertEquals(2, clientObjRefSet.size());
+
+    clientStateManager.removeReferences(node1, Collections.singleton(shared), new HashSet<ObjectID>());
+    Assert.eval(clientObjRefSet.contains(shared));
+    // removing twice must not release the other client's reference
+    clientStateManager.removeReferences(node1, Collections.singleton(shared), new HashSet<ObjectID>());
+    Assert.eval(clientObjRefSet.contains(shared));
+
+    clientStateManager.shutdownNode(node2);
+    Assert.eval(!clientObjRefSet.contains(shared));
+    Assert.eval(clientObjRefSet.contains(only1));
+
+    clientStateManager.shutdownNode(node1);
+    Assert.eval(!clientObjRefSet.contains(only1));
+    assertEquals(0, clientObjRefSet.size());
+  }
+
   private class MyListener implements ClientObjectReferenceSetChangedListener {
 
     private volatile int count;
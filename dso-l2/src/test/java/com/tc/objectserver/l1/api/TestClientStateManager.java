@@ -82,6 +82,16 @@ public class TestClientStateManager implements ClientStateManager {
     return 0;
   }
 
+  @Override
+  public boolean isReferencedByAnyClient(final ObjectID objectID) {
+    return false;
+  }
+
+  @Override
+  public long getReferencedObjectCount() {
+    return 0;
+  }
+
   public void stop() {
     // TODO Auto-generated method stub
 
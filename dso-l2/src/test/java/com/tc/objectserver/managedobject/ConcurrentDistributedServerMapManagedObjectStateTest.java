@@ -111,6 +111,32 @@ public class ConcurrentDistributedServerMapManagedObjectStateTest extends TCTest
     verify(applyTransactionInfo, never()).initiateEvictionFor(any(ObjectID.class));
   }
 
+  public void testFieldChangesByName() throws Exception {
+    when(keyValueStorage.size()).thenReturn(115L);
+    state.applyPhysicalAction(new PhysicalAction(ConcurrentDistributedServerMapManagedObjectState.EVICTION_ENABLED_FIELDNAME, true, false),
+        oid, applyTransactionInfo);
+    state.applyLogicalAction(oid, applyTransactionInfo, LogicalOperation.INT_FIELD_CHANGED,
+        new Object[] { ConcurrentDistributedServerMapManagedObjectState.MAX_COUNT_IN_CLUSTER_FIELDNAME, 100 });
+    state.applyLogicalAction(oid, applyTransactionInfo, LogicalOperation.PUT, new Object[] { "a", oid });
+    verify(applyTransactionInfo).initiateEvictionFor(any(ObjectID.class));
+
+    boolean rejected = false;
+    try {
+      state.applyPhysicalAction(new PhysicalAction("noSuchField", 1, false), oid, applyTransactionInfo);
+    } catch (AssertionError expected) {
+      rejected = true;
+    }
+    assertTrue(rejected);
+    rejected = false;
+    try {
+      state.applyLogicalAction(oid, applyTransactionInfo, LogicalOperation.INT_FIELD_CHANGED,
+          new Object[] { ConcurrentDistributedServerMapManagedObjectState.CACHE_NAME_FIELDNAME, 1 });
+    } catch (AssertionError expected) {
+      rejected = true;
+    }
+    assertTrue(rejected);
+  }
+
   public void testL2SyncDehyrdate() throws Exception {
     CDSMValue value1 = new CDSMValue(new ObjectID(2), 2, 2, 3, 4);
     CDSMValue value2 = new CDSMValue(new ObjectID(3), 3, 3, 2, 1);
@@ -0,0 +1,238 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.persistence;
+
+import com.tc.test.TCTestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AppendOnlyLogTest extends TCTestCase {
+
+  private static final byte PUT          = 1;
+  private static final int  SEGMENT_SIZE = 4096;
+
+  private File              directory;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    directory = new File(getTempDirectory(), "log");
+  }
+
+  public void testCommittedRecordsAreReplayedInOrder() throws Exception {
+    AppendOnlyLog log = recovered(new ArrayList<String>());
+    log.append(0, PUT, bytes("a"));
+    log.append(1, PUT, bytes("b"));
+    log.append(1, PUT, bytes("c"));
+    log.append(1, AppendOnlyLog.COMMIT, new byte[0]);
+    log.force();
+    log.close();
+
+    List<String> records = new ArrayList<String>();
+    log = recovered(records);
+    assertEquals(list("0:a", "1:b", "1:c"), records);
+    assertEquals(1, log.getMaxTxnID());
+    log.close();
+  }
+
+  public void testUncommittedRecordsAreDropped() throws Exception {
+    AppendOnlyLog log = recovered(new ArrayList<String>());
+    log.append(1, PUT, bytes("a"));
+    log.append(1, AppendOnlyLog.COMMIT, new byte[0]);
+    log.append(2, PUT, bytes("b"));
+    log.force();
+    log.close();
+
+    List<String> records = new ArrayList<String>();
+    recovered(records).close();
+    assertEquals(list("1:a"), records);
+  }
+
+  public void testTornTailIsCutOff() throws Exception {
+    AppendOnlyLog log = recovered(new ArrayList<String>());
+    log.append(0, PUT, bytes("a"));
+    log.append(0, PUT, bytes("b"));
+    log.force();
+    long size = log.size();
+    log.close();
+
+    // corrupt the last byte of the last record
+    File segment = directory.listFiles()[0];
+    RandomAccessFile raf = new RandomAccessFile(segment, "rw");
+    try {
+      raf.seek(size - 1);
+      raf.write('x');
+    } finally {
+      raf.close();
+    }
+
+    List<String> records = new ArrayList<String>();
+    log = recovered(records);
+    assertEquals(list("0:a"), records);
+    log.append(0, PUT, bytes("c"));
+    log.force();
+    log.close();
+
+    records.clear();
+    recovered(records).close();
+    assertEquals(list("0:a", "0:c"), records);
+  }
+
+  public void testRecordsSpanSegmentsAndOldSegmentsCanBeDeleted() throws Exception {
+    AppendOnlyLog log = recovered(new ArrayList<String>());
+    byte[] big = new byte[1000];
+    for (int i = 0; i < 10; i++) {
+      log.append(0, PUT, big);
+    }
+    assertTrue(directory.listFiles().length > 1);
+
+    long mark = log.roll();
+    log.append(0, PUT, bytes("live"));
+    log.force();
+    log.deleteBefore(mark);
+    assertEquals(1, directory.listFiles().length);
+    log.close();
+
+    List<String> records = new ArrayList<String>();
+    recovered(records).close();
+    assertEquals(list("0:live"), records);
+  }
+
+  public void testCompactionReplacesOlderSegments() throws Exception {
+    AppendOnlyLog log = recovered(new ArrayList<String>());
+    log.append(0, PUT, bytes("old"));
+    log.append(1, PUT, bytes("open"));
+    long mark = log.roll();
+    log.append(0, PUT, bytes("new"));
+
+    AppendOnlyLog.Compaction compaction = log.compact(mark);
+    compaction.append(0, PUT, ByteBuffer.wrap(bytes("live")));
+    compaction.append(1, PUT, ByteBuffer.wrap(bytes("open")));
+    compaction.install();
+    log.append(1, AppendOnlyLog.COMMIT, new byte[0]);
+    log.force();
+    assertEquals(2, directory.listFiles().length);
+    log.close();
+
+    List<String> records = new ArrayList<String>();
+    log = recovered(records);
+    assertEquals(list("0:live", "1:open", "0:new"), records);
+
+    // the compacted segment is read like any other by the next compaction
+    records.clear();
+    final List<String> read = records;
+    log.readBefore(mark, new AppendOnlyLog.RecordHandler() {
+      @Override
+      public void record(long txnID, byte type, ByteBuffer payload) {
+        byte[] b = new byte[payload.remaining()];
+        payload.get(b);
+        read.add(txnID + ":" + new String(b));
+      }
+    });
+    assertEquals(list("0:live", "1:open"), read);
+    log.close();
+  }
+
+  public void testUnfinishedCompactionIsIgnored() throws Exception {
+    AppendOnlyLog log = recovered(new ArrayList<String>());
+    log.append(0, PUT, bytes("a"));
+    long mark = log.roll();
+    log.append(0, PUT, bytes("b"));
+    log.compact(mark).append(0, PUT, ByteBuffer.wrap(bytes("partial")));
+    log.force();
+    log.close();
+
+    List<String> records = new ArrayList<String>();
+    recovered(records).close();
+    assertEquals(list("0:a", "0:b"), records);
+    for (File file : directory.listFiles()) {
+      assertTrue(file.getName(), file.getName().endsWith(".log"));
+    }
+  }
+
+  public void testConcurrentAppendsAreAllRecovered() throws Exception {
+    final AppendOnlyLog log = recovered(new ArrayList<String>());
+    Thread[] writers = new Thread[4];
+    for (int t = 0; t < writers.length; t++) {
+      final int writer = t;
+      writers[t] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            for (int i = 0; i < 500; i++) {
+              log.append(0, PUT, bytes(writer + "-" + i));
+              log.force();
+            }
+          } catch (IOException e) {
+            throw new AssertionError(e);
+          }
+        }
+      };
+      writers[t].start();
+    }
+    for (Thread writer : writers) {
+      writer.join();
+    }
+    log.close();
+
+    List<String> records = new ArrayList<String>();
+    recovered(records).close();
+    assertEquals(2000, records.size());
+    for (int t = 0; t < writers.length; t++) {
+      int last = -1;
+      for (String record : records) {
+        if (record.startsWith("0:" + t + "-")) {
+          int i = Integer.parseInt(record.substring(record.indexOf('-') + 1));
+          assertEquals(last + 1, i);
+          last = i;
+        }
+      }
+      assertEquals(499, last);
+    }
+  }
+
+  private AppendOnlyLog recovered(final List<String> records) throws IOException {
+    AppendOnlyLog log = new AppendOnlyLog(directory, SEGMENT_SIZE);
+    log.recover(new AppendOnlyLog.RecordHandler() {
+      @Override
+      public void record(long txnID, byte type, ByteBuffer payload) {
+        assertEquals(PUT, type);
+        byte[] b = new byte[payload.remaining()];
+        payload.get(b);
+        records.add(txnID + ":" + new String(b));
+      }
+    }, 2);
+    return log;
+  }
+
+  private static byte[] bytes(String s) {
+    return s.getBytes();
+  }
+
+  private static List<String> list(String... s) {
+    List<String> l = new ArrayList<String>();
+    for (String e : s) {
+      l.add(e);
+    }
+    return l;
+  }
+}
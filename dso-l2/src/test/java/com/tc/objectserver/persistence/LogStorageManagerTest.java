@@ -0,0 +1,119 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.persistence;
+
+import org.terracotta.corestorage.ImmutableKeyValueStorageConfig;
+import org.terracotta.corestorage.KeyValueStorage;
+import org.terracotta.corestorage.KeyValueStorageConfig;
+
+import com.tc.test.TCTestCase;
+
+import java.io.File;
+import java.util.Collections;
+
+public class LogStorageManagerTest extends TCTestCase {
+
+  private static final KeyValueStorageConfig<String, String> CONFIG = ImmutableKeyValueStorageConfig
+                                                                        .builder(String.class, String.class).build();
+
+  private File                                               directory;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    directory = new File(getTempDirectory(), "store");
+  }
+
+  public void testCheckpointKeepsLastCommittedAndOpenRecords() throws Exception {
+    LogStorageManager manager = open();
+    KeyValueStorage<String, String> map = manager.createKeyValueStorage("map", CONFIG);
+    for (int i = 0; i < 100; i++) {
+      manager.begin();
+      map.put("k" + (i % 10), "v" + i);
+      manager.commit();
+    }
+    map.remove("k0");
+
+    // open across the checkpoint, its commit record lands in the segment the checkpoint started
+    manager.begin();
+    map.put("k1", "open");
+    long before = manager.getLogSize();
+    manager.checkpoint();
+    assertTrue(manager.getLogSize() < before);
+    manager.commit();
+    map.put("k2", "after");
+    manager.close();
+
+    manager = open();
+    map = manager.getKeyValueStorage("map", String.class, String.class);
+    assertNull(map.get("k0"));
+    assertEquals("open", map.get("k1"));
+    assertEquals("after", map.get("k2"));
+    for (int j = 3; j < 10; j++) {
+      assertEquals("v" + (90 + j), map.get("k" + j));
+    }
+    manager.close();
+  }
+
+  public void testTransactionOpenAtCheckpointIsDroppedIfItNeverCommits() throws Exception {
+    LogStorageManager manager = open();
+    KeyValueStorage<String, String> map = manager.createKeyValueStorage("map", CONFIG);
+    map.put("k", "committed");
+    manager.begin();
+    map.put("k", "lost");
+    manager.checkpoint();
+    manager.close();
+
+    manager = open();
+    map = manager.getKeyValueStorage("map", String.class, String.class);
+    assertEquals("committed", map.get("k"));
+    // and the next compaction lets go of it
+    manager.checkpoint();
+    manager.close();
+
+    manager = open();
+    assertEquals("committed", manager.getKeyValueStorage("map", String.class, String.class).get("k"));
+    manager.close();
+  }
+
+  public void testDestroyedStorageIsNotCarriedOver() throws Exception {
+    LogStorageManager manager = open();
+    manager.createKeyValueStorage("gone", CONFIG).put("k", "v");
+    manager.destroyKeyValueStorage("gone");
+    manager.createKeyValueStorage("kept", CONFIG).put("k", "v");
+    manager.checkpoint();
+    manager.close();
+
+    manager = open();
+    assertNull(manager.getKeyValueStorage("gone", String.class, String.class));
+    assertEquals("v", manager.getKeyValueStorage("kept", String.class, String.class).get("k"));
+    manager.close();
+  }
+
+  private LogStorageManager open() throws Exception {
+    LogStructuredStorageManagerFactory factory = new LogStructuredStorageManagerFactory(
+                                                                                        HeapStorageManagerFactory.INSTANCE,
+                                                                                        directory);
+    // recreated storages look their config up by the order it was wrapped in
+    factory.wrapMapConfig(CONFIG);
+    LogStorageManager manager = new LogStorageManager(HeapStorageManagerFactory.INSTANCE
+        .createStorageManager(Collections.<String, KeyValueStorageConfig<?, ?>> emptyMap(), null), factory, directory,
+                                                      4096, Long.MAX_VALUE, 3, 2);
+    manager.start().get();
+    return manager;
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tc.objectserver.persistence;
+
+import org.terracotta.corestorage.Retriever;
+
+import com.tc.object.ObjectID;
+import com.tc.objectserver.managedobject.ManagedObjectStateStaticConfig;
+import com.tc.test.TCTestCase;
+import com.tc.util.ObjectIDSet;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ObjectIDSetMaintainerTest extends TCTestCase {
+
+  private static final byte SERVER_MAP = ManagedObjectStateStaticConfig.SERVER_MAP.getStateObjectType();
+  private static final byte SERIALIZED = ManagedObjectStateStaticConfig.SERIALIZED_CLUSTER_OBJECT
+                                           .getStateObjectType();
+  private static final byte OTHER      = 0;
+
+  public void testSnapshotsSpanAllStripes() throws Exception {
+    ObjectIDSetMaintainer maintainer = new ObjectIDSetMaintainer();
+    for (long i = 0; i < 10000; i++) {
+      maintainer.added(key(i), null, i % 3 == 0 ? SERVER_MAP : (i % 3 == 1 ? SERIALIZED : OTHER));
+    }
+
+    ObjectIDSet all = maintainer.objectIDSnapshot();
+    assertEquals(10000, all.size());
+    ObjectIDSet evictable = maintainer.evictableObjectIDSetSnapshot();
+    assertEquals(3334, evictable.size());
+    for (ObjectID id : evictable) {
+      assertEquals(0, id.toLong() % 3);
+    }
+    assertTrue(maintainer.hasNoReferences(new ObjectID(1)));
+    assertFalse(maintainer.hasNoReferences(new ObjectID(2)));
+
+    for (long i = 0; i < 10000; i += 2) {
+      maintainer.removed(key(i));
+    }
+    assertEquals(5000, maintainer.objectIDSnapshot().size());
+    assertEquals(1667, maintainer.evictableObjectIDSetSnapshot().size());
+    assertFalse(maintainer.objectIDSnapshot().contains(new ObjectID(64)));
+    assertTrue(maintainer.objectIDSnapshot().contains(new ObjectID(65)));
+  }
+
+  public void testWritersRunDuringSnapshots() throws Exception {
+    final ObjectIDSetMaintainer maintainer = new ObjectIDSetMaintainer();
+    final int writers = 4;
+    final int perWriter = 20000;
+    final CountDownLatch done = new CountDownLatch(writers);
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    for (int w = 0; w < writers; w++) {
+      final long base = w * (long) perWriter;
+      new Thread() {
+        @Override
+        public void run() {
+          try {
+            for (long i = base; i < base + perWriter; i++) {
+              maintainer.added(key(i), null, OTHER);
+            }
+          } catch (Throwable t) {
+            failure.set(t);
+          } finally {
+            done.countDown();
+          }
+        }
+      }.start();
+    }
+    while (done.getCount() > 0) {
+      maintainer.objectIDSnapshot();
+    }
+    assertNull(failure.get());
+    assertEquals(writers * perWriter, maintainer.objectIDSnapshot().size());
+  }
+
+  public void testRecoveryBuildsSetsFromRecordedMutations() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      ObjectIDSetMaintainer maintainer = new ObjectIDSetMaintainer(executor);
+      recoverAndCheck(maintainer);
+
+      // the executor is reused by the next recovery
+      maintainer.startRecovery();
+      maintainer.added(key(20003), null, OTHER);
+      maintainer.finishRecovery();
+      assertEquals(5001, maintainer.objectIDSnapshot().size());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  public void testRebuildFailureIsRethrownBySnapshots() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      ObjectIDSetMaintainer maintainer = new ObjectIDSetMaintainer(executor);
+      // never started, so there is nothing recorded to build from
+      maintainer.finishRecovery();
+      try {
+        maintainer.objectIDSnapshot();
+        fail();
+      } catch (IllegalStateException e) {
+        // expected
+      }
+
+      // recording stopped anyway, mutations apply directly
+      maintainer.added(key(1), null, SERIALIZED);
+      assertTrue(maintainer.hasNoReferences(new ObjectID(1)));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private void recoverAndCheck(ObjectIDSetMaintainer maintainer) {
+    maintainer.startRecovery();
+    for (long i = 10000; i > 0; i--) {
+      maintainer.added(key(i), null, i % 3 == 0 ? SERVER_MAP : (i % 3 == 1 ? SERIALIZED : OTHER));
+    }
+    // updates record the same object again
+    maintainer.added(key(5), null, OTHER);
+    for (long i = 2; i <= 10000; i += 2) {
+      maintainer.removed(key(i));
+    }
+    assertFalse(maintainer.hasNoReferences(new ObjectID(1)));
+    maintainer.finishRecovery();
+
+    ObjectIDSet all = maintainer.objectIDSnapshot();
+    assertEquals(5000, all.size());
+    assertTrue(all.contains(new ObjectID(5)));
+    assertFalse(all.contains(new ObjectID(64)));
+    assertEquals(1667, maintainer.evictableObjectIDSetSnapshot().size());
+    assertTrue(maintainer.hasNoReferences(new ObjectID(1)));
+    assertFalse(maintainer.hasNoReferences(new ObjectID(3)));
+
+    // mutations after recovery apply directly
+    maintainer.added(key(20001), null, SERVER_MAP);
+    maintainer.removed(key(1));
+    assertEquals(5000, maintainer.objectIDSnapshot().size());
+    assertEquals(1668, maintainer.evictableObjectIDSetSnapshot().size());
+  }
+
+  private static Retriever<Long> key(final long id) {
+    return new Retriever<Long>() {
+      @Override
+      public Long retrieve() {
+        return id;
+      }
+    };
+  }
+}
@@ -243,6 +243,37 @@ public class ServerTransactionSequencerTest extends TCTestCase {
     Assert.assertEquals(txn4, shouldBe4);
   }
 
+  public void testUnpendingReleasesOnlyDependentTxns() {
+    ServerTransaction txn1 = newTxn(1, 1, 1);
+    ServerTransaction txn2 = newTxn(2, 1, 2);
+    ServerTransaction txn3 = newTxn(3, 3, 3);
+    ServerTransaction txn4 = newTxn(4, 2, 2);
+    this.sequencer.addTransactionLookupContexts(createTxnLookupContexts(Arrays.asList(txn1, txn2, txn3, txn4)));
+
+    this.sequencer.makePending(this.sequencer.getNextTxnLookupContextToProcess().getTransaction());
+    // txn2 waits on txn1, txn3 is disjoint and passes, txn4 queues up behind txn2 on object 2
+    assertEquals(txn3, this.sequencer.getNextTxnLookupContextToProcess().getTransaction());
+    assertNull(this.sequencer.getNextTxnLookupContextToProcess());
+    assertEquals(2, this.sequencer.getStats().getBlockedTxnsCount());
+    assertEquals(1, this.sequencer.getStats().getPendingTxnsCount());
+    assertEquals(2, this.sequencer.getStats().getTxnsCount());
+
+    this.sequencer.makeUnpending(txn1);
+    assertEquals(txn2, this.sequencer.getNextTxnLookupContextToProcess().getTransaction());
+    assertEquals(txn4, this.sequencer.getNextTxnLookupContextToProcess().getTransaction());
+    assertNull(this.sequencer.getNextTxnLookupContextToProcess());
+    assertEquals(0, this.sequencer.getStats().getBlockedTxnsCount());
+    assertEquals(0, this.sequencer.getStats().getBlockedObjectsCount());
+    assertEquals(0, this.sequencer.getStats().getTxnsCount());
+  }
+
+  private ServerTransaction newTxn(int id, int startOid, int endOid) {
+    return new ServerTransactionImpl(new TxnBatchID(this.batchID), new TransactionID(id), new SequenceID(this.sqID++),
+                                     createLocks(id, id), this.clientID, createDNAs(startOid, endOid),
+                                     new ObjectStringSerializerImpl(), Collections.EMPTY_MAP, TxnType.NORMAL,
+                                     new LinkedList(), new MetaDataReader[0], 1, new long[0]);
+  }
+
   public void testRandom() {
     for (int i = 0; i < 100; i++) {
       System.err.println("Running testRandom : " + i);
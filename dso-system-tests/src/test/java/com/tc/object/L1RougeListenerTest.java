@@ -67,6 +67,7 @@ import static org.mockito.Mockito.verify;
 public class L1RougeListenerTest extends BaseDSOTestCase {
 
   private boolean originalReconnect;
+  private String  originalLaneQueueSize;
   private PreparedComponentsFromL2Connection preparedComponentsFromL2Connection;
 
   @Override
@@ -76,6 +77,8 @@ public class L1RougeListenerTest extends BaseDSOTestCase {
     originalReconnect = tcProps.getBoolean(TCPropertiesConsts.L2_L1RECONNECT_ENABLED);
     tcProps.setProperty(TCPropertiesConsts.L2_L1RECONNECT_ENABLED, "true");
     tcProps.setProperty(TCPropertiesConsts.L1_SERVER_EVENT_DELIVERY_TIMEOUT_INTERVAL, "1");
+    originalLaneQueueSize = tcProps.getProperty(TCPropertiesConsts.L1_SERVER_EVENT_DELIVERY_LANE_QUEUE_SIZE);
+    tcProps.setProperty(TCPropertiesConsts.L1_SERVER_EVENT_DELIVERY_LANE_QUEUE_SIZE, "1");
     System.setProperty("com.tc." + TCPropertiesConsts.L2_L1RECONNECT_ENABLED, "true");
   }
 
@@ -183,7 +186,7 @@ public class L1RougeListenerTest extends BaseDSOTestCase {
         new NullAbortableOperationManager(),
         rejoinManagerInternal);
 
-    ServerEventDestination dest = mock(ServerEventDestination.class);
+    ServerEventDestination dest = mock(ServerEventDestination.class, Mockito.CALLS_REAL_METHODS);
     final AtomicBoolean mockCompleted = new AtomicBoolean(false);
 
 
@@ -208,11 +211,16 @@ public class L1RougeListenerTest extends BaseDSOTestCase {
     dsoCluster.addClusterListener(mockDsoClusterListener);
     final NodeID remoteNode = new GroupID(1);
     final ServerEvent event1 = new BasicServerEvent(EVICT, "key-1", "cache1");
+    final ServerEvent event2 = new BasicServerEvent(EVICT, "key-2", "cache1");
+    final ServerEvent event3 = new BasicServerEvent(EVICT, "key-3", "cache1");
 
     Thread workerThread = new Thread(threadGroup, new Runnable() {
       @Override
       public void run() {
+        // the first event is stuck in the listener, the second fills the lane and the third times out
         client.getServerEventListenerManager().dispatch(event1, remoteNode);
+        client.getServerEventListenerManager().dispatch(event2, remoteNode);
+        client.getServerEventListenerManager().dispatch(event3, remoteNode);
       }
     });
     workerThread.start();
@@ -229,6 +237,7 @@ public class L1RougeListenerTest extends BaseDSOTestCase {
   protected synchronized void tearDown() throws Exception {
     super.tearDown();
     tcProps.setProperty(TCPropertiesConsts.L2_L1RECONNECT_ENABLED, "" + originalReconnect);
+    tcProps.setProperty(TCPropertiesConsts.L1_SERVER_EVENT_DELIVERY_LANE_QUEUE_SIZE, originalLaneQueueSize);
     System.setProperty("com.tc." + TCPropertiesConsts.L2_L1RECONNECT_ENABLED, "" + originalReconnect);
   }
 }
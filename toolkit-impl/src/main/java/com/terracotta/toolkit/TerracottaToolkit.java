@@ -52,18 +52,21 @@ import com.google.common.base.Preconditions;
 import com.tc.abortable.AbortableOperationManager;
 import com.tc.abortable.AbortedOperationException;
 import com.tc.platform.PlatformService;
+import com.tc.properties.TCPropertiesConsts;
 import com.terracotta.toolkit.abortable.ToolkitAbortableOperationException;
 import com.terracotta.toolkit.atomic.ToolkitTransactionFeatureImpl;
 import com.terracotta.toolkit.cluster.TerracottaClusterInfo;
 import com.terracotta.toolkit.collections.DestroyableToolkitList;
 import com.terracotta.toolkit.collections.DestroyableToolkitMap;
 import com.terracotta.toolkit.collections.DestroyableToolkitSortedMap;
+import com.terracotta.toolkit.collections.SegmentedToolkitMap;
 import com.terracotta.toolkit.collections.ToolkitBlockingQueueImpl;
 import com.terracotta.toolkit.collections.ToolkitMapBlockingQueue;
 import com.terracotta.toolkit.collections.ToolkitSetImpl;
 import com.terracotta.toolkit.collections.ToolkitSortedSetImpl;
 import com.terracotta.toolkit.collections.map.ToolkitCacheImpl;
 import com.terracotta.toolkit.collections.servermap.api.ehcacheimpl.EhcacheSMLocalStoreFactory;
+import com.terracotta.toolkit.collections.servermap.api.offheapimpl.OffHeapSMLocalStoreFactory;
 import com.terracotta.toolkit.concurrent.locks.ToolkitLockImpl;
 import com.terracotta.toolkit.concurrent.locks.ToolkitReadWriteLockImpl;
 import com.terracotta.toolkit.config.UnclusteredConfiguration;
@@ -97,6 +100,7 @@ import com.terracotta.toolkit.roots.impl.ToolkitTypeRootsStaticFactory;
 import com.terracotta.toolkit.search.SearchFactory;
 import com.terracotta.toolkit.search.UnsupportedSearchFactory;
 import com.terracotta.toolkit.util.ToolkitInstanceProxy;
+import com.terracotta.toolkit.util.collections.WeakValueMap;
 import com.terracotta.toolkit.util.collections.WeakValueMapManager;
 
 public class TerracottaToolkit implements ToolkitInternal {
@@ -126,6 +130,9 @@ public class TerracottaToolkit implements ToolkitInternal {
   private final boolean                                           isNonStop;
   private final ToolkitTransactionController                      transactionController;
   private final ManagementInternalFeature                         managementInternalFeature;
+  private final int                                               mapSegments;
+  private final SerializationStrategy                             serializationStrategy;
+  private final WeakValueMap<SegmentedToolkitMap>                 segmentedMaps;
 
   public TerracottaToolkit(TerracottaL1Instance tcClient, ToolkitCacheManagerProvider toolkitCacheManagerProvider,
                            boolean isNonStop, ClassLoader loader, PlatformService platformService) {
@@ -133,6 +140,7 @@ public class TerracottaToolkit implements ToolkitInternal {
     this.tcClient = tcClient;
     this.isNonStop = isNonStop;
     this.platformService = platformService;
+    this.mapSegments = platformService.getTCProperties().getInt(TCPropertiesConsts.TOOLKIT_MAP_SEGMENTS, 1);
     clusterInfoInstance = new TerracottaClusterInfo(platformService);
     SerializationStrategy strategy = createSerializationStrategy(loader);
     Object old = platformService.registerObjectByNameIfAbsent(TOOLKIT_SERIALIZER_REGISTRATION_NAME, strategy);
@@ -143,13 +151,15 @@ public class TerracottaToolkit implements ToolkitInternal {
         throw new AssertionError("Another object registered instead of serialization strategy - " + old);
       }
     }
+    this.serializationStrategy = strategy;
+    this.segmentedMaps = weakValueMapManager.createWeakValueMap();
     this.defaultToolkitCacheManager = toolkitCacheManagerProvider.getDefaultCacheManager();
 
     ToolkitFactoryInitializationContextBuilder builder = new ToolkitFactoryInitializationContextBuilder();
     final ToolkitFactoryInitializationContext context = builder.weakValueMapManager(weakValueMapManager)
         .platformService(platformService)
         .toolkitTypeRootsFactory(new ToolkitTypeRootsStaticFactory(weakValueMapManager))
-        .serverMapLocalStoreFactory(new EhcacheSMLocalStoreFactory(defaultToolkitCacheManager))
+        .serverMapLocalStoreFactory(new OffHeapSMLocalStoreFactory(new EhcacheSMLocalStoreFactory(defaultToolkitCacheManager)))
         .searchFactory(createSearchFactory()).build();
 
     lockFactory = new ToolkitLockFactoryImpl(context);
@@ -220,9 +230,20 @@ public class TerracottaToolkit implements ToolkitInternal {
 
   @Override
   public <K, V> ToolkitMap<K, V> getMap(String name, Class<K> keyKlazz, Class<V> valueKlazz) {
+    if (mapSegments > 1) { return getOrCreateSegmentedMap(name); }
     return clusteredMapFactory.getOrCreate(name, null);
   }
 
+  @SuppressWarnings("unchecked")
+  private synchronized <K, V> ToolkitMap<K, V> getOrCreateSegmentedMap(String name) {
+    SegmentedToolkitMap<K, V> map = segmentedMaps.get(name);
+    if (map == null || map.isDestroyed()) {
+      map = new SegmentedToolkitMap<K, V>(clusteredMapFactory, serializationStrategy, name, mapSegments);
+      segmentedMaps.put(name, map);
+    }
+    return map;
+  }
+
   @Override
   public <K extends Comparable<? super K>, V> ToolkitSortedMap<K, V> getSortedMap(String name, Class<K> keyKlazz,
                                                                                   Class<V> valueKlazz) {
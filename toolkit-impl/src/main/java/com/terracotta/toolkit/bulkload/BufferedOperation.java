@@ -34,6 +34,12 @@ public interface BufferedOperation<T> {
 
   long getVersion();
 
+  /**
+   * Approximate number of bytes this operation will put on the wire, i.e. the serialized value plus the key. Used for
+   * batching and throttling instead of walking the object graph.
+   */
+  int getSizeInBytes();
+
   public static enum Type {
     PUT, PUT_IF_ABSENT, REMOVE
   }
@@ -16,8 +16,6 @@
  */
 package com.terracotta.toolkit.bulkload;
 
-import net.sf.ehcache.pool.SizeOfEngine;
-import net.sf.ehcache.pool.impl.DefaultSizeOfEngine;
 import org.terracotta.toolkit.rejoin.RejoinException;
 
 import com.tc.exception.TCNotRunningException;
@@ -48,7 +46,6 @@ import static com.google.common.base.Preconditions.checkState;
  */
 public class LocalBufferedMap<K, V> {
   private static final TCLogger          LOGGER                     = TCLogging.getLogger(LocalBufferedMap.class);
-  private static final int               MAX_SIZEOF_DEPTH           = 1000;
 
   private static final int               LOCAL_MAP_INITIAL_CAPACITY = 128;
   private static final float             LOCAL_MAP_LOAD_FACTOR      = 0.75f;
@@ -68,7 +65,6 @@ public class LocalBufferedMap<K, V> {
   private final Runnable                 flushRunnable;
 
   private final AtomicLong               pendingOpsByteSize         = new AtomicLong();
-  private final SizeOfEngine             sizeOfEngine;
   private final ReadWriteLock            bufferSwitchLock           = new ReentrantReadWriteLock();
   private final Condition                bufferFullCondition        = bufferSwitchLock.writeLock().newCondition();
 
@@ -92,7 +88,6 @@ public class LocalBufferedMap<K, V> {
         doPeriodicFlush();
       }
     };
-    sizeOfEngine = new DefaultSizeOfEngine(MAX_SIZEOF_DEPTH, true);
     putsBatchByteSize = bulkloadConstants.getBatchedPutsBatchBytes();
     batchTimeMillis = bulkloadConstants.getBatchedPutsBatchTimeMillis();
     throttlePutsByteSize = bulkloadConstants.getBatchedPutsThrottlePutsAtByteSize();
@@ -139,12 +134,8 @@ public class LocalBufferedMap<K, V> {
     try {
       checkBuffering();
       BufferedOperation<V> old = collectBuffer.put(key, remove);
-      if (old == null) {
-        pendingOpsByteSize.addAndGet(sizeOfEngine.sizeOf(key, null, null).getCalculated());
-        return null;
-      } else {
-        return old.getValue();
-      }
+      pendingOpsByteSize.addAndGet(sizeDelta(remove, old));
+      return old == null ? null : old.getValue();
     } finally {
       readUnlock();
     }
@@ -257,9 +248,7 @@ public class LocalBufferedMap<K, V> {
     try {
       checkBuffering();
       rv = collectBuffer.put(key, wrappedValue);
-      if (rv == null) {
-        pendingOpsByteSize.addAndGet(sizeOfEngine.sizeOf(key, value, null).getCalculated());
-      }
+      pendingOpsByteSize.addAndGet(sizeDelta(wrappedValue, rv));
     } finally {
       readUnlock();
     }
@@ -277,7 +266,7 @@ public class LocalBufferedMap<K, V> {
       checkBuffering();
       rv = collectBuffer.putIfAbsent(key, wrappedValue);
       if (rv == null) {
-        pendingOpsByteSize.addAndGet(sizeOfEngine.sizeOf(key, value, null).getCalculated());
+        pendingOpsByteSize.addAndGet(wrappedValue.getSizeInBytes());
       }
     } finally {
       readUnlock();
@@ -285,6 +274,11 @@ public class LocalBufferedMap<K, V> {
     return rv == null ? null : rv.getValue();
   }
 
+  // a replaced operation never reaches the server, so only the difference counts towards the batch
+  private static long sizeDelta(BufferedOperation<?> added, BufferedOperation<?> replaced) {
+    return replaced == null ? added.getSizeInBytes() : added.getSizeInBytes() - replaced.getSizeInBytes();
+  }
+
   private void throttleIfNecessary() {
     if (pendingOpsByteSize.get() <= throttlePutsByteSize) {
       // check is a bit racy, but it's "close enough". We just want to avoid the writeLock in most cases.
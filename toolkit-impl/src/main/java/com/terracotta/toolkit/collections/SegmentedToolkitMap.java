@@ -0,0 +1,373 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.terracotta.toolkit.collections;
+
+import org.terracotta.toolkit.collections.ToolkitMap;
+import org.terracotta.toolkit.concurrent.locks.ToolkitReadWriteLock;
+
+import com.terracotta.toolkit.concurrent.locks.StripedToolkitReadWriteLock;
+import com.terracotta.toolkit.factory.ToolkitObjectFactory;
+import com.terracotta.toolkit.object.serialization.SerializationStrategy;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A {@link ToolkitMap} split by key hash into segments that are clustered maps of their own. Each segment has its own
+ * lock, so operations on keys of different segments do not contend, and a segment is only looked up, and so faulted
+ * in, the first time one of its keys is used. Segment 0 is the map of the given name itself, a map with a single
+ * segment is the same as a plain toolkit map.
+ * <p>
+ * Keys are routed on the hash of their serialized string form rather than {@link Object#hashCode()}, which is not
+ * guaranteed to be the same on every node (enums, or any key hashing an enum or identity hashed field).
+ * <p>
+ * Operations spanning the whole map, like {@link #size()}, {@link #clear()} or iterating, go over the segments one by
+ * one and are not atomic, unless {@link #getReadWriteLock()} is held, which takes the locks of all segments.
+ */
+public class SegmentedToolkitMap<K, V> implements ToolkitMap<K, V> {
+
+  static final String                                     SEGMENT_SEPARATOR = "|segment-";
+
+  private final ToolkitObjectFactory<? extends ToolkitMap> factory;
+  private final SerializationStrategy                      strategy;
+  private final String                                    name;
+  private final AtomicReferenceArray<ToolkitMap<K, V>>    segments;
+  private volatile ToolkitReadWriteLock                   lock;
+
+  public SegmentedToolkitMap(ToolkitObjectFactory<? extends ToolkitMap> factory, SerializationStrategy strategy,
+                             String name, int segmentCount) {
+    if (segmentCount <= 0) { throw new IllegalArgumentException("segmentCount: " + segmentCount); }
+    this.factory = factory;
+    this.strategy = strategy;
+    this.name = name;
+    this.segments = new AtomicReferenceArray<ToolkitMap<K, V>>(segmentCount);
+  }
+
+  static String segmentName(String name, int index) {
+    return index == 0 ? name : name + SEGMENT_SEPARATOR + index;
+  }
+
+  @SuppressWarnings("unchecked")
+  private ToolkitMap<K, V> segment(int index) {
+    ToolkitMap<K, V> segment = segments.get(index);
+    if (segment == null) {
+      // the factory hands out the same instance for a name, so racing lookups agree
+      segment = factory.getOrCreate(segmentName(name, index), null);
+      segments.lazySet(index, segment);
+    }
+    return segment;
+  }
+
+  private int segmentIndex(Object key) {
+    // string keys serialize to themselves, so the common case costs no more than hashCode()
+    int h = strategy.serializeToString(key).hashCode();
+    h ^= h >>> 16;
+    return (h & Integer.MAX_VALUE) % segments.length();
+  }
+
+  private ToolkitMap<K, V> segmentFor(Object key) {
+    return segment(segmentIndex(key));
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public ToolkitReadWriteLock getReadWriteLock() {
+    ToolkitReadWriteLock rwLock = lock;
+    if (rwLock == null) {
+      // segments are only faulted in once the lock is first taken
+      rwLock = new StripedToolkitReadWriteLock(name, new StripedToolkitReadWriteLock.Stripes() {
+        @Override
+        public int count() {
+          return segments.length();
+        }
+
+        @Override
+        public ToolkitReadWriteLock get(int index) {
+          return segment(index).getReadWriteLock();
+        }
+      });
+      lock = rwLock;
+    }
+    return rwLock;
+  }
+
+  /**
+   * Destroyed as soon as any segment is. Only segments already looked up are checked, one that was never used here
+   * would just be created again.
+   */
+  @Override
+  public boolean isDestroyed() {
+    for (int i = 0; i < segments.length(); i++) {
+      ToolkitMap<K, V> segment = segments.get(i);
+      if (segment != null && segment.isDestroyed()) { return true; }
+    }
+    return false;
+  }
+
+  @Override
+  public void destroy() {
+    for (int i = 0; i < segments.length(); i++) {
+      segment(i).destroy();
+    }
+  }
+
+  @Override
+  public int size() {
+    int size = 0;
+    for (int i = 0; i < segments.length(); i++) {
+      size += segment(i).size();
+    }
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    for (int i = 0; i < segments.length(); i++) {
+      if (!segment(i).isEmpty()) { return false; }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return segmentFor(key).containsKey(key);
+  }
+
+  @Override
+  public boolean containsValue(Object value) {
+    for (int i = 0; i < segments.length(); i++) {
+      if (segment(i).containsValue(value)) { return true; }
+    }
+    return false;
+  }
+
+  @Override
+  public V get(Object key) {
+    return segmentFor(key).get(key);
+  }
+
+  @Override
+  public V put(K key, V value) {
+    return segmentFor(key).put(key, value);
+  }
+
+  @Override
+  public V remove(Object key) {
+    return segmentFor(key).remove(key);
+  }
+
+  @Override
+  public void putAll(Map<? extends K, ? extends V> m) {
+    // one putAll, and so one lock, per segment
+    List<Map<K, V>> bySegment = new ArrayList<Map<K, V>>(segments.length());
+    for (int i = 0; i < segments.length(); i++) {
+      bySegment.add(null);
+    }
+    for (Entry<? extends K, ? extends V> entry : m.entrySet()) {
+      int index = segmentIndex(entry.getKey());
+      Map<K, V> entries = bySegment.get(index);
+      if (entries == null) {
+        entries = new HashMap<K, V>();
+        bySegment.set(index, entries);
+      }
+      entries.put(entry.getKey(), entry.getValue());
+    }
+    for (int i = 0; i < segments.length(); i++) {
+      if (bySegment.get(i) != null) {
+        segment(i).putAll(bySegment.get(i));
+      }
+    }
+  }
+
+  @Override
+  public void clear() {
+    for (int i = 0; i < segments.length(); i++) {
+      segment(i).clear();
+    }
+  }
+
+  @Override
+  public V putIfAbsent(K key, V value) {
+    return segmentFor(key).putIfAbsent(key, value);
+  }
+
+  @Override
+  public boolean remove(Object key, Object value) {
+    return segmentFor(key).remove(key, value);
+  }
+
+  @Override
+  public V replace(K key, V value) {
+    return segmentFor(key).replace(key, value);
+  }
+
+  @Override
+  public boolean replace(K key, V oldValue, V newValue) {
+    return segmentFor(key).replace(key, oldValue, newValue);
+  }
+
+  @Override
+  public Set<K> keySet() {
+    return new AbstractSet<K>() {
+      @Override
+      public Iterator<K> iterator() {
+        return new SegmentsIterator<K>() {
+          @Override
+          Iterator<K> iteratorOf(ToolkitMap<K, V> segment) {
+            return segment.keySet().iterator();
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return SegmentedToolkitMap.this.size();
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return containsKey(o);
+      }
+
+      @Override
+      public boolean remove(Object o) {
+        return SegmentedToolkitMap.this.remove(o) != null;
+      }
+
+      @Override
+      public void clear() {
+        SegmentedToolkitMap.this.clear();
+      }
+    };
+  }
+
+  @Override
+  public Collection<V> values() {
+    return new AbstractCollection<V>() {
+      @Override
+      public Iterator<V> iterator() {
+        return new SegmentsIterator<V>() {
+          @Override
+          Iterator<V> iteratorOf(ToolkitMap<K, V> segment) {
+            return segment.values().iterator();
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return SegmentedToolkitMap.this.size();
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return containsValue(o);
+      }
+
+      @Override
+      public void clear() {
+        SegmentedToolkitMap.this.clear();
+      }
+    };
+  }
+
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    return new AbstractSet<Entry<K, V>>() {
+      @Override
+      public Iterator<Entry<K, V>> iterator() {
+        return new SegmentsIterator<Entry<K, V>>() {
+          @Override
+          Iterator<Entry<K, V>> iteratorOf(ToolkitMap<K, V> segment) {
+            return segment.entrySet().iterator();
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return SegmentedToolkitMap.this.size();
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        if (!(o instanceof Entry)) { return false; }
+        Entry<?, ?> e = (Entry<?, ?>) o;
+        V value = get(e.getKey());
+        return value != null && value.equals(e.getValue());
+      }
+
+      @Override
+      public boolean remove(Object o) {
+        if (!(o instanceof Entry)) { return false; }
+        Entry<?, ?> e = (Entry<?, ?>) o;
+        return SegmentedToolkitMap.this.remove(e.getKey(), e.getValue());
+      }
+
+      @Override
+      public void clear() {
+        SegmentedToolkitMap.this.clear();
+      }
+    };
+  }
+
+  /**
+   * Iterates the segments one after the other, only looking a segment up once the previous ones are done.
+   */
+  private abstract class SegmentsIterator<T> implements Iterator<T> {
+    private int         nextSegment;
+    private Iterator<T> current;
+    private Iterator<T> last;
+
+    abstract Iterator<T> iteratorOf(ToolkitMap<K, V> segment);
+
+    @Override
+    public boolean hasNext() {
+      while ((current == null || !current.hasNext()) && nextSegment < segments.length()) {
+        current = iteratorOf(segment(nextSegment++));
+      }
+      return current != null && current.hasNext();
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) { throw new NoSuchElementException(); }
+      last = current;
+      return current.next();
+    }
+
+    @Override
+    public void remove() {
+      if (last == null) { throw new IllegalStateException(); }
+      last.remove();
+      last = null;
+    }
+  }
+}
@@ -36,6 +36,7 @@ import org.terracotta.toolkit.store.ToolkitConfigFields;
 import org.terracotta.toolkit.store.ToolkitConfigFields.Consistency;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.SetMultimap;
 import com.tc.abortable.AbortedOperationException;
@@ -91,6 +92,7 @@ public class ServerMap<K, V> extends AbstractTCToolkitObject implements Internal
   private static final Object[]                             NO_ARGS             = new Object[0];
   private static final String                               LOCK_PREFIX         = "__servermap@lock-";
   private static final String                               KEY_LOCK_PREFIX     = LOCK_PREFIX + "key-";
+  private static final int                                  KEY_OVERHEAD_BYTES  = 16;
 
   private final ToolkitLock                                 expireConcurrentLock;
   private final ToolkitLock                                 eventualConcurrentLock;
@@ -120,6 +122,7 @@ public class ServerMap<K, V> extends AbstractTCToolkitObject implements Internal
   private volatile ToolkitAttributeExtractor                attrExtractor       = ToolkitAttributeExtractor.NULL_EXTRACTOR;
 
   private final ToolkitLock                                 updateLastAccessTimeLock;
+  private final int                                         iterationPageSize;
   
   public ServerMap(Configuration config, String name, PlatformService platformService) {
     super(platformService);
@@ -129,6 +132,8 @@ public class ServerMap<K, V> extends AbstractTCToolkitObject implements Internal
     this.eventualConcurrentLock = ToolkitLockingApi
         .createConcurrentTransactionLock("servermap-static-eventual-concurrent-lock", platformService);
     this.debugExpiration = new TerracottaProperties(platformService).getBoolean("servermap.expiration.debug", false);
+    this.iterationPageSize = new TerracottaProperties(platformService)
+        .getInteger(TCPropertiesConsts.TOOLKIT_MAP_ITERATION_PAGE_SIZE, 1000);
     String consistencyStr = (String) InternalCacheConfigurationType.CONSISTENCY.getExistingValueOrException(config);
     this.consistency = Consistency.valueOf(consistencyStr);
     ToolkitLockTypeInternal tmpLockType = null;
@@ -744,7 +749,32 @@ public class ServerMap<K, V> extends AbstractTCToolkitObject implements Internal
       throw new RejoinException(e);
     }
     keySet.removeAll(filterSet);
-    return new ServerMapEntrySet<K, V>(this, keySet);
+    // eventual values can be faulted in bulk, strong ones are each read under their key lock
+    return new ServerMapEntrySet<K, V>(this, keySet, isEventual() ? iterationPageSize : 1);
+  }
+
+  /**
+   * Gets the values of the keys without locking, faulting all those not cached locally with a single request.
+   */
+  Map<K, V> getAllUnlocked(Collection<K> keys) {
+    final SetMultimap<ObjectID, Object> mapIdToKeys = HashMultimap.create();
+    final ObjectID mapID = tcObjectServerMap.getObjectID();
+    for (K key : keys) {
+      mapIdToKeys.put(mapID, assertKeyLiteral(key));
+    }
+    final Map<Object, Object> values;
+    try {
+      values = tcObjectServerMap.getAllValuesUnlocked(mapIdToKeys);
+    } catch (AbortedOperationException e) {
+      throw new ToolkitAbortableOperationException(e);
+    } catch (PlatformRejoinException e) {
+      throw new RejoinException(e);
+    }
+    final Map<K, V> rv = new HashMap<K, V>(values.size());
+    for (K key : keys) {
+      rv.put(key, checkAndGetNonExpiredValue(key, values.get(key), GetType.UNLOCKED, false));
+    }
+    return rv;
   }
 
   private void assertNotNull(final Object value) {
@@ -916,30 +946,14 @@ public class ServerMap<K, V> extends AbstractTCToolkitObject implements Internal
           return valueObject;
         }
 
-        eventualConcurrentLock.lock();
-        try {
-          SerializedMapValue serializedMapValue = createSerializedMapValue(value, createTimeInSecs,
-                                                                           customMaxTTISeconds, customMaxTTLSeconds);
-          MetaData metaData = createPutSearchMetaData(portableKey, value);
-          MetaDataDescriptor mdd = null;
-          if (metaData != null) {
-            metaData.set(SearchMetaData.COMMAND, SearchCommand.PUT_IF_ABSENT);
-            metaData.add(SearchMetaData.VALUE, serializedMapValue.getObjectID());
-            mdd = getMetaDataDescriptor(metaData);
-          }
-
-          if (this.tcObjectServerMap.doLogicalPutIfAbsentUnlocked(this, portableKey, serializedMapValue, mdd)) {
-            return null;
-          } else {
-            Object existingMapping = doLogicalGetValueUnlocked(portableKey);
-            if (existingMapping != null) {
-              return deserialize(key, asSerializedMapValue(existingMapping));
-            }
+        if (doLogicalPutIfAbsentUnlocked(portableKey, value, createTimeInSecs, customMaxTTISeconds,
+                                         customMaxTTLSeconds)) {
+          return null;
+        } else {
+          Object existingMapping = doLogicalGetValueUnlocked(portableKey);
+          if (existingMapping != null) {
+            return deserialize(key, asSerializedMapValue(existingMapping));
           }
-        } catch (AbortedOperationException e) {
-          throw new ToolkitAbortableOperationException();
-        } finally {
-          eventualConcurrentLock.unlock();
         }
 
         if (retryCount % 10 == 0) {
@@ -968,6 +982,27 @@ public class ServerMap<K, V> extends AbstractTCToolkitObject implements Internal
     }
   }
 
+  private boolean doLogicalPutIfAbsentUnlocked(K portableKey, V value, int createTimeInSecs, int customMaxTTISeconds,
+                                               int customMaxTTLSeconds) {
+    eventualConcurrentLock.lock();
+    try {
+      SerializedMapValue serializedMapValue = createSerializedMapValue(value, createTimeInSecs, customMaxTTISeconds,
+                                                                       customMaxTTLSeconds);
+      MetaData metaData = createPutSearchMetaData(portableKey, value);
+      MetaDataDescriptor mdd = null;
+      if (metaData != null) {
+        metaData.set(SearchMetaData.COMMAND, SearchCommand.PUT_IF_ABSENT);
+        metaData.add(SearchMetaData.VALUE, serializedMapValue.getObjectID());
+        mdd = getMetaDataDescriptor(metaData);
+      }
+      return this.tcObjectServerMap.doLogicalPutIfAbsentUnlocked(this, portableKey, serializedMapValue, mdd);
+    } catch (AbortedOperationException e) {
+      throw new ToolkitAbortableOperationException();
+    } finally {
+      eventualConcurrentLock.unlock();
+    }
+  }
+
   /**
    * implemented in ClusteredMapImpl and direct call to TCObjectServerMap, bypassed ServerMap for this operation
    */
@@ -1172,36 +1207,16 @@ public class ServerMap<K, V> extends AbstractTCToolkitObject implements Internal
     assertNotNull(newValue);
     throttleIfNecessary();
 
-    MetaData metaData;
     if (isEventual()) {
       SerializedMapValue<V> oldSerializedMapValue = asSerializedMapValue(doLogicalGetValueUnlocked(key));
       final V old = deserialize(key, oldSerializedMapValue);
       if (old != null && compare(oldValue, old, comparator)) {
-        metaData = createMetaDataAndSetCommand(key, newValue, SearchCommand.REPLACE);
-        eventualConcurrentLock.lock();
-        try {
-          SerializedMapValue newSerializedMapValue = createSerializedMapValue(newValue, timeSource.nowInSeconds(),
-                                                                              ToolkitConfigFields.NO_MAX_TTI_SECONDS,
-                                                                              ToolkitConfigFields.NO_MAX_TTL_SECONDS);
-          MetaDataDescriptor mdd = null;
-          if (metaData != null) {
-            metaData.add(SearchMetaData.PREV_VALUE, oldSerializedMapValue.getObjectID());
-            metaData.add(SearchMetaData.VALUE, newSerializedMapValue.getObjectID());
-            mdd = getMetaDataDescriptor(metaData);
-          }
-          return this.tcObjectServerMap.doLogicalReplaceUnlocked(this, key, oldSerializedMapValue,
-                                                                 newSerializedMapValue, mdd);
-
-        } catch (AbortedOperationException e) {
-          throw new ToolkitAbortableOperationException();
-        } finally {
-          eventualConcurrentLock.unlock();
-        }
+        return doLogicalReplaceUnlocked(key, oldSerializedMapValue, newValue);
       } else {
         return false;
       }
     } else {
-      metaData = createPutSearchMetaData(key, newValue);
+      MetaData metaData = createPutSearchMetaData(key, newValue);
       if (metaData != null) {
         metaData.set(SearchMetaData.COMMAND, SearchCommand.PUT);
       }
@@ -1224,6 +1239,32 @@ public class ServerMap<K, V> extends AbstractTCToolkitObject implements Internal
     }
   }
 
+  /**
+   * Replaces the value of the key if it is still the serialized value the caller read without locking.
+   */
+  private boolean doLogicalReplaceUnlocked(final K key, final SerializedMapValue oldSerializedMapValue,
+                                           final V newValue) {
+    MetaData metaData = createMetaDataAndSetCommand(key, newValue, SearchCommand.REPLACE);
+    eventualConcurrentLock.lock();
+    try {
+      SerializedMapValue newSerializedMapValue = createSerializedMapValue(newValue, timeSource.nowInSeconds(),
+                                                                          ToolkitConfigFields.NO_MAX_TTI_SECONDS,
+                                                                          ToolkitConfigFields.NO_MAX_TTL_SECONDS);
+      MetaDataDescriptor mdd = null;
+      if (metaData != null) {
+        metaData.add(SearchMetaData.PREV_VALUE, oldSerializedMapValue.getObjectID());
+        metaData.add(SearchMetaData.VALUE, newSerializedMapValue.getObjectID());
+        mdd = getMetaDataDescriptor(metaData);
+      }
+      return this.tcObjectServerMap.doLogicalReplaceUnlocked(this, key, oldSerializedMapValue, newSerializedMapValue,
+                                                             mdd);
+    } catch (AbortedOperationException e) {
+      throw new ToolkitAbortableOperationException();
+    } finally {
+      eventualConcurrentLock.unlock();
+    }
+  }
+
   @Override
   public void unlockedClear() {
     tcObjectServerMap.doClear(this);
@@ -1797,12 +1838,14 @@ public class ServerMap<K, V> extends AbstractTCToolkitObject implements Internal
     private final T    value;
     private final long version;
     private final SerializedMapValueParameters<T> smvParams;
+    private final int  sizeInBytes;
 
-    Operation(Type type, T value, long version, int createTimeInSecs, int customMaxTTISeconds, int customMaxTTLSeconds) {
+    Operation(Type type, Object key, T value, long version, int createTimeInSecs, int customMaxTTISeconds, int customMaxTTLSeconds) {
       this.type = type;
       this.value = value;
       this.version = version;
       smvParams = type != Type.REMOVE ? createSerializedMapValueParameters(value, createTimeInSecs, customMaxTTISeconds, customMaxTTLSeconds) : null;
+      sizeInBytes = keySizeInBytes(key) + (smvParams == null ? 0 : smvParams.getSerialized().length);
     }
 
     @Override
@@ -1841,11 +1884,22 @@ public class ServerMap<K, V> extends AbstractTCToolkitObject implements Internal
       return version;
     }
 
+    @Override
+    public int getSizeInBytes() {
+      return sizeInBytes;
+    }
+
     SerializedMapValueParameters<T> getSerializedMapValueParams() {
       return smvParams;
     }
   }
 
+  // keys are literals by the time they get here, only strings are worth measuring
+  private static int keySizeInBytes(Object key) {
+    if (key instanceof String) { return KEY_OVERHEAD_BYTES + 2 * ((String) key).length(); }
+    return KEY_OVERHEAD_BYTES;
+  }
+
   private class StringLockStrategy implements LockStrategy {
 
     public StringLockStrategy() {
@@ -1954,6 +2008,6 @@ public class ServerMap<K, V> extends AbstractTCToolkitObject implements Internal
   @Override
   public BufferedOperation<V> createBufferedOperation(final BufferedOperation.Type type, final K key, final V value,
                                                       final long version, final int createTimeInSecs, final int customMaxTTISeconds, final int customMaxTTLSeconds) {
-    return new Operation<V>(type, value, version, createTimeInSecs, customMaxTTISeconds, customMaxTTLSeconds);
+    return new Operation<V>(type, key, value, version, createTimeInSecs, customMaxTTISeconds, customMaxTTLSeconds);
   }
 }
@@ -17,7 +17,10 @@
 package com.terracotta.toolkit.collections.map;
 
 import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
@@ -27,15 +30,24 @@ public class ServerMapEntrySet<K, V> extends AbstractSet<Entry<K, V>> {
 
   private final ServerMap<K, V> map;
   private final Set<K>          keys;
+  private final int             pageSize;
 
   public ServerMapEntrySet(ServerMap<K, V> clusteredMap, final Set<K> keys) {
+    this(clusteredMap, keys, 1);
+  }
+
+  /**
+   * @param pageSize number of values faulted with one unlocked request while iterating, 1 gets them one at a time
+   */
+  public ServerMapEntrySet(ServerMap<K, V> clusteredMap, final Set<K> keys, int pageSize) {
     this.map = clusteredMap;
     this.keys = keys;
+    this.pageSize = pageSize;
   }
 
   @Override
   public Iterator<Entry<K, V>> iterator() {
-    return new EntryIterator<K, V>(map, this.keys.iterator());
+    return new EntryIterator<K, V>(map, this.keys.iterator(), pageSize);
   }
 
   @Override
@@ -69,27 +81,59 @@ public class ServerMapEntrySet<K, V> extends AbstractSet<Entry<K, V>> {
      */
     private final ServerMap<T, D> map;
     private final Iterator<T>     delegateKeySet;
+    private final int             pageSize;
+    private final List<T>         pageKeys;
+    private Iterator<T>           page        = Collections.<T> emptyIterator();
+    private Map<T, D>             pageValues  = Collections.emptyMap();
     private Entry<T, D>           nextEntry;
     private Entry<T, D>           currentEntry;
 
-    public EntryIterator(ServerMap<T, D> clusteredMap, final Iterator<T> delegateKeySet) {
+    public EntryIterator(ServerMap<T, D> clusteredMap, final Iterator<T> delegateKeySet, int pageSize) {
       this.map = clusteredMap;
       this.delegateKeySet = delegateKeySet;
+      this.pageSize = pageSize;
+      this.pageKeys = pageSize > 1 ? new ArrayList<T>(pageSize) : null;
       advance();
     }
 
     private void advance() {
       nextEntry = null;
 
-      while (delegateKeySet.hasNext()) {
-        T key = delegateKeySet.next();
-        D value = map.get(key);
-        if (value == null) {
-          continue;
+      if (pageKeys == null) {
+        while (delegateKeySet.hasNext()) {
+          T key = delegateKeySet.next();
+          D value = map.get(key);
+          if (value == null) {
+            continue;
+          }
+          nextEntry = new ServerMapEntry<T, D>(map, key, value);
+          break;
+        }
+        return;
+      }
+
+      while (true) {
+        if (!page.hasNext()) {
+          if (!delegateKeySet.hasNext()) { return; }
+          fetchPage();
         }
-        nextEntry = new ServerMapEntry<T, D>(map, key, value);
-        break;
+        T key = page.next();
+        D value = pageValues.get(key);
+        if (value != null) {
+          nextEntry = new ServerMapEntry<T, D>(map, key, value);
+          return;
+        }
+      }
+    }
+
+    // faults the values of the next page of keys with a single request
+    private void fetchPage() {
+      pageKeys.clear();
+      while (pageKeys.size() < pageSize && delegateKeySet.hasNext()) {
+        pageKeys.add(delegateKeySet.next());
       }
+      pageValues = map.getAllUnlocked(pageKeys);
+      page = pageKeys.iterator();
     }
 
     @Override
@@ -0,0 +1,491 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.terracotta.toolkit.collections.servermap.api.offheapimpl;
+
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
+import com.terracotta.toolkit.collections.servermap.api.ServerMapLocalStore;
+import com.terracotta.toolkit.collections.servermap.api.ServerMapLocalStoreFullException;
+import com.terracotta.toolkit.collections.servermap.api.ServerMapLocalStoreListener;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link ServerMapLocalStore} that keeps values serialized in direct memory slabs so large local caches do not add to
+ * the heap the collector has to trace.
+ * <p>
+ * Keys stay on heap in a hash index striped over a fixed number of segments. Each segment owns its own slabs, bounded
+ * to an equal share of the configured byte budget, and evicts with a clock sweep (entries read since the hand last
+ * passed get a second chance) when it runs out of space. Evicted entries are handed to the registered listeners just
+ * like the Ehcache backed store does. The store is bounded by bytes only, the local heap limits are just remembered.
+ * <p>
+ * Every get returns a freshly deserialized copy of the stored value, so in-place mutations of a returned value are not
+ * seen by the store and {@link #recalculateSize(Object)} has nothing to do.
+ */
+public class OffHeapSMLocalStore implements ServerMapLocalStore<Object, Object> {
+
+  private static final TCLogger                                LOGGER    = TCLogging.getLogger(OffHeapSMLocalStore.class);
+
+  private final Segment[]                                      segments;
+  private final List<ServerMapLocalStoreListener<Object, Object>> listeners = new CopyOnWriteArrayList<ServerMapLocalStoreListener<Object, Object>>();
+  private final boolean                                        pinned;
+  private final ClassLoader                                    loader;
+  private volatile int                                         maxEntries;
+  private volatile long                                        maxBytesLocalHeap;
+  private volatile boolean                                     disposed;
+
+  public OffHeapSMLocalStore(long maxBytes, int segmentCount, int slabSize, boolean pinned, ClassLoader loader) {
+    int count = Integer.highestOneBit(Math.max(1, segmentCount));
+    long segmentBytes = Math.max(maxBytes / count, 1);
+    // the allocator shrinks slabs bigger than the segment's share of the budget
+    int segmentSlabSize = Integer.highestOneBit(Math.max(slabSize, 1 << OffHeapSlabAllocator.MIN_CHUNK_SHIFT));
+    this.segments = new Segment[count];
+    for (int i = 0; i < count; i++) {
+      segments[i] = new Segment(new OffHeapSlabAllocator(segmentSlabSize, segmentBytes));
+    }
+    this.pinned = pinned;
+    this.loader = loader;
+  }
+
+  @Override
+  public Object put(Object key, Object value) throws ServerMapLocalStoreFullException {
+    if (disposed) { return null; }
+    byte[] data = serialize(value);
+    Segment segment = segmentFor(key);
+    List<Entry> evicted = new ArrayList<Entry>();
+    byte[] old;
+    segment.lock();
+    try {
+      old = segment.put(key, data, pinned, evicted);
+    } finally {
+      segment.unlock();
+      notifyEvicted(evicted);
+    }
+    return deserialize(old);
+  }
+
+  @Override
+  public Object get(Object key) {
+    if (disposed) { return null; }
+    Segment segment = segmentFor(key);
+    byte[] data;
+    segment.lock();
+    try {
+      data = segment.read(key);
+    } finally {
+      segment.unlock();
+    }
+    return deserialize(data);
+  }
+
+  @Override
+  public Object remove(Object key) {
+    if (disposed) { return null; }
+    Segment segment = segmentFor(key);
+    byte[] data;
+    segment.lock();
+    try {
+      data = segment.remove(key);
+    } finally {
+      segment.unlock();
+    }
+    return deserialize(data);
+  }
+
+  @Override
+  public Object remove(Object key, Object value) {
+    if (disposed) { return null; }
+    Segment segment = segmentFor(key);
+    Entry entry;
+    byte[] data;
+    segment.lock();
+    try {
+      entry = segment.map.get(key);
+      data = entry == null ? null : segment.allocator.read(entry.address, entry.length);
+    } finally {
+      segment.unlock();
+    }
+    Object current = deserialize(data);
+    if (current == null || !value.equals(current)) { return null; }
+
+    segment.lock();
+    try {
+      // only remove if nobody replaced the mapping while we were comparing
+      if (segment.map.get(key) != entry) { return null; }
+      segment.remove(key);
+      return current;
+    } finally {
+      segment.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    for (Segment segment : segments) {
+      segment.lock();
+      try {
+        segment.clear();
+      } finally {
+        segment.unlock();
+      }
+    }
+  }
+
+  @Override
+  public void cleanLocalState() {
+    // nothing is notified on clear anyway
+    clear();
+  }
+
+  @Override
+  public boolean addListener(ServerMapLocalStoreListener<Object, Object> listener) {
+    return listeners.add(listener);
+  }
+
+  @Override
+  public boolean removeListener(ServerMapLocalStoreListener<Object, Object> listener) {
+    return listeners.remove(listener);
+  }
+
+  @Override
+  public List<Object> getKeys() {
+    List<Object> keys = new ArrayList<Object>();
+    for (Segment segment : segments) {
+      segment.lock();
+      try {
+        keys.addAll(segment.map.keySet());
+      } finally {
+        segment.unlock();
+      }
+    }
+    return keys;
+  }
+
+  @Override
+  public int getMaxEntriesLocalHeap() {
+    return maxEntries;
+  }
+
+  @Override
+  public void setMaxEntriesLocalHeap(int newMaxEntriesLocalHeap) {
+    // entries never live on heap, only remembered for reporting
+    this.maxEntries = newMaxEntriesLocalHeap;
+  }
+
+  @Override
+  public void setMaxBytesLocalHeap(long newMaxBytesLocalHeap) {
+    // values never live on heap, only remembered for reporting
+    this.maxBytesLocalHeap = newMaxBytesLocalHeap;
+  }
+
+  @Override
+  public long getMaxBytesLocalHeap() {
+    return maxBytesLocalHeap;
+  }
+
+  @Override
+  public int getOffHeapSize() {
+    return getSize();
+  }
+
+  @Override
+  public int getOnHeapSize() {
+    return 0;
+  }
+
+  @Override
+  public int getSize() {
+    int size = 0;
+    for (Segment segment : segments) {
+      size += segment.size;
+    }
+    return size;
+  }
+
+  @Override
+  public long getOnHeapSizeInBytes() {
+    return 0;
+  }
+
+  @Override
+  public long getOffHeapSizeInBytes() {
+    long bytes = 0;
+    for (Segment segment : segments) {
+      bytes += segment.allocatedBytes;
+    }
+    return bytes;
+  }
+
+  @Override
+  public void dispose() {
+    disposed = true;
+    clear();
+  }
+
+  boolean isDisposed() {
+    return disposed;
+  }
+
+  @Override
+  public boolean containsKeyOnHeap(Object key) {
+    return false;
+  }
+
+  @Override
+  public boolean containsKeyOffHeap(Object key) {
+    Segment segment = segmentFor(key);
+    segment.lock();
+    try {
+      return segment.map.containsKey(key);
+    } finally {
+      segment.unlock();
+    }
+  }
+
+  @Override
+  public void recalculateSize(Object key) {
+    // sizes are exact as of the put and stored copies never change
+  }
+
+  @Override
+  public boolean isPinned() {
+    return pinned;
+  }
+
+  /**
+   * Used in tests
+   */
+  long getReservedBytes() {
+    long bytes = 0;
+    for (Segment segment : segments) {
+      segment.lock();
+      try {
+        bytes += segment.allocator.getReservedBytes();
+      } finally {
+        segment.unlock();
+      }
+    }
+    return bytes;
+  }
+
+  private Segment segmentFor(Object key) {
+    int h = key.hashCode();
+    h ^= (h >>> 20) ^ (h >>> 12);
+    h ^= (h >>> 7) ^ (h >>> 4);
+    return segments[h & (segments.length - 1)];
+  }
+
+  private void notifyEvicted(List<Entry> evicted) {
+    if (evicted.isEmpty() || listeners.isEmpty()) { return; }
+    for (Entry entry : evicted) {
+      Object value = deserialize(entry.evictedData);
+      for (ServerMapLocalStoreListener<Object, Object> listener : listeners) {
+        listener.notifyElementEvicted(entry.key, value);
+      }
+    }
+  }
+
+  private static byte[] serialize(Object value) throws ServerMapLocalStoreFullException {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      ObjectOutputStream out = new ObjectOutputStream(bytes);
+      out.writeObject(value);
+      out.close();
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      // not storable off heap, the local cache treats this like any other full store
+      throw new ServerMapLocalStoreFullException(e);
+    } catch (RuntimeException e) {
+      throw new ServerMapLocalStoreFullException(e);
+    }
+  }
+
+  private Object deserialize(byte[] data) {
+    if (data == null) { return null; }
+    try {
+      ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data)) {
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+          try {
+            return Class.forName(desc.getName(), false, loader);
+          } catch (ClassNotFoundException e) {
+            return super.resolveClass(desc);
+          }
+        }
+      };
+      try {
+        return in.readObject();
+      } finally {
+        in.close();
+      }
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    } catch (ClassNotFoundException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private static final class Entry {
+    private final Object key;
+    private final long   address;
+    private final int    sizeClass;
+    private final int    length;
+    private boolean      referenced;
+    private Entry        prev;
+    private Entry        next;
+    private byte[]       evictedData;
+
+    Entry(Object key, long address, int sizeClass, int length) {
+      this.key = key;
+      this.address = address;
+      this.sizeClass = sizeClass;
+      this.length = length;
+    }
+  }
+
+  private static final class Segment extends ReentrantLock {
+
+    private final Map<Object, Entry>   map = new HashMap<Object, Entry>();
+    private final OffHeapSlabAllocator allocator;
+    // clock ring, new entries go right behind the hand so they are the last ones it reaches
+    private Entry                      hand;
+    private volatile int               size;
+    private volatile long              allocatedBytes;
+
+    Segment(OffHeapSlabAllocator allocator) {
+      this.allocator = allocator;
+    }
+
+    byte[] read(Object key) {
+      Entry entry = map.get(key);
+      if (entry == null) { return null; }
+      entry.referenced = true;
+      return allocator.read(entry.address, entry.length);
+    }
+
+    byte[] remove(Object key) {
+      Entry entry = map.remove(key);
+      if (entry == null) { return null; }
+      byte[] data = allocator.read(entry.address, entry.length);
+      unlink(entry);
+      return data;
+    }
+
+    /**
+     * Stores data under key, evicting other entries as needed. The previous mapping is only dropped once the new one
+     * is in, so a full store leaves it untouched and it is never picked for eviction to make room for its replacement.
+     */
+    byte[] put(Object key, byte[] data, boolean pinned, List<Entry> evicted) throws ServerMapLocalStoreFullException {
+      int sizeClass = allocator.sizeClass(data.length);
+      if (sizeClass < 0) { throw new ServerMapLocalStoreFullException(); }
+
+      int evictable = map.size() - (map.containsKey(key) ? 1 : 0);
+      long address = allocator.allocate(sizeClass);
+      while (address == OffHeapSlabAllocator.NO_SPACE) {
+        if (pinned || evictable == 0) { throw new ServerMapLocalStoreFullException(); }
+        // freed chunks merge with their free buddies, so evicting in clock order eventually frees a big enough one
+        evicted.add(evict(key));
+        evictable--;
+        address = allocator.allocate(sizeClass);
+      }
+
+      allocator.write(address, data);
+      Entry entry = new Entry(key, address, sizeClass, data.length);
+      Entry old = map.put(key, entry);
+      link(entry);
+      if (old == null) { return null; }
+      byte[] oldData = allocator.read(old.address, old.length);
+      unlink(old);
+      return oldData;
+    }
+
+    void clear() {
+      map.clear();
+      hand = null;
+      allocator.reset();
+      updateStats();
+    }
+
+    private Entry evict(Object replacedKey) {
+      Entry victim = hand;
+      while (victim.referenced || victim.key.equals(replacedKey)) {
+        victim.referenced = false;
+        victim = victim.next;
+      }
+      hand = victim;
+      map.remove(victim.key);
+      victim.evictedData = allocator.read(victim.address, victim.length);
+      unlink(victim);
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug("Evicted " + victim.key + " (" + victim.length + " bytes)");
+      }
+      return victim;
+    }
+
+    private void link(Entry entry) {
+      if (hand == null) {
+        entry.prev = entry;
+        entry.next = entry;
+        hand = entry;
+      } else {
+        entry.next = hand;
+        entry.prev = hand.prev;
+        hand.prev.next = entry;
+        hand.prev = entry;
+      }
+      updateStats();
+    }
+
+    private void unlink(Entry entry) {
+      allocator.free(entry.address, entry.sizeClass);
+      if (entry.next == entry) {
+        hand = null;
+      } else {
+        entry.prev.next = entry.next;
+        entry.next.prev = entry.prev;
+        if (hand == entry) {
+          hand = entry.next;
+        }
+      }
+      entry.prev = null;
+      entry.next = null;
+      updateStats();
+    }
+
+    private void updateStats() {
+      size = map.size();
+      allocatedBytes = allocator.getAllocatedBytes();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "OffHeapSMLocalStore [segments=" + segments.length + ", size=" + getSize() + ", offHeapBytes="
+           + getOffHeapSizeInBytes() + ", pinned=" + pinned + "]";
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.terracotta.toolkit.collections.servermap.api.offheapimpl;
+
+import com.tc.properties.TCProperties;
+import com.tc.properties.TCPropertiesConsts;
+import com.tc.properties.TCPropertiesImpl;
+import com.terracotta.toolkit.collections.servermap.api.ServerMapLocalStore;
+import com.terracotta.toolkit.collections.servermap.api.ServerMapLocalStoreConfig;
+import com.terracotta.toolkit.collections.servermap.api.ServerMapLocalStoreFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Creates {@link OffHeapSMLocalStore}s for local caches that overflow to offheap with a byte bound, when enabled through
+ * {@link TCPropertiesConsts#TOOLKIT_LOCAL_STORE_OFFHEAP_ENABLED}. Every other config goes to the delegate factory.
+ */
+public class OffHeapSMLocalStoreFactory implements ServerMapLocalStoreFactory {
+
+  private final ServerMapLocalStoreFactory       delegate;
+  private final boolean                          enabled;
+  private final int                              segments;
+  private final int                              slabSize;
+  private final Map<String, OffHeapSMLocalStore> stores = new HashMap<String, OffHeapSMLocalStore>();
+
+  public OffHeapSMLocalStoreFactory(ServerMapLocalStoreFactory delegate) {
+    this(delegate, TCPropertiesImpl.getProperties());
+  }
+
+  OffHeapSMLocalStoreFactory(ServerMapLocalStoreFactory delegate, TCProperties properties) {
+    this.delegate = delegate;
+    this.enabled = properties.getBoolean(TCPropertiesConsts.TOOLKIT_LOCAL_STORE_OFFHEAP_ENABLED, false);
+    this.segments = properties.getInt(TCPropertiesConsts.TOOLKIT_LOCAL_STORE_OFFHEAP_SEGMENTS, 16);
+    this.slabSize = properties.getInt(TCPropertiesConsts.TOOLKIT_LOCAL_STORE_OFFHEAP_SLAB_SIZE, 4 * 1024 * 1024);
+  }
+
+  @Override
+  public <K, V> ServerMapLocalStore<K, V> getOrCreateServerMapLocalStore(ServerMapLocalStoreConfig config) {
+    if (!handles(config)) { return delegate.getOrCreateServerMapLocalStore(config); }
+    return (ServerMapLocalStore<K, V>) getOrCreateOffHeapStore(config);
+  }
+
+  boolean handles(ServerMapLocalStoreConfig config) {
+    return enabled && config.isOverflowToOffheap() && config.getMaxBytesLocalOffheap() > 0;
+  }
+
+  private synchronized OffHeapSMLocalStore getOrCreateOffHeapStore(ServerMapLocalStoreConfig config) {
+    String managerName = config.getLocalStoreManagerName() == null ? "" : config.getLocalStoreManagerName();
+    String name = managerName + "_" + config.getLocalStoreName();
+    OffHeapSMLocalStore store = stores.get(name);
+    if (store == null || store.isDisposed()) {
+      // bounded by the offheap bytes only, the heap limits do not apply to values that live off heap
+      store = new OffHeapSMLocalStore(config.getMaxBytesLocalOffheap(), segments, slabSize,
+                                      config.isPinnedInLocalMemory(),
+                                      OffHeapSMLocalStoreFactory.class.getClassLoader());
+      store.setMaxEntriesLocalHeap(config.getMaxCountLocalHeap());
+      store.setMaxBytesLocalHeap(config.getMaxBytesLocalHeap());
+      stores.put(name, store);
+    }
+    return store;
+  }
+}
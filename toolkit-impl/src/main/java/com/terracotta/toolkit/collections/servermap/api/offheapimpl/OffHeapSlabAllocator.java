@@ -0,0 +1,204 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.terracotta.toolkit.collections.servermap.api.offheapimpl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hands out power-of-two sized chunks from a bounded set of direct {@link ByteBuffer} slabs. Slabs are allocated lazily
+ * up to the byte budget and never returned to the JVM until the allocator is dropped.
+ * <p>
+ * Chunks are managed buddy style: a request for a size class with no free chunk splits the smallest bigger free chunk
+ * in halves, and a freed chunk merges with its buddy whenever that is free too, so space freed in one size class can
+ * be used by any other and a slab whose chunks are all freed is whole again. Free chunks are kept in a per size class
+ * list linked through the first bytes of the chunks themselves.
+ * <p>
+ * Addresses are encoded as <code>slabIndex &lt;&lt; 32 | offset</code>. Not thread safe, each store segment owns its
+ * own allocator and only touches it under the segment lock.
+ */
+class OffHeapSlabAllocator {
+
+  static final long              NO_SPACE        = -1L;
+  static final int               MIN_CHUNK_SHIFT = 6;
+
+  private static final int       NEXT            = 0;
+  private static final int       PREV            = 8;
+
+  private final int              slabSize;
+  private final int              slabShift;
+  private final int              maxSlabs;
+  private final List<ByteBuffer> slabs           = new ArrayList<ByteBuffer>();
+  // per slab, the size class of the free chunk starting at each minimum chunk boundary or 0 if none starts there
+  private final List<byte[]>     freeMarks       = new ArrayList<byte[]>();
+  private final long[]           freeHeads;
+
+  private long                   allocatedBytes;
+
+  OffHeapSlabAllocator(int slabSize, long maxBytes) {
+    if (Integer.bitCount(slabSize) != 1 || slabSize < (1 << MIN_CHUNK_SHIFT)) {
+      throw new IllegalArgumentException("Slab size must be a power of two >= " + (1 << MIN_CHUNK_SHIFT) + ": "
+                                         + slabSize);
+    }
+    if (maxBytes < slabSize) {
+      // a whole slab would overshoot the budget, shrink it to fit (a budget below the minimum chunk gets no slab)
+      slabSize = (int) Math.max(Long.highestOneBit(maxBytes), 1 << MIN_CHUNK_SHIFT);
+    }
+    this.slabSize = slabSize;
+    this.slabShift = Integer.numberOfTrailingZeros(slabSize);
+    this.maxSlabs = (int) Math.max(0, Math.min(Integer.MAX_VALUE, maxBytes / slabSize));
+    this.freeHeads = new long[slabShift + 1];
+    Arrays.fill(freeHeads, NO_SPACE);
+  }
+
+  /**
+   * @return the size class able to hold length bytes, or -1 if length is larger than a slab
+   */
+  int sizeClass(int length) {
+    if (length > slabSize) { return -1; }
+    if (length <= (1 << MIN_CHUNK_SHIFT)) { return MIN_CHUNK_SHIFT; }
+    return 32 - Integer.numberOfLeadingZeros(length - 1);
+  }
+
+  long allocate(int sizeClass) {
+    int free = sizeClass;
+    while (free <= slabShift && freeHeads[free] == NO_SPACE) {
+      free++;
+    }
+    long address;
+    if (free <= slabShift) {
+      address = freeHeads[free];
+      unlinkFree(address, free);
+    } else {
+      address = newSlab();
+      if (address == NO_SPACE) { return NO_SPACE; }
+      free = slabShift;
+    }
+    // keep the lower half, the upper halves go back on the free lists
+    while (free > sizeClass) {
+      free--;
+      linkFree(address + (1L << free), free);
+    }
+    allocatedBytes += 1 << sizeClass;
+    return address;
+  }
+
+  void free(long address, int sizeClass) {
+    allocatedBytes -= 1 << sizeClass;
+    int free = sizeClass;
+    while (free < slabShift) {
+      long buddy = address ^ (1L << free);
+      if (freeMark(buddy) != free) {
+        break;
+      }
+      unlinkFree(buddy, free);
+      address &= ~(1L << free);
+      free++;
+    }
+    linkFree(address, free);
+  }
+
+  void write(long address, byte[] data) {
+    ByteBuffer slab = slabs.get(slabIndex(address));
+    slab.position(offset(address));
+    slab.put(data);
+  }
+
+  byte[] read(long address, int length) {
+    ByteBuffer slab = slabs.get(slabIndex(address));
+    slab.position(offset(address));
+    byte[] data = new byte[length];
+    slab.get(data);
+    return data;
+  }
+
+  /**
+   * Forgets every chunk handed out so far, only valid once nothing refers to them any more. Slabs are kept for reuse.
+   */
+  void reset() {
+    Arrays.fill(freeHeads, NO_SPACE);
+    for (byte[] marks : freeMarks) {
+      Arrays.fill(marks, (byte) 0);
+    }
+    for (int i = 0; i < slabs.size(); i++) {
+      linkFree(address(i, 0), slabShift);
+    }
+    allocatedBytes = 0;
+  }
+
+  long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  long getReservedBytes() {
+    return (long) slabs.size() * slabSize;
+  }
+
+  private long newSlab() {
+    if (slabs.size() >= maxSlabs) { return NO_SPACE; }
+    slabs.add(ByteBuffer.allocateDirect(slabSize));
+    freeMarks.add(new byte[slabSize >>> MIN_CHUNK_SHIFT]);
+    return address(slabs.size() - 1, 0);
+  }
+
+  private void linkFree(long address, int sizeClass) {
+    ByteBuffer slab = slabs.get(slabIndex(address));
+    int offset = offset(address);
+    long next = freeHeads[sizeClass];
+    slab.putLong(offset + NEXT, next);
+    slab.putLong(offset + PREV, NO_SPACE);
+    if (next != NO_SPACE) {
+      slabs.get(slabIndex(next)).putLong(offset(next) + PREV, address);
+    }
+    freeHeads[sizeClass] = address;
+    freeMarks.get(slabIndex(address))[offset >>> MIN_CHUNK_SHIFT] = (byte) sizeClass;
+  }
+
+  private void unlinkFree(long address, int sizeClass) {
+    ByteBuffer slab = slabs.get(slabIndex(address));
+    int offset = offset(address);
+    long next = slab.getLong(offset + NEXT);
+    long prev = slab.getLong(offset + PREV);
+    if (prev == NO_SPACE) {
+      freeHeads[sizeClass] = next;
+    } else {
+      slabs.get(slabIndex(prev)).putLong(offset(prev) + NEXT, next);
+    }
+    if (next != NO_SPACE) {
+      slabs.get(slabIndex(next)).putLong(offset(next) + PREV, prev);
+    }
+    freeMarks.get(slabIndex(address))[offset >>> MIN_CHUNK_SHIFT] = 0;
+  }
+
+  private int freeMark(long address) {
+    return freeMarks.get(slabIndex(address))[offset(address) >>> MIN_CHUNK_SHIFT];
+  }
+
+  private static long address(int slab, int offset) {
+    return ((long) slab << 32) | offset;
+  }
+
+  private static int slabIndex(long address) {
+    return (int) (address >>> 32);
+  }
+
+  private static int offset(long address) {
+    return (int) address;
+  }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.terracotta.toolkit.concurrent.locks;
+
+import org.terracotta.toolkit.concurrent.locks.ToolkitLock;
+import org.terracotta.toolkit.concurrent.locks.ToolkitLockType;
+import org.terracotta.toolkit.concurrent.locks.ToolkitReadWriteLock;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+
+/**
+ * A read write lock over several stripes, each with its own lock. Taking it takes the locks of all stripes, always in
+ * stripe order, and releases them in reverse. The stripes are only resolved the first time the lock is used.
+ * <p>
+ * Conditions are conditions of the first stripe: waiting releases the other stripes before waiting on it and takes
+ * them back in order once woken, so a signaller holding the whole lock can never miss a waiter. As with the stripes'
+ * own conditions, only write locks support them.
+ */
+public class StripedToolkitReadWriteLock implements ToolkitReadWriteLock {
+
+  /**
+   * Supplies the stripes, looked up lazily.
+   */
+  public interface Stripes {
+    int count();
+
+    ToolkitReadWriteLock get(int index);
+  }
+
+  private final String             name;
+  private final Stripes            stripes;
+  private final StripedToolkitLock readLock;
+  private final StripedToolkitLock writeLock;
+
+  public StripedToolkitReadWriteLock(String name, Stripes stripes) {
+    this.name = name;
+    this.stripes = stripes;
+    this.readLock = new StripedToolkitLock(ToolkitLockType.READ);
+    this.writeLock = new StripedToolkitLock(ToolkitLockType.WRITE);
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public ToolkitLock readLock() {
+    return readLock;
+  }
+
+  @Override
+  public ToolkitLock writeLock() {
+    return writeLock;
+  }
+
+  private class StripedToolkitLock implements ToolkitLock {
+    private final ToolkitLockType     type;
+    private volatile ToolkitLock[]    locks;
+    private volatile StripedCondition condition;
+
+    StripedToolkitLock(ToolkitLockType type) {
+      this.type = type;
+    }
+
+    private ToolkitLock[] locks() {
+      ToolkitLock[] resolved = locks;
+      if (resolved == null) {
+        resolved = new ToolkitLock[stripes.count()];
+        for (int i = 0; i < resolved.length; i++) {
+          ToolkitReadWriteLock stripe = stripes.get(i);
+          resolved[i] = type == ToolkitLockType.READ ? stripe.readLock() : stripe.writeLock();
+        }
+        locks = resolved;
+      }
+      return resolved;
+    }
+
+    @Override
+    public void lock() {
+      for (ToolkitLock lock : locks()) {
+        lock.lock();
+      }
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+      ToolkitLock[] all = locks();
+      int locked = 0;
+      try {
+        for (; locked < all.length; locked++) {
+          all[locked].lockInterruptibly();
+        }
+      } finally {
+        if (locked < all.length) {
+          unlockRange(all, 0, locked);
+        }
+      }
+    }
+
+    @Override
+    public boolean tryLock() {
+      ToolkitLock[] all = locks();
+      int locked = 0;
+      while (locked < all.length && all[locked].tryLock()) {
+        locked++;
+      }
+      if (locked == all.length) { return true; }
+      unlockRange(all, 0, locked);
+      return false;
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+      ToolkitLock[] all = locks();
+      final long deadline = System.nanoTime() + unit.toNanos(time);
+      int locked = 0;
+      try {
+        while (locked < all.length
+               && all[locked].tryLock(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+          locked++;
+        }
+      } finally {
+        if (locked < all.length) {
+          unlockRange(all, 0, locked);
+        }
+      }
+      return locked == all.length;
+    }
+
+    @Override
+    public void unlock() {
+      ToolkitLock[] all = locks();
+      unlockRange(all, 0, all.length);
+    }
+
+    @Override
+    public boolean isHeldByCurrentThread() {
+      // nobody can hold stripes that were never resolved
+      ToolkitLock[] all = locks;
+      if (all == null) { return false; }
+      for (ToolkitLock lock : all) {
+        if (!lock.isHeldByCurrentThread()) { return false; }
+      }
+      return true;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public Condition newCondition() {
+      return new StripedCondition(locks()[0].newCondition());
+    }
+
+    @Override
+    public Condition getCondition() {
+      StripedCondition c = condition;
+      if (c == null) {
+        synchronized (this) {
+          c = condition;
+          if (c == null) {
+            c = new StripedCondition(locks()[0].getCondition());
+            condition = c;
+          }
+        }
+      }
+      return c;
+    }
+
+    @Override
+    public ToolkitLockType getLockType() {
+      return type;
+    }
+
+    private final class StripedCondition implements Condition {
+      private final Condition first;
+
+      StripedCondition(Condition first) {
+        this.first = first;
+      }
+
+      private void releaseOthers() {
+        ToolkitLock[] all = locks();
+        unlockRange(all, 1, all.length);
+      }
+
+      private void lockOthers() {
+        ToolkitLock[] all = locks();
+        for (int i = 1; i < all.length; i++) {
+          all[i].lock();
+        }
+      }
+
+      @Override
+      public void await() throws InterruptedException {
+        releaseOthers();
+        try {
+          first.await();
+        } finally {
+          lockOthers();
+        }
+      }
+
+      @Override
+      public void awaitUninterruptibly() {
+        releaseOthers();
+        try {
+          first.awaitUninterruptibly();
+        } finally {
+          lockOthers();
+        }
+      }
+
+      @Override
+      public long awaitNanos(long nanosTimeout) throws InterruptedException {
+        releaseOthers();
+        try {
+          return first.awaitNanos(nanosTimeout);
+        } finally {
+          lockOthers();
+        }
+      }
+
+      @Override
+      public boolean await(long time, TimeUnit unit) throws InterruptedException {
+        releaseOthers();
+        try {
+          return first.await(time, unit);
+        } finally {
+          lockOthers();
+        }
+      }
+
+      @Override
+      public boolean awaitUntil(Date deadline) throws InterruptedException {
+        releaseOthers();
+        try {
+          return first.awaitUntil(deadline);
+        } finally {
+          lockOthers();
+        }
+      }
+
+      @Override
+      public void signal() {
+        first.signal();
+      }
+
+      @Override
+      public void signalAll() {
+        first.signalAll();
+      }
+    }
+  }
+
+  private static void unlockRange(ToolkitLock[] locks, int from, int to) {
+    for (int i = to - 1; i >= from; i--) {
+      locks[i].unlock();
+    }
+  }
+}
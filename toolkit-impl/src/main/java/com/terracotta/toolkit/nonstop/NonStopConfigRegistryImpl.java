@@ -38,6 +38,7 @@ import org.terracotta.toolkit.nonstop.NonStopConfigurationRegistry;
 import java.util.EnumSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class NonStopConfigRegistryImpl implements NonStopConfigurationRegistry {
   public static final EnumSet<ToolkitObjectType>                      SUPPORTED_TOOLKIT_TYPES  = EnumSet
@@ -86,6 +87,8 @@ public class NonStopConfigRegistryImpl implements NonStopConfigurationRegistry {
   private final ConcurrentMap<NonStopConfigKey, NonStopConfiguration> allConfigs               = new ConcurrentHashMap<NonStopConfigKey, NonStopConfiguration>();
   private final ConcurrentMap<String, Long>                           searchTimeoutsCache      = new ConcurrentHashMap<String, Long>();
   private final ConcurrentMap<String, Long>                           searchTimeoutsStore      = new ConcurrentHashMap<String, Long>();
+  // bumped after every change of allConfigs, lets lookups cache what they resolved
+  private final AtomicInteger                                         version                  = new AtomicInteger();
 
   private void verify(NonStopConfiguration nonStopConfiguration, ToolkitObjectType... types) {
     if (types != null) {
@@ -121,6 +124,7 @@ public class NonStopConfigRegistryImpl implements NonStopConfigurationRegistry {
     for (ToolkitObjectType type : types) {
       allConfigs.put(new NonStopConfigKey(null, type, null), config);
     }
+    version.incrementAndGet();
   }
 
   @Override
@@ -128,6 +132,7 @@ public class NonStopConfigRegistryImpl implements NonStopConfigurationRegistry {
     verify(config, type);
 
     allConfigs.put(new NonStopConfigKey(null, type, toolkitTypeName), config);
+    version.incrementAndGet();
   }
 
   @Override
@@ -135,6 +140,7 @@ public class NonStopConfigRegistryImpl implements NonStopConfigurationRegistry {
     verify(config, type);
 
     allConfigs.put(new NonStopConfigKey(methodName, type, null), config);
+    version.incrementAndGet();
   }
 
   @Override
@@ -143,6 +149,7 @@ public class NonStopConfigRegistryImpl implements NonStopConfigurationRegistry {
     verify(config, type);
 
     allConfigs.put(new NonStopConfigKey(methodName, type, toolkitTypeName), config);
+    version.incrementAndGet();
   }
 
   public void registerForThread(NonStopConfiguration config) {
@@ -239,6 +246,13 @@ public class NonStopConfigRegistryImpl implements NonStopConfigurationRegistry {
     return nonStopConfig;
   }
 
+  /**
+   * @return a number that changes whenever a type, instance or method config is registered or deregistered
+   */
+  public int getVersion() {
+    return version.get();
+  }
+
   public NonStopConfiguration getConfigForThread() {
     return threadLocalConfiguration.get();
   }
@@ -263,26 +277,32 @@ public class NonStopConfigRegistryImpl implements NonStopConfigurationRegistry {
   @Override
   public NonStopConfiguration deregisterForType(ToolkitObjectType type) {
     NonStopConfigKey nonStopConfigKey = new NonStopConfigKey(null, type, null);
-    return allConfigs.remove(nonStopConfigKey);
+    return deregister(nonStopConfigKey);
   }
 
   @Override
   public NonStopConfiguration deregisterForInstance(String toolkitTypeName, ToolkitObjectType type) {
     NonStopConfigKey nonStopConfigKey = new NonStopConfigKey(null, type, toolkitTypeName);
-    return allConfigs.remove(nonStopConfigKey);
+    return deregister(nonStopConfigKey);
   }
 
   @Override
   public NonStopConfiguration deregisterForTypeMethod(String methodName, ToolkitObjectType type) {
     NonStopConfigKey nonStopConfigKey = new NonStopConfigKey(methodName, type, null);
-    return allConfigs.remove(nonStopConfigKey);
+    return deregister(nonStopConfigKey);
   }
 
   @Override
   public NonStopConfiguration deregisterForInstanceMethod(String methodName, String toolkitTypeName,
                                                           ToolkitObjectType type) {
     NonStopConfigKey nonStopConfigKey = new NonStopConfigKey(methodName, type, toolkitTypeName);
-    return allConfigs.remove(nonStopConfigKey);
+    return deregister(nonStopConfigKey);
+  }
+
+  private NonStopConfiguration deregister(NonStopConfigKey nonStopConfigKey) {
+    NonStopConfiguration old = allConfigs.remove(nonStopConfigKey);
+    version.incrementAndGet();
+    return old;
   }
 
   public NonStopConfiguration deregisterForThread() {
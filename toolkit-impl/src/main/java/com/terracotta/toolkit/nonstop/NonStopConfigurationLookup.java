@@ -19,11 +19,16 @@ package com.terracotta.toolkit.nonstop;
 import org.terracotta.toolkit.ToolkitObjectType;
 import org.terracotta.toolkit.nonstop.NonStopConfiguration;
 import org.terracotta.toolkit.nonstop.NonStopConfigurationFields;
+import org.terracotta.toolkit.nonstop.NonStopConfigurationRegistry;
+
+import java.util.concurrent.ConcurrentHashMap;
 
 public class NonStopConfigurationLookup {
-  private final NonStopContext    context;
-  private final ToolkitObjectType objectType;
-  private final String            name;
+  private final NonStopContext     context;
+  private final ToolkitObjectType  objectType;
+  private final String             name;
+  // configs resolved per method name, valid while the registry version does not change
+  private volatile ResolvedConfigs resolved = new ResolvedConfigs(-1);
 
   public NonStopConfigurationLookup(NonStopContext context, ToolkitObjectType objectType, String name) {
     this.context = context;
@@ -45,14 +50,49 @@ public class NonStopConfigurationLookup {
   }
 
   public NonStopConfiguration getNonStopConfigurationForMethod(String methodName) {
-    NonStopConfiguration config = context.getNonStopConfigurationRegistry()
-        .getConfigForInstanceMethod(methodName, name, objectType);
-    if (!context.isEnabledForCurrentThread()) {
-      return new DisabledNonStopConfiguration(config);
+    NonStopConfigurationRegistry registry = context.getNonStopConfigurationRegistry();
+    if (!(registry instanceof NonStopConfigRegistryImpl)
+        || ((NonStopConfigRegistryImpl) registry).getConfigForThread() != null) {
+      NonStopConfiguration config = registry.getConfigForInstanceMethod(methodName, name, objectType);
+      if (!context.isEnabledForCurrentThread()) {
+        return new DisabledNonStopConfiguration(config);
+      }
+      return config;
     }
-    return config;
+
+    NonStopConfigRegistryImpl registryImpl = (NonStopConfigRegistryImpl) registry;
+    int version = registryImpl.getVersion();
+    ResolvedConfigs configs = resolved;
+    if (configs.version != version) {
+      configs = new ResolvedConfigs(version);
+      resolved = configs;
+    }
+    ResolvedConfig config = configs.byMethod.get(methodName);
+    if (config == null) {
+      config = new ResolvedConfig(registryImpl.getConfigForInstanceMethod(methodName, name, objectType));
+      configs.byMethod.put(methodName, config);
+    }
+    return context.isEnabledForCurrentThread() ? config.enabled : config.disabled;
   }
 
+  private static final class ResolvedConfigs {
+    private final int                                       version;
+    private final ConcurrentHashMap<String, ResolvedConfig> byMethod = new ConcurrentHashMap<String, ResolvedConfig>();
+
+    ResolvedConfigs(int version) {
+      this.version = version;
+    }
+  }
+
+  private static final class ResolvedConfig {
+    private final NonStopConfiguration enabled;
+    private final NonStopConfiguration disabled;
+
+    ResolvedConfig(NonStopConfiguration config) {
+      this.enabled = config;
+      this.disabled = new DisabledNonStopConfiguration(config);
+    }
+  }
 
   private static final class DisabledNonStopConfiguration implements NonStopConfiguration {
 
@@ -21,16 +21,23 @@ import com.tc.logging.TCLogger;
 import com.tc.logging.TCLogging;
 
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.Future;
 
+/**
+ * Each thread reuses a single {@link NonStopTask} across operations, and timeouts are armed on a
+ * {@link NonStopTimeoutWheel}, so beginning and finishing a nonstop operation does not allocate. The tasks are kept
+ * in a map owned by the manager rather than in thread locals, tasks of threads that died are dropped whenever a new
+ * thread registers and all of them are dropped on {@link #shutdown()}.
+ */
 public class NonStopManagerImpl implements NonStopManager {
-  private static final TCLogger                           LOGGER   = TCLogging.getLogger(NonStopManagerImpl.class);
-  private final AbortableOperationManager                 abortableOperationManager;
-  private final NonStopExecutor                           executor = new NonStopExecutor();
-  private final ConcurrentMap<Thread, NonStopTaskWrapper> tasks    = new ConcurrentHashMap<Thread, NonStopTaskWrapper>();
+  private static final TCLogger                    LOGGER   = TCLogging.getLogger(NonStopManagerImpl.class);
+  private final AbortableOperationManager          abortableOperationManager;
+  private final NonStopTimeoutWheel                timeouts = new NonStopTimeoutWheel();
+  private final ConcurrentMap<Thread, NonStopTask> tasks    = new ConcurrentHashMap<Thread, NonStopTask>();
+  private volatile boolean                         shutdown;
 
   public NonStopManagerImpl(AbortableOperationManager abortableOperationManager) {
     this.abortableOperationManager = abortableOperationManager;
@@ -38,23 +45,20 @@ public class NonStopManagerImpl implements NonStopManager {
 
   @Override
   public void begin(long timeout) {
-    if (!tasks.containsKey(Thread.currentThread())) {
-      abortableOperationManager.begin();
-      NonStopTask task = new NonStopTask(Thread.currentThread(), abortableOperationManager);
-      // Do not start timer for negative timeouts.
-      Future future = null;
-      if (timeout > 0 && (timeout + System.currentTimeMillis()) > 0) {
-        future = executor.schedule(task, timeout);
-      }
-      tasks.put(Thread.currentThread(), new NonStopTaskWrapper(task, future));
-    } else {
-      throw new IllegalStateException("The thread has already called begin");
+    NonStopTask task = taskForCurrentThread();
+    if (task.active) { throw new IllegalStateException("The thread has already called begin"); }
+    abortableOperationManager.begin();
+    task.active = true;
+    task.reset();
+    // Do not start timer for negative timeouts.
+    if (timeout > 0 && (timeout + System.currentTimeMillis()) > 0 && !shutdown) {
+      timeouts.arm(task, timeout);
     }
   }
 
   @Override
   public boolean tryBegin(long timeout) {
-    if (tasks.containsKey(Thread.currentThread())) {
+    if (taskForCurrentThread().active) {
       // Nonstop operation already running
       return false;
     } else {
@@ -64,63 +68,84 @@ public class NonStopManagerImpl implements NonStopManager {
 
   }
 
-  Map<Thread, NonStopTaskWrapper> getTimerTasks() {
-    return Collections.unmodifiableMap(tasks);
+  private NonStopTask taskForCurrentThread() {
+    final Thread thread = Thread.currentThread();
+    NonStopTask task = tasks.get(thread);
+    if (task == null) {
+      removeTasksOfDeadThreads();
+      task = new NonStopTask(thread, abortableOperationManager);
+      // once shut down operations still run, but are neither remembered nor timed out
+      if (!shutdown) {
+        tasks.put(thread, task);
+      }
+    }
+    return task;
   }
 
-  @Override
-  public void finish() {
-    NonStopTaskWrapper wrapper = tasks.get(Thread.currentThread());
-    if (wrapper != null) {
-      tasks.remove(Thread.currentThread());
-      wrapper.getTask().cancelTaskIfRequired();
-      if (wrapper.getFuture() != null) {
-        // this will remove the task from the queue of the executor
-        executor.remove(wrapper.getFuture());
+  private void removeTasksOfDeadThreads() {
+    for (Iterator<Thread> it = tasks.keySet().iterator(); it.hasNext();) {
+      if (!it.next().isAlive()) {
+        it.remove();
       }
-      abortableOperationManager.finish();
-    } else {
-      throw new IllegalStateException("The thread has not called begin");
     }
   }
 
-  public void shutdown() {
-    executor.shutdown();
+  Map<Thread, ?> getTasks() {
+    return Collections.unmodifiableMap(tasks);
   }
 
-  private static enum NonStopTaskState {
-    INIT, ABORTED, CANCELLED
+  /**
+   * @return number of timeouts currently armed, for all threads
+   */
+  int armedTimeouts() {
+    return timeouts.armedCount();
   }
 
-  static class NonStopTaskWrapper {
-    private final NonStopTask task;
-    private final Future           future;
-
-    public NonStopTaskWrapper(NonStopTask task, Future future) {
-      this.task = task;
-      this.future = future;
-    }
-
-    public NonStopTask getTask() {
-      return task;
+  @Override
+  public void finish() {
+    NonStopTask task = tasks.get(Thread.currentThread());
+    if (task == null && shutdown) {
+      // the task was dropped by shutdown while the operation was running
+      abortableOperationManager.finish();
+      return;
     }
+    if (task == null || !task.active) { throw new IllegalStateException("The thread has not called begin"); }
+    task.active = false;
+    task.cancelTaskIfRequired();
+    timeouts.disarm(task);
+    abortableOperationManager.finish();
+  }
 
-    public Future getFuture() {
-      return future;
+  public void shutdown() {
+    shutdown = true;
+    timeouts.shutdown();
+    for (NonStopTask task : tasks.values()) {
+      timeouts.disarm(task);
     }
+    tasks.clear();
+  }
 
+  private static enum NonStopTaskState {
+    INIT, ABORTED, CANCELLED
   }
 
-  private static class NonStopTask implements Runnable {
+  private static class NonStopTask extends NonStopTimeoutWheel.Timeout {
     private final Thread                    thread;
-    private NonStopTaskState                state = NonStopTaskState.INIT;
+    private NonStopTaskState                state = NonStopTaskState.CANCELLED;
     private final AbortableOperationManager abortableOperationManager;
+    // only touched by the owning thread
+    private boolean                         active;
 
     public NonStopTask(Thread thread, AbortableOperationManager abortableOperationManager) {
       this.thread = thread;
       this.abortableOperationManager = abortableOperationManager;
     }
 
+    synchronized void reset() {
+      state = NonStopTaskState.INIT;
+      generation++;
+    }
+
     public synchronized boolean cancelTaskIfRequired() {
       if (state == NonStopTaskState.INIT) {
         state = NonStopTaskState.CANCELLED;
@@ -131,9 +156,11 @@ public class NonStopManagerImpl implements NonStopManager {
     }
 
     @Override
-    public synchronized void run() {
+    synchronized void expired(long armedGeneration) {
+      // an expiry of an earlier operation of the thread is stale
+      if (armedGeneration != generation) { return; }
       if (LOGGER.isDebugEnabled()) {
-        LOGGER.debug("Nonstop operation timed-out for Thread : " + Thread.currentThread());
+        LOGGER.debug("Nonstop operation timed-out for Thread : " + thread);
       }
       if (state == NonStopTaskState.INIT) {
         state = NonStopTaskState.ABORTED;
@@ -0,0 +1,210 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.terracotta.toolkit.nonstop;
+
+import com.tc.logging.TCLogger;
+import com.tc.logging.TCLogging;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed wheel of nonstop timeouts. Arming links a {@link Timeout} owned by the caller into the bucket of its deadline
+ * tick and disarming unlinks it, so neither allocates nor goes through a scheduler queue, and callers only contend
+ * when they hit the same bucket. A single daemon thread advances the wheel once per tick and fires what expired, so a
+ * timeout fires up to one tick late but never early.
+ */
+class NonStopTimeoutWheel {
+  private static final TCLogger LOGGER             = TCLogging.getLogger(NonStopTimeoutWheel.class);
+
+  static final long             DEFAULT_TICK_MILLIS = 10;
+  static final int              DEFAULT_BUCKETS     = 512;
+
+  private final Bucket[]        buckets;
+  private final int             mask;
+  private final long            tickNanos;
+  private final long            origin              = System.nanoTime();
+  private final Thread          worker;
+  // tick the worker is about to process or processing, later ticks are still to come
+  private volatile long         processingTick;
+  private volatile boolean      running             = true;
+
+  NonStopTimeoutWheel() {
+    this(DEFAULT_TICK_MILLIS, DEFAULT_BUCKETS);
+  }
+
+  NonStopTimeoutWheel(long tickMillis, int bucketCount) {
+    if (tickMillis <= 0) { throw new IllegalArgumentException("tickMillis: " + tickMillis); }
+    if (Integer.bitCount(bucketCount) != 1) { throw new IllegalArgumentException("bucketCount: " + bucketCount); }
+    this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+    this.buckets = new Bucket[bucketCount];
+    for (int i = 0; i < bucketCount; i++) {
+      buckets[i] = new Bucket();
+    }
+    this.mask = bucketCount - 1;
+    this.worker = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        advance();
+      }
+    }, "NonStopTimeoutWheel");
+    this.worker.setDaemon(true);
+    this.worker.start();
+  }
+
+  /**
+   * Something that can time out. Instances are linked into the wheel directly and are meant to be reused, the
+   * generation tells a stale expiry of an earlier arming apart from the current one.
+   */
+  abstract static class Timeout {
+    private volatile Bucket bucket;
+    private Timeout         prev;
+    private Timeout         next;
+    private long            tick;
+    volatile long           generation;
+
+    /**
+     * Called on the wheel thread, outside of any wheel lock.
+     *
+     * @param armedGeneration generation of the timeout when it was found expired
+     */
+    abstract void expired(long armedGeneration);
+  }
+
+  void arm(Timeout timeout, long timeoutMillis) {
+    final long deadline = System.nanoTime() - origin + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    long tick = (deadline + tickNanos - 1) / tickNanos;
+    while (true) {
+      final Bucket bucket = buckets[(int) tick & mask];
+      synchronized (bucket) {
+        if (tick > processingTick) {
+          if (timeout.bucket != null) { throw new IllegalStateException("already armed"); }
+          timeout.tick = tick;
+          bucket.link(timeout);
+          return;
+        }
+      }
+      // the bucket of the deadline is being or has been processed, the next tick is still to come
+      tick = processingTick + 1;
+    }
+  }
+
+  /**
+   * @return false if the timeout was not armed, or already picked up for expiry
+   */
+  boolean disarm(Timeout timeout) {
+    final Bucket bucket = timeout.bucket;
+    if (bucket == null) { return false; }
+    synchronized (bucket) {
+      if (timeout.bucket != bucket) { return false; }
+      bucket.unlink(timeout);
+      return true;
+    }
+  }
+
+  int armedCount() {
+    int count = 0;
+    for (Bucket bucket : buckets) {
+      synchronized (bucket) {
+        count += bucket.size;
+      }
+    }
+    return count;
+  }
+
+  void shutdown() {
+    running = false;
+    worker.interrupt();
+  }
+
+  private void advance() {
+    Timeout[] expired = new Timeout[16];
+    long[] generations = new long[16];
+    long tick = 0;
+    while (running) {
+      final long now = System.nanoTime() - origin;
+      if (tick * tickNanos > now) {
+        try {
+          TimeUnit.NANOSECONDS.sleep(tick * tickNanos - now);
+        } catch (InterruptedException e) {
+          // shutdown
+        }
+        continue;
+      }
+
+      processingTick = tick;
+      int count = 0;
+      final Bucket bucket = buckets[(int) tick & mask];
+      synchronized (bucket) {
+        for (Timeout t = bucket.head; t != null;) {
+          final Timeout next = t.next;
+          if (t.tick <= tick) {
+            bucket.unlink(t);
+            if (count == expired.length) {
+              expired = Arrays.copyOf(expired, count * 2);
+              generations = Arrays.copyOf(generations, count * 2);
+            }
+            expired[count] = t;
+            generations[count] = t.generation;
+            count++;
+          }
+          t = next;
+        }
+      }
+      for (int i = 0; i < count; i++) {
+        try {
+          expired[i].expired(generations[i]);
+        } catch (Throwable th) {
+          LOGGER.error("Failed to expire nonstop timeout", th);
+        }
+        expired[i] = null;
+      }
+      tick++;
+    }
+  }
+
+  private static final class Bucket {
+    private Timeout head;
+    private int     size;
+
+    void link(Timeout t) {
+      t.bucket = this;
+      t.prev = null;
+      t.next = head;
+      if (head != null) {
+        head.prev = t;
+      }
+      head = t;
+      size++;
+    }
+
+    void unlink(Timeout t) {
+      if (t.prev == null) {
+        head = t.next;
+      } else {
+        t.prev.next = t.next;
+      }
+      if (t.next != null) {
+        t.next.prev = t.prev;
+      }
+      t.prev = null;
+      t.next = null;
+      t.bucket = null;
+      size--;
+    }
+  }
+}
@@ -89,16 +89,23 @@ public class ToolkitObjectStripeImplApplicator extends BaseApplicator {
         PhysicalAction pa = cursor.getPhysicalAction();
         if (pa.isEntireArray()) {
           Object[] array = (Object[]) pa.getObject();
-          components = new TCToolkitObject[array.length];
+          ObjectID[] componentIDs = new ObjectID[array.length];
           for (int i = 0; i < array.length; i++) {
             if (!(array[i] instanceof ObjectID)) { throw new AssertionError(
                                                                             "ClusteredObjectStripe should fault in only ObjectID's for components - "
                                                                                 + array[i]); }
-            try {
-              components[i] = (TCToolkitObject) objectManager.lookupObject((ObjectID) array[i]);
-            } catch (AbortedOperationException e) {
-              throw new TCRuntimeException(e);
-            }
+            componentIDs[i] = (ObjectID) array[i];
+          }
+          // fault the components in together rather than one round trip each
+          Object[] lookedUp;
+          try {
+            lookedUp = objectManager.lookupObjects(componentIDs);
+          } catch (AbortedOperationException e) {
+            throw new TCRuntimeException(e);
+          }
+          components = new TCToolkitObject[lookedUp.length];
+          for (int i = 0; i < lookedUp.length; i++) {
+            components[i] = (TCToolkitObject) lookedUp[i];
           }
         } else {
           String key = pa.getFieldName();
@@ -277,6 +277,7 @@ public class LocalBufferedMapTest {
       when(bo.getCreateTimeInSecs()).thenReturn(createTimeInSecs);
       when(bo.getCustomMaxTTISeconds()).thenReturn(customMaxTTISeconds);
       when(bo.getCustomMaxTTLSeconds()).thenReturn(customMaxTTLSeconds);
+      when(bo.getSizeInBytes()).thenReturn(value == null ? 1 : 1 + value.toString().length());
       return bo;
     }
   }
@@ -0,0 +1,227 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.terracotta.toolkit.collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.terracotta.toolkit.collections.ToolkitMap;
+import org.terracotta.toolkit.concurrent.locks.ToolkitReadWriteLock;
+
+import com.terracotta.toolkit.factory.ToolkitObjectFactory;
+import com.terracotta.toolkit.object.serialization.SerializationStrategy;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SegmentedToolkitMapTest {
+
+  private final Map<String, ToolkitMap<String, Integer>> segments = new HashMap<String, ToolkitMap<String, Integer>>();
+  private SegmentedToolkitMap<String, Integer>            map;
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    ToolkitObjectFactory<ToolkitMap> factory = mock(ToolkitObjectFactory.class);
+    when(factory.getOrCreate(anyString(), any())).thenAnswer(new Answer<ToolkitMap>() {
+      @Override
+      public ToolkitMap answer(InvocationOnMock invocation) {
+        String name = (String) invocation.getArguments()[0];
+        ToolkitMap<String, Integer> segment = segments.get(name);
+        if (segment == null) {
+          segment = mock(ToolkitMap.class, delegatesTo(new ConcurrentHashMap<String, Integer>()));
+          doReturn(name).when(segment).getName();
+          doReturn(new MockToolkitReadWriteLock(name)).when(segment).getReadWriteLock();
+          segments.put(name, segment);
+        }
+        return segment;
+      }
+    });
+    SerializationStrategy strategy = mock(SerializationStrategy.class);
+    when(strategy.serializeToString(any())).thenAnswer(new Answer<String>() {
+      @Override
+      public String answer(InvocationOnMock invocation) {
+        Object key = invocation.getArguments()[0];
+        return key instanceof RoutedKey ? ((RoutedKey) key).serialized : (String) key;
+      }
+    });
+    map = new SegmentedToolkitMap<String, Integer>(factory, strategy, "map", 8);
+  }
+
+  /**
+   * Hashes differently on every instance, like a key with an identity hashed field would on different nodes.
+   */
+  private static final class RoutedKey {
+    private final String serialized;
+
+    RoutedKey(String serialized) {
+      this.serialized = serialized;
+    }
+  }
+
+  @Test
+  public void testSegmentsAreLookedUpLazily() {
+    map.put("k", 1);
+    assertEquals(1, segments.size());
+    assertEquals(Integer.valueOf(1), map.get("k"));
+    assertEquals(1, segments.size());
+
+    assertEquals(1, map.size());
+    assertEquals(8, segments.size());
+    assertTrue(segments.containsKey("map"));
+    assertTrue(segments.containsKey(SegmentedToolkitMap.segmentName("map", 7)));
+  }
+
+  @Test
+  public void testOperationsSpreadOverSegments() {
+    Map<String, Integer> entries = new HashMap<String, Integer>();
+    for (int i = 0; i < 1000; i++) {
+      entries.put("k" + i, i);
+    }
+    map.putAll(entries);
+    assertEquals(1000, map.size());
+    for (ToolkitMap<String, Integer> segment : segments.values()) {
+      assertFalse(segment.isEmpty());
+    }
+
+    assertNull(map.putIfAbsent("k1000", 1000));
+    assertEquals(Integer.valueOf(1000), map.putIfAbsent("k1000", -1));
+    assertTrue(map.replace("k1000", 1000, 1001));
+    assertTrue(map.remove("k1000", 1001));
+    assertFalse(map.containsKey("k1000"));
+    assertTrue(map.containsValue(999));
+
+    Set<String> keys = new HashSet<String>(map.keySet());
+    assertEquals(entries.keySet(), keys);
+    assertEquals(1000, map.entrySet().size());
+
+    for (Iterator<Map.Entry<String, Integer>> it = map.entrySet().iterator(); it.hasNext();) {
+      if (it.next().getValue() % 2 == 0) {
+        it.remove();
+      }
+    }
+    assertEquals(500, map.size());
+    assertFalse(map.containsKey("k0"));
+    assertTrue(map.containsKey("k1"));
+
+    map.clear();
+    assertTrue(map.isEmpty());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testKeysRouteOnTheirSerializedForm() {
+    ToolkitMap raw = map;
+    for (int i = 0; i < 20; i++) {
+      raw.put(new RoutedKey("same"), i);
+    }
+    assertEquals(1, segments.size());
+    assertEquals(20, map.size());
+  }
+
+  @Test
+  public void testReadWriteLockLooksUpSegmentsOnFirstUse() {
+    ToolkitReadWriteLock lock = map.getReadWriteLock();
+    assertFalse(lock.writeLock().isHeldByCurrentThread());
+    assertTrue(segments.isEmpty());
+
+    lock.readLock().lock();
+    lock.readLock().unlock();
+    assertEquals(8, segments.size());
+  }
+
+  @Test
+  public void testDestroyedOnceAnySegmentIs() {
+    map.put("k", 1);
+    ToolkitMap<String, Integer> segment = segments.values().iterator().next();
+    doReturn(false).when(segment).isDestroyed();
+    assertFalse(map.isDestroyed());
+    doReturn(true).when(segment).isDestroyed();
+    assertTrue(map.isDestroyed());
+  }
+
+  @Test
+  public void testConditionReleasesAllSegmentsWhileWaiting() throws Exception {
+    final ToolkitReadWriteLock lock = map.getReadWriteLock();
+    final Condition condition = lock.writeLock().getCondition();
+    final CountDownLatch waiting = new CountDownLatch(1);
+    final CountDownLatch woken = new CountDownLatch(1);
+    Thread waiter = new Thread() {
+      @Override
+      public void run() {
+        lock.writeLock().lock();
+        try {
+          waiting.countDown();
+          condition.awaitUninterruptibly();
+          if (lock.writeLock().isHeldByCurrentThread()) {
+            woken.countDown();
+          }
+        } finally {
+          lock.writeLock().unlock();
+        }
+      }
+    };
+    waiter.start();
+    waiting.await();
+
+    // only possible if the waiter let go of every segment
+    lock.writeLock().lock();
+    try {
+      condition.signal();
+    } finally {
+      lock.writeLock().unlock();
+    }
+    assertTrue(woken.await(10, TimeUnit.SECONDS));
+    waiter.join();
+  }
+
+  @Test
+  public void testReadWriteLockTakesAllSegments() {
+    ToolkitReadWriteLock lock = map.getReadWriteLock();
+    lock.writeLock().lock();
+    try {
+      assertTrue(lock.writeLock().isHeldByCurrentThread());
+      for (ToolkitMap<String, Integer> segment : segments.values()) {
+        assertTrue(segment.getReadWriteLock().writeLock().isHeldByCurrentThread());
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+    for (ToolkitMap<String, Integer> segment : segments.values()) {
+      assertFalse(segment.getReadWriteLock().writeLock().isHeldByCurrentThread());
+    }
+  }
+}
@@ -196,6 +196,7 @@ public class ServerMapTest {
     assertThat(bo.getType(), is(BufferedOperation.Type.REMOVE));
     assertThat(bo.getValue(), nullValue());
     assertThat(bo.getVersion(), is(1L));
+    assertThat(bo.getSizeInBytes(), is(16 + 2 * "foo".length()));
   }
 
   @Test
@@ -222,6 +223,8 @@ public class ServerMapTest {
     assertThat(bo.getCreateTimeInSecs(), is(3));
     assertThat(bo.getCustomMaxTTISeconds(), is(2));
     assertThat(bo.getCustomMaxTTLSeconds(), is(1));
+    // key plus the (mocked) one byte serialized value
+    assertThat(bo.getSizeInBytes(), is(16 + 2 * "foo".length() + 1));
   }
 
   @Test
@@ -276,6 +279,26 @@ public class ServerMapTest {
     assertThat(result, hasEntry("f", null));
   }
 
+  @Test
+  public void testGetAllUnlocked() throws Exception {
+    ServerMap<String, String> serverMap = getServerMap();
+
+    SetMultimap<ObjectID, Object> request = HashMultimap.create();
+    request.putAll(new ObjectID(1), Sets.<Object>newHashSet("a", "b", "c"));
+
+    Map<Object, Object> response = Maps.newHashMap();
+    response.put("a", mockSerializedMapValue("1"));
+    response.put("b", mockSerializedMapValue("2", true));
+
+    when(tcObjectServerMap.getAllValuesUnlocked(request)).thenReturn(response);
+
+    Map<String, String> result = serverMap.getAllUnlocked(Arrays.asList("a", "b", "c"));
+    assertEquals(3, result.size());
+    assertThat(result, hasEntry("a", "1"));
+    assertThat(result, hasEntry("b", null));
+    assertThat(result, hasEntry("c", null));
+  }
+
   private ServerMap getServerMap() {
     ServerMap serverMap = new ServerMap(configuration, "foo", platformService);
     serverMap.__tc_managed(tcObjectServerMap);
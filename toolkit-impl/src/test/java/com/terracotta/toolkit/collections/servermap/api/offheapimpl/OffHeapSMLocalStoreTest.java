@@ -0,0 +1,185 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.terracotta.toolkit.collections.servermap.api.offheapimpl;
+
+import org.junit.Test;
+
+import com.terracotta.toolkit.collections.servermap.api.ServerMapLocalStoreFullException;
+import com.terracotta.toolkit.collections.servermap.api.ServerMapLocalStoreListener;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class OffHeapSMLocalStoreTest {
+
+  private static OffHeapSMLocalStore newStore(long maxBytes, int slabSize, boolean pinned) {
+    return new OffHeapSMLocalStore(maxBytes, 1, slabSize, pinned, OffHeapSMLocalStoreTest.class.getClassLoader());
+  }
+
+  private static Map<Object, Object> recordEvictions(OffHeapSMLocalStore store) {
+    final Map<Object, Object> evicted = new HashMap<Object, Object>();
+    store.addListener(new ServerMapLocalStoreListener<Object, Object>() {
+      @Override
+      public void notifyElementEvicted(Object key, Object value) {
+        evicted.put(key, value);
+      }
+    });
+    return evicted;
+  }
+
+  @Test
+  public void testPutGetRemove() throws Exception {
+    OffHeapSMLocalStore store = newStore(64 * 1024, 1024, false);
+    assertNull(store.put("a", "value-a"));
+    assertEquals("value-a", store.get("a"));
+    assertEquals("value-a", store.put("a", "value-b"));
+    assertEquals("value-b", store.get("a"));
+    assertEquals(1, store.getSize());
+    assertTrue(store.containsKeyOffHeap("a"));
+    assertFalse(store.containsKeyOnHeap("a"));
+
+    assertNull(store.remove("a", "value-a"));
+    assertEquals("value-b", store.remove("a", "value-b"));
+    assertNull(store.get("a"));
+    assertEquals(0, store.getOffHeapSizeInBytes());
+  }
+
+  @Test
+  public void testEvictionBoundedByBytes() throws Exception {
+    OffHeapSMLocalStore store = newStore(4 * 1024, 1024, false);
+    Map<Object, Object> evicted = recordEvictions(store);
+
+    for (int i = 0; i < 100; i++) {
+      store.put(i, new byte[100]);
+    }
+    assertTrue(store.getOffHeapSizeInBytes() <= 4 * 1024);
+    assertTrue(store.getReservedBytes() <= 4 * 1024);
+    assertEquals(100, store.getSize() + evicted.size());
+    for (Object key : evicted.keySet()) {
+      assertNull(store.get(key));
+    }
+  }
+
+  @Test
+  public void testClockGivesReferencedEntriesASecondChance() throws Exception {
+    // room for exactly three 256 byte chunks
+    OffHeapSMLocalStore store = newStore(768, 256, false);
+    store.put("a", new byte[200]);
+    store.put("b", new byte[200]);
+    store.put("c", new byte[200]);
+    store.get("a");
+    store.put("d", new byte[200]);
+    assertNotNull(store.get("a"));
+    assertNull(store.get("b"));
+    assertEquals(3, store.getSize());
+  }
+
+  @Test
+  public void testReplacedEntryIsNotEvictedToMakeRoomForItself() throws Exception {
+    OffHeapSMLocalStore store = newStore(512, 256, false);
+    Map<Object, Object> evicted = recordEvictions(store);
+    store.put("a", new byte[200]);
+    store.put("b", new byte[200]);
+
+    assertNotNull(store.put("a", new byte[201]));
+    assertEquals(201, ((byte[]) store.get("a")).length);
+    assertEquals(1, evicted.size());
+    assertTrue(evicted.containsKey("b"));
+  }
+
+  @Test
+  public void testFreedSmallChunksMergeForLargerValues() throws Exception {
+    OffHeapSMLocalStore store = newStore(2 * 1024, 1024, false);
+    Map<Object, Object> evicted = recordEvictions(store);
+    for (int i = 0; i < 32; i++) {
+      store.put(i, "v" + i);
+    }
+    assertTrue(evicted.isEmpty());
+
+    // a 512 byte chunk only needs the eight neighbouring 64 byte chunks the clock reaches first
+    store.put("big", new byte[300]);
+    assertEquals(8, evicted.size());
+    assertEquals(25, store.getSize());
+    assertEquals(2 * 1024, store.getOffHeapSizeInBytes());
+
+    store.clear();
+    assertEquals(0, store.getOffHeapSizeInBytes());
+    store.put("whole", new byte[900]);
+    assertNotNull(store.get("whole"));
+  }
+
+  @Test
+  public void testPinnedStoreThrowsWhenFull() throws Exception {
+    OffHeapSMLocalStore store = newStore(512, 256, true);
+    store.put("a", new byte[200]);
+    store.put("b", new byte[200]);
+    try {
+      store.put("c", new byte[200]);
+      fail();
+    } catch (ServerMapLocalStoreFullException e) {
+      // expected
+    }
+    assertNotNull(store.get("a"));
+    assertNotNull(store.get("b"));
+  }
+
+  @Test
+  public void testOversizedValueIsRejected() throws Exception {
+    OffHeapSMLocalStore store = newStore(64 * 1024, 1024, false);
+    try {
+      store.put("a", new byte[4096]);
+      fail();
+    } catch (ServerMapLocalStoreFullException e) {
+      // expected
+    }
+    assertNull(store.get("a"));
+  }
+
+  @Test
+  public void testBudgetSmallerThanSlabShrinksSlab() throws Exception {
+    OffHeapSMLocalStore store = newStore(300, 1024, false);
+    store.put("a", "a");
+    assertNotNull(store.get("a"));
+    assertTrue(store.getReservedBytes() <= 300);
+
+    OffHeapSMLocalStore tiny = newStore(32, 1024, false);
+    try {
+      tiny.put("a", "a");
+      fail();
+    } catch (ServerMapLocalStoreFullException e) {
+      // expected
+    }
+    assertEquals(0, tiny.getReservedBytes());
+  }
+
+  @Test
+  public void testDisposeDropsEverything() throws Exception {
+    OffHeapSMLocalStore store = newStore(64 * 1024, 1024, false);
+    store.put("a", "a");
+    store.dispose();
+    assertNull(store.get("a"));
+    assertNull(store.put("b", "b"));
+    assertEquals(0, store.getSize());
+  }
+}
@@ -19,8 +19,12 @@ package com.terracotta.toolkit.nonstop;
 import org.junit.Before;
 import org.junit.Test;
 import org.terracotta.toolkit.ToolkitObjectType;
+import org.terracotta.toolkit.nonstop.NonStopConfiguration;
+import org.terracotta.toolkit.nonstop.NonStopConfigurationFields.NonStopReadTimeoutBehavior;
+import org.terracotta.toolkit.nonstop.NonStopConfigurationFields.NonStopWriteTimeoutBehavior;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -30,11 +34,12 @@ import static org.mockito.Mockito.when;
  */
 public class NonStopConfigurationLookupTest {
 
-  private NonStopContext nonStopContext = mock(NonStopContext.class);
+  private NonStopContext            nonStopContext = mock(NonStopContext.class);
+  private NonStopConfigRegistryImpl registry       = new NonStopConfigRegistryImpl();
 
   @Before
   public void setUp() {
-    when(nonStopContext.getNonStopConfigurationRegistry()).thenReturn(new NonStopConfigRegistryImpl());
+    when(nonStopContext.getNonStopConfigurationRegistry()).thenReturn(registry);
     when(nonStopContext.isEnabledForCurrentThread()).thenReturn(true);
   }
 
@@ -51,4 +56,25 @@ public class NonStopConfigurationLookupTest {
     assertThat(lookup.getNonStopConfiguration().isEnabled(), is(false));
   }
 
+  @Test
+  public void testMethodConfigFollowsRegistryChanges() throws Exception {
+    NonStopConfigurationLookup lookup = new NonStopConfigurationLookup(nonStopContext, ToolkitObjectType.CACHE, "testName");
+    NonStopConfiguration config = lookup.getNonStopConfigurationForMethod("get");
+    assertThat(config, sameInstance(NonStopConfigRegistryImpl.DEFAULT_CONFIG));
+    assertThat(lookup.getNonStopConfigurationForMethod("get"), sameInstance(config));
+
+    NonStopConfiguration methodConfig = mock(NonStopConfiguration.class);
+    when(methodConfig.getReadOpNonStopTimeoutBehavior()).thenReturn(NonStopReadTimeoutBehavior.EXCEPTION);
+    when(methodConfig.getWriteOpNonStopTimeoutBehavior()).thenReturn(NonStopWriteTimeoutBehavior.EXCEPTION);
+    registry.registerForInstanceMethod(methodConfig, "get", "testName", ToolkitObjectType.CACHE);
+    assertThat(lookup.getNonStopConfigurationForMethod("get"), sameInstance(methodConfig));
+
+    when(nonStopContext.isEnabledForCurrentThread()).thenReturn(false);
+    assertThat(lookup.getNonStopConfigurationForMethod("get").isEnabled(), is(false));
+
+    registry.deregisterForInstanceMethod("get", "testName", ToolkitObjectType.CACHE);
+    when(nonStopContext.isEnabledForCurrentThread()).thenReturn(true);
+    assertThat(lookup.getNonStopConfigurationForMethod("get"), sameInstance(NonStopConfigRegistryImpl.DEFAULT_CONFIG));
+  }
+
 }
@@ -17,11 +17,9 @@
 package com.terracotta.toolkit.nonstop;
 
 import com.tc.abortable.AbortableOperationManagerImpl;
-import com.terracotta.toolkit.nonstop.NonStopManagerImpl.NonStopTaskWrapper;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -38,6 +36,11 @@ public class NonStopManagerTest extends TestCase {
     nonStopManager = new NonStopManagerImpl(abortableOperationManager);
   }
 
+  @Override
+  protected void tearDown() throws Exception {
+    nonStopManager.shutdown();
+  }
+
   public void testNonStopTimer() throws Exception {
     long startTime = System.nanoTime();
     int loopTmes = 4;
@@ -141,26 +144,55 @@ public class NonStopManagerTest extends TestCase {
     }
   }
 
-  public void testNonStopManagerLeakTest() throws Throwable {
-    List<WeakReference> weakReferences = new ArrayList<WeakReference>();
+  public void testTimeoutsAreDisarmedOnFinish() throws Throwable {
     for (int i = 0; i < 100; i++) {
       nonStopManager.begin(TimeUnit.MINUTES.toMillis(10));
       try {
-
-        Collection<NonStopTaskWrapper> collection = nonStopManager.getTimerTasks().values();
-        Assert.assertEquals(1, collection.size());
-
-        NonStopTaskWrapper o = collection.iterator().next();
-        weakReferences.add(new WeakReference(o.getFuture()));
+        Assert.assertEquals(1, nonStopManager.armedTimeouts());
       } finally {
         nonStopManager.finish();
       }
+      Assert.assertEquals(0, nonStopManager.armedTimeouts());
+    }
+  }
+
+  public void testTimeoutOfEarlierOperationDoesNotAbortLaterOne() throws Exception {
+    nonStopManager.begin(50);
+    nonStopManager.finish();
+    nonStopManager.begin(TimeUnit.MINUTES.toMillis(10));
+    try {
+      Thread.sleep(200);
+      Assert.assertFalse(abortableOperationManager.isAborted());
+    } finally {
+      nonStopManager.finish();
     }
+  }
 
-    {
-      Collection collection = nonStopManager.getTimerTasks().values();
-      Assert.assertEquals(0, collection.size());
+  public void testNonStopManagerLeakTest() throws Throwable {
+    List<WeakReference<Thread>> weakReferences = new ArrayList<WeakReference<Thread>>();
+    for (int i = 0; i < 100; i++) {
+      Thread thread = new Thread() {
+        @Override
+        public void run() {
+          nonStopManager.begin(TimeUnit.MINUTES.toMillis(10));
+          nonStopManager.finish();
+        }
+      };
+      thread.start();
+      thread.join();
+      weakReferences.add(new WeakReference<Thread>(thread));
     }
+
+    // registering a new thread drops the tasks of the ones that died
+    nonStopManager.begin(TimeUnit.MINUTES.toMillis(10));
+    try {
+      Assert.assertEquals(1, nonStopManager.getTasks().size());
+      Assert.assertTrue(nonStopManager.getTasks().containsKey(Thread.currentThread()));
+    } finally {
+      nonStopManager.finish();
+    }
+    Assert.assertEquals(0, nonStopManager.armedTimeouts());
+
     int gcRefCount = 0;
     for (long time = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(2); System.currentTimeMillis() < time;) {
       gcRefCount = 0;
@@ -169,7 +201,7 @@ public class NonStopManagerTest extends TestCase {
       for (int i = 0; i < 10; i++) {
         System.gc();
       }
-      for (WeakReference ref : weakReferences) {
+      for (WeakReference<Thread> ref : weakReferences) {
         if (ref.get() == null) {
           gcRefCount++;
         }
@@ -180,9 +212,21 @@ public class NonStopManagerTest extends TestCase {
 
       Thread.sleep(500);
     }
+    Assert.assertTrue("only " + gcRefCount + " threads collected", gcRefCount > 95);
+  }
 
-    System.err.println("Test passed");
+  public void testShutdownDropsTasks() throws Throwable {
+    nonStopManager.begin(TimeUnit.MINUTES.toMillis(10));
+    Assert.assertEquals(1, nonStopManager.getTasks().size());
+    nonStopManager.shutdown();
+    Assert.assertTrue(nonStopManager.getTasks().isEmpty());
 
-    Assert.assertTrue(gcRefCount > 95);
+    // an operation running across shutdown still finishes, later ones are not remembered
+    nonStopManager.finish();
+    Assert.assertFalse(abortableOperationManager.isAborted());
+    nonStopManager.begin(TimeUnit.MINUTES.toMillis(10));
+    nonStopManager.finish();
+    Assert.assertTrue(nonStopManager.getTasks().isEmpty());
+    Assert.assertEquals(0, nonStopManager.armedTimeouts());
   }
 }
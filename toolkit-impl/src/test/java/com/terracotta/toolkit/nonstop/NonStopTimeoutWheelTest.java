@@ -0,0 +1,94 @@
+/*
+ * Copyright Terracotta, Inc.
+ * Copyright IBM Corp. 2024, 2025
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.terracotta.toolkit.nonstop;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import junit.framework.TestCase;
+
+public class NonStopTimeoutWheelTest extends TestCase {
+  private NonStopTimeoutWheel wheel;
+
+  @Override
+  protected void setUp() throws Exception {
+    // a small wheel so timeouts wrap around it
+    wheel = new NonStopTimeoutWheel(5, 8);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    wheel.shutdown();
+  }
+
+  public void testFiresNoEarlierThanTimeout() throws Exception {
+    for (long timeout : new long[] { 1, 20, 100 }) {
+      TestTimeout t = new TestTimeout();
+      long start = System.nanoTime();
+      wheel.arm(t, timeout);
+      assertTrue(t.fired.await(10, TimeUnit.SECONDS));
+      assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(timeout));
+      assertEquals(0, wheel.armedCount());
+    }
+  }
+
+  public void testDisarmedTimeoutDoesNotFire() throws Exception {
+    TestTimeout t = new TestTimeout();
+    wheel.arm(t, 20);
+    assertEquals(1, wheel.armedCount());
+    assertTrue(wheel.disarm(t));
+    assertFalse(wheel.disarm(t));
+    assertEquals(0, wheel.armedCount());
+    assertFalse(t.fired.await(200, TimeUnit.MILLISECONDS));
+  }
+
+  public void testTimeoutIsReusedWithGenerations() throws Exception {
+    TestTimeout t = new TestTimeout();
+    for (int i = 1; i <= 3; i++) {
+      t.generation = i;
+      t.fired = new CountDownLatch(1);
+      wheel.arm(t, 10);
+      assertTrue(t.fired.await(10, TimeUnit.SECONDS));
+      assertEquals(i, t.firedGeneration.get());
+    }
+  }
+
+  public void testArmingTwiceFails() {
+    TestTimeout t = new TestTimeout();
+    wheel.arm(t, 10000);
+    try {
+      wheel.arm(t, 10000);
+      fail();
+    } catch (IllegalStateException e) {
+      // expected
+    } finally {
+      wheel.disarm(t);
+    }
+  }
+
+  private static class TestTimeout extends NonStopTimeoutWheel.Timeout {
+    private volatile CountDownLatch fired           = new CountDownLatch(1);
+    private final AtomicLong        firedGeneration = new AtomicLong(-1);
+
+    @Override
+    void expired(long armedGeneration) {
+      firedGeneration.set(armedGeneration);
+      fired.countDown();
+    }
+  }
+}